@@ -0,0 +1,64 @@
+package benchmark;
+
+import building.Building;
+import building.LatencyHistogram;
+import building.enums.CarType;
+import traffic.TrafficGenerator;
+import traffic.TrafficProfile;
+
+/**
+ * This class measures how much double-deck cars raise the up-peak handling capacity of a
+ * building with the same number of shafts.
+ * Two buildings get the same morning up-peak traffic, heavy enough to saturate them: one
+ * with single-deck cars and one with double-deck cars, each deck holding as many people
+ * as a single-deck car. Throughput is the number of riders taken by an elevator per 100
+ * steps.
+ */
+public class DoubleDeckBenchmark {
+  private static final int FLOORS = 30;
+
+  private static final int SHAFTS = 6;
+
+  private static final int CAPACITY = 20;
+
+  private static final int TICKS = 20_000;
+
+  /**
+   * Run the benchmark.
+   *
+   * @param args an optional arrival rate per step, 3 by default.
+   */
+  public static void main(String[] args) {
+    double arrivalsPerTick = args.length > 0 ? Double.parseDouble(args[0]) : 3.0;
+    Building singleDeck = new Building(FLOORS, SHAFTS, CAPACITY, CarType.SINGLE_DECK);
+    Building doubleDeck = new Building(FLOORS, SHAFTS, CAPACITY, CarType.DOUBLE_DECK);
+    singleDeck.startElevatorSystem();
+    doubleDeck.startElevatorSystem();
+
+    TrafficGenerator singleTraffic = new TrafficGenerator(FLOORS,
+        TrafficProfile.MORNING_UP_PEAK, arrivalsPerTick, 42);
+    TrafficGenerator doubleTraffic = new TrafficGenerator(FLOORS,
+        TrafficProfile.MORNING_UP_PEAK, arrivalsPerTick, 42);
+    long offered = 0;
+    for (int tick = 0; tick < TICKS; tick++) {
+      offered += singleTraffic.generateTick(singleDeck);
+      doubleTraffic.generateTick(doubleDeck);
+      singleDeck.stepElevatorSystem();
+      doubleDeck.stepElevatorSystem();
+    }
+
+    System.out.printf("%d floors, %d shafts, decks of %d, up-peak at %.1f riders per step,"
+            + " %d steps, %d riders offered%n", FLOORS, SHAFTS, CAPACITY, arrivalsPerTick,
+        TICKS, offered);
+    report("single-deck", singleDeck);
+    report("double-deck", doubleDeck);
+  }
+
+  private static void report(String name, Building building) {
+    LatencyHistogram latency = building.getDispatchLatency();
+    System.out.printf("%-20s throughput %.1f riders / 100 steps, mean wait %.1f steps,"
+            + " max wait %d, still waiting %d%n", name, latency.getCount() * 100.0 / TICKS,
+        latency.getMean(), latency.getMax(),
+        building.getUpRequestCount() + building.getDownRequestCount());
+  }
+}
@@ -0,0 +1,123 @@
+package benchmark;
+
+import building.Building;
+import building.LatencyHistogram;
+import building.enums.ParkingPolicy;
+import traffic.TrafficGenerator;
+import traffic.TrafficProfile;
+
+/**
+ * This class measures how much parking idle elevators cuts the wait for an elevator.
+ * A building runs two days of traffic with a morning up-peak, a lunch peak, an evening
+ * down-peak and light inter-floor traffic in between, once under each parking policy.
+ * The traffic is the same for every policy. The wait is the number of steps a request
+ * waits before it is given to an elevator, measured on the second day, so the DEMAND
+ * policy has learned from the first.
+ */
+public class ParkingBenchmark {
+  private static final int FLOORS = 30;
+
+  private static final int CARS = 6;
+
+  private static final int CAPACITY = 20;
+
+  /**
+   * A step is ten seconds.
+   */
+  private static final int STEPS_PER_HOUR = 360;
+
+  private static final int DAYS = 2;
+
+  /**
+   * The traffic profile of each hour of the day.
+   */
+  private static final TrafficProfile[] PROFILES = new TrafficProfile[24];
+
+  /**
+   * The mean number of arrivals per step in each hour of the day.
+   */
+  private static final double[] RATES = new double[24];
+
+  static {
+    for (int hour = 0; hour < 24; hour++) {
+      PROFILES[hour] = TrafficProfile.INTER_FLOOR;
+      RATES[hour] = hour < 7 || hour >= 20 ? 0.01 : 0.1;
+    }
+    hours(7, 10, TrafficProfile.MORNING_UP_PEAK, 0.6);
+    hours(12, 14, TrafficProfile.LUNCH_TWO_WAY, 0.4);
+    hours(17, 19, TrafficProfile.EVENING_DOWN_PEAK, 0.6);
+  }
+
+  private static void hours(int from, int to, TrafficProfile profile, double rate) {
+    for (int hour = from; hour < to; hour++) {
+      PROFILES[hour] = profile;
+      RATES[hour] = rate;
+    }
+  }
+
+  /**
+   * Run the benchmark.
+   *
+   * @param args not used.
+   */
+  public static void main(String[] args) {
+    System.out.printf("%d floors, %d cars of %d, %d steps per hour, wait on day %d%n",
+        FLOORS, CARS, CAPACITY, STEPS_PER_HOUR, DAYS);
+    double noParking = 0;
+    for (ParkingPolicy policy : ParkingPolicy.values()) {
+      double[] waits = run(policy);
+      if (policy == ParkingPolicy.NONE) {
+        noParking = waits[0];
+      }
+      System.out.printf("%-7s mean wait %5.1f steps (%+.0f%%), morning %5.1f, midday %5.1f,"
+              + " evening %5.1f, night %5.1f%n", policy, waits[0],
+          100 * (waits[0] - noParking) / noParking, waits[1], waits[2], waits[3], waits[4]);
+    }
+  }
+
+  /**
+   * Run the days under the policy.
+   *
+   * @return the mean wait on the last day: all day, 7-10, 10-17, 17-19 and the night.
+   */
+  private static double[] run(ParkingPolicy policy) {
+    Building building = new Building(FLOORS, CARS, CAPACITY);
+    building.setParkingPolicy(policy, STEPS_PER_HOUR);
+    building.startElevatorSystem();
+    double[] hourCount = new double[24];
+    double[] hourTotal = new double[24];
+    for (int day = 0; day < DAYS; day++) {
+      for (int hour = 0; hour < 24; hour++) {
+        TrafficGenerator generator = new TrafficGenerator(FLOORS, PROFILES[hour], RATES[hour],
+            day * 24 + hour);
+        LatencyHistogram before = building.getDispatchLatency();
+        for (int step = 0; step < STEPS_PER_HOUR; step++) {
+          generator.generateTick(building);
+          building.stepElevatorSystem();
+        }
+        LatencyHistogram after = building.getDispatchLatency();
+        hourCount[hour] = after.getCount() - before.getCount();
+        hourTotal[hour] = after.getMean() * after.getCount()
+            - before.getMean() * before.getCount();
+      }
+    }
+    return new double[] {
+        mean(hourCount, hourTotal, 0, 24), mean(hourCount, hourTotal, 7, 10),
+        mean(hourCount, hourTotal, 10, 17), mean(hourCount, hourTotal, 17, 19),
+        (mean(hourCount, hourTotal, 0, 7) * sum(hourCount, 0, 7)
+            + mean(hourCount, hourTotal, 19, 24) * sum(hourCount, 19, 24))
+            / (sum(hourCount, 0, 7) + sum(hourCount, 19, 24))};
+  }
+
+  private static double mean(double[] count, double[] total, int from, int to) {
+    return sum(total, from, to) / sum(count, from, to);
+  }
+
+  private static double sum(double[] values, int from, int to) {
+    double sum = 0;
+    for (int i = from; i < to; i++) {
+      sum += values[i];
+    }
+    return sum;
+  }
+}
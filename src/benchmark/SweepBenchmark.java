@@ -0,0 +1,60 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import simulation.SweepConfiguration;
+import simulation.SweepRunner;
+import traffic.TrafficProfile;
+
+/**
+ * This class measures how a sweep scales with the number of worker threads: the same
+ * sweep, 4 profiles by 3 building sizes with 16 seeds each, is run with 1, 2, 4, ... up to
+ * the number of processors, and the wall time and speed-up over one thread are printed.
+ */
+public class SweepBenchmark {
+  private static final int SEEDS = 16;
+
+  private static final long TICKS = 2_000;
+
+  private static final int ROUNDS = 3;
+
+  /**
+   * Run the benchmark.
+   *
+   * @param args an optional largest number of worker threads, the processors by default.
+   */
+  public static void main(String[] args) {
+    int maxParallelism = args.length > 0 ? Integer.parseInt(args[0])
+        : Runtime.getRuntime().availableProcessors();
+    List<SweepConfiguration> configurations = new ArrayList<>();
+    for (TrafficProfile profile : TrafficProfile.values()) {
+      for (int floors = 10; floors <= 30; floors += 10) {
+        configurations.add(new SweepConfiguration(floors, floors / 5, 12, profile,
+            floors / 10.0, TICKS));
+      }
+    }
+    System.out.printf("%d configurations x %d seeds x %d ticks, %d processors%n",
+        configurations.size(), SEEDS, TICKS, Runtime.getRuntime().availableProcessors());
+
+    try (SweepRunner warmUp = new SweepRunner(1)) {
+      warmUp.run(configurations, SEEDS, -1);
+    }
+    double serial = 0;
+    for (int parallelism = 1; parallelism <= maxParallelism; parallelism *= 2) {
+      long best = Long.MAX_VALUE;
+      try (SweepRunner runner = new SweepRunner(parallelism)) {
+        for (int round = 0; round < ROUNDS; round++) {
+          long start = System.nanoTime();
+          runner.run(configurations, SEEDS, round);
+          best = Math.min(best, System.nanoTime() - start);
+        }
+      }
+      double millis = best / 1e6;
+      if (parallelism == 1) {
+        serial = millis;
+      }
+      System.out.printf("%2d threads: %8.1f ms, speed-up %.2f%n", parallelism, millis,
+          serial / millis);
+    }
+  }
+}
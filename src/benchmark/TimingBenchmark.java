@@ -0,0 +1,81 @@
+package benchmark;
+
+import building.Building;
+import building.LatencyHistogram;
+import elevator.ElevatorReport;
+import elevator.TimingProfile;
+import traffic.TrafficGenerator;
+import traffic.TrafficProfile;
+
+/**
+ * This class measures how the door and end wait times of the cars change the cycle time
+ * of a short building as the queues grow.
+ * The same lunch-time traffic is run at rising arrival rates through buildings whose cars
+ * all have one timing profile: the standard one, one with short waits at the ends, and
+ * the standard one made adaptive. The cycle time is the mean number of steps a car takes
+ * to get back to the ground floor, and the queue depth is the mean number of requests
+ * waiting. Throughput is the number of riders taken by an elevator per 100 steps.
+ */
+public class TimingBenchmark {
+  private static final int FLOORS = 8;
+
+  private static final int CARS = 2;
+
+  private static final int CAPACITY = 10;
+
+  private static final int TICKS = 20_000;
+
+  private static final double[] ARRIVAL_RATES = {0.05, 0.1, 0.2, 0.4, 0.8};
+
+  /**
+   * Run the benchmark.
+   *
+   * @param args not used.
+   */
+  public static void main(String[] args) {
+    TimingProfile[] profiles = {
+        TimingProfile.STANDARD,
+        new TimingProfile(3, 1, false),
+        new TimingProfile(3, 5, true)
+    };
+    System.out.printf("%d floors, %d cars of %d, lunch traffic, %d steps%n", FLOORS, CARS,
+        CAPACITY, TICKS);
+    for (double arrivalsPerTick : ARRIVAL_RATES) {
+      for (TimingProfile profile : profiles) {
+        run(profile, arrivalsPerTick);
+      }
+    }
+  }
+
+  private static void run(TimingProfile profile, double arrivalsPerTick) {
+    Building building = new Building(FLOORS, CARS, CAPACITY);
+    for (int k = 0; k < CARS; k++) {
+      building.setTimingProfile(k, profile);
+    }
+    building.startElevatorSystem();
+    TrafficGenerator traffic = new TrafficGenerator(FLOORS, TrafficProfile.LUNCH_TWO_WAY,
+        arrivalsPerTick, 42);
+    boolean[] atGround = new boolean[CARS];
+    long cycles = 0;
+    long queued = 0;
+    for (int tick = 0; tick < TICKS; tick++) {
+      traffic.generateTick(building);
+      building.stepElevatorSystem();
+      ElevatorReport[] reports = building.getElevatorReports();
+      for (int k = 0; k < CARS; k++) {
+        boolean arrived = reports[k].getCurrentFloor() == 0;
+        if (arrived && !atGround[k]) {
+          cycles++;
+        }
+        atGround[k] = arrived;
+      }
+      queued += building.getUpRequestCount() + building.getDownRequestCount();
+    }
+    LatencyHistogram latency = building.getDispatchLatency();
+    System.out.printf("%.2f riders / step  %-48s queue depth %6.1f, cycle time %5.1f steps,"
+            + " throughput %5.1f riders / 100 steps, mean wait %6.1f steps%n",
+        arrivalsPerTick, profile, (double) queued / TICKS,
+        cycles == 0 ? 0.0 : (double) TICKS * CARS / cycles,
+        latency.getCount() * 100.0 / TICKS, latency.getMean());
+  }
+}
@@ -0,0 +1,60 @@
+package benchmark;
+
+import building.Building;
+import traffic.TrafficGenerator;
+import traffic.TrafficProfile;
+
+/**
+ * This class measures how fast a TrafficGenerator loads a building: the requests per
+ * second generated straight into Building with generateTick(Building), and, for
+ * comparison, the rate of generating Request objects for a consumer that drops them.
+ * The building is stepped every tick so its queues are drained as they would be in a
+ * simulation; only the time spent generating and adding requests is counted.
+ */
+public class TrafficBenchmark {
+  private static final int FLOORS = 30;
+
+  private static final int CARS = 8;
+
+  private static final int CAPACITY = 20;
+
+  private static final int TICKS = 20_000;
+
+  private static final int ROUNDS = 5;
+
+  /**
+   * Run the benchmark.
+   *
+   * @param args an optional arrival rate per tick, 100 by default.
+   */
+  public static void main(String[] args) {
+    double arrivalsPerTick = args.length > 0 ? Double.parseDouble(args[0]) : 100.0;
+    for (int round = 0; round < ROUNDS; round++) {
+      Building building = new Building(FLOORS, CARS, CAPACITY);
+      building.startElevatorSystem();
+      TrafficGenerator generator = new TrafficGenerator(FLOORS, TrafficProfile.LUNCH_TWO_WAY,
+          arrivalsPerTick, round);
+      long added = 0;
+      long generating = 0;
+      for (int tick = 0; tick < TICKS; tick++) {
+        long start = System.nanoTime();
+        added += generator.generateTick(building);
+        generating += System.nanoTime() - start;
+        building.stepElevatorSystem();
+      }
+
+      TrafficGenerator objects = new TrafficGenerator(FLOORS, TrafficProfile.LUNCH_TWO_WAY,
+          arrivalsPerTick, round);
+      long created = 0;
+      long start = System.nanoTime();
+      for (int tick = 0; tick < TICKS; tick++) {
+        created += objects.generateTick(request -> { });
+      }
+      long creating = System.nanoTime() - start;
+
+      System.out.printf("round %d: %d requests into Building at %.2f million / s,"
+              + " %d Request objects at %.2f million / s%n", round, added,
+          added * 1e3 / generating, created, created * 1e3 / creating);
+    }
+  }
+}
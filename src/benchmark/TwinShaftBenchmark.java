@@ -0,0 +1,136 @@
+package benchmark;
+
+import building.Building;
+import building.LatencyHistogram;
+import building.Zone;
+import elevator.Elevator;
+import elevator.ElevatorInterface;
+import elevator.Shaft;
+import java.util.Collections;
+import java.util.List;
+import scanerzus.Request;
+import traffic.TrafficGenerator;
+import traffic.TrafficProfile;
+
+/**
+ * This class measures twin shafts: how fast one can be stepped, and how much putting a
+ * second car in each shaft raises the handling capacity of a building.
+ * The stepping rate is measured on a twin shaft whose cars are given a full load of
+ * stops every time they turn round, so they spend their time moving, opening doors and
+ * holding each other up rather than idling.
+ * The capacity is measured on two buildings with the same four shafts and the same
+ * lunch-time traffic: one with a car per shaft serving every floor, and one with a lower
+ * car serving floors 1 to 15 and an upper car serving floors 16 to 29 from a base at
+ * floor 15, where riders change cars. Throughput is the number of riders taken by an
+ * elevator from the floor they called at per 100 steps.
+ */
+public class TwinShaftBenchmark {
+  private static final int FLOORS = 30;
+
+  private static final int SHAFTS = 4;
+
+  private static final int CAPACITY = 20;
+
+  private static final int TRANSFER_FLOOR = 15;
+
+  private static final long STEP_TICKS = 200_000_000L;
+
+  private static final int TICKS = 20_000;
+
+  /**
+   * Run the benchmark.
+   *
+   * @param args an optional arrival rate per step, 1 by default.
+   */
+  public static void main(String[] args) {
+    double arrivalsPerTick = args.length > 0 ? Double.parseDouble(args[0]) : 1.0;
+    measureStepping();
+    measureCapacity(arrivalsPerTick);
+  }
+
+  private static void measureStepping() {
+    Elevator lower = new Elevator(FLOORS, CAPACITY, 0, 1, TRANSFER_FLOOR);
+    Elevator upper = new Elevator(FLOORS, CAPACITY, TRANSFER_FLOOR, TRANSFER_FLOOR + 1,
+        FLOORS - 1);
+    Shaft shaft = new Shaft(lower, upper, 1);
+    lower.start();
+    upper.start();
+    List<Request> lowerUp = List.of(new Request(0, 4), new Request(6, TRANSFER_FLOOR));
+    List<Request> lowerDown = List.of(new Request(TRANSFER_FLOOR, 9), new Request(3, 0));
+    List<Request> upperUp = List.of(new Request(TRANSFER_FLOOR, 20),
+        new Request(24, FLOORS - 1));
+    List<Request> upperDown = List.of(new Request(FLOORS - 1, 22),
+        new Request(18, TRANSFER_FLOOR));
+    long start = System.nanoTime();
+    for (long tick = 0; tick < STEP_TICKS; tick++) {
+      feed(lower, lowerUp, lowerDown);
+      feed(upper, upperUp, upperDown);
+      shaft.step();
+    }
+    long elapsed = System.nanoTime() - start;
+    // a car in service is only idle when it is held back by the other car
+    long held = lower.getMetrics().getTicksIdle() + upper.getMetrics().getTicksIdle();
+    System.out.printf("twin shaft stepping: %d ticks in %.2f s, %.1f million ticks / s,"
+            + " %.1f ns / tick, a car held back on %.1f%% of ticks%n", STEP_TICKS,
+        elapsed / 1e9, STEP_TICKS * 1e3 / elapsed, (double) elapsed / STEP_TICKS,
+        held * 100.0 / STEP_TICKS);
+  }
+
+  private static void feed(ElevatorInterface car, List<Request> up, List<Request> down) {
+    if (!car.isTakingRequests()) {
+      return;
+    }
+    if (car.getCurrentFloor() == car.getBaseFloor()) {
+      car.processRequests(up);
+    } else if (car.getCurrentFloor() == car.getHighestZoneFloor()) {
+      car.processRequests(down);
+    } else {
+      car.processRequests(Collections.emptyList());
+    }
+  }
+
+  private static void measureCapacity(double arrivalsPerTick) {
+    Zone everyFloor = new Zone(1, FLOORS - 1);
+    Zone lowerRun = new Zone(1, TRANSFER_FLOOR);
+    Zone upperRun = new Zone(TRANSFER_FLOOR, TRANSFER_FLOOR + 1, FLOORS - 1);
+    Zone[][] singleShafts = new Zone[SHAFTS][];
+    Zone[][] twinShafts = new Zone[SHAFTS][];
+    for (int i = 0; i < SHAFTS; i++) {
+      singleShafts[i] = new Zone[] {everyFloor};
+      twinShafts[i] = new Zone[] {lowerRun, upperRun};
+    }
+    Building single = new Building(FLOORS, CAPACITY, singleShafts, 1);
+    Building twin = new Building(FLOORS, CAPACITY, twinShafts, 1);
+    twin.setTransferFloor(TRANSFER_FLOOR);
+    single.startElevatorSystem();
+    twin.startElevatorSystem();
+
+    TrafficGenerator singleTraffic = new TrafficGenerator(FLOORS,
+        TrafficProfile.LUNCH_TWO_WAY, arrivalsPerTick, 42);
+    TrafficGenerator twinTraffic = new TrafficGenerator(FLOORS,
+        TrafficProfile.LUNCH_TWO_WAY, arrivalsPerTick, 42);
+    long offered = 0;
+    for (int tick = 0; tick < TICKS; tick++) {
+      offered += singleTraffic.generateTick(single);
+      twinTraffic.generateTick(twin);
+      single.stepElevatorSystem();
+      twin.stepElevatorSystem();
+    }
+
+    System.out.printf("%d floors, %d shafts, cars of %d, lunch traffic at %.1f riders per"
+            + " step, %d steps, %d riders offered%n", FLOORS, SHAFTS, CAPACITY,
+        arrivalsPerTick, TICKS, offered);
+    report("one car per shaft", single);
+    report("twin 1-15 / 15-29", twin);
+    System.out.printf("%-20s mean transfer trip %.1f steps%n", "",
+        twin.getTransferLatency().getMean());
+  }
+
+  private static void report(String name, Building building) {
+    LatencyHistogram latency = building.getDispatchLatency();
+    System.out.printf("%-20s throughput %.1f riders / 100 steps, mean wait %.1f steps,"
+            + " max wait %d, still waiting %d%n", name, latency.getCount() * 100.0 / TICKS,
+        latency.getMean(), latency.getMax(),
+        building.getUpRequestCount() + building.getDownRequestCount());
+  }
+}
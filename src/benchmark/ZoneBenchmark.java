@@ -0,0 +1,115 @@
+package benchmark;
+
+import building.Building;
+import building.LatencyHistogram;
+import building.Zone;
+import java.util.ArrayList;
+import java.util.List;
+import scanerzus.Request;
+import traffic.TrafficGenerator;
+import traffic.TrafficProfile;
+
+/**
+ * This class measures how much zoning raises the handling capacity of a tall building.
+ * Buildings of the same height get the same morning up-peak traffic, heavy enough to
+ * saturate them. At 30 floors, one where every car serves every floor is compared with one
+ * split into a low-rise and a high-rise bank. An elevator serves at most 30 floors, so a
+ * 60 floor building has to be zoned. Its baseline is the fewest banks the cap allows: two
+ * banks of 30 served floors each, counting the ground floor, which leaves floor 30 to the
+ * stairs, so trips to it are left out for every building. Three banks and four are
+ * compared with it. Throughput is the number of riders taken by an elevator per 100 steps,
+ * and the gain of each building is measured against the first, the baseline.
+ */
+public class ZoneBenchmark {
+  private static final int CARS_PER_30_FLOORS = 8;
+
+  private static final int CAPACITY = 20;
+
+  private static final int TICKS = 20_000;
+
+  /**
+   * Run the benchmark.
+   *
+   * @param args an optional arrival rate per step for every 30 floors, 3 by default.
+   */
+  public static void main(String[] args) {
+    double arrivalsPerTick = args.length > 0 ? Double.parseDouble(args[0]) : 3.0;
+    run(30, arrivalsPerTick, new String[] {"conventional", "zoned 1-14 / 15-29"},
+        new int[][] {{1, 29}, {1, 14, 15, 29}});
+    run(60, 2 * arrivalsPerTick,
+        new String[] {"zoned 1-29 / 31-59", "zoned 1-19 / 20-39 / 40-59",
+            "zoned in 4 banks of 15"},
+        new int[][] {{1, 29, 31, 59}, {1, 19, 20, 39, 40, 59},
+            {1, 14, 15, 29, 30, 44, 45, 59}});
+  }
+
+  /**
+   * Run buildings that differ only in their banks on the same traffic.
+   *
+   * @param floors          the floors of each building.
+   * @param arrivalsPerTick the arrival rate per step.
+   * @param names           the name of each building, the first being the baseline.
+   * @param banks           for each building, the lowest and highest floor of each bank;
+   *                        the cars are shared out evenly between the banks.
+   */
+  private static void run(int floors, double arrivalsPerTick, String[] names,
+                          int[][] banks) {
+    int cars = CARS_PER_30_FLOORS * floors / 30;
+    Building[] buildings = new Building[banks.length];
+    for (int b = 0; b < banks.length; b++) {
+      int bankCount = banks[b].length / 2;
+      Zone[] zones = new Zone[cars];
+      for (int k = 0; k < cars; k++) {
+        int bank = k * bankCount / cars;
+        zones[k] = new Zone(banks[b][2 * bank], banks[b][2 * bank + 1]);
+      }
+      buildings[b] = new Building(floors, CAPACITY, zones);
+      buildings[b].startElevatorSystem();
+    }
+
+    TrafficGenerator generator = new TrafficGenerator(floors, TrafficProfile.MORNING_UP_PEAK,
+        arrivalsPerTick, 42);
+    List<Request> arrivals = new ArrayList<>();
+    long offered = 0;
+    for (int tick = 0; tick < TICKS; tick++) {
+      arrivals.clear();
+      generator.generateTick(arrivals::add);
+      for (Request request : arrivals) {
+        // every building gets only the trips all of them can serve without a transfer
+        if (servedByAll(buildings, request)) {
+          for (Building building : buildings) {
+            building.addRequestToElevatorSystem(request);
+          }
+          offered++;
+        }
+      }
+      for (Building building : buildings) {
+        building.stepElevatorSystem();
+      }
+    }
+
+    System.out.printf("%d floors, %d cars of %d, up-peak at %.1f riders per step, %d steps,"
+        + " %d riders offered%n", floors, cars, CAPACITY, arrivalsPerTick, TICKS, offered);
+    for (int b = 0; b < buildings.length; b++) {
+      report(names[b], buildings[b], buildings[0]);
+    }
+  }
+
+  private static boolean servedByAll(Building[] buildings, Request request) {
+    for (Building building : buildings) {
+      if (!building.isServed(request.getStartFloor(), request.getEndFloor())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void report(String name, Building building, Building baseline) {
+    LatencyHistogram latency = building.getDispatchLatency();
+    double gain = latency.getCount() * 100.0 / baseline.getDispatchLatency().getCount() - 100;
+    System.out.printf("%-28s throughput %.1f riders / 100 steps (%+.1f%%), mean wait %.1f"
+            + " steps, max wait %d, still waiting %d%n", name,
+        latency.getCount() * 100.0 / TICKS, gain, latency.getMean(), latency.getMax(),
+        building.getUpRequestCount() + building.getDownRequestCount());
+  }
+}
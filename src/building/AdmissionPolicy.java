@@ -0,0 +1,113 @@
+package building;
+
+import building.enums.OverflowPolicy;
+
+/**
+ * The admission control settings of a building: how many riders each request queue
+ * may hold, what happens to a new request when a queue is full, and how fast each
+ * request source may add requests.
+ * Rates are measured in building steps, so a simulation behaves the same however fast it runs.
+ */
+public class AdmissionPolicy {
+  /**
+   * Accept every request, from every source, as fast as it comes.
+   */
+  public static final AdmissionPolicy UNBOUNDED =
+      new AdmissionPolicy(Integer.MAX_VALUE, OverflowPolicy.REJECT, 0);
+
+  private final int maxQueuedRequests;
+
+  private final OverflowPolicy overflowPolicy;
+
+  private final long blockTimeoutMillis;
+
+  private final double requestsPerStepPerSource;
+
+  private final int burstPerSource;
+
+  /**
+   * The constructor for an admission policy without a rate limit.
+   *
+   * @param maxQueuedRequests  the most riders the up queue, and the down queue, may hold.
+   * @param overflowPolicy     what to do with a new request when its queue is full.
+   * @param blockTimeoutMillis how long a BLOCK policy waits for room, in milliseconds.
+   * @throws IllegalArgumentException if any of the arguments are out of range.
+   */
+  public AdmissionPolicy(int maxQueuedRequests, OverflowPolicy overflowPolicy,
+                         long blockTimeoutMillis) {
+    this(maxQueuedRequests, overflowPolicy, blockTimeoutMillis, 0, 0);
+  }
+
+  /**
+   * The constructor for an admission policy.
+   * Each request source gets a token bucket that holds up to burstPerSource requests and
+   * refills at requestsPerStepPerSource every step. A rate of 0 turns rate limiting off.
+   *
+   * @param maxQueuedRequests        the most riders the up queue, and the down queue, may hold.
+   * @param overflowPolicy           what to do with a new request when its queue is full.
+   * @param blockTimeoutMillis       how long a BLOCK policy waits for room, in milliseconds.
+   * @param requestsPerStepPerSource the sustained number of requests per step of each source.
+   * @param burstPerSource           the number of requests a source may add at once.
+   * @throws IllegalArgumentException if any of the arguments are out of range.
+   */
+  public AdmissionPolicy(int maxQueuedRequests, OverflowPolicy overflowPolicy,
+                         long blockTimeoutMillis, double requestsPerStepPerSource,
+                         int burstPerSource) {
+    if (maxQueuedRequests < 1) {
+      throw new IllegalArgumentException("maxQueuedRequests must be greater than or equal to 1");
+    }
+    if (overflowPolicy == null) {
+      throw new IllegalArgumentException("overflowPolicy cannot be null");
+    }
+    if (blockTimeoutMillis < 0) {
+      throw new IllegalArgumentException("blockTimeoutMillis must be greater than or equal to 0");
+    }
+    if (!(requestsPerStepPerSource >= 0) || Double.isInfinite(requestsPerStepPerSource)) {
+      throw new IllegalArgumentException("requestsPerStepPerSource must be a non-negative number");
+    }
+    if (requestsPerStepPerSource > 0 && burstPerSource < 1) {
+      throw new IllegalArgumentException("burstPerSource must be greater than or equal to 1");
+    }
+    this.maxQueuedRequests = maxQueuedRequests;
+    this.overflowPolicy = overflowPolicy;
+    this.blockTimeoutMillis = blockTimeoutMillis;
+    this.requestsPerStepPerSource = requestsPerStepPerSource;
+    this.burstPerSource = burstPerSource;
+  }
+
+  public int getMaxQueuedRequests() {
+    return this.maxQueuedRequests;
+  }
+
+  public OverflowPolicy getOverflowPolicy() {
+    return this.overflowPolicy;
+  }
+
+  public long getBlockTimeoutMillis() {
+    return this.blockTimeoutMillis;
+  }
+
+  public double getRequestsPerStepPerSource() {
+    return this.requestsPerStepPerSource;
+  }
+
+  public int getBurstPerSource() {
+    return this.burstPerSource;
+  }
+
+  /**
+   * Is a per-source rate limit set.
+   *
+   * @return true if requests are rate limited.
+   */
+  public boolean isRateLimited() {
+    return this.requestsPerStepPerSource > 0;
+  }
+
+  @Override
+  public String toString() {
+    return "AdmissionPolicy{max=" + this.maxQueuedRequests + ", overflow=" + this.overflowPolicy
+        + ", timeout=" + this.blockTimeoutMillis + "ms, rate=" + this.requestsPerStepPerSource
+        + "/step, burst=" + this.burstPerSource + "}";
+  }
+}
@@ -1,13 +1,45 @@
 package building;
 
+import building.enums.CarType;
+import building.enums.Direction;
+import building.enums.DispatchPolicy;
 import building.enums.ElevatorSystemStatus;
+import building.enums.OverflowPolicy;
+import building.enums.ParkingPolicy;
+import building.jfr.DispatchEvent;
+import building.jfr.DistributeEvent;
+import building.jfr.ElevatorStepsEvent;
+import building.jfr.SnapshotEvent;
+import building.jfr.TickEvent;
+import dispatch.ArrivalRateEstimator;
+import dispatch.AssignmentEngine;
+import dispatch.EtaCalculator;
+import dispatch.ParkingPlanner;
+import elevator.DoubleDeckElevator;
 import elevator.Elevator;
+import elevator.ElevatorCheckpoints;
 import elevator.ElevatorInterface;
+import elevator.ElevatorMetrics;
 import elevator.ElevatorReport;
+import elevator.Kinematics;
+import elevator.TimingProfile;
+import elevator.Shaft;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.IntStream;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import scanerzus.Request;
 
 /**
@@ -16,8 +48,55 @@ import scanerzus.Request;
  * The building object is responsible for managing the elevator system and
  * distributing requests to the elevators.
  * It implements the BuildingInterface.
+ * Requests may be added from any thread; the queues are guarded by an intake lock so
+ * producers can wait for room under a BLOCK admission policy. The system status changes
+ * only under that lock, and a producer checks it again once it holds the lock, so no
+ * request is queued into a stopping or stopped building. Everything else must be called
+ * from the thread that steps the building.
  */
 public class Building implements BuildingInterface {
+  /**
+   * The magic number at the start of every checkpoint ("BLDG").
+   */
+  private static final int CHECKPOINT_MAGIC = 0x424C4447;
+
+  /**
+   * The version of the checkpoint format. Bump it whenever the layout changes.
+   */
+  private static final short CHECKPOINT_VERSION = 10;
+
+  /**
+   * The size of the checkpoint header: magic, version and payload length.
+   */
+  private static final int CHECKPOINT_HEADER_SIZE = 4 + 2 + 4;
+
+  /**
+   * The largest checkpoint payload, 64 MiB, so a corrupt length cannot make a restore
+   * allocate an arbitrary buffer. It holds millions of queued requests.
+   */
+  private static final int MAX_CHECKPOINT_LENGTH = 64 << 20;
+
+  /**
+   * The time budget of one assignment under the OPTIMAL dispatch policy, five
+   * milliseconds: an exact solve for 64 cars and 1,000 calls takes about 1.5.
+   */
+  private static final long DEFAULT_ASSIGNMENT_BUDGET_NANOS = 5_000_000L;
+
+  /**
+   * The number of steps in an hour of the day for the parking policy, a step a second.
+   */
+  private static final long DEFAULT_STEPS_PER_HOUR = 3600;
+
+  /**
+   * The time constant of the arrival rates, five minutes at a step a second.
+   */
+  private static final double ARRIVAL_RATE_TIME_CONSTANT = 300;
+
+  /**
+   * The most decks a car can have.
+   */
+  private static final int MAX_DECKS = 2;
+
   private final int numberOfFloors;
 
   private final int numberOfElevators;
@@ -26,11 +105,205 @@ public class Building implements BuildingInterface {
 
   private final ElevatorInterface[] elevators;
 
-  private final List<Request> upRequests = new ArrayList<>();
+  /**
+   * The shafts the elevators run in, each holding one elevator or a twin pair. The
+   * elevators of a shaft are next to each other in elevators, the lower one first.
+   */
+  private final Shaft[] shafts;
+
+  private final AdmissionPolicy admissionPolicy;
+
+  /**
+   * The per-source token buckets, or null if the admission policy has no rate limit.
+   */
+  private final RateLimiter rateLimiter;
+
+  /**
+   * Guards the request queues, the hall call index and the admission counters.
+   */
+  private final ReentrantLock intakeLock = new ReentrantLock();
+
+  /**
+   * Signalled when requests leave the queues, for producers blocked on a full queue.
+   */
+  private final Condition queueSpace = this.intakeLock.newCondition();
+
+  /**
+   * The waiting up requests, packed with PackedRequest. Request objects are only
+   * created when the requests leave the building, in reports and in processRequests.
+   */
+  private final LongRingQueue upRequests;
+
+  /**
+   * The waiting down requests, packed with PackedRequest.
+   */
+  private final LongRingQueue downRequests;
+
+  /**
+   * The waiting requests indexed by start floor and direction, kept in step with the queues.
+   */
+  private final HallCallIndex hallCalls;
+
+  /**
+   * The queue sequence number of the newest request for each (start, end) pair,
+   * indexed by start * numberOfFloors + end. Only the low 32 bits are kept; an entry is
+   * used only after checking that it is still queued and still has the same floors,
+   * so stale entries are harmless and never need clearing.
+   */
+  private final int[] openRequests;
+
+  /**
+   * Whether some elevator serves both floors of each (start, end) pair, indexed like
+   * openRequests, or null if every elevator serves every floor.
+   */
+  private final boolean[] servedPairs;
+
+  /**
+   * The queue positions of the requests given to one elevator. Reused every step.
+   */
+  private final int[] takenPositions;
+
+  /**
+   * The riders given to each deck of one elevator. Reused every step.
+   */
+  private final int[] deckRiders = new int[MAX_DECKS];
+
+  /**
+   * For each elevator, the second legs of the riders it is taking to the transfer floor.
+   * They are queued when it opens its doors there.
+   */
+  private final LongRingQueue[] transfersOnBoard;
+
+  /**
+   * For each elevator, the second legs it was given. They are kept until it opens its doors
+   * at their end floor, when the end-to-end latency of their riders is recorded.
+   */
+  private final LongRingQueue[] secondLegsOnBoard;
+
+  /**
+   * The floor where riders change elevators, or -1 if requests are never split.
+   */
+  private int transferFloor = -1;
+
+  /**
+   * The number of riders in the up and down queues. A queue entry can hold several riders.
+   */
+  private int upRiders;
+
+  private int downRiders;
+
+  /**
+   * The requests turned away because their queue was full.
+   */
+  private long rejectedRequests;
+
+  /**
+   * The waiting riders dropped to make room for newer requests.
+   */
+  private long droppedRequests;
+
+  /**
+   * The requests turned away because their source was over its rate.
+   */
+  private long rateLimitedRequests;
+
+  /**
+   * The number of steps a request waited in the queue before it was given to an elevator.
+   */
+  private final LatencyHistogram dispatchLatency = new LatencyHistogram();
+
+  /**
+   * The number of steps from a transferring rider's request until the rider got off at
+   * the end of the second leg.
+   */
+  private final LatencyHistogram transferLatency = new LatencyHistogram();
+
+  /**
+   * The current rates of arrivals, updated with every request accepted.
+   */
+  private final ArrivalRateEstimator arrivalRates;
+
+  /**
+   * The listeners run at the end of every step.
+   */
+  private final List<Runnable> stepListeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * The system status, read by producers before they take the intake lock and only
+   * changed under it.
+   */
+  private volatile ElevatorSystemStatus elevatorsStatus;
+
+  private DispatchPolicy dispatchPolicy = DispatchPolicy.FIFO;
+
+  /**
+   * Assigns requests to elevators under the OPTIMAL dispatch policy, or null under FIFO.
+   * It is kept from step to step so its arrays are reused.
+   */
+  private AssignmentEngine assignmentEngine;
+
+  /**
+   * Parks the idle elevators and keeps the arrival history it plans from, or null if
+   * no parking policy was set.
+   */
+  private ParkingPlanner parkingPlanner;
+
+  /**
+   * The requests taking part in an assignment, oldest first, and where each one is in
+   * its queue. Reused every step.
+   */
+  private long[] assignedRequests = new long[0];
+
+  private int[] assignedPositions = new int[0];
 
-  private final List<Request> downRequests = new ArrayList<>();
+  private int[] upPositions = new int[0];
 
-  private ElevatorSystemStatus elevatorsStatus;
+  private int[] downPositions = new int[0];
+
+  /**
+   * The first call of each request taking part in an assignment: its riders are the
+   * calls from there up to the first call of the next request. Reused every step.
+   */
+  private int[] firstCalls = new int[1];
+
+  /**
+   * The key of each call of an assignment: the id of its request and its place among
+   * the request's riders, so a call kept waiting keeps its key from step to step and the
+   * engine can start from the last step's assignment. Reused every step.
+   */
+  private long[] callKeys = new long[0];
+
+  /**
+   * The rider capacity, predicted departure, riders given and a list of the trips given
+   * riders of one request, for each trip of an assignment. Reused every step.
+   */
+  private int[] tripCapacities = new int[0];
+
+  private long[] tripDepartures = new long[0];
+
+  private int[] tripRiders = new int[0];
+
+  private int[] touchedTrips = new int[0];
+
+  /**
+   * The riders given to each deck of each car in an assignment. Reused every step.
+   */
+  private int[] deckLoad = new int[0];
+
+  /**
+   * The requests given to each car in an assignment. Reused every step.
+   */
+  private List<List<Request>> assignedToCar = new ArrayList<>();
+
+  /**
+   * The steps taken, read by producers to time their requests.
+   */
+  private volatile long stepCount;
+
+  /**
+   * The id given to the next request, a rolling 11 bit counter.
+   */
+  private int nextRequestId;
 
   /**
    * The constructor for the building class.
@@ -42,22 +315,399 @@ public class Building implements BuildingInterface {
    */
   public Building(int numberOfFloors, int numberOfElevators, int elevatorCapacity)
       throws IllegalArgumentException {
+    this(numberOfFloors, numberOfElevators, elevatorCapacity, AdmissionPolicy.UNBOUNDED);
+  }
+
+  /**
+   * The constructor for the building class with admission control.
+   * It initializes the building with the given number of floors, elevators, and elevator
+   * capacity, and bounds its request intake with the admission policy.
+   *
+   * @param numberOfFloors The number of floors in the building.
+   * @param numberOfElevators The number of elevators in the building.
+   * @param elevatorCapacity The capacity of each elevator.
+   * @param admissionPolicy The admission policy for new requests.
+   */
+  public Building(int numberOfFloors, int numberOfElevators, int elevatorCapacity,
+                  AdmissionPolicy admissionPolicy) throws IllegalArgumentException {
+    this(numberOfFloors, elevatorCapacity,
+        fullZones(numberOfFloors, numberOfElevators, elevatorCapacity), admissionPolicy);
+  }
+
+  /**
+   * The constructor for a building with double-deck elevators.
+   * Every elevator has cars of the given type and serves every floor. The capacity of
+   * a double-deck car is the capacity of each of its decks.
+   *
+   * @param numberOfFloors The number of floors in the building.
+   * @param numberOfElevators The number of elevators in the building.
+   * @param elevatorCapacity The capacity of each elevator, or of each deck.
+   * @param carType The type of the cars.
+   */
+  public Building(int numberOfFloors, int numberOfElevators, int elevatorCapacity,
+                  CarType carType) throws IllegalArgumentException {
+    this(numberOfFloors, elevatorCapacity,
+        singleCarShafts(fullZones(numberOfFloors, numberOfElevators, elevatorCapacity)), 1,
+        carType, AdmissionPolicy.UNBOUNDED);
+  }
+
+  /**
+   * The constructor for a building with zoned elevators.
+   * It initializes the building with one elevator for each zone. A request is only
+   * accepted if some elevator serves both its floors, and is only given to such elevators.
+   *
+   * @param numberOfFloors The number of floors in the building.
+   * @param elevatorCapacity The capacity of each elevator.
+   * @param zones The zone of each elevator.
+   */
+  public Building(int numberOfFloors, int elevatorCapacity, Zone[] zones)
+      throws IllegalArgumentException {
+    this(numberOfFloors, elevatorCapacity, zones, AdmissionPolicy.UNBOUNDED);
+  }
+
+  /**
+   * The constructor for a building with zoned elevators and admission control.
+   *
+   * @param numberOfFloors The number of floors in the building.
+   * @param elevatorCapacity The capacity of each elevator.
+   * @param zones The zone of each elevator.
+   * @param admissionPolicy The admission policy for new requests.
+   */
+  public Building(int numberOfFloors, int elevatorCapacity, Zone[] zones,
+                  AdmissionPolicy admissionPolicy) throws IllegalArgumentException {
+    this(numberOfFloors, elevatorCapacity, singleCarShafts(zones), 1, admissionPolicy);
+  }
+
+  /**
+   * The constructor for a building with twin shafts.
+   * Each shaft holds one elevator, or two elevators one above the other that are kept at
+   * least minimumSeparation floors apart. The upper elevator of a twin shaft needs a zone
+   * with a base floor above the run of the lower one, so its run overlaps the lower
+   * one's by less than the separation.
+   *
+   * @param numberOfFloors The number of floors in the building.
+   * @param elevatorCapacity The capacity of each elevator.
+   * @param shafts The zones of the elevators of each shaft, the lower elevator first.
+   * @param minimumSeparation The fewest floors between the elevators of a twin shaft.
+   */
+  public Building(int numberOfFloors, int elevatorCapacity, Zone[][] shafts,
+                  int minimumSeparation) throws IllegalArgumentException {
+    this(numberOfFloors, elevatorCapacity, shafts, minimumSeparation,
+        AdmissionPolicy.UNBOUNDED);
+  }
+
+  /**
+   * The constructor for a building with twin shafts and admission control.
+   *
+   * @param numberOfFloors The number of floors in the building.
+   * @param elevatorCapacity The capacity of each elevator.
+   * @param shafts The zones of the elevators of each shaft, the lower elevator first.
+   * @param minimumSeparation The fewest floors between the elevators of a twin shaft.
+   * @param admissionPolicy The admission policy for new requests.
+   */
+  public Building(int numberOfFloors, int elevatorCapacity, Zone[][] shafts,
+                  int minimumSeparation, AdmissionPolicy admissionPolicy)
+      throws IllegalArgumentException {
+    this(numberOfFloors, elevatorCapacity, shafts, minimumSeparation, CarType.SINGLE_DECK,
+        admissionPolicy);
+  }
+
+  /**
+   * The constructor every new building goes through, with the type of its cars.
+   */
+  private Building(int numberOfFloors, int elevatorCapacity, Zone[][] shafts,
+                   int minimumSeparation, CarType carType, AdmissionPolicy admissionPolicy) {
+    if (shafts == null) {
+      throw new IllegalArgumentException("shafts cannot be null");
+    }
+    if (carType == null) {
+      throw new IllegalArgumentException("carType cannot be null");
+    }
+    int cars = 0;
+    for (Zone[] shaft : shafts) {
+      if (shaft == null || shaft.length < 1 || shaft.length > 2) {
+        throw new IllegalArgumentException("Every shaft must have one or two zones");
+      }
+      for (Zone zone : shaft) {
+        if (zone == null || zone.getHighestFloor() >= numberOfFloors) {
+          throw new IllegalArgumentException("Every zone must be within floors 1 to "
+              + (numberOfFloors - 1));
+        }
+      }
+      cars += shaft.length;
+    }
+    checkConfiguration(numberOfFloors, cars, elevatorCapacity);
+    if (admissionPolicy == null) {
+      throw new IllegalArgumentException("admissionPolicy cannot be null");
+    }
+    this.admissionPolicy = admissionPolicy;
+    this.rateLimiter = newRateLimiter(admissionPolicy);
+    this.numberOfFloors = numberOfFloors;
+    this.numberOfElevators = cars;
+    this.elevatorCapacity = elevatorCapacity;
+    this.elevators = new Elevator[this.numberOfElevators];
+    this.shafts = new Shaft[shafts.length];
+    int first = 0;
+    for (int i = 0; i < shafts.length; i++) {
+      for (Zone zone : shafts[i]) {
+        this.elevators[first++] = carType == CarType.DOUBLE_DECK
+            ? new DoubleDeckElevator(numberOfFloors, this.elevatorCapacity)
+            : new Elevator(numberOfFloors, this.elevatorCapacity, zone.getBaseFloor(),
+                zone.getLowestFloor(), zone.getHighestFloor());
+      }
+      this.shafts[i] = newShaft(this.elevators, first - shafts[i].length, shafts[i].length,
+          minimumSeparation);
+    }
+    this.servedPairs = servedPairs(this.elevators, numberOfFloors);
+    this.upRequests = new LongRingQueue();
+    this.downRequests = new LongRingQueue();
+    this.hallCalls = new HallCallIndex(numberOfFloors);
+    this.openRequests = new int[numberOfFloors * numberOfFloors];
+    this.takenPositions = new int[elevatorCapacity * MAX_DECKS];
+    this.transfersOnBoard = newLegQueues(this.numberOfElevators);
+    this.secondLegsOnBoard = newLegQueues(this.numberOfElevators);
+    this.arrivalRates = new ArrivalRateEstimator(numberOfFloors, ARRIVAL_RATE_TIME_CONSTANT);
+    this.elevatorsStatus = ElevatorSystemStatus.outOfService;
+  }
+
+  /**
+   * The restore constructor for the building class.
+   * It reads a checkpoint written by checkpoint and rebuilds the building,
+   * every elevator, both request queues and the dispatch and parking policies exactly as
+   * they were.
+   *
+   * @param channel The channel to read the checkpoint from.
+   * @throws IOException if the channel fails or the checkpoint is not a valid checkpoint.
+   */
+  public Building(ReadableByteChannel channel) throws IOException {
+    this(channel, AdmissionPolicy.UNBOUNDED);
+  }
+
+  /**
+   * The restore constructor for the building class with admission control.
+   * The admission policy is not part of the checkpoint, so it is given again here.
+   * Requests already in the checkpoint are restored even if they exceed the policy's bound.
+   *
+   * @param channel The channel to read the checkpoint from.
+   * @param admissionPolicy The admission policy for new requests.
+   * @throws IOException if the channel fails or the checkpoint is not a valid checkpoint.
+   */
+  public Building(ReadableByteChannel channel, AdmissionPolicy admissionPolicy)
+      throws IOException {
+    if (admissionPolicy == null) {
+      throw new IllegalArgumentException("admissionPolicy cannot be null");
+    }
+    this.admissionPolicy = admissionPolicy;
+    this.rateLimiter = newRateLimiter(admissionPolicy);
+    ByteBuffer header = ByteBuffer.allocate(CHECKPOINT_HEADER_SIZE);
+    readFully(channel, header);
+    if (header.getInt() != CHECKPOINT_MAGIC) {
+      throw new IOException("Not a building checkpoint");
+    }
+    short version = header.getShort();
+    if (version != CHECKPOINT_VERSION) {
+      throw new IOException("Unsupported checkpoint version " + version);
+    }
+    int length = header.getInt();
+    if (length < 0 || length > MAX_CHECKPOINT_LENGTH) {
+      throw new IOException("Corrupt checkpoint length " + length);
+    }
+    ByteBuffer payload = ByteBuffer.allocate(length);
+    readFully(channel, payload);
+    this.upRequests = new LongRingQueue();
+    this.downRequests = new LongRingQueue();
+    try {
+      this.numberOfFloors = payload.getInt();
+      this.numberOfElevators = payload.getInt();
+      this.elevatorCapacity = payload.getInt();
+      checkConfiguration(this.numberOfFloors, this.numberOfElevators, this.elevatorCapacity);
+      this.hallCalls = new HallCallIndex(this.numberOfFloors);
+      this.openRequests = new int[this.numberOfFloors * this.numberOfFloors];
+      this.takenPositions = new int[this.elevatorCapacity * MAX_DECKS];
+      byte status = payload.get();
+      if (status < 0 || status >= ElevatorSystemStatus.values().length) {
+        throw new IllegalArgumentException("Unknown system status " + status);
+      }
+      this.elevatorsStatus = ElevatorSystemStatus.values()[status];
+      this.stepCount = payload.getLong();
+      this.nextRequestId = payload.getShort() & 0xFFFF;
+      this.transferFloor = payload.getInt();
+      if (this.transferFloor < -1 || this.transferFloor >= this.numberOfFloors) {
+        throw new IllegalArgumentException("transfer floor " + this.transferFloor);
+      }
+      this.elevators = new ElevatorInterface[this.numberOfElevators];
+      for (int i = 0; i < this.numberOfElevators; i++) {
+        this.elevators[i] = ElevatorCheckpoints.read(payload);
+        if (this.elevators[i].getMaxFloor() != this.numberOfFloors) {
+          throw new IllegalArgumentException("Elevator " + i + " has the wrong number of floors");
+        }
+      }
+      this.shafts = readShafts(payload, this.elevators);
+      this.servedPairs = servedPairs(this.elevators, this.numberOfFloors);
+      readRequests(payload, this.upRequests, Direction.UP);
+      readRequests(payload, this.downRequests, Direction.DOWN);
+      this.transfersOnBoard = newLegQueues(this.numberOfElevators);
+      this.secondLegsOnBoard = newLegQueues(this.numberOfElevators);
+      for (int i = 0; i < this.numberOfElevators; i++) {
+        readLegs(payload, this.transfersOnBoard[i]);
+        readLegs(payload, this.secondLegsOnBoard[i]);
+      }
+      readDispatchPolicy(payload);
+      this.arrivalRates = new ArrivalRateEstimator(payload);
+      if ((this.parkingPlanner != null
+          && this.parkingPlanner.getNumberOfFloors() != this.numberOfFloors)
+          || this.arrivalRates.getNumberOfFloors() != this.numberOfFloors) {
+        throw new IllegalArgumentException("arrival history has the wrong number of floors");
+      }
+    } catch (IllegalArgumentException | BufferUnderflowException e) {
+      throw new IOException("Corrupt checkpoint: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * The copy constructor used by fork.
+   * The dispatch and transfer latency statistics are not copied; the fork starts with none.
+   * The arrival rates are copied.
+   * The admission policy, rate limiter buckets and admission counters are copied.
+   * The caller must hold the source's intake lock.
+   *
+   * @param source The building to copy.
+   */
+  private Building(Building source) {
+    this.admissionPolicy = source.admissionPolicy;
+    this.rateLimiter = source.rateLimiter == null ? null : new RateLimiter(source.rateLimiter);
+    this.rejectedRequests = source.rejectedRequests;
+    this.droppedRequests = source.droppedRequests;
+    this.rateLimitedRequests = source.rateLimitedRequests;
+    this.numberOfFloors = source.numberOfFloors;
+    this.numberOfElevators = source.numberOfElevators;
+    this.elevatorCapacity = source.elevatorCapacity;
+    this.elevators = new ElevatorInterface[source.elevators.length];
+    for (int i = 0; i < source.elevators.length; i++) {
+      this.elevators[i] = source.elevators[i].fork();
+    }
+    this.shafts = new Shaft[source.shafts.length];
+    int first = 0;
+    for (int i = 0; i < source.shafts.length; i++) {
+      this.shafts[i] = newShaft(this.elevators, first, source.shafts[i].getNumberOfCars(),
+          source.shafts[i].getMinimumSeparation());
+      first += source.shafts[i].getNumberOfCars();
+    }
+    this.servedPairs = source.servedPairs;
+    this.upRequests = new LongRingQueue(source.upRequests);
+    this.downRequests = new LongRingQueue(source.downRequests);
+    this.hallCalls = new HallCallIndex(source.hallCalls);
+    this.openRequests = source.openRequests.clone();
+    this.takenPositions = new int[this.elevatorCapacity * MAX_DECKS];
+    this.arrivalRates = new ArrivalRateEstimator(source.arrivalRates);
+    this.transferFloor = source.transferFloor;
+    this.transfersOnBoard = new LongRingQueue[this.numberOfElevators];
+    this.secondLegsOnBoard = new LongRingQueue[this.numberOfElevators];
+    for (int i = 0; i < this.numberOfElevators; i++) {
+      this.transfersOnBoard[i] = new LongRingQueue(source.transfersOnBoard[i]);
+      this.secondLegsOnBoard[i] = new LongRingQueue(source.secondLegsOnBoard[i]);
+    }
+    this.upRiders = source.upRiders;
+    this.downRiders = source.downRiders;
+    this.elevatorsStatus = source.elevatorsStatus;
+    this.dispatchPolicy = source.dispatchPolicy;
+    if (source.assignmentEngine != null) {
+      this.assignmentEngine = new AssignmentEngine(source.assignmentEngine.getBudgetNanos());
+    }
+    if (source.parkingPlanner != null) {
+      this.parkingPlanner = new ParkingPlanner(source.parkingPlanner);
+    }
+    this.stepCount = source.stepCount;
+    this.nextRequestId = source.nextRequestId;
+  }
+
+  private static Zone[][] singleCarShafts(Zone[] zones) {
+    if (zones == null) {
+      throw new IllegalArgumentException("zones cannot be null");
+    }
+    Zone[][] shafts = new Zone[zones.length][];
+    for (int i = 0; i < zones.length; i++) {
+      shafts[i] = new Zone[] {zones[i]};
+    }
+    return shafts;
+  }
+
+  /**
+   * Makes the shaft of the numberOfCars elevators starting at elevators[first].
+   */
+  private static Shaft newShaft(ElevatorInterface[] elevators, int first, int numberOfCars,
+                                int minimumSeparation) {
+    if (numberOfCars == 1) {
+      return new Shaft(elevators[first]);
+    }
+    return new Shaft(elevators[first], elevators[first + 1], minimumSeparation);
+  }
+
+  private static Zone[] fullZones(int numberOfFloors, int numberOfElevators,
+                                  int elevatorCapacity) {
+    checkConfiguration(numberOfFloors, numberOfElevators, elevatorCapacity);
+    Zone[] zones = new Zone[numberOfElevators];
+    Arrays.fill(zones, new Zone(1, numberOfFloors - 1));
+    return zones;
+  }
+
+  /**
+   * Works out which (start, end) pairs some elevator serves, or returns null if every
+   * elevator serves every floor.
+   */
+  private static boolean[] servedPairs(ElevatorInterface[] elevators, int numberOfFloors) {
+    boolean zoned = false;
+    for (ElevatorInterface elevator : elevators) {
+      for (int floor = 0; floor < numberOfFloors; floor++) {
+        zoned |= !elevator.servesFloor(floor);
+      }
+    }
+    if (!zoned) {
+      return null;
+    }
+    boolean[] served = new boolean[numberOfFloors * numberOfFloors];
+    for (ElevatorInterface elevator : elevators) {
+      for (int start = 0; start < numberOfFloors; start++) {
+        for (int end = 0; end < numberOfFloors; end++) {
+          served[start * numberOfFloors + end] |= elevator.servesFloor(start)
+              && elevator.servesFloor(end);
+        }
+      }
+    }
+    return served;
+  }
+
+  private static LongRingQueue[] newLegQueues(int numberOfElevators) {
+    LongRingQueue[] legs = new LongRingQueue[numberOfElevators];
+    for (int i = 0; i < numberOfElevators; i++) {
+      legs[i] = new LongRingQueue();
+    }
+    return legs;
+  }
+
+  private static RateLimiter newRateLimiter(AdmissionPolicy admissionPolicy) {
+    if (!admissionPolicy.isRateLimited()) {
+      return null;
+    }
+    return new RateLimiter(admissionPolicy.getRequestsPerStepPerSource(),
+        admissionPolicy.getBurstPerSource());
+  }
+
+  private static void checkConfiguration(int numberOfFloors, int numberOfElevators,
+                                         int elevatorCapacity) {
     if (numberOfFloors < 2) {
       throw new IllegalArgumentException("numberOfFloors must be greater than or equal to 2");
     }
+    if (numberOfFloors > PackedRequest.MAX_FLOORS) {
+      throw new IllegalArgumentException("numberOfFloors must be less than or equal to "
+          + PackedRequest.MAX_FLOORS);
+    }
     if (numberOfElevators < 1) {
       throw new IllegalArgumentException("numberOfElevators must be greater than or equal to 1");
     }
     if (elevatorCapacity < 1) {
       throw new IllegalArgumentException("maxOccupancy must be greater than or equal to 1");
     }
-    this.numberOfFloors = numberOfFloors;
-    this.numberOfElevators = numberOfElevators;
-    this.elevatorCapacity = elevatorCapacity;
-    this.elevators = new Elevator[numberOfElevators];
-    IntStream.range(0, numberOfElevators).forEach(i -> this.elevators[i] =
-        new Elevator(numberOfFloors, this.elevatorCapacity));
-    this.elevatorsStatus = ElevatorSystemStatus.outOfService;
   }
 
   /**
@@ -74,7 +724,12 @@ public class Building implements BuildingInterface {
       throw new IllegalStateException("Elevator cannot be started until it is stopped");
     }
     Arrays.stream(this.elevators).forEach(ElevatorInterface::start);
-    this.elevatorsStatus = ElevatorSystemStatus.running;
+    this.intakeLock.lock();
+    try {
+      this.elevatorsStatus = ElevatorSystemStatus.running;
+    } finally {
+      this.intakeLock.unlock();
+    }
   }
 
   /**
@@ -88,42 +743,467 @@ public class Building implements BuildingInterface {
   public void stopElevatorSystem() {
     if (this.elevatorsStatus != ElevatorSystemStatus.outOfService
         && this.elevatorsStatus != ElevatorSystemStatus.stopping) {
-      for (ElevatorInterface elevator : this.elevators) {
-        elevator.takeOutOfService();
+      this.intakeLock.lock();
+      try {
         this.elevatorsStatus = ElevatorSystemStatus.stopping;
-        this.upRequests.clear();
-        this.downRequests.clear();
+        for (ElevatorInterface elevator : this.elevators) {
+          elevator.takeOutOfService();
+          this.upRequests.clear();
+          this.downRequests.clear();
+          this.hallCalls.clear();
+          this.upRiders = 0;
+          this.downRiders = 0;
+        }
+        clearLegs();
+        // blocked producers wake up and find the system stopping
+        this.queueSpace.signalAll();
+      } finally {
+        this.intakeLock.unlock();
       }
     }
   }
 
+  /**
+   * Resets the building to the state it was constructed in.
+   * Every elevator is returned to the ground floor out of service, the request queues
+   * are cleared, the step count goes back to 0 and the dispatch latency statistics,
+   * admission counters, arrival rates, arrival history of the parking policy and last
+   * assignment of the optimal dispatch policy are cleared. This lets a simulation reuse a
+   * building instead of allocating a new one.
+   */
+  public void reset() {
+    for (ElevatorInterface elevator : this.elevators) {
+      elevator.reset();
+    }
+    this.intakeLock.lock();
+    try {
+      this.upRequests.clear();
+      this.downRequests.clear();
+      this.hallCalls.clear();
+      this.upRiders = 0;
+      this.downRiders = 0;
+      clearLegs();
+      this.rejectedRequests = 0;
+      this.droppedRequests = 0;
+      this.rateLimitedRequests = 0;
+      if (this.rateLimiter != null) {
+        this.rateLimiter.clear();
+      }
+      if (this.parkingPlanner != null) {
+        this.parkingPlanner.clear();
+      }
+      if (this.assignmentEngine != null) {
+        // request ids start again from 0
+        this.assignmentEngine.reset();
+      }
+      this.elevatorsStatus = ElevatorSystemStatus.outOfService;
+      this.queueSpace.signalAll();
+    } finally {
+      this.intakeLock.unlock();
+    }
+    this.dispatchLatency.clear();
+    this.transferLatency.clear();
+    this.arrivalRates.clear();
+    this.stepCount = 0;
+    this.nextRequestId = 0;
+  }
+
+  private void clearLegs() {
+    for (int i = 0; i < this.numberOfElevators; i++) {
+      this.transfersOnBoard[i].clear();
+      this.secondLegsOnBoard[i].clear();
+    }
+  }
+
   public int getNumberOfFloors() {
     return this.numberOfFloors;
   }
 
-  public int getNumberOfElevators() {
-    return this.numberOfElevators;
+  public int getNumberOfElevators() {
+    return this.numberOfElevators;
+  }
+
+  public int getElevatorCapacity() {
+    return this.elevatorCapacity;
+  }
+
+  public AdmissionPolicy getAdmissionPolicy() {
+    return this.admissionPolicy;
+  }
+
+  /**
+   * Gets the number of steps the elevator system has taken since it was built or reset.
+   *
+   * @return The number of steps.
+   */
+  public long getStepCount() {
+    return this.stepCount;
+  }
+
+  /**
+   * Gets the number of steps each request waited in a queue before it was given
+   * to an elevator, counting only the first leg of a transfer.
+   * The histogram is a copy and does not change as the building runs.
+   *
+   * @return The dispatch latency histogram.
+   */
+  public LatencyHistogram getDispatchLatency() {
+    return new LatencyHistogram(this.dispatchLatency);
+  }
+
+  /**
+   * Gets the number of steps from each transferring rider's request until the rider got
+   * off at the end of the second leg. The histogram is a copy.
+   *
+   * @return The transfer latency histogram.
+   */
+  public LatencyHistogram getTransferLatency() {
+    return new LatencyHistogram(this.transferLatency);
+  }
+
+  /**
+   * Gets the current rates of arrivals at each floor and between each pair of floors,
+   * decayed with a time constant of 300 steps. The estimator is live and can be read
+   * from any thread without locking.
+   *
+   * @return The arrival rate estimator.
+   */
+  public ArrivalRateEstimator getArrivalRates() {
+    return this.arrivalRates;
+  }
+
+  /**
+   * Gets the number of up requests waiting to be given to an elevator.
+   * Every rider counts, including riders coalesced into one queue entry.
+   *
+   * @return The number of waiting up requests.
+   */
+  public int getUpRequestCount() {
+    return this.upRiders;
+  }
+
+  /**
+   * Gets the number of down requests waiting to be given to an elevator.
+   * Every rider counts, including riders coalesced into one queue entry.
+   *
+   * @return The number of waiting down requests.
+   */
+  public int getDownRequestCount() {
+    return this.downRiders;
+  }
+
+  /**
+   * Checks if a request between the floors can be taken: some elevator serves both floors,
+   * or one serves the start floor and the transfer floor and one the transfer floor and
+   * the end floor. Every pair of floors is served unless the elevators are zoned.
+   *
+   * @param startFloor The floor the request starts at.
+   * @param endFloor The floor the request ends at.
+   * @return true if the request can be taken.
+   */
+  public boolean isServed(int startFloor, int endFloor) {
+    return isServedDirectly(startFloor, endFloor)
+        || (this.transferFloor >= 0 && isServedDirectly(startFloor, this.transferFloor)
+        && isServedDirectly(this.transferFloor, endFloor));
+  }
+
+  private boolean isServedDirectly(int startFloor, int endFloor) {
+    return startFloor != endFloor && (this.servedPairs == null
+        || this.servedPairs[startFloor * this.numberOfFloors + endFloor]);
+  }
+
+  /**
+   * The floor the first leg of a request ends at: its end floor if some elevator serves
+   * both its floors, or else the transfer floor.
+   */
+  private int legEndFloor(long packed) {
+    int startFloor = PackedRequest.getStartFloor(packed);
+    int endFloor = PackedRequest.getEndFloor(packed);
+    return isServedDirectly(startFloor, endFloor) ? endFloor : this.transferFloor;
+  }
+
+  /**
+   * Sets the floor where riders change elevators, so a zoned building takes requests
+   * between zones. Such a request is queued whole and split when it is dispatched: the
+   * elevator is only given the floors up to the transfer floor, and when it opens its
+   * doors there the rest of the request is queued as a second leg. The second leg keeps
+   * the place in time of the first request and is not subject to the admission policy.
+   * The transfer floor can only be changed while the elevator system is out of service.
+   *
+   * @param transferFloor The transfer floor, or -1 to take only requests some elevator
+   *                      serves end to end.
+   * @throws IllegalArgumentException if the floor is not in the building.
+   * @throws IllegalStateException if the elevator system is running or stopping.
+   */
+  public void setTransferFloor(int transferFloor) {
+    if (transferFloor < -1 || transferFloor >= this.numberOfFloors) {
+      throw new IllegalArgumentException("Transfer floor must be between -1 and "
+          + (this.numberOfFloors - 1));
+    }
+    if (this.elevatorsStatus != ElevatorSystemStatus.outOfService) {
+      throw new IllegalStateException("Transfer floor can only be set while the elevator "
+          + "system is out of service.");
+    }
+    this.transferFloor = transferFloor;
+  }
+
+  /**
+   * Gets the floor where riders change elevators.
+   *
+   * @return The transfer floor, or -1 if requests are never split.
+   */
+  public int getTransferFloor() {
+    return this.transferFloor;
+  }
+
+  /**
+   * Sets how fast an elevator moves, so express cars can cover several floors a step.
+   * The kinematics of an elevator can only be changed while the elevator system is out of
+   * service.
+   *
+   * @param elevator The index of the elevator, in the order of the elevator reports.
+   * @param kinematics The kinematics of the elevator.
+   * @throws IllegalArgumentException if the elevator is not in the building or kinematics
+   *                                  is null.
+   * @throws IllegalStateException if the elevator system is running or stopping.
+   */
+  public void setKinematics(int elevator, Kinematics kinematics) {
+    if (elevator < 0 || elevator >= this.elevators.length) {
+      throw new IllegalArgumentException("Elevator must be between 0 and "
+          + (this.elevators.length - 1));
+    }
+    if (kinematics == null) {
+      throw new IllegalArgumentException("kinematics cannot be null");
+    }
+    if (this.elevatorsStatus != ElevatorSystemStatus.outOfService) {
+      throw new IllegalStateException("Kinematics can only be set while the elevator "
+          + "system is out of service.");
+    }
+    this.elevators[elevator].setKinematics(kinematics);
+  }
+
+  /**
+   * Gets how fast an elevator moves.
+   *
+   * @param elevator The index of the elevator, in the order of the elevator reports.
+   * @return The kinematics of the elevator.
+   * @throws IllegalArgumentException if the elevator is not in the building.
+   */
+  public Kinematics getKinematics(int elevator) {
+    if (elevator < 0 || elevator >= this.elevators.length) {
+      throw new IllegalArgumentException("Elevator must be between 0 and "
+          + (this.elevators.length - 1));
+    }
+    return this.elevators[elevator].getKinematics();
+  }
+
+  /**
+   * Sets how long an elevator keeps its door open and waits at the ends of its run.
+   * The building tells every elevator each step how many requests are queued at the
+   * other end of its run, which an adaptive profile uses to cut its end wait short.
+   * The timing profile of an elevator can only be changed while the elevator system is
+   * out of service.
+   *
+   * @param elevator The index of the elevator, in the order of the elevator reports.
+   * @param timing The timing profile of the elevator.
+   * @throws IllegalArgumentException if the elevator is not in the building or timing is
+   *                                  null.
+   * @throws IllegalStateException if the elevator system is running or stopping.
+   */
+  public void setTimingProfile(int elevator, TimingProfile timing) {
+    if (elevator < 0 || elevator >= this.elevators.length) {
+      throw new IllegalArgumentException("Elevator must be between 0 and "
+          + (this.elevators.length - 1));
+    }
+    if (timing == null) {
+      throw new IllegalArgumentException("timing cannot be null");
+    }
+    if (this.elevatorsStatus != ElevatorSystemStatus.outOfService) {
+      throw new IllegalStateException("Timing profiles can only be set while the elevator "
+          + "system is out of service.");
+    }
+    this.elevators[elevator].setTimingProfile(timing);
+  }
+
+  /**
+   * Gets how long an elevator keeps its door open and waits at the ends of its run.
+   *
+   * @param elevator The index of the elevator, in the order of the elevator reports.
+   * @return The timing profile of the elevator.
+   * @throws IllegalArgumentException if the elevator is not in the building.
+   */
+  public TimingProfile getTimingProfile(int elevator) {
+    if (elevator < 0 || elevator >= this.elevators.length) {
+      throw new IllegalArgumentException("Elevator must be between 0 and "
+          + (this.elevators.length - 1));
+    }
+    return this.elevators[elevator].getTimingProfile();
+  }
+
+  /**
+   * Sets how waiting requests are given to elevators, with a five millisecond time
+   * budget per step for the OPTIMAL policy.
+   *
+   * @param dispatchPolicy The dispatch policy.
+   */
+  public void setDispatchPolicy(DispatchPolicy dispatchPolicy) {
+    setDispatchPolicy(dispatchPolicy, DEFAULT_ASSIGNMENT_BUDGET_NANOS);
+  }
+
+  /**
+   * Sets how waiting requests are given to elevators.
+   * Under the OPTIMAL policy every step assigns the waiting requests to the elevators in
+   * service by their predicted wait, and elevators at the end of the shaft take the
+   * requests assigned to them. A request assigned to an elevator that is still on its way
+   * stays queued for it. If an assignment runs out of time it is finished greedily.
+   *
+   * @param dispatchPolicy The dispatch policy.
+   * @param budgetNanos The most time one assignment may take, in nanoseconds.
+   * @throws IllegalArgumentException if the policy is null or the budget is not positive.
+   */
+  public void setDispatchPolicy(DispatchPolicy dispatchPolicy, long budgetNanos) {
+    if (dispatchPolicy == null) {
+      throw new IllegalArgumentException("dispatchPolicy cannot be null");
+    }
+    AssignmentEngine engine = null;
+    if (dispatchPolicy == DispatchPolicy.OPTIMAL) {
+      engine = new AssignmentEngine(budgetNanos);
+    }
+    this.intakeLock.lock();
+    try {
+      this.dispatchPolicy = dispatchPolicy;
+      this.assignmentEngine = engine;
+    } finally {
+      this.intakeLock.unlock();
+    }
+  }
+
+  /**
+   * Gets how waiting requests are given to elevators.
+   *
+   * @return The dispatch policy.
+   */
+  public DispatchPolicy getDispatchPolicy() {
+    return this.dispatchPolicy;
+  }
+
+  /**
+   * Sets where idle elevators wait, with an hour of the day of 3600 steps.
+   *
+   * @param parkingPolicy The parking policy.
+   */
+  public void setParkingPolicy(ParkingPolicy parkingPolicy) {
+    setParkingPolicy(parkingPolicy, DEFAULT_STEPS_PER_HOUR);
+  }
+
+  /**
+   * Sets where idle elevators wait. After the waiting requests are given out each step,
+   * the elevators still taking requests at an end of the shaft are parked there or sent
+   * on to the other end, as the ParkingPlanner decides. Every request is recorded by
+   * the hour of the day it arrives in, and the DEMAND policy plans from that history.
+   * Setting a policy starts a new history.
+   *
+   * @param parkingPolicy The parking policy.
+   * @param stepsPerHour The number of steps in an hour of the day.
+   * @throws IllegalArgumentException if the policy is null or stepsPerHour is not positive.
+   */
+  public void setParkingPolicy(ParkingPolicy parkingPolicy, long stepsPerHour) {
+    ParkingPlanner planner = new ParkingPlanner(parkingPolicy, this.numberOfFloors,
+        stepsPerHour);
+    this.intakeLock.lock();
+    try {
+      this.parkingPlanner = planner;
+    } finally {
+      this.intakeLock.unlock();
+    }
+  }
+
+  /**
+   * Gets where idle elevators wait.
+   *
+   * @return The parking policy.
+   */
+  public ParkingPolicy getParkingPolicy() {
+    ParkingPlanner planner = this.parkingPlanner;
+    return planner == null ? ParkingPolicy.NONE : planner.getPolicy();
   }
 
-  public int getElevatorCapacity() {
-    return this.elevatorCapacity;
+  /**
+   * Gets a copy of the index of waiting requests by floor and direction.
+   * The copy is taken under the intake lock, so it is consistent even while producers add
+   * requests, and it does not change as requests are added and dispatched afterwards.
+   *
+   * @return The hall call index.
+   */
+  public HallCallIndex getHallCalls() {
+    this.intakeLock.lock();
+    try {
+      return new HallCallIndex(this.hallCalls);
+    } finally {
+      this.intakeLock.unlock();
+    }
   }
 
   /**
    * Gets the status of the elevator system.
    * Returns a BuildingReport object that contains the status of the elevators,
    * the up and down requests, and the status of the elevator system.
+   * The report holds a packed copy of the queues; the Request objects are only
+   * created if the report's request lists are asked for.
    *
    * @return The status of the elevator system.
    */
   public BuildingReport getStatusElevatorSystem() {
+    SnapshotEvent event = new SnapshotEvent();
+    event.begin();
+    ElevatorReport[] elevatorReports = getElevatorReports();
+    BuildingReport report;
+    this.intakeLock.lock();
+    try {
+      long[] packedUpRequests = new long[this.upRequests.size()];
+      this.upRequests.copyTo(packedUpRequests, 0);
+      long[] packedDownRequests = new long[this.downRequests.size()];
+      this.downRequests.copyTo(packedDownRequests, 0);
+      report = new BuildingReport(this.numberOfFloors, this.numberOfElevators,
+          this.elevatorCapacity, elevatorReports, packedUpRequests, this.upRiders,
+          packedDownRequests, this.downRiders, this.elevatorsStatus, this.rejectedRequests,
+          this.droppedRequests, this.rateLimitedRequests);
+    } finally {
+      this.intakeLock.unlock();
+    }
+    if (event.shouldCommit()) {
+      event.elevators = elevatorReports.length;
+      event.commit();
+    }
+    return report;
+  }
+
+  /**
+   * Gets the status of every elevator without copying the request queues,
+   * in the same order as the elevator reports of getStatusElevatorSystem.
+   *
+   * @return The report of each elevator.
+   */
+  public ElevatorReport[] getElevatorReports() {
     ElevatorReport[] elevatorReports = new ElevatorReport[this.elevators.length];
     for (int i = 0; i < this.elevators.length; i++) {
       elevatorReports[i] = this.elevators[i].getElevatorStatus();
     }
-    return new BuildingReport(this.numberOfFloors, this.numberOfElevators,
-        this.elevatorCapacity, elevatorReports,
-            this.upRequests, this.downRequests, this.elevatorsStatus);
+    return elevatorReports;
+  }
+
+  /**
+   * Gets a snapshot of the utilisation counters of every elevator,
+   * in the same order as the elevator reports.
+   *
+   * @return The metrics of each elevator.
+   */
+  public ElevatorMetrics[] getElevatorMetrics() {
+    ElevatorMetrics[] metrics = new ElevatorMetrics[this.elevators.length];
+    for (int i = 0; i < this.elevators.length; i++) {
+      metrics[i] = this.elevators[i].getMetrics();
+    }
+    return metrics;
   }
 
   /**
@@ -138,6 +1218,7 @@ public class Building implements BuildingInterface {
    * Checks if the start floor is equal to the end floor and throws an exception if it is.
    * Adds the request to the up requests if the start floor is less than the end floor.
    * Adds the request to the down requests if the start floor is greater than the end floor.
+   * Throws an exception if the admission policy turns the request away.
    *
    * @param request The request to add to the elevator system.
    */
@@ -149,80 +1230,960 @@ public class Building implements BuildingInterface {
     if (request == null) {
       throw new IllegalArgumentException("Request cannot be null");
     }
-    if (request.getStartFloor() < 0 || request.getStartFloor() >= this.numberOfFloors) {
+    addRequestToElevatorSystem(request.getStartFloor(), request.getEndFloor());
+  }
+
+  /**
+   * Adds a request to the elevator system without a Request object.
+   * It performs the same checks as addRequestToElevatorSystem(Request) and queues the
+   * request in packed form, so request generators can feed the building without allocating.
+   * If the newest queued request with the same start and end floor still has room, the
+   * rider joins it instead of taking a new queue entry. A request never holds more riders
+   * than an elevator can carry, so a lobby burst becomes a few entries per destination.
+   * Throws an exception if the admission policy turns the request away.
+   *
+   * @param startFloor The floor the request starts at.
+   * @param endFloor The floor the request ends at.
+   */
+  public void addRequestToElevatorSystem(int startFloor, int endFloor) {
+    if (!offerRequest(null, startFloor, endFloor)) {
+      throw new IllegalStateException("Request queue is full.");
+    }
+  }
+
+  /**
+   * Offers a request to the elevator system, subject to the admission policy.
+   * The request is checked like addRequestToElevatorSystem, then turned away if its source
+   * is over its rate, or if its queue is full and the overflow policy does not make room.
+   * Requests without a source are never rate limited.
+   *
+   * @param source The source of the request, such as a scanner, or null.
+   * @param startFloor The floor the request starts at.
+   * @param endFloor The floor the request ends at.
+   * @return true if the request was queued, false if it was turned away.
+   */
+  public boolean offerRequest(Object source, int startFloor, int endFloor) {
+    if (this.elevatorsStatus == ElevatorSystemStatus.outOfService || this.elevatorsStatus
+        == ElevatorSystemStatus.stopping) {
+      throw new IllegalStateException("Elevator system not accepting requests.");
+    }
+    if (startFloor < 0 || startFloor >= this.numberOfFloors) {
       throw new IllegalArgumentException("Start floor must be between 0 and "
           + (this.numberOfFloors - 1));
     }
-    if (request.getEndFloor() < 0 || request.getEndFloor() >= this.numberOfFloors) {
+    if (endFloor < 0 || endFloor >= this.numberOfFloors) {
       throw new IllegalArgumentException("End floor must be between 0 and "
           + (this.numberOfFloors - 1));
     }
 
-    if (request.getStartFloor() == request.getEndFloor()) {
+    if (startFloor == endFloor) {
       throw new IllegalArgumentException("Start floor and end floor cannot be the same");
     }
-    if (request.getStartFloor() < request.getEndFloor()) {
-      this.upRequests.add(request);
+    if (!isServed(startFloor, endFloor)) {
+      throw new IllegalArgumentException("No elevator serves both floor " + startFloor
+          + " and floor " + endFloor);
+    }
+    int legEndFloor = isServedDirectly(startFloor, endFloor) ? endFloor : this.transferFloor;
+    Direction direction = startFloor < legEndFloor ? Direction.UP : Direction.DOWN;
+    this.intakeLock.lock();
+    try {
+      if (this.elevatorsStatus != ElevatorSystemStatus.running) {
+        // the system began stopping after the check above
+        throw new IllegalStateException("Elevator system not accepting requests.");
+      }
+      if (source != null && this.rateLimiter != null
+          && !this.rateLimiter.tryAcquire(source, this.stepCount)) {
+        this.rateLimitedRequests++;
+        return false;
+      }
+      if (!makeRoom(direction)) {
+        this.rejectedRequests++;
+        return false;
+      }
+      if (direction == Direction.UP) {
+        enqueue(this.upRequests, startFloor, endFloor);
+        this.upRiders++;
+      } else {
+        enqueue(this.downRequests, startFloor, endFloor);
+        this.downRiders++;
+      }
+      this.hallCalls.add(startFloor, direction, 1);
+      this.arrivalRates.record(startFloor, endFloor, direction, this.stepCount);
+      if (this.parkingPlanner != null) {
+        this.parkingPlanner.recordArrival(startFloor, direction, this.stepCount);
+      }
+      return true;
+    } finally {
+      this.intakeLock.unlock();
+    }
+  }
+
+  /**
+   * Makes room for one more rider in the queue for the direction, as the overflow
+   * policy allows. A BLOCK policy releases the intake lock while it waits, so it should
+   * only be used by producers on other threads than the stepping thread.
+   */
+  private boolean makeRoom(Direction direction) {
+    int maxQueuedRequests = this.admissionPolicy.getMaxQueuedRequests();
+    if (queuedRiders(direction) < maxQueuedRequests) {
+      return true;
+    }
+    OverflowPolicy overflowPolicy = this.admissionPolicy.getOverflowPolicy();
+    if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+      return dropOldest(direction);
+    }
+    if (overflowPolicy == OverflowPolicy.BLOCK) {
+      long nanosLeft = TimeUnit.MILLISECONDS.toNanos(this.admissionPolicy.getBlockTimeoutMillis());
+      while (queuedRiders(direction) >= maxQueuedRequests) {
+        if (nanosLeft <= 0) {
+          return false;
+        }
+        try {
+          nanosLeft = this.queueSpace.awaitNanos(nanosLeft);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return false;
+        }
+        if (this.elevatorsStatus != ElevatorSystemStatus.running) {
+          throw new IllegalStateException("Elevator system not accepting requests.");
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  private int queuedRiders(Direction direction) {
+    return direction == Direction.UP ? this.upRiders : this.downRiders;
+  }
+
+  /**
+   * Drops the oldest rider in the queue for the direction that is not on a second leg.
+   * A second leg belongs to a rider who has already been let off at the transfer floor,
+   * so it is never dropped.
+   *
+   * @return false if every queued rider is on a second leg, so none was dropped.
+   */
+  private boolean dropOldest(Direction direction) {
+    LongRingQueue requests = direction == Direction.UP ? this.upRequests : this.downRequests;
+    int position = 0;
+    while (position < requests.size() && PackedRequest.isSecondLeg(requests.get(position))) {
+      position++;
+    }
+    if (position == requests.size()) {
+      return false;
+    }
+    long oldest = requests.get(position);
+    int riders = PackedRequest.getRiders(oldest);
+    if (riders > 1) {
+      requests.set(position, PackedRequest.withRiders(oldest, riders - 1));
+    } else {
+      this.takenPositions[0] = position;
+      requests.removeAll(this.takenPositions, 1);
+    }
+    this.hallCalls.remove(PackedRequest.getStartFloor(oldest), direction, 1);
+    if (direction == Direction.UP) {
+      this.upRiders--;
     } else {
-      this.downRequests.add(request);
+      this.downRiders--;
+    }
+    this.droppedRequests++;
+    return true;
+  }
+
+  /**
+   * Adds one rider to the queue, coalescing with the newest request for the same floors.
+   */
+  private void enqueue(LongRingQueue requests, int startFloor, int endFloor) {
+    int pair = startFloor * this.numberOfFloors + endFloor;
+    int index = this.openRequests[pair] - (int) requests.getHeadSequence();
+    if (index >= 0 && index < requests.size()) {
+      long open = requests.get(index);
+      int riders = PackedRequest.getRiders(open);
+      if (riders < maxRidersPerRequest() && !PackedRequest.isSecondLeg(open)
+          && PackedRequest.getStartFloor(open) == startFloor
+          && PackedRequest.getEndFloor(open) == endFloor) {
+        requests.set(index, PackedRequest.withRiders(open, riders + 1));
+        return;
+      }
     }
+    this.openRequests[pair] = (int) (requests.getHeadSequence() + requests.size());
+    requests.add(PackedRequest.pack(startFloor, endFloor, this.stepCount, 1,
+        this.nextRequestId++));
+  }
+
+  private int maxRidersPerRequest() {
+    return Math.min(this.elevatorCapacity, PackedRequest.MAX_RIDERS);
   }
 
   /**
    * Steps the elevator system.
    * If the elevator system is out of service, it returns.
-   * If the elevator system is not stopping, it distributes the requests to the elevators.
-   * Steps each elevator in the system.
-   * If the elevator system is stopping, it checks if all the elevators are on the ground floor.
-   * If all the elevators are on the ground floor,
+   * If the elevator system is not stopping, it distributes the requests to the elevators
+   * and parks the idle ones.
+   * Steps each shaft in the system, which steps its elevators.
+   * If the elevator system is stopping, it checks if all the elevators are on their base floor.
+   * If all the elevators are on their base floor,
    * it sets the elevator system status to out of service.
+   * Each step is recorded as a Flight Recorder TickEvent when a recording is running.
    */
   public void stepElevatorSystem() {
     if (this.elevatorsStatus == ElevatorSystemStatus.outOfService) {
       return;
     }
+    TickEvent tickEvent = new TickEvent();
+    tickEvent.begin();
     if (this.elevatorsStatus != ElevatorSystemStatus.stopping) {
       distributeRequests();
+      updateQueueDepths();
+      parkElevators();
     }
-    for (ElevatorInterface elevator : this.elevators) {
-      elevator.step();
+    ElevatorStepsEvent stepsEvent = new ElevatorStepsEvent();
+    stepsEvent.begin();
+    for (Shaft shaft : this.shafts) {
+      shaft.step();
+    }
+    finishLegs();
+    if (stepsEvent.shouldCommit()) {
+      stepsEvent.elevators = this.elevators.length;
+      stepsEvent.commit();
     }
     if (this.elevatorsStatus == ElevatorSystemStatus.stopping) {
       boolean allElevatorsOnGroundFloor = true;
       for (ElevatorInterface elevator : this.elevators) {
-        if (elevator.getCurrentFloor() != 0) {
+        if (elevator.getCurrentFloor() != elevator.getBaseFloor()) {
           allElevatorsOnGroundFloor = false;
           break;
         }
       }
       if (allElevatorsOnGroundFloor) {
-        this.elevatorsStatus = ElevatorSystemStatus.outOfService;
+        this.intakeLock.lock();
+        try {
+          this.elevatorsStatus = ElevatorSystemStatus.outOfService;
+        } finally {
+          this.intakeLock.unlock();
+        }
       }
     }
+    this.stepCount++;
+    for (Runnable listener : this.stepListeners) {
+      listener.run();
+    }
+    if (tickEvent.shouldCommit()) {
+      tickEvent.step = this.stepCount;
+      tickEvent.upRequests = this.upRiders;
+      tickEvent.downRequests = this.downRiders;
+      tickEvent.commit();
+    }
+  }
+
+  /**
+   * Adds a listener that is run on the stepping thread at the end of every step.
+   * Listeners are not copied by fork or written to checkpoints.
+   *
+   * @param listener The listener to add.
+   */
+  public void addStepListener(Runnable listener) {
+    if (listener == null) {
+      throw new IllegalArgumentException("listener cannot be null");
+    }
+    this.stepListeners.add(listener);
+  }
+
+  /**
+   * Publishes a report of the building every few steps as a Flow.Publisher.
+   * Reports are made on the stepping thread and delivered on the common pool,
+   * and each subscriber may buffer up to Flow.defaultBufferSize() reports.
+   * Close the publisher to stop it and complete its subscribers.
+   *
+   * @param publishEverySteps How many steps pass between reports.
+   * @return The publisher.
+   */
+  public ReportPublisher publishReports(int publishEverySteps) {
+    return publishReports(publishEverySteps, ForkJoinPool.commonPool(), Flow.defaultBufferSize());
+  }
+
+  /**
+   * Publishes a report of the building every few steps as a Flow.Publisher.
+   *
+   * @param publishEverySteps How many steps pass between reports.
+   * @param executor The executor reports are delivered on.
+   * @param bufferSize The most undelivered reports a subscriber that does not conflate
+   *                   may have before it is cancelled with an error.
+   * @return The publisher.
+   */
+  public ReportPublisher publishReports(int publishEverySteps, Executor executor, int bufferSize) {
+    return new ReportPublisher(this, publishEverySteps, executor, bufferSize);
+  }
+
+  /**
+   * Removes a listener added with addStepListener.
+   *
+   * @param listener The listener to remove.
+   */
+  public void removeStepListener(Runnable listener) {
+    this.stepListeners.remove(listener);
+  }
+
+  private void parkElevators() {
+    if (this.parkingPlanner == null) {
+      return;
+    }
+    this.intakeLock.lock();
+    try {
+      this.parkingPlanner.plan(this.elevators, this.hallCalls, this.arrivalRates,
+          this.stepCount);
+    } finally {
+      this.intakeLock.unlock();
+    }
+  }
+
+  /**
+   * Tells each elevator how many requests are queued at the other end of its run: the
+   * requests going up for an elevator waiting at the top of its zone or on its way there,
+   * and the requests going down for one waiting at its base floor or on its way there.
+   * The queues are shared by every zone, so a zoned elevator is told of them all.
+   */
+  private void updateQueueDepths() {
+    int up = this.upRequests.size();
+    int down = this.downRequests.size();
+    for (ElevatorInterface elevator : this.elevators) {
+      boolean waitsAtTop = elevator.getStopWaitTimeLeft() > 0
+          ? elevator.getCurrentFloor() != elevator.getBaseFloor()
+          : elevator.getDirection() == Direction.UP;
+      elevator.setQueueDepth(waitsAtTop ? up : down);
+    }
   }
 
   private void distributeRequests() {
     if (this.upRequests.isEmpty() && this.downRequests.isEmpty()) {
       return;
     }
-    for (ElevatorInterface elevator : this.elevators) {
+    this.intakeLock.lock();
+    try {
+      distributeRequestsLocked();
+    } finally {
+      this.intakeLock.unlock();
+    }
+  }
+
+  private void distributeRequestsLocked() {
+    DistributeEvent distributeEvent = new DistributeEvent();
+    distributeEvent.begin();
+    int requestsDispatched = 0;
+    int elevatorsDispatched = 0;
+    List<List<Request>> assigned = null;
+    if (this.dispatchPolicy == DispatchPolicy.OPTIMAL) {
+      assigned = assignRequests();
+    }
+    for (int k = 0; k < this.elevators.length; k++) {
+      ElevatorInterface elevator = this.elevators[k];
       if (elevator.isTakingRequests()) {
-        if (elevator.getCurrentFloor() == 0) {
-          List<Request> upRequestsForElevator = getRequests(this.upRequests);
+        if (elevator.getCurrentFloor() == elevator.getBaseFloor()) {
+          List<Request> upRequestsForElevator = assigned != null ? assigned.get(k)
+              : getRequests(this.upRequests, Direction.UP, k);
           elevator.processRequests(upRequestsForElevator);
-        } else if (elevator.getCurrentFloor() == this.numberOfFloors - 1) {
-          List<Request> downRequestsForElevator = getRequests(this.downRequests);
+          if (!upRequestsForElevator.isEmpty()) {
+            requestsDispatched += upRequestsForElevator.size();
+            elevatorsDispatched++;
+            commitDispatchEvent(elevator, Direction.UP, upRequestsForElevator.size(),
+                this.upRiders);
+          }
+        } else if (elevator.getCurrentFloor() == elevator.getHighestZoneFloor()) {
+          List<Request> downRequestsForElevator = assigned != null ? assigned.get(k)
+              : getRequests(this.downRequests, Direction.DOWN, k);
           elevator.processRequests(downRequestsForElevator);
+          if (!downRequestsForElevator.isEmpty()) {
+            requestsDispatched += downRequestsForElevator.size();
+            elevatorsDispatched++;
+            commitDispatchEvent(elevator, Direction.DOWN, downRequestsForElevator.size(),
+                this.downRiders);
+          }
         }
       }
     }
+    if (requestsDispatched > 0 && this.intakeLock.hasWaiters(this.queueSpace)) {
+      this.queueSpace.signalAll();
+    }
+    if (distributeEvent.shouldCommit()) {
+      distributeEvent.requestsDispatched = requestsDispatched;
+      distributeEvent.elevatorsDispatched = elevatorsDispatched;
+      distributeEvent.commit();
+    }
+  }
+
+  private static void commitDispatchEvent(ElevatorInterface elevator, Direction direction,
+                                          int requestCount, int queueDepth) {
+    DispatchEvent event = new DispatchEvent();
+    if (event.isEnabled()) {
+      event.elevatorId = elevator.getElevatorId();
+      event.floor = elevator.getCurrentFloor();
+      event.direction = direction.name();
+      event.requestCount = requestCount;
+      event.queueDepth = queueDepth;
+      event.commit();
+    }
   }
 
-  private List<Request> getRequests(List<Request> requests) {
+  /**
+   * Takes the oldest requests elevator k serves while their riders fit in it.
+   * Requests for floors outside the elevator's zone are passed over and stay queued.
+   * Each deck of the elevator is filled on its own: once the next request for a deck does
+   * not fit, that deck takes no more requests.
+   * A coalesced request becomes one Request for all its riders, so the elevator sets each
+   * stop once and still knows how many riders get on and off there.
+   */
+  private List<Request> getRequests(LongRingQueue requests, Direction direction, int k) {
+    ElevatorInterface elevator = this.elevators[k];
     List<Request> requestsToReturn = new ArrayList<>();
-    while (!requests.isEmpty() && requestsToReturn.size() < this.elevatorCapacity) {
-      requestsToReturn.add(requests.remove(0));
+    int[] deckRiders = this.deckRiders;
+    Arrays.fill(deckRiders, 0);
+    int openDecks = (1 << elevator.getNumberOfDecks()) - 1;
+    int riders = 0;
+    int taken = 0;
+    for (int i = 0; i < requests.size() && openDecks != 0; i++) {
+      long packed = requests.get(i);
+      int startFloor = PackedRequest.getStartFloor(packed);
+      int endFloor = legEndFloor(packed);
+      if (this.servedPairs != null
+          && !(elevator.servesFloor(startFloor) && elevator.servesFloor(endFloor))) {
+        continue;
+      }
+      int deck = elevator.getDeck(startFloor, endFloor);
+      if ((openDecks & (1 << deck)) == 0) {
+        continue;
+      }
+      int requestRiders = PackedRequest.getRiders(packed);
+      if (deckRiders[deck] + requestRiders > this.elevatorCapacity) {
+        openDecks &= ~(1 << deck);
+        continue;
+      }
+      this.takenPositions[taken++] = i;
+      deckRiders[deck] += requestRiders;
+      riders += requestRiders;
+      if (deckRiders[deck] == this.elevatorCapacity) {
+        openDecks &= ~(1 << deck);
+      }
+      requestsToReturn.add(dispatch(packed, direction, k));
+    }
+    requests.removeAll(this.takenPositions, taken);
+    if (direction == Direction.UP) {
+      this.upRiders -= riders;
+    } else {
+      this.downRiders -= riders;
     }
     return requestsToReturn;
   }
+
+  /**
+   * Assigns the waiting riders to the elevators in service and takes the riders
+   * assigned to elevators that are taking requests out of the queues.
+   * Each elevator offers its next trip up from its base floor and its next trip down
+   * from the top of its zone, each with room for as many riders as all its decks hold.
+   * Every rider of a request is a call of its own, so the engine fills trips by riders
+   * and a request may be split between trips; only the oldest riders of each direction,
+   * as many as there is room for, take part. A rider costs the square of its total wait:
+   * the steps it has waited, the predicted steps until the trip leaves, and the floors
+   * from the end of the trip to the request. Squaring keeps the total wait small without
+   * leaving old requests behind. An elevator taking requests leaves as soon as it is
+   * given some, so its trip leaves now. It takes the riders assigned to it, oldest
+   * request first, while they fit in their decks; riders of a request that are not taken
+   * stay queued in its place.
+   *
+   * @return The requests for each elevator.
+   */
+  private List<List<Request>> assignRequests() {
+    int cars = this.elevators.length;
+    // trip 2k is car k going up, trip 2k + 1 is car k going down
+    int trips = 2 * cars;
+    if (this.tripCapacities.length != trips) {
+      this.tripCapacities = new int[trips];
+      this.tripDepartures = new long[trips];
+      this.tripRiders = new int[trips];
+      this.touchedTrips = new int[trips];
+      this.deckLoad = new int[cars * MAX_DECKS];
+      this.assignedToCar = new ArrayList<>(cars);
+      for (int k = 0; k < cars; k++) {
+        this.assignedToCar.add(Collections.<Request>emptyList());
+      }
+    } else {
+      Collections.fill(this.assignedToCar, Collections.<Request>emptyList());
+    }
+    List<List<Request>> assigned = this.assignedToCar;
+    boolean anyTaking = false;
+    for (ElevatorInterface elevator : this.elevators) {
+      anyTaking |= elevator.isTakingRequests();
+    }
+    if (!anyTaking) {
+      return assigned;
+    }
+
+    int[] capacities = this.tripCapacities;
+    int tripSlots = 0;
+    for (int k = 0; k < cars; k++) {
+      int capacity = this.elevators[k].isOutOfService() ? 0
+          : this.elevatorCapacity * this.elevators[k].getNumberOfDecks();
+      capacities[2 * k] = capacity;
+      capacities[2 * k + 1] = capacity;
+      tripSlots += capacity;
+    }
+    if (this.assignedRequests.length < 2 * tripSlots) {
+      this.assignedRequests = new long[2 * tripSlots];
+      this.assignedPositions = new int[2 * tripSlots];
+      this.firstCalls = new int[2 * tripSlots + 1];
+      this.callKeys = new long[2 * tripSlots];
+    }
+    // merge the two queues, oldest first, until each direction fills every trip
+    int upSize = this.upRequests.size();
+    int downSize = this.downRequests.size();
+    int up = 0;
+    int down = 0;
+    int upCalls = 0;
+    int downCalls = 0;
+    int requests = 0;
+    int calls = 0;
+    while (true) {
+      boolean upOpen = up < upSize && upCalls < tripSlots;
+      boolean downOpen = down < downSize && downCalls < tripSlots;
+      if (!upOpen && !downOpen) {
+        break;
+      }
+      boolean takeUp = !downOpen || (upOpen
+          && PackedRequest.getWait(this.upRequests.get(up), this.stepCount)
+          >= PackedRequest.getWait(this.downRequests.get(down), this.stepCount));
+      long packed;
+      int riders;
+      if (takeUp) {
+        packed = this.upRequests.get(up);
+        this.assignedPositions[requests] = up++;
+        riders = Math.min(PackedRequest.getRiders(packed), tripSlots - upCalls);
+        upCalls += riders;
+      } else {
+        packed = this.downRequests.get(down);
+        this.assignedPositions[requests] = down++;
+        riders = Math.min(PackedRequest.getRiders(packed), tripSlots - downCalls);
+        downCalls += riders;
+      }
+      this.assignedRequests[requests] = packed;
+      this.firstCalls[requests++] = calls;
+      calls += riders;
+    }
+    this.firstCalls[requests] = calls;
+
+    long[] departures = this.tripDepartures;
+    for (int k = 0; k < cars; k++) {
+      ElevatorInterface elevator = this.elevators[k];
+      departures[2 * k] = departure(elevator, elevator.getBaseFloor(), Direction.UP);
+      departures[2 * k + 1] = departure(elevator, elevator.getHighestZoneFloor(),
+          Direction.DOWN);
+    }
+    int[] costs = this.assignmentEngine.costs(calls, trips);
+    Arrays.fill(costs, 0, calls * trips, AssignmentEngine.FORBIDDEN);
+    for (int r = 0; r < requests; r++) {
+      long packed = this.assignedRequests[r];
+      int startFloor = PackedRequest.getStartFloor(packed);
+      int endFloor = legEndFloor(packed);
+      boolean goingUp = startFloor < endFloor;
+      long wait = PackedRequest.getWait(packed, this.stepCount);
+      int row = this.firstCalls[r] * trips;
+      long firstKey = (long) PackedRequest.getId(packed) * (PackedRequest.MAX_RIDERS + 1);
+      for (int call = this.firstCalls[r]; call < this.firstCalls[r + 1]; call++) {
+        this.callKeys[call] = firstKey + call - this.firstCalls[r];
+      }
+      for (int k = 0; k < cars; k++) {
+        ElevatorInterface elevator = this.elevators[k];
+        int trip = 2 * k + (goingUp ? 0 : 1);
+        if (departures[trip] == EtaCalculator.UNREACHABLE
+            || !elevator.servesFloor(startFloor) || !elevator.servesFloor(endFloor)) {
+          continue;
+        }
+        long total = Math.min(wait + departures[trip]
+            + (goingUp ? startFloor - elevator.getBaseFloor()
+            : elevator.getHighestZoneFloor() - startFloor), 1L << 15);
+        costs[row + trip] = (int) (total * total);
+      }
+      // every rider of the request costs the same
+      for (int call = this.firstCalls[r] + 1; call < this.firstCalls[r + 1]; call++) {
+        System.arraycopy(costs, row, costs, call * trips, trips);
+      }
+    }
+    this.assignmentEngine.solve(calls, trips, capacities, this.callKeys);
+
+    if (this.upPositions.length < requests) {
+      this.upPositions = new int[requests];
+      this.downPositions = new int[requests];
+    }
+    // the riders given to deck d of car k are at index k * MAX_DECKS + d
+    int[] load = this.deckLoad;
+    Arrays.fill(load, 0);
+    int upTaken = 0;
+    int downTaken = 0;
+    int upTakenRiders = 0;
+    int downTakenRiders = 0;
+    for (int r = 0; r < requests; r++) {
+      // count the riders of the request given to each trip
+      int touched = 0;
+      for (int call = this.firstCalls[r]; call < this.firstCalls[r + 1]; call++) {
+        int trip = this.assignmentEngine.getAssignedCar(call);
+        if (trip >= 0 && this.tripRiders[trip]++ == 0) {
+          this.touchedTrips[touched++] = trip;
+        }
+      }
+      long packed = this.assignedRequests[r];
+      int startFloor = PackedRequest.getStartFloor(packed);
+      int endFloor = legEndFloor(packed);
+      boolean goingUp = startFloor < endFloor;
+      int waiting = PackedRequest.getRiders(packed);
+      int left = waiting;
+      for (int t = 0; t < touched; t++) {
+        int trip = this.touchedTrips[t];
+        int riders = this.tripRiders[trip];
+        this.tripRiders[trip] = 0;
+        int k = trip >> 1;
+        ElevatorInterface elevator = this.elevators[k];
+        if (left == 0 || !elevator.isTakingRequests()) {
+          continue;
+        }
+        int floor = elevator.getCurrentFloor();
+        boolean leavingNow = goingUp ? floor == elevator.getBaseFloor()
+            : floor == elevator.getHighestZoneFloor();
+        if (!leavingNow) {
+          continue;
+        }
+        int deck = k * MAX_DECKS + elevator.getDeck(startFloor, endFloor);
+        int taking = Math.min(Math.min(riders, left), this.elevatorCapacity - load[deck]);
+        if (taking <= 0) {
+          continue;
+        }
+        load[deck] += taking;
+        left -= taking;
+        if (assigned.get(k).isEmpty()) {
+          assigned.set(k, new ArrayList<>());
+        }
+        assigned.get(k).add(dispatch(PackedRequest.withRiders(packed, taking),
+            goingUp ? Direction.UP : Direction.DOWN, k));
+      }
+      if (left == waiting) {
+        continue;
+      }
+      LongRingQueue queue = goingUp ? this.upRequests : this.downRequests;
+      if (left > 0) {
+        queue.set(this.assignedPositions[r], PackedRequest.withRiders(packed, left));
+      } else if (goingUp) {
+        this.upPositions[upTaken++] = this.assignedPositions[r];
+      } else {
+        this.downPositions[downTaken++] = this.assignedPositions[r];
+      }
+      if (goingUp) {
+        upTakenRiders += waiting - left;
+      } else {
+        downTakenRiders += waiting - left;
+      }
+    }
+    this.upRequests.removeAll(this.upPositions, upTaken);
+    this.downRequests.removeAll(this.downPositions, downTaken);
+    this.upRiders -= upTakenRiders;
+    this.downRiders -= downTakenRiders;
+    return assigned;
+  }
+
+  /**
+   * Takes a request out of the hall calls for elevator k and makes its Request.
+   * A request no elevator serves end to end only goes as far as the transfer floor, and
+   * its second leg rides with the elevator until it gets there. A second leg rides with
+   * the elevator until it gets to the end floor. The dispatch latency is only recorded
+   * for the first leg of a request.
+   */
+  private Request dispatch(long packed, Direction direction, int k) {
+    int startFloor = PackedRequest.getStartFloor(packed);
+    int riders = PackedRequest.getRiders(packed);
+    this.hallCalls.remove(startFloor, direction, riders);
+    if (PackedRequest.isSecondLeg(packed)) {
+      this.secondLegsOnBoard[k].add(packed);
+      return PackedRequest.toRequest(packed);
+    }
+    this.dispatchLatency.record(PackedRequest.getWait(packed, this.stepCount), riders);
+    int legEndFloor = legEndFloor(packed);
+    if (legEndFloor != PackedRequest.getEndFloor(packed)) {
+      this.transfersOnBoard[k].add(PackedRequest.secondLeg(packed, legEndFloor));
+    }
+    return new Request(startFloor, legEndFloor, riders);
+  }
+
+  /**
+   * Queues the second legs of the riders each elevator has just let off at the transfer
+   * floor, and records the end-to-end latency of the riders it has just let off at the
+   * end of their second leg. An elevator lets riders off on the step it opens its doors.
+   */
+  private void finishLegs() {
+    for (int k = 0; k < this.elevators.length; k++) {
+      LongRingQueue transfers = this.transfersOnBoard[k];
+      LongRingQueue secondLegs = this.secondLegsOnBoard[k];
+      ElevatorInterface elevator = this.elevators[k];
+      if ((transfers.isEmpty() && secondLegs.isEmpty()) || elevator.isDoorClosed()
+          || elevator.getDoorOpenTimeLeft() != elevator.getDoorOpenTimeTotal()) {
+        continue;
+      }
+      int floor = elevator.getCurrentFloor();
+      if (floor == this.transferFloor && !transfers.isEmpty()) {
+        this.intakeLock.lock();
+        try {
+          while (!transfers.isEmpty()) {
+            queueSecondLeg(transfers.remove());
+          }
+        } finally {
+          this.intakeLock.unlock();
+        }
+      }
+      for (int i = secondLegs.size(); i > 0; i--) {
+        long packed = secondLegs.remove();
+        if (PackedRequest.getEndFloor(packed) == floor) {
+          this.transferLatency.record(PackedRequest.getWait(packed, this.stepCount),
+              PackedRequest.getRiders(packed));
+        } else {
+          secondLegs.add(packed);
+        }
+      }
+    }
+  }
+
+  /**
+   * Queues a second leg at the back of its queue. It is never coalesced, so its riders
+   * can be followed to the end floor.
+   */
+  private void queueSecondLeg(long packed) {
+    int startFloor = PackedRequest.getStartFloor(packed);
+    int riders = PackedRequest.getRiders(packed);
+    if (startFloor < PackedRequest.getEndFloor(packed)) {
+      this.upRequests.add(packed);
+      this.upRiders += riders;
+      this.hallCalls.add(startFloor, Direction.UP, riders);
+    } else {
+      this.downRequests.add(packed);
+      this.downRiders += riders;
+      this.hallCalls.add(startFloor, Direction.DOWN, riders);
+    }
+  }
+
+  /**
+   * The predicted steps until the elevator next leaves the end of the shaft in the
+   * direction: 0 if it is taking requests there now, or UNREACHABLE.
+   */
+  private static long departure(ElevatorInterface elevator, int floor, Direction direction) {
+    if (elevator.isTakingRequests() && elevator.getCurrentFloor() == floor) {
+      return 0;
+    }
+    return EtaCalculator.eta(elevator, floor, direction);
+  }
+
+  /**
+   * Writes a checkpoint of the building to the channel.
+   * The checkpoint holds the configuration, the system status, every elevator and the
+   * shafts they run in, both request queues and the legs riding with each elevator, the
+   * dispatch policy with its budget, the parking policy with its arrival history and the
+   * arrival rates, and can be read back with the restore constructor. The last assignment
+   * of the OPTIMAL policy is not written, so the first assignment after a restore starts
+   * from scratch.
+   *
+   * @param channel The channel to write the checkpoint to.
+   * @throws IOException if the channel fails or the checkpoint would be larger than a
+   *                     restore accepts.
+   */
+  public void checkpoint(WritableByteChannel channel) throws IOException {
+    ByteBuffer buffer;
+    this.intakeLock.lock();
+    try {
+      buffer = checkpointBuffer();
+    } finally {
+      this.intakeLock.unlock();
+    }
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  private ByteBuffer checkpointBuffer() throws IOException {
+    int length = 4 * 3 + 1 + 8 + 2 + 4 + 4 + (1 + 4) * this.shafts.length + 4 * 2
+        + 8 * (this.upRequests.size() + this.downRequests.size());
+    for (int i = 0; i < this.numberOfElevators; i++) {
+      length += this.elevators[i].checkpointSize() + 4 * 2
+          + 8 * (this.transfersOnBoard[i].size() + this.secondLegsOnBoard[i].size());
+    }
+    length += 1 + 8 + 1 + this.arrivalRates.checkpointSize();
+    if (this.parkingPlanner != null) {
+      length += this.parkingPlanner.checkpointSize();
+    }
+    if (length > MAX_CHECKPOINT_LENGTH) {
+      throw new IOException("Checkpoint of " + length + " bytes is over the limit of "
+          + MAX_CHECKPOINT_LENGTH);
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(CHECKPOINT_HEADER_SIZE + length);
+    buffer.putInt(CHECKPOINT_MAGIC);
+    buffer.putShort(CHECKPOINT_VERSION);
+    buffer.putInt(length);
+    buffer.putInt(this.numberOfFloors);
+    buffer.putInt(this.numberOfElevators);
+    buffer.putInt(this.elevatorCapacity);
+    buffer.put((byte) this.elevatorsStatus.ordinal());
+    buffer.putLong(this.stepCount);
+    buffer.putShort((short) this.nextRequestId);
+    buffer.putInt(this.transferFloor);
+    for (ElevatorInterface elevator : this.elevators) {
+      elevator.writeCheckpoint(buffer);
+    }
+    buffer.putInt(this.shafts.length);
+    for (Shaft shaft : this.shafts) {
+      buffer.put((byte) shaft.getNumberOfCars());
+      buffer.putInt(shaft.getMinimumSeparation());
+    }
+    writeRequests(buffer, this.upRequests);
+    writeRequests(buffer, this.downRequests);
+    for (int i = 0; i < this.numberOfElevators; i++) {
+      writeRequests(buffer, this.transfersOnBoard[i]);
+      writeRequests(buffer, this.secondLegsOnBoard[i]);
+    }
+    buffer.put((byte) this.dispatchPolicy.ordinal());
+    buffer.putLong(this.assignmentEngine == null ? 0 : this.assignmentEngine.getBudgetNanos());
+    buffer.put((byte) (this.parkingPlanner == null ? 0 : 1));
+    if (this.parkingPlanner != null) {
+      this.parkingPlanner.writeCheckpoint(buffer);
+    }
+    this.arrivalRates.writeCheckpoint(buffer);
+    buffer.flip();
+    return buffer;
+  }
+
+  /**
+   * Copies the building, every elevator and both request queues in memory.
+   * The copy shares no mutable state with this building, so both can be stepped
+   * independently to explore what-if scenarios from the same starting point.
+   *
+   * @return an independent building in the same state.
+   */
+  public Building fork() {
+    this.intakeLock.lock();
+    try {
+      return new Building(this);
+    } finally {
+      this.intakeLock.unlock();
+    }
+  }
+
+  /**
+   * Writes a request queue. The packed requests are written as they are; the step
+   * they were queued at stays meaningful because the step count is written too.
+   * Coalescing starts afresh after a restore, so the open request table is not written.
+   */
+  private static void writeRequests(ByteBuffer buffer, LongRingQueue requests) {
+    buffer.putInt(requests.size());
+    for (int i = 0; i < requests.size(); i++) {
+      buffer.putLong(requests.get(i));
+    }
+  }
+
+  private void readRequests(ByteBuffer buffer, LongRingQueue requests, Direction direction) {
+    int count = buffer.getInt();
+    if (count < 0 || count > buffer.remaining() / 8) {
+      throw new IllegalArgumentException("request count " + count);
+    }
+    for (int i = 0; i < count; i++) {
+      long packed = buffer.getLong();
+      int startFloor = PackedRequest.getStartFloor(packed);
+      int endFloor = PackedRequest.getEndFloor(packed);
+      int riders = PackedRequest.getRiders(packed);
+      if (startFloor >= this.numberOfFloors || endFloor >= this.numberOfFloors
+          || !isServed(startFloor, endFloor)
+          || (PackedRequest.isSecondLeg(packed) && !isServedDirectly(startFloor, endFloor))
+          || (startFloor < legEndFloor(packed)) != (direction == Direction.UP)) {
+        throw new IllegalArgumentException("request " + startFloor + "->" + endFloor);
+      }
+      if (riders < 1 || riders > maxRidersPerRequest()) {
+        throw new IllegalArgumentException("request riders " + riders);
+      }
+      requests.add(packed);
+      this.hallCalls.add(startFloor, direction, riders);
+      if (direction == Direction.UP) {
+        this.upRiders += riders;
+      } else {
+        this.downRiders += riders;
+      }
+    }
+  }
+
+  /**
+   * Reads the number of elevators and the minimum separation of each shaft and puts the
+   * restored elevators back in their shafts.
+   */
+  private static Shaft[] readShafts(ByteBuffer buffer, ElevatorInterface[] elevators) {
+    int count = buffer.getInt();
+    if (count < 1 || count > elevators.length) {
+      throw new IllegalArgumentException("shaft count " + count);
+    }
+    Shaft[] shafts = new Shaft[count];
+    int first = 0;
+    for (int i = 0; i < count; i++) {
+      int cars = buffer.get();
+      int minimumSeparation = buffer.getInt();
+      if (cars < 1 || cars > 2 || first + cars > elevators.length) {
+        throw new IllegalArgumentException("shaft " + i + " with " + cars + " elevators");
+      }
+      shafts[i] = newShaft(elevators, first, cars, minimumSeparation);
+      first += cars;
+    }
+    if (first != elevators.length) {
+      throw new IllegalArgumentException("shafts hold " + first + " of "
+          + elevators.length + " elevators");
+    }
+    return shafts;
+  }
+
+  private void readLegs(ByteBuffer buffer, LongRingQueue legs) {
+    int count = buffer.getInt();
+    if (count < 0 || count > buffer.remaining() / 8) {
+      throw new IllegalArgumentException("leg count " + count);
+    }
+    for (int i = 0; i < count; i++) {
+      long packed = buffer.getLong();
+      int startFloor = PackedRequest.getStartFloor(packed);
+      int endFloor = PackedRequest.getEndFloor(packed);
+      if (startFloor >= this.numberOfFloors || endFloor >= this.numberOfFloors
+          || !PackedRequest.isSecondLeg(packed) || !isServedDirectly(startFloor, endFloor)) {
+        throw new IllegalArgumentException("leg " + startFloor + "->" + endFloor);
+      }
+      legs.add(packed);
+    }
+  }
+
+  /**
+   * Reads the dispatch policy with the budget of its assignments, and the parking planner
+   * if one was set.
+   */
+  private void readDispatchPolicy(ByteBuffer buffer) {
+    byte policy = buffer.get();
+    if (policy < 0 || policy >= DispatchPolicy.values().length) {
+      throw new IllegalArgumentException("Unknown dispatch policy " + policy);
+    }
+    this.dispatchPolicy = DispatchPolicy.values()[policy];
+    long budgetNanos = buffer.getLong();
+    if (this.dispatchPolicy == DispatchPolicy.OPTIMAL) {
+      this.assignmentEngine = new AssignmentEngine(budgetNanos);
+    }
+    byte planned = buffer.get();
+    if (planned < 0 || planned > 1) {
+      throw new IllegalArgumentException("parking planner flag " + planned);
+    }
+    if (planned == 1) {
+      this.parkingPlanner = new ParkingPlanner(buffer);
+    }
+  }
+
+  private static void readFully(ReadableByteChannel channel, ByteBuffer buffer)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        throw new IOException("Unexpected end of checkpoint");
+      }
+    }
+    buffer.flip();
+  }
 }
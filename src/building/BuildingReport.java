@@ -2,6 +2,8 @@ package building;
 
 import building.enums.ElevatorSystemStatus;
 import elevator.ElevatorReport;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import scanerzus.Request;
 
@@ -17,12 +19,30 @@ public class BuildingReport {
 
   ElevatorReport[] elevatorReports;
 
-  List<Request> upRequests;
+  volatile List<Request> upRequests;
 
-  List<Request> downRequests;
+  volatile List<Request> downRequests;
+
+  /**
+   * The up and down requests packed with PackedRequest, when the report was made by
+   * the building. The request lists are created from these the first time they are asked for.
+   */
+  long[] packedUpRequests;
+
+  long[] packedDownRequests;
+
+  int upRequestCount;
+
+  int downRequestCount;
 
   ElevatorSystemStatus systemStatus;
 
+  long rejectedRequests;
+
+  long droppedRequests;
+
+  long rateLimitedRequests;
+
   /**
    * This constructor is used to create a new BuildingReport object.
    *
@@ -47,9 +67,53 @@ public class BuildingReport {
     this.elevatorReports = elevatorsReports;
     this.upRequests = upRequests;
     this.downRequests = downRequests;
+    this.upRequestCount = upRequests.size();
+    this.downRequestCount = downRequests.size();
     this.systemStatus = systemStatus;
   }
 
+  /**
+   * This constructor is used by the building to create a report from its packed queues.
+   *
+   * @param numFloors          The number of floors in the building.
+   * @param numElevators       The number of elevators in the building.
+   * @param elevatorCapacity   The capacity of the elevators.
+   * @param elevatorsReports   The status of the elevators.
+   * @param packedUpRequests   The up requests, packed with PackedRequest.
+   * @param upRequestCount     The number of riders in the up requests.
+   * @param packedDownRequests The down requests, packed with PackedRequest.
+   * @param downRequestCount   The number of riders in the down requests.
+   * @param systemStatus       The status of the elevator system.
+   * @param rejectedRequests   The requests turned away because their queue was full.
+   * @param droppedRequests    The waiting riders dropped to make room for newer requests.
+   * @param rateLimitedRequests The requests turned away because their source was over its rate.
+   */
+  BuildingReport(int numFloors,
+                 int numElevators,
+                 int elevatorCapacity,
+                 ElevatorReport[] elevatorsReports,
+                 long[] packedUpRequests,
+                 int upRequestCount,
+                 long[] packedDownRequests,
+                 int downRequestCount,
+                 ElevatorSystemStatus systemStatus,
+                 long rejectedRequests,
+                 long droppedRequests,
+                 long rateLimitedRequests) {
+    this.numFloors = numFloors;
+    this.numElevators = numElevators;
+    this.elevatorCapacity = elevatorCapacity;
+    this.elevatorReports = elevatorsReports;
+    this.packedUpRequests = packedUpRequests;
+    this.packedDownRequests = packedDownRequests;
+    this.upRequestCount = upRequestCount;
+    this.downRequestCount = downRequestCount;
+    this.systemStatus = systemStatus;
+    this.rejectedRequests = rejectedRequests;
+    this.droppedRequests = droppedRequests;
+    this.rateLimitedRequests = rateLimitedRequests;
+  }
+
   /**
    * This method is used to get the number of floors in the building.
    *
@@ -88,11 +152,17 @@ public class BuildingReport {
 
   /**
    * This method is used to get the up requests for the elevators.
+   * Riders coalesced into one request by the building are listed one Request each.
    *
    * @return the requests for the elevators.
    */
   public List<Request> getUpRequests() {
-    return this.upRequests;
+    List<Request> requests = this.upRequests;
+    if (requests == null) {
+      requests = toRequests(this.packedUpRequests);
+      this.upRequests = requests;
+    }
+    return requests;
   }
 
   /**
@@ -101,7 +171,30 @@ public class BuildingReport {
    * @return the requests for the elevators.
    */
   public List<Request> getDownRequests() {
-    return this.downRequests;
+    List<Request> requests = this.downRequests;
+    if (requests == null) {
+      requests = toRequests(this.packedDownRequests);
+      this.downRequests = requests;
+    }
+    return requests;
+  }
+
+  /**
+   * This method is used to get the number of up requests without creating the request list.
+   *
+   * @return the number of up requests.
+   */
+  public int getUpRequestCount() {
+    return this.upRequestCount;
+  }
+
+  /**
+   * This method is used to get the number of down requests without creating the request list.
+   *
+   * @return the number of down requests.
+   */
+  public int getDownRequestCount() {
+    return this.downRequestCount;
   }
 
   /**
@@ -113,6 +206,35 @@ public class BuildingReport {
     return this.systemStatus;
   }
 
+  /**
+   * This method is used to get the number of requests turned away because their queue was full.
+   *
+   * @return the number of rejected requests.
+   */
+  public long getRejectedRequests() {
+    return this.rejectedRequests;
+  }
+
+  /**
+   * This method is used to get the number of waiting riders dropped to make room
+   * for newer requests.
+   *
+   * @return the number of dropped requests.
+   */
+  public long getDroppedRequests() {
+    return this.droppedRequests;
+  }
+
+  /**
+   * This method is used to get the number of requests turned away because their
+   * source was over its rate.
+   *
+   * @return the number of rate limited requests.
+   */
+  public long getRateLimitedRequests() {
+    return this.rateLimitedRequests;
+  }
+
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder();
@@ -127,9 +249,26 @@ public class BuildingReport {
       sb.append(report.toString()).append("\n");
     }
 
-    sb.append("Up Requests: ").append(upRequests.size()).append("\n");
-    sb.append("Down Requests: ").append(downRequests.size()).append("\n");
+    sb.append("Up Requests: ").append(upRequestCount).append("\n");
+    sb.append("Down Requests: ").append(downRequestCount).append("\n");
+    if (rejectedRequests + droppedRequests + rateLimitedRequests > 0) {
+      sb.append("Rejected Requests: ").append(rejectedRequests).append("\n");
+      sb.append("Dropped Requests: ").append(droppedRequests).append("\n");
+      sb.append("Rate Limited Requests: ").append(rateLimitedRequests).append("\n");
+    }
 
     return sb.toString();
   }
+
+  private static List<Request> toRequests(long[] packedRequests) {
+    List<Request> requests = new ArrayList<>(packedRequests.length);
+    for (long packed : packedRequests) {
+      Request request = new Request(PackedRequest.getStartFloor(packed),
+          PackedRequest.getEndFloor(packed));
+      for (int i = PackedRequest.getRiders(packed); i > 0; i--) {
+        requests.add(request);
+      }
+    }
+    return Collections.unmodifiableList(requests);
+  }
 }
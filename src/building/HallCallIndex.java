@@ -0,0 +1,194 @@
+package building;
+
+import building.enums.Direction;
+import java.util.Arrays;
+
+/**
+ * An index of the waiting hall calls by floor and direction.
+ * It keeps a count of the riders waiting at each floor for each direction, plus a bitset
+ * of the floors with anyone waiting, so a dispatcher can ask who is waiting at a floor
+ * or find the next floor with a call above or below a car without scanning the queues.
+ * The building keeps the index in step with its request queues; other classes can only
+ * read it, and only from the thread that steps the building.
+ */
+public class HallCallIndex {
+  private final int numberOfFloors;
+
+  private final int[] upCounts;
+
+  private final int[] downCounts;
+
+  private final long[] upFloors;
+
+  private final long[] downFloors;
+
+  /**
+   * Create an empty index.
+   *
+   * @param numberOfFloors the number of floors in the building.
+   */
+  HallCallIndex(int numberOfFloors) {
+    this.numberOfFloors = numberOfFloors;
+    this.upCounts = new int[numberOfFloors];
+    this.downCounts = new int[numberOfFloors];
+    this.upFloors = new long[(numberOfFloors + 63) >> 6];
+    this.downFloors = new long[(numberOfFloors + 63) >> 6];
+  }
+
+  /**
+   * Create an index with the same contents as the source.
+   *
+   * @param source the index to copy.
+   */
+  HallCallIndex(HallCallIndex source) {
+    this.numberOfFloors = source.numberOfFloors;
+    this.upCounts = source.upCounts.clone();
+    this.downCounts = source.downCounts.clone();
+    this.upFloors = source.upFloors.clone();
+    this.downFloors = source.downFloors.clone();
+  }
+
+  /**
+   * Record riders waiting at a floor.
+   *
+   * @param floor     the floor they are waiting at.
+   * @param direction the direction they are going, UP or DOWN.
+   * @param riders    the number of riders.
+   */
+  void add(int floor, Direction direction, int riders) {
+    int[] counts = counts(direction);
+    counts[floor] += riders;
+    floors(direction)[floor >> 6] |= 1L << floor;
+  }
+
+  /**
+   * Record riders leaving the floor because their request was given to an elevator.
+   *
+   * @param floor     the floor they were waiting at.
+   * @param direction the direction they are going, UP or DOWN.
+   * @param riders    the number of riders.
+   */
+  void remove(int floor, Direction direction, int riders) {
+    int[] counts = counts(direction);
+    counts[floor] -= riders;
+    if (counts[floor] <= 0) {
+      counts[floor] = 0;
+      floors(direction)[floor >> 6] &= ~(1L << floor);
+    }
+  }
+
+  /**
+   * Forget every waiting rider.
+   */
+  void clear() {
+    Arrays.fill(this.upCounts, 0);
+    Arrays.fill(this.downCounts, 0);
+    Arrays.fill(this.upFloors, 0);
+    Arrays.fill(this.downFloors, 0);
+  }
+
+  /**
+   * The number of riders waiting at a floor to go in a direction.
+   *
+   * @param floor     the floor.
+   * @param direction UP or DOWN.
+   * @return the number of riders waiting.
+   */
+  public int getWaitingCount(int floor, Direction direction) {
+    checkFloor(floor);
+    return counts(direction)[floor];
+  }
+
+  /**
+   * Is anyone waiting at a floor to go in a direction.
+   *
+   * @param floor     the floor.
+   * @param direction UP or DOWN.
+   * @return true if anyone is waiting.
+   */
+  public boolean hasWaiting(int floor, Direction direction) {
+    checkFloor(floor);
+    return (floors(direction)[floor >> 6] & (1L << floor)) != 0;
+  }
+
+  /**
+   * The nearest floor strictly above the given floor with anyone waiting to go in a direction.
+   *
+   * @param floor     the floor to search from; -1 searches from the ground floor.
+   * @param direction UP or DOWN.
+   * @return the floor, or -1 if there is none.
+   */
+  public int nextFloorAbove(int floor, Direction direction) {
+    long[] bits = floors(direction);
+    int from = floor + 1;
+    if (from >= this.numberOfFloors) {
+      return -1;
+    }
+    int word = Math.max(0, from) >> 6;
+    long current = bits[word] & (-1L << Math.max(0, from));
+    while (true) {
+      if (current != 0) {
+        return (word << 6) + Long.numberOfTrailingZeros(current);
+      }
+      word++;
+      if (word == bits.length) {
+        return -1;
+      }
+      current = bits[word];
+    }
+  }
+
+  /**
+   * The nearest floor strictly below the given floor with anyone waiting to go in a direction.
+   *
+   * @param floor     the floor to search from; numberOfFloors searches from the top floor.
+   * @param direction UP or DOWN.
+   * @return the floor, or -1 if there is none.
+   */
+  public int nextFloorBelow(int floor, Direction direction) {
+    long[] bits = floors(direction);
+    int from = Math.min(floor, this.numberOfFloors) - 1;
+    if (from < 0) {
+      return -1;
+    }
+    int word = from >> 6;
+    long current = bits[word] & (-1L >>> (63 - (from & 63)));
+    while (true) {
+      if (current != 0) {
+        return (word << 6) + 63 - Long.numberOfLeadingZeros(current);
+      }
+      word--;
+      if (word < 0) {
+        return -1;
+      }
+      current = bits[word];
+    }
+  }
+
+  private int[] counts(Direction direction) {
+    if (direction == Direction.UP) {
+      return this.upCounts;
+    }
+    if (direction == Direction.DOWN) {
+      return this.downCounts;
+    }
+    throw new IllegalArgumentException("direction must be UP or DOWN");
+  }
+
+  private long[] floors(Direction direction) {
+    if (direction == Direction.UP) {
+      return this.upFloors;
+    }
+    if (direction == Direction.DOWN) {
+      return this.downFloors;
+    }
+    throw new IllegalArgumentException("direction must be UP or DOWN");
+  }
+
+  private void checkFloor(int floor) {
+    if (floor < 0 || floor >= this.numberOfFloors) {
+      throw new IllegalArgumentException("floor must be between 0 and "
+          + (this.numberOfFloors - 1));
+    }
+  }
+}
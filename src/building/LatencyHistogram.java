@@ -0,0 +1,152 @@
+package building;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of latencies measured in ticks.
+ * Values below 1024 are counted exactly; larger values fall into power of two buckets.
+ * Histograms can be merged, so per-run results can be combined into an aggregate.
+ * It is not thread safe.
+ */
+public class LatencyHistogram {
+  private static final int EXACT_BITS = 10;
+
+  private static final int EXACT_LIMIT = 1 << EXACT_BITS;
+
+  private final long[] counts = new long[EXACT_LIMIT + Long.SIZE - EXACT_BITS];
+
+  private long count;
+
+  private long sum;
+
+  private long max;
+
+  /**
+   * Create an empty histogram.
+   */
+  public LatencyHistogram() {
+  }
+
+  /**
+   * Create a histogram with the same contents as the source.
+   *
+   * @param source the histogram to copy.
+   */
+  public LatencyHistogram(LatencyHistogram source) {
+    merge(source);
+  }
+
+  /**
+   * Record one latency.
+   *
+   * @param ticks the latency in ticks, negative values are recorded as 0.
+   */
+  public void record(long ticks) {
+    record(ticks, 1);
+  }
+
+  /**
+   * Record the same latency several times.
+   *
+   * @param ticks       the latency in ticks, negative values are recorded as 0.
+   * @param occurrences the number of times to record it.
+   */
+  public void record(long ticks, long occurrences) {
+    long value = Math.max(0, ticks);
+    this.counts[bucket(value)] += occurrences;
+    this.count += occurrences;
+    this.sum += value * occurrences;
+    this.max = Math.max(this.max, value);
+  }
+
+  /**
+   * Add every value recorded in the other histogram to this one.
+   *
+   * @param other the histogram to merge.
+   */
+  public void merge(LatencyHistogram other) {
+    for (int i = 0; i < this.counts.length; i++) {
+      this.counts[i] += other.counts[i];
+    }
+    this.count += other.count;
+    this.sum += other.sum;
+    this.max = Math.max(this.max, other.max);
+  }
+
+  /**
+   * Remove every recorded value.
+   */
+  public void clear() {
+    Arrays.fill(this.counts, 0);
+    this.count = 0;
+    this.sum = 0;
+    this.max = 0;
+  }
+
+  /**
+   * The number of values recorded.
+   *
+   * @return the number of values.
+   */
+  public long getCount() {
+    return this.count;
+  }
+
+  /**
+   * The mean of the recorded values.
+   *
+   * @return the mean, or 0 if nothing has been recorded.
+   */
+  public double getMean() {
+    return this.count == 0 ? 0 : (double) this.sum / this.count;
+  }
+
+  /**
+   * The largest recorded value.
+   *
+   * @return the largest value, or 0 if nothing has been recorded.
+   */
+  public long getMax() {
+    return this.max;
+  }
+
+  /**
+   * The value at the given percentile.
+   * Values of 1024 ticks or more are reported as the upper bound of their bucket.
+   *
+   * @param percentile the percentile, between 0 and 100.
+   * @return the value at that percentile, or 0 if nothing has been recorded.
+   */
+  public long getPercentile(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("percentile must be between 0 and 100");
+    }
+    if (this.count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * this.count));
+    long seen = 0;
+    for (int i = 0; i < this.counts.length; i++) {
+      seen += this.counts[i];
+      if (seen >= rank) {
+        return Math.min(this.max, upperBound(i));
+      }
+    }
+    return this.max;
+  }
+
+  private static int bucket(long value) {
+    if (value < EXACT_LIMIT) {
+      return (int) value;
+    }
+    return EXACT_LIMIT + (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - EXACT_BITS;
+  }
+
+  private static long upperBound(int bucket) {
+    if (bucket < EXACT_LIMIT) {
+      return bucket;
+    }
+    int bits = bucket - EXACT_LIMIT + EXACT_BITS + 1;
+    return bits >= Long.SIZE - 1 ? Long.MAX_VALUE : (1L << bits) - 1;
+  }
+}
@@ -0,0 +1,204 @@
+package building;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A first-in first-out queue of primitive longs backed by a growable ring buffer.
+ * Unlike a List of boxed values it adds no per-element objects, and removing the
+ * head is O(1).
+ * It is not thread safe.
+ */
+public class LongRingQueue {
+  private static final int DEFAULT_CAPACITY = 16;
+
+  private long[] elements;
+
+  private int head;
+
+  private int size;
+
+  /**
+   * The number of values removed from the head since the queue was created or cleared.
+   */
+  private long removed;
+
+  /**
+   * Create an empty queue.
+   */
+  public LongRingQueue() {
+    this.elements = new long[DEFAULT_CAPACITY];
+  }
+
+  /**
+   * Create a queue with the same contents as the source.
+   *
+   * @param source the queue to copy.
+   */
+  public LongRingQueue(LongRingQueue source) {
+    int capacity = DEFAULT_CAPACITY;
+    while (capacity < source.size) {
+      capacity <<= 1;
+    }
+    this.elements = new long[capacity];
+    source.copyTo(this.elements, 0);
+    this.head = 0;
+    this.size = source.size;
+    this.removed = source.removed;
+  }
+
+  /**
+   * Add a value to the tail of the queue.
+   *
+   * @param value the value to add.
+   */
+  public void add(long value) {
+    if (this.size == this.elements.length) {
+      grow();
+    }
+    this.elements[(this.head + this.size) & (this.elements.length - 1)] = value;
+    this.size++;
+  }
+
+  /**
+   * Remove and return the value at the head of the queue.
+   *
+   * @return the value at the head.
+   * @throws NoSuchElementException if the queue is empty.
+   */
+  public long remove() {
+    if (this.size == 0) {
+      throw new NoSuchElementException("queue is empty");
+    }
+    long value = this.elements[this.head];
+    this.head = (this.head + 1) & (this.elements.length - 1);
+    this.size--;
+    this.removed++;
+    return value;
+  }
+
+  /**
+   * Return the value at the given position without removing it.
+   * Position 0 is the head of the queue.
+   *
+   * @param index the position in the queue.
+   * @return the value at that position.
+   * @throws IndexOutOfBoundsException if the index is not in the queue.
+   */
+  public long get(int index) {
+    if (index < 0 || index >= this.size) {
+      throw new IndexOutOfBoundsException("index " + index + " size " + this.size);
+    }
+    return this.elements[(this.head + index) & (this.elements.length - 1)];
+  }
+
+  /**
+   * Remove the values at the given positions and keep the rest in order.
+   * The values in front of the removed ones move up towards the tail, so the values
+   * after the last removed position keep their sequence numbers.
+   *
+   * @param positions the positions to remove, in increasing order.
+   * @param count     the number of positions to use from the array.
+   * @throws IndexOutOfBoundsException if a position is not in the queue or out of order.
+   */
+  public void removeAll(int[] positions, int count) {
+    if (count == 0) {
+      return;
+    }
+    for (int i = 0; i < count; i++) {
+      if (positions[i] < 0 || positions[i] >= this.size
+          || (i > 0 && positions[i] <= positions[i - 1])) {
+        throw new IndexOutOfBoundsException("position " + positions[i] + " size " + this.size);
+      }
+    }
+    int mask = this.elements.length - 1;
+    int next = count - 1;
+    int write = positions[next];
+    for (int read = write; read >= 0; read--) {
+      if (next >= 0 && read == positions[next]) {
+        next--;
+        continue;
+      }
+      this.elements[(this.head + write) & mask] = this.elements[(this.head + read) & mask];
+      write--;
+    }
+    this.head = (this.head + count) & mask;
+    this.size -= count;
+    this.removed += count;
+  }
+
+  /**
+   * Replace the value at the given position.
+   * Position 0 is the head of the queue.
+   *
+   * @param index the position in the queue.
+   * @param value the new value.
+   * @throws IndexOutOfBoundsException if the index is not in the queue.
+   */
+  public void set(int index, long value) {
+    if (index < 0 || index >= this.size) {
+      throw new IndexOutOfBoundsException("index " + index + " size " + this.size);
+    }
+    this.elements[(this.head + index) & (this.elements.length - 1)] = value;
+  }
+
+  /**
+   * The sequence number of the value at the head of the queue.
+   * Every value gets the next sequence number when it is added, starting from 0 when
+   * the queue is created or cleared, so the value with sequence number s is at position
+   * s - getHeadSequence() for as long as it stays in the queue.
+   *
+   * @return the sequence number of the head.
+   */
+  public long getHeadSequence() {
+    return this.removed;
+  }
+
+  /**
+   * The number of values in the queue.
+   *
+   * @return the size of the queue.
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Is the queue empty.
+   *
+   * @return true if the queue is empty.
+   */
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  /**
+   * Remove every value from the queue.
+   */
+  public void clear() {
+    this.head = 0;
+    this.size = 0;
+    this.removed = 0;
+  }
+
+  /**
+   * Copy the values, head first, into the target array.
+   *
+   * @param target the array to copy into.
+   * @param offset the position in the target of the head value.
+   */
+  public void copyTo(long[] target, int offset) {
+    int firstPart = Math.min(this.size, this.elements.length - this.head);
+    System.arraycopy(this.elements, this.head, target, offset, firstPart);
+    System.arraycopy(this.elements, 0, target, offset + firstPart, this.size - firstPart);
+  }
+
+  private void grow() {
+    if (this.elements.length == 1 << 30) {
+      throw new IllegalStateException("queue is full");
+    }
+    long[] grown = new long[this.elements.length << 1];
+    copyTo(grown, 0);
+    this.elements = grown;
+    this.head = 0;
+  }
+}
@@ -0,0 +1,145 @@
+package building;
+
+import scanerzus.Request;
+
+/**
+ * This class packs a queued request into a single long, so the building can queue
+ * requests in a LongRingQueue without allocating a Request object for each one.
+ * The layout, from the most significant bit, is:
+ * <ul>
+ *   <li>10 bits start floor</li>
+ *   <li>10 bits end floor</li>
+ *   <li>1 bit set on the second leg of a transfer</li>
+ *   <li>27 bits the step the request was queued at, modulo 2^27</li>
+ *   <li>5 bits the number of riders sharing the request</li>
+ *   <li>11 bits request id, a rolling counter kept by the building</li>
+ * </ul>
+ * The step wraps, so waits are only correct while they are shorter than 2^27 steps.
+ * When riders with the same start and end floor are coalesced into one request,
+ * the step is the step the first of them was queued at. The second leg of a transfer
+ * keeps the step of the request it was split from, so its wait runs from the rider's
+ * first request.
+ */
+public final class PackedRequest {
+  /**
+   * The number of floors a packed request can address.
+   */
+  public static final int MAX_FLOORS = 1 << 10;
+
+  /**
+   * The largest number of riders one packed request can hold.
+   */
+  public static final int MAX_RIDERS = (1 << 5) - 1;
+
+  private static final int START_SHIFT = 54;
+
+  private static final int END_SHIFT = 44;
+
+  private static final int TRANSFER_SHIFT = 43;
+
+  private static final int STEP_SHIFT = 16;
+
+  private static final int RIDERS_SHIFT = 11;
+
+  private static final long FLOOR_MASK = MAX_FLOORS - 1;
+
+  private static final long STEP_MASK = (1L << 27) - 1;
+
+  private static final long RIDERS_MASK = MAX_RIDERS;
+
+  private static final long ID_MASK = (1L << 11) - 1;
+
+  private PackedRequest() {
+  }
+
+  /**
+   * Pack a request.
+   *
+   * @param startFloor the start floor, between 0 and MAX_FLOORS - 1.
+   * @param endFloor   the end floor, between 0 and MAX_FLOORS - 1.
+   * @param step       the step the request was queued at; only the low 27 bits are kept.
+   * @param riders     the number of riders, between 1 and MAX_RIDERS.
+   * @param id         the request id; only the low 11 bits are kept.
+   * @return the packed request.
+   */
+  public static long pack(int startFloor, int endFloor, long step, int riders, int id) {
+    return ((startFloor & FLOOR_MASK) << START_SHIFT)
+        | ((endFloor & FLOOR_MASK) << END_SHIFT)
+        | ((step & STEP_MASK) << STEP_SHIFT)
+        | ((riders & RIDERS_MASK) << RIDERS_SHIFT)
+        | (id & ID_MASK);
+  }
+
+  /**
+   * Return the packed request with a different number of riders.
+   *
+   * @param packed the packed request.
+   * @param riders the new number of riders, between 1 and MAX_RIDERS.
+   * @return the updated packed request.
+   */
+  public static long withRiders(long packed, int riders) {
+    return (packed & ~(RIDERS_MASK << RIDERS_SHIFT)) | ((riders & RIDERS_MASK) << RIDERS_SHIFT);
+  }
+
+  /**
+   * Return the second leg of a transfer: the request from the transfer floor to the
+   * request's end floor, marked as a second leg, with the same step, riders and id.
+   *
+   * @param packed        the packed request that is split.
+   * @param transferFloor the floor the riders change elevators at.
+   * @return the packed second leg.
+   */
+  public static long secondLeg(long packed, int transferFloor) {
+    return (packed & ~(FLOOR_MASK << START_SHIFT))
+        | ((transferFloor & FLOOR_MASK) << START_SHIFT)
+        | (1L << TRANSFER_SHIFT);
+  }
+
+  /**
+   * Is the packed request the second leg of a transfer.
+   *
+   * @param packed the packed request.
+   * @return true if it was made by secondLeg.
+   */
+  public static boolean isSecondLeg(long packed) {
+    return (packed & (1L << TRANSFER_SHIFT)) != 0;
+  }
+
+  public static int getRiders(long packed) {
+    return (int) ((packed >>> RIDERS_SHIFT) & RIDERS_MASK);
+  }
+
+  public static int getStartFloor(long packed) {
+    return (int) ((packed >>> START_SHIFT) & FLOOR_MASK);
+  }
+
+  public static int getEndFloor(long packed) {
+    return (int) ((packed >>> END_SHIFT) & FLOOR_MASK);
+  }
+
+  public static int getId(long packed) {
+    return (int) (packed & ID_MASK);
+  }
+
+  /**
+   * The number of steps a request has waited.
+   *
+   * @param packed      the packed request.
+   * @param currentStep the current step of the building.
+   * @return the number of steps since the request was queued.
+   */
+  public static long getWait(long packed, long currentStep) {
+    return (currentStep - (packed >>> STEP_SHIFT)) & STEP_MASK;
+  }
+
+  /**
+   * Create the Request object for a packed request.
+   * A coalesced request still becomes a single Request, for all of its riders.
+   *
+   * @param packed the packed request.
+   * @return a new Request with the same start and end floor and riders.
+   */
+  public static Request toRequest(long packed) {
+    return new Request(getStartFloor(packed), getEndFloor(packed), getRiders(packed));
+  }
+}
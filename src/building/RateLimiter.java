@@ -0,0 +1,104 @@
+package building;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A token bucket per request source, clocked by building steps.
+ * Each bucket starts full, refills at a fixed rate per step and never holds more than
+ * the burst size. The building only uses it while holding its intake lock.
+ * A bucket that has refilled to the burst size behaves exactly like a new one, so such
+ * buckets are evicted whenever the number of buckets doubles, keeping the map bounded
+ * by the sources active within the last burst / tokensPerStep steps.
+ */
+class RateLimiter {
+  /**
+   * The fewest buckets kept before idle ones are evicted.
+   */
+  private static final int MIN_EVICTION_SIZE = 64;
+
+  private final double tokensPerStep;
+
+  private final int burst;
+
+  private final Map<Object, Bucket> buckets = new HashMap<>();
+
+  private int evictionSize = MIN_EVICTION_SIZE;
+
+  /**
+   * Create a rate limiter.
+   *
+   * @param tokensPerStep the tokens added to each bucket every step.
+   * @param burst         the most tokens a bucket holds.
+   */
+  RateLimiter(double tokensPerStep, int burst) {
+    this.tokensPerStep = tokensPerStep;
+    this.burst = burst;
+  }
+
+  /**
+   * Create a rate limiter with the same settings and buckets as the source.
+   *
+   * @param source the rate limiter to copy.
+   */
+  RateLimiter(RateLimiter source) {
+    this.tokensPerStep = source.tokensPerStep;
+    this.burst = source.burst;
+    for (Map.Entry<Object, Bucket> entry : source.buckets.entrySet()) {
+      Bucket bucket = new Bucket(entry.getValue().tokens, entry.getValue().step);
+      this.buckets.put(entry.getKey(), bucket);
+    }
+  }
+
+  /**
+   * Take a token from the source's bucket.
+   *
+   * @param source the source of the request.
+   * @param step   the current building step.
+   * @return true if the source had a token, false if it is over its rate.
+   */
+  boolean tryAcquire(Object source, long step) {
+    Bucket bucket = this.buckets.get(source);
+    if (bucket == null) {
+      if (this.buckets.size() >= this.evictionSize) {
+        evictFull(step);
+      }
+      bucket = new Bucket(this.burst, step);
+      this.buckets.put(source, bucket);
+    } else if (step > bucket.step) {
+      double refill = (step - bucket.step) * this.tokensPerStep;
+      bucket.tokens = Math.min(this.burst, bucket.tokens + refill);
+      bucket.step = step;
+    }
+    if (bucket.tokens < 1) {
+      return false;
+    }
+    bucket.tokens--;
+    return true;
+  }
+
+  /**
+   * Forget every source.
+   */
+  void clear() {
+    this.buckets.clear();
+    this.evictionSize = MIN_EVICTION_SIZE;
+  }
+
+  private void evictFull(long step) {
+    this.buckets.values().removeIf(bucket ->
+        bucket.tokens + (step - bucket.step) * this.tokensPerStep >= this.burst);
+    this.evictionSize = Math.max(MIN_EVICTION_SIZE, 2 * this.buckets.size());
+  }
+
+  private static final class Bucket {
+    private double tokens;
+
+    private long step;
+
+    private Bucket(double tokens, long step) {
+      this.tokens = tokens;
+      this.step = step;
+    }
+  }
+}
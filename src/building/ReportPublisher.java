@@ -0,0 +1,299 @@
+package building;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class publishes a BuildingReport every few steps of a building as a reactive stream.
+ * It runs as a step listener: the stepping thread makes the report, hands it to every
+ * subscription and returns. Reports are delivered on the executor, only as fast as each
+ * subscriber asks for them, so a slow subscriber never holds up the building.
+ * A subscriber either receives every report, from a bounded buffer, or asks to conflate
+ * and only receives the latest report whenever it has demand. A subscriber that lets its
+ * buffer overflow is cancelled with an error instead of blocking the building.
+ * Reports are only made while somebody is subscribed.
+ */
+public class ReportPublisher implements Flow.Publisher<BuildingReport>, AutoCloseable {
+  private final Building building;
+
+  private final int publishEverySteps;
+
+  private final Executor executor;
+
+  private final int bufferSize;
+
+  private final Runnable stepListener = this::onStep;
+
+  private final CopyOnWriteArrayList<ReportSubscription> subscriptions =
+      new CopyOnWriteArrayList<>();
+
+  private volatile boolean closed;
+
+  /**
+   * Create a publisher and start listening to the building.
+   *
+   * @param building          the building to publish.
+   * @param publishEverySteps how many steps pass between reports.
+   * @param executor          the executor reports are delivered on.
+   * @param bufferSize        the most undelivered reports a subscriber that does not
+   *                          conflate may have before it is cancelled.
+   */
+  ReportPublisher(Building building, int publishEverySteps, Executor executor, int bufferSize) {
+    if (publishEverySteps < 1) {
+      throw new IllegalArgumentException("publishEverySteps must be greater than or equal to 1");
+    }
+    if (executor == null) {
+      throw new IllegalArgumentException("executor cannot be null");
+    }
+    if (bufferSize < 1) {
+      throw new IllegalArgumentException("bufferSize must be greater than or equal to 1");
+    }
+    this.building = building;
+    this.publishEverySteps = publishEverySteps;
+    this.executor = executor;
+    this.bufferSize = bufferSize;
+    building.addStepListener(this.stepListener);
+  }
+
+  /**
+   * Subscribe to every report. The subscriber is cancelled with an error if more
+   * than bufferSize reports are waiting for its demand.
+   *
+   * @param subscriber the subscriber.
+   */
+  @Override
+  public void subscribe(Flow.Subscriber<? super BuildingReport> subscriber) {
+    subscribe(subscriber, false);
+  }
+
+  /**
+   * Subscribe to the reports.
+   *
+   * @param subscriber the subscriber.
+   * @param conflate   true to only receive the latest report when there is demand,
+   *                   false to receive every report.
+   */
+  public void subscribe(Flow.Subscriber<? super BuildingReport> subscriber, boolean conflate) {
+    Objects.requireNonNull(subscriber, "subscriber must not be null");
+    ReportSubscription subscription = new ReportSubscription(subscriber, conflate);
+    if (this.closed) {
+      subscription.complete();
+    } else {
+      this.subscriptions.add(subscription);
+      if (this.closed) {
+        subscription.complete();
+      }
+    }
+    subscription.schedule();
+  }
+
+  /**
+   * The number of subscribers that have not cancelled or completed.
+   *
+   * @return the number of subscribers.
+   */
+  public int getNumberOfSubscribers() {
+    return this.subscriptions.size();
+  }
+
+  /**
+   * Make a report now and offer it to every subscriber.
+   * This must run on the thread that steps the building.
+   */
+  public void publish() {
+    if (this.subscriptions.isEmpty()) {
+      return;
+    }
+    BuildingReport report = this.building.getStatusElevatorSystem();
+    for (ReportSubscription subscription : this.subscriptions) {
+      subscription.offer(report);
+    }
+  }
+
+  /**
+   * Stop listening to the building. Every subscriber receives the reports already
+   * published to it and then completes.
+   */
+  @Override
+  public void close() {
+    this.closed = true;
+    this.building.removeStepListener(this.stepListener);
+    for (ReportSubscription subscription : this.subscriptions) {
+      subscription.complete();
+    }
+  }
+
+  private void onStep() {
+    if (this.building.getStepCount() % this.publishEverySteps == 0) {
+      publish();
+    }
+  }
+
+  /**
+   * The state of one subscriber. Signals to the subscriber are only sent from run, and
+   * the work-in-progress counter makes sure only one run is active at a time.
+   */
+  private final class ReportSubscription implements Flow.Subscription, Runnable {
+    private final Flow.Subscriber<? super BuildingReport> subscriber;
+
+    private final boolean conflate;
+
+    /**
+     * The undelivered reports of a subscriber that does not conflate, guarded by itself.
+     */
+    private final ArrayDeque<BuildingReport> buffer = new ArrayDeque<>();
+
+    /**
+     * The latest undelivered report of a subscriber that conflates.
+     */
+    private final AtomicReference<BuildingReport> latest = new AtomicReference<>();
+
+    private final AtomicLong demand = new AtomicLong();
+
+    private final AtomicInteger workInProgress = new AtomicInteger();
+
+    private volatile Throwable error;
+
+    private volatile boolean completing;
+
+    private volatile boolean cancelled;
+
+    private boolean subscribed;
+
+    private ReportSubscription(Flow.Subscriber<? super BuildingReport> subscriber,
+                               boolean conflate) {
+      this.subscriber = subscriber;
+      this.conflate = conflate;
+    }
+
+    private void offer(BuildingReport report) {
+      if (this.conflate) {
+        this.latest.set(report);
+      } else {
+        synchronized (this.buffer) {
+          if (this.buffer.size() >= ReportPublisher.this.bufferSize) {
+            this.buffer.clear();
+            fail(new IllegalStateException("Subscriber fell more than "
+                + ReportPublisher.this.bufferSize + " reports behind"));
+            return;
+          }
+          this.buffer.add(report);
+        }
+      }
+      schedule();
+    }
+
+    private void complete() {
+      this.completing = true;
+      schedule();
+    }
+
+    private void fail(Throwable throwable) {
+      if (this.error == null) {
+        this.error = throwable;
+      }
+      schedule();
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        fail(new IllegalArgumentException("request must be positive, was " + n));
+        return;
+      }
+      long current;
+      long next;
+      do {
+        current = this.demand.get();
+        next = current + n < 0 ? Long.MAX_VALUE : current + n;
+      } while (!this.demand.compareAndSet(current, next));
+      schedule();
+    }
+
+    @Override
+    public void cancel() {
+      this.cancelled = true;
+      ReportPublisher.this.subscriptions.remove(this);
+    }
+
+    private void schedule() {
+      if (this.workInProgress.getAndIncrement() == 0) {
+        try {
+          ReportPublisher.this.executor.execute(this);
+        } catch (RejectedExecutionException e) {
+          cancel();
+        }
+      }
+    }
+
+    @Override
+    public void run() {
+      int missed = 1;
+      do {
+        try {
+          drain();
+        } catch (RuntimeException e) {
+          // a subscriber that throws is treated as cancelled
+          cancel();
+        }
+        missed = this.workInProgress.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private void drain() {
+      if (this.cancelled) {
+        return;
+      }
+      if (!this.subscribed) {
+        this.subscribed = true;
+        this.subscriber.onSubscribe(this);
+      }
+      while (!this.cancelled && this.error == null && this.demand.get() > 0) {
+        BuildingReport report = poll();
+        if (report == null) {
+          break;
+        }
+        if (this.demand.get() != Long.MAX_VALUE) {
+          this.demand.decrementAndGet();
+        }
+        this.subscriber.onNext(report);
+      }
+      if (this.cancelled) {
+        return;
+      }
+      Throwable failure = this.error;
+      if (failure != null) {
+        cancel();
+        this.subscriber.onError(failure);
+      } else if (this.completing && isEmpty()) {
+        cancel();
+        this.subscriber.onComplete();
+      }
+    }
+
+    private BuildingReport poll() {
+      if (this.conflate) {
+        return this.latest.getAndSet(null);
+      }
+      synchronized (this.buffer) {
+        return this.buffer.poll();
+      }
+    }
+
+    private boolean isEmpty() {
+      if (this.conflate) {
+        return this.latest.get() == null;
+      }
+      synchronized (this.buffer) {
+        return this.buffer.isEmpty();
+      }
+    }
+  }
+}
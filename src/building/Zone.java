@@ -0,0 +1,71 @@
+package building;
+
+/**
+ * The floors an elevator serves: its base floor and a range of floors above it.
+ * A car serving a zone runs express between its base floor and the bottom of its zone
+ * and turns round at the top of its zone, so low-rise, high-rise and express banks can be
+ * set up by giving the cars of a building different zones. The base floor is the ground
+ * floor, except for the upper car of a twin shaft, which takes its requests going up at a
+ * floor above the run of the car below it.
+ */
+public class Zone {
+  private final int baseFloor;
+
+  private final int lowestFloor;
+
+  private final int highestFloor;
+
+  /**
+   * The constructor for a zone above the ground floor.
+   *
+   * @param lowestFloor  the lowest floor of the zone above the ground floor, at least 1.
+   * @param highestFloor the highest floor of the zone.
+   * @throws IllegalArgumentException if lowestFloor is less than 1 or above highestFloor.
+   */
+  public Zone(int lowestFloor, int highestFloor) {
+    this(0, lowestFloor, highestFloor);
+  }
+
+  /**
+   * The constructor for a zone above another base floor.
+   *
+   * @param baseFloor    the floor at the bottom of the run, at least 0.
+   * @param lowestFloor  the lowest floor of the zone, above the base floor.
+   * @param highestFloor the highest floor of the zone.
+   * @throws IllegalArgumentException if baseFloor is less than 0, lowestFloor is not above
+   *                                  it, or lowestFloor is above highestFloor.
+   */
+  public Zone(int baseFloor, int lowestFloor, int highestFloor) {
+    if (baseFloor < 0) {
+      throw new IllegalArgumentException("baseFloor must be greater than or equal to 0");
+    }
+    if (lowestFloor <= baseFloor) {
+      throw new IllegalArgumentException("lowestFloor must be greater than or equal to "
+          + (baseFloor + 1));
+    }
+    if (highestFloor < lowestFloor) {
+      throw new IllegalArgumentException("highestFloor must be greater than or equal to "
+          + "lowestFloor");
+    }
+    this.baseFloor = baseFloor;
+    this.lowestFloor = lowestFloor;
+    this.highestFloor = highestFloor;
+  }
+
+  public int getBaseFloor() {
+    return this.baseFloor;
+  }
+
+  public int getLowestFloor() {
+    return this.lowestFloor;
+  }
+
+  public int getHighestFloor() {
+    return this.highestFloor;
+  }
+
+  @Override
+  public String toString() {
+    return "Zone[" + this.baseFloor + ", " + this.lowestFloor + "-" + this.highestFloor + "]";
+  }
+}
@@ -0,0 +1,15 @@
+package building.enums;
+
+/**
+ * The kind of car the elevators of a building have.
+ */
+public enum CarType {
+  /**
+   * One deck, stopping at one floor at a time.
+   */
+  SINGLE_DECK,
+  /**
+   * Two decks, one above the other, stopping at two adjacent floors at a time.
+   */
+  DOUBLE_DECK
+}
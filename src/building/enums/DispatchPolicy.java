@@ -0,0 +1,16 @@
+package building.enums;
+
+/**
+ * How the building gives waiting requests to elevators.
+ */
+public enum DispatchPolicy {
+  /**
+   * Give the oldest requests to the first elevator at the end of the shaft, as many as fit.
+   */
+  FIFO,
+  /**
+   * Assign every waiting request to the elevator that will reach it soonest, trading off
+   * all requests and elevators together so the total predicted wait is smallest.
+   */
+  OPTIMAL
+}
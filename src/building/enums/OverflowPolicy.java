@@ -0,0 +1,22 @@
+package building.enums;
+
+/**
+ * What the building does with a new request when its request queue is full.
+ */
+public enum OverflowPolicy {
+  /**
+   * Turn the new request away.
+   */
+  REJECT,
+  /**
+   * Drop the rider who has waited longest to make room for the new request. A rider on
+   * the second leg of a transfer is never dropped; if only such riders are queued, the
+   * new request is turned away.
+   */
+  DROP_OLDEST,
+  /**
+   * Wait for the elevators to take requests from the queue, up to a timeout,
+   * then turn the new request away.
+   */
+  BLOCK
+}
@@ -0,0 +1,26 @@
+package building.enums;
+
+/**
+ * Where the building keeps elevators that have nothing to do.
+ * Elevators only take requests at the ends of the shaft, up requests at the ground floor
+ * and down requests at the top of their zone, so an idle elevator is parked at one end.
+ */
+public enum ParkingPolicy {
+  /**
+   * Idle elevators keep sweeping the shaft, taking requests at each end as they pass.
+   */
+  NONE,
+  /**
+   * Idle elevators wait at the ground floor, ready for the trips up.
+   */
+  LOBBY,
+  /**
+   * Idle elevators are spread evenly between the ground floor and the top of their zone.
+   */
+  SPREAD,
+  /**
+   * Idle elevators are shared between the ground floor and the top of their zone by the
+   * demand predicted from the arrivals in the same hour of the day on earlier days.
+   */
+  DEMAND
+}
@@ -0,0 +1,34 @@
+package building.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for one batch of requests given to one elevator.
+ */
+@Name("building.Dispatch")
+@Label("Dispatch Decision")
+@Category({"Elevator Simulation", "Building"})
+@Description("A batch of requests given to an elevator")
+@StackTrace(false)
+public class DispatchEvent extends Event {
+  @Label("Elevator")
+  public int elevatorId;
+
+  @Label("Floor")
+  public int floor;
+
+  @Label("Direction")
+  public String direction;
+
+  @Label("Request Count")
+  public int requestCount;
+
+  @Label("Queue Depth")
+  @Description("Requests left in the queue after the dispatch")
+  public int queueDepth;
+}
@@ -0,0 +1,24 @@
+package building.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event covering the request distribution part of a step.
+ */
+@Name("building.Distribute")
+@Label("Distribute Requests")
+@Category({"Elevator Simulation", "Building"})
+@Description("Handing waiting requests to the elevators at the top and bottom")
+@StackTrace(false)
+public class DistributeEvent extends Event {
+  @Label("Requests Dispatched")
+  public int requestsDispatched;
+
+  @Label("Elevators Dispatched")
+  public int elevatorsDispatched;
+}
@@ -0,0 +1,27 @@
+package building.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event lasting from an elevator opening its door to closing it.
+ */
+@Name("elevator.DoorCycle")
+@Label("Door Cycle")
+@Category({"Elevator Simulation", "Elevator"})
+@Description("An elevator door opening and closing at a floor")
+@StackTrace(false)
+public class DoorCycleEvent extends Event {
+  @Label("Elevator")
+  public int elevatorId;
+
+  @Label("Floor")
+  public int floor;
+
+  @Label("Steps Open")
+  public int stepsOpen;
+}
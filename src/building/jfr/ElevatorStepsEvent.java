@@ -0,0 +1,21 @@
+package building.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event covering the calls of Elevator.step in one building step.
+ */
+@Name("building.ElevatorSteps")
+@Label("Elevator Steps")
+@Category({"Elevator Simulation", "Building"})
+@Description("Stepping every elevator once")
+@StackTrace(false)
+public class ElevatorStepsEvent extends Event {
+  @Label("Elevators")
+  public int elevators;
+}
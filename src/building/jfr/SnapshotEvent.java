@@ -0,0 +1,21 @@
+package building.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event covering the building of a BuildingReport.
+ */
+@Name("building.Snapshot")
+@Label("Status Snapshot")
+@Category({"Elevator Simulation", "Building"})
+@Description("Building a report in getStatusElevatorSystem")
+@StackTrace(false)
+public class SnapshotEvent extends Event {
+  @Label("Elevators")
+  public int elevators;
+}
@@ -0,0 +1,29 @@
+package building.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event covering one call of Building.stepElevatorSystem.
+ */
+@Name("building.Tick")
+@Label("Building Tick")
+@Category({"Elevator Simulation", "Building"})
+@Description("One step of the elevator system")
+@StackTrace(false)
+public class TickEvent extends Event {
+  @Label("Step")
+  public long step;
+
+  @Label("Up Requests")
+  @Description("Up requests waiting after the step")
+  public int upRequests;
+
+  @Label("Down Requests")
+  @Description("Down requests waiting after the step")
+  public int downRequests;
+}
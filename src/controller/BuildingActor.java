@@ -0,0 +1,256 @@
+package controller;
+
+import building.Building;
+import building.BuildingReport;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import scanerzus.Request;
+
+/**
+ * This class owns a building and applies every change to it on one dedicated thread.
+ * Callers on any thread send commands, which wait on a bounded queue; the owner thread
+ * takes every waiting command in one go, runs them in order, and then publishes a fresh
+ * BuildingReport. Reads use the published report, so callers of the actor never touch
+ * the building or wait for each other. The building still guards its request queues with
+ * its own intake lock, because the BuildingServer and ScannerRuntime feed a building from
+ * other threads; with the actor as the only caller that lock is never contended.
+ * Each command returns a CompletableFuture. The future completes on the owner thread,
+ * so anything chained to it should be quick or hand off to another thread.
+ */
+public class BuildingActor implements AutoCloseable {
+  /**
+   * The most commands run between two snapshots.
+   */
+  private static final int MAX_BATCH_SIZE = 256;
+
+  private final Building building;
+
+  private final BlockingQueue<Command<?>> commands;
+
+  private final List<Consumer<BuildingReport>> snapshotListeners = new CopyOnWriteArrayList<>();
+
+  private volatile BuildingReport snapshot;
+
+  private volatile boolean running;
+
+  private Thread owner;
+
+  /**
+   * The constructor for the building actor. The actor does not run commands until
+   * it is started, and from then on it owns the building.
+   *
+   * @param building      the building.
+   * @param queueCapacity the most commands that may wait to run.
+   * @throws IllegalArgumentException if the building is null or queueCapacity is less than 1.
+   */
+  public BuildingActor(Building building, int queueCapacity) {
+    if (building == null) {
+      throw new IllegalArgumentException("building cannot be null");
+    }
+    if (queueCapacity < 1) {
+      throw new IllegalArgumentException("queueCapacity must be greater than or equal to 1");
+    }
+    this.building = building;
+    this.commands = new ArrayBlockingQueue<>(queueCapacity);
+    this.snapshot = building.getStatusElevatorSystem();
+  }
+
+  /**
+   * Start the owner thread.
+   *
+   * @throws IllegalStateException if the actor has already been started.
+   */
+  public synchronized void start() {
+    if (this.owner != null) {
+      throw new IllegalStateException("Building actor already started.");
+    }
+    this.running = true;
+    this.owner = new Thread(this::run, "building-actor");
+    this.owner.setDaemon(true);
+    this.owner.start();
+  }
+
+  /**
+   * Stop the owner thread after the command it is running. Commands still waiting
+   * fail with an IllegalStateException.
+   */
+  @Override
+  public synchronized void close() {
+    this.running = false;
+    if (this.owner != null) {
+      this.owner.interrupt();
+      try {
+        this.owner.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    List<Command<?>> abandoned = new ArrayList<>();
+    this.commands.drainTo(abandoned);
+    for (Command<?> command : abandoned) {
+      command.future.completeExceptionally(
+          new IllegalStateException("Building actor closed."));
+    }
+  }
+
+  /**
+   * Send a command to run on the owner thread.
+   * The future fails with an IllegalStateException if the queue is full or the actor is
+   * not running, and with whatever the command throws if it fails. A command sent while
+   * the actor closes either runs or fails; its future always completes.
+   *
+   * @param action the command; it may use the building freely.
+   * @param <T>    the type of the result.
+   * @return the future result of the command.
+   */
+  public <T> CompletableFuture<T> submit(Function<Building, T> action) {
+    Command<T> command = new Command<>(action);
+    if (!this.running) {
+      command.future.completeExceptionally(
+          new IllegalStateException("Building actor is not running."));
+    } else if (!this.commands.offer(command)) {
+      command.future.completeExceptionally(
+          new IllegalStateException("Building command queue is full."));
+    } else if (!this.running && this.commands.remove(command)) {
+      // close() stopped the owner and drained the queue between the check and the offer
+      command.future.completeExceptionally(
+          new IllegalStateException("Building actor is not running."));
+    }
+    return command.future;
+  }
+
+  /**
+   * Start the elevator system.
+   *
+   * @return the future completed once the system has started.
+   */
+  public CompletableFuture<Void> startElevatorSystem() {
+    return submit(building -> {
+      building.startElevatorSystem();
+      return null;
+    });
+  }
+
+  /**
+   * Stop the elevator system.
+   *
+   * @return the future completed once the system is stopping.
+   */
+  public CompletableFuture<Void> stopElevatorSystem() {
+    return submit(building -> {
+      building.stopElevatorSystem();
+      return null;
+    });
+  }
+
+  /**
+   * Step the elevator system.
+   *
+   * @return the future completed once the step has been taken.
+   */
+  public CompletableFuture<Void> stepElevatorSystem() {
+    return submit(building -> {
+      building.stepElevatorSystem();
+      return null;
+    });
+  }
+
+  /**
+   * Add a request to the elevator system.
+   *
+   * @param request the request.
+   * @return the future completed once the request has been added.
+   */
+  public CompletableFuture<Void> addRequestToElevatorSystem(Request request) {
+    return submit(building -> {
+      building.addRequestToElevatorSystem(request);
+      return null;
+    });
+  }
+
+  /**
+   * Get the last published report. It is made after every batch of commands.
+   *
+   * @return the latest report of the building.
+   */
+  public BuildingReport getSnapshot() {
+    return this.snapshot;
+  }
+
+  /**
+   * Add a listener that receives every published report, on the owner thread.
+   *
+   * @param listener the listener.
+   */
+  public void addSnapshotListener(Consumer<BuildingReport> listener) {
+    if (listener == null) {
+      throw new IllegalArgumentException("listener cannot be null");
+    }
+    this.snapshotListeners.add(listener);
+  }
+
+  /**
+   * Remove a listener added with addSnapshotListener.
+   *
+   * @param listener the listener.
+   */
+  public void removeSnapshotListener(Consumer<BuildingReport> listener) {
+    this.snapshotListeners.remove(listener);
+  }
+
+  /**
+   * The loop of the owner thread: wait for a command, take every other waiting command
+   * with it, run them all and publish one snapshot.
+   */
+  private void run() {
+    List<Command<?>> batch = new ArrayList<>(MAX_BATCH_SIZE);
+    while (this.running) {
+      try {
+        batch.add(this.commands.take());
+      } catch (InterruptedException e) {
+        break;
+      }
+      this.commands.drainTo(batch, MAX_BATCH_SIZE - 1);
+      for (Command<?> command : batch) {
+        command.run(this.building);
+      }
+      batch.clear();
+      BuildingReport report = this.building.getStatusElevatorSystem();
+      this.snapshot = report;
+      for (Consumer<BuildingReport> listener : this.snapshotListeners) {
+        try {
+          listener.accept(report);
+        } catch (RuntimeException e) {
+          // a broken listener must not stop the owner thread
+        }
+      }
+    }
+  }
+
+  /**
+   * A command and the future of its result.
+   */
+  private static final class Command<T> {
+    private final Function<Building, T> action;
+
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+
+    private Command(Function<Building, T> action) {
+      this.action = action;
+    }
+
+    private void run(Building building) {
+      try {
+        this.future.complete(this.action.apply(building));
+      } catch (RuntimeException e) {
+        this.future.completeExceptionally(e);
+      }
+    }
+  }
+}
@@ -3,15 +3,26 @@ package controller;
 import building.Building;
 import building.BuildingReport;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import javax.swing.SwingUtilities;
 import scanerzus.Request;
 import view.BuildingDisplayInterface;
 
 /**
  * BuildingController is the controller for the elevator simulation. It manages the interaction
  * between the view and the model. It listens for user actions and updates the model accordingly.
+ * The model is owned by a BuildingActor: user actions are sent to it as commands, so the
+ * event dispatch thread never touches the building, and the view is refreshed on the event
+ * dispatch thread whenever the actor publishes a new report.
  */
 public class BuildingController implements BuildingControllerInterface {
-  private final Building building;
+  /**
+   * The most user actions that may wait for the actor.
+   */
+  private static final int COMMAND_QUEUE_CAPACITY = 1024;
+
+  private final BuildingActor actor;
   private final BuildingDisplayInterface display;
 
   /**
@@ -21,8 +32,11 @@ public class BuildingController implements BuildingControllerInterface {
    * @param display The display view
    */
   public BuildingController(Building building, BuildingDisplayInterface display) {
-    this.building = Objects.requireNonNull(building, "Building must not be null");
+    Objects.requireNonNull(building, "Building must not be null");
     this.display = Objects.requireNonNull(display, "Display must not be null");
+    this.actor = new BuildingActor(building, COMMAND_QUEUE_CAPACITY);
+    this.actor.addSnapshotListener(report -> SwingUtilities.invokeLater(() ->
+        display.update(report)));
 
     // Setup listeners that link user actions to model updates
     display.setUpdateListener(this::updateDisplay);
@@ -33,44 +47,50 @@ public class BuildingController implements BuildingControllerInterface {
   }
 
   private void updateDisplay() {
-    BuildingReport report = building.getStatusElevatorSystem();
+    BuildingReport report = actor.getSnapshot();
     display.update(report);
   }
 
   private void startSystem() {
-    try {
-      building.startElevatorSystem();
-      display.showStatus("Elevator system started.");
-    } catch (IllegalStateException e) {
-      display.showError("Failed to start system: " + e.getMessage());
-    }
+    whenDone(actor.startElevatorSystem(), "Elevator system started.",
+        "Failed to start system: ");
   }
 
   private void stopSystem() {
-    try {
-      building.stopElevatorSystem();
-      display.showStatus("Elevator system stopping.");
-    } catch (IllegalStateException e) {
-      display.showError("Failed to stop system: " + e.getMessage());
-    }
+    whenDone(actor.stopElevatorSystem(), "Elevator system stopping.",
+        "Failed to stop system: ");
   }
 
   private void step() {
-    building.stepElevatorSystem();
-    display.showStatus("Elevator system stepped.");
+    whenDone(actor.stepElevatorSystem(), "Elevator system stepped.", "Failed to step: ");
   }
 
   private void processRequest(Request request) {
-    try {
-      building.addRequestToElevatorSystem(request);
-      display.showStatus("Request added: From " + request.getStartFloor()
-          + " to " + request.getEndFloor());
-    } catch (IllegalArgumentException | IllegalStateException e) {
-      display.showError("Failed to add request: " + e.getMessage());
-    }
+    whenDone(actor.addRequestToElevatorSystem(request), "Request added: From "
+        + request.getStartFloor() + " to " + request.getEndFloor(),
+        "Failed to add request: ");
   }
 
+  /**
+   * Show the outcome of a command on the event dispatch thread once it has run.
+   */
+  private void whenDone(CompletableFuture<Void> command, String status, String errorPrefix) {
+    command.whenComplete((ignored, failure) -> SwingUtilities.invokeLater(() -> {
+      if (failure == null) {
+        display.showStatus(status);
+      } else {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+            ? failure.getCause() : failure;
+        display.showError(errorPrefix + cause.getMessage());
+      }
+    }));
+  }
+
+  /**
+   * Start the actor that owns the building and show the display.
+   */
   public void go() {
+    actor.start();
     display.start();
   }
 }
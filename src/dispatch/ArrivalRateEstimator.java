@@ -0,0 +1,288 @@
+package dispatch;
+
+import building.enums.Direction;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * This class estimates the current rate of arrivals at each floor, in each direction, and
+ * between each pair of floors, in arrivals per step.
+ * Each rate decays exponentially with the time constant, so an arrival counts for less
+ * the longer ago it was, and the rate of a steady stream of arrivals settles on the
+ * stream's rate. A rate is kept with the step it was last updated at and decayed when it
+ * is updated or read, so both cost a handful of operations, and everything is held in
+ * arrays sized when the estimator is made.
+ * Updates must not run at the same time as each other; the building makes them under
+ * its intake lock. Reads take no lock: they read optimistically and retry if an update
+ * ran meanwhile, so a dispatcher can read every rate every step without blocking the
+ * producers and without allocating.
+ */
+public class ArrivalRateEstimator {
+  private final int numberOfFloors;
+
+  private final double timeConstant;
+
+  private final StampedLock lock = new StampedLock();
+
+  /**
+   * The rates going up and down, and the steps they were updated at.
+   */
+  private final double[] directionRates = new double[2];
+
+  private final long[] directionSteps = new long[2];
+
+  /**
+   * The rates at each floor, going up at index floor * 2 and down at the next index,
+   * and the steps they were updated at.
+   */
+  private final double[] floorRates;
+
+  private final long[] floorSteps;
+
+  /**
+   * The rates between each pair of floors at index start * floors + end, and the steps
+   * they were updated at.
+   */
+  private final double[] tripRates;
+
+  private final long[] tripSteps;
+
+  /**
+   * The constructor for the estimator.
+   *
+   * @param numberOfFloors the number of floors in the building.
+   * @param timeConstant   the number of steps over which an arrival's weight falls by a
+   *                       factor of e.
+   * @throws IllegalArgumentException if any of the arguments are out of range.
+   */
+  public ArrivalRateEstimator(int numberOfFloors, double timeConstant) {
+    if (numberOfFloors < 2) {
+      throw new IllegalArgumentException("numberOfFloors must be greater than or equal to 2");
+    }
+    if (!(timeConstant >= 1) || Double.isInfinite(timeConstant)) {
+      throw new IllegalArgumentException("timeConstant must be a number of at least 1");
+    }
+    this.numberOfFloors = numberOfFloors;
+    this.timeConstant = timeConstant;
+    this.floorRates = new double[numberOfFloors * 2];
+    this.floorSteps = new long[numberOfFloors * 2];
+    this.tripRates = new double[numberOfFloors * numberOfFloors];
+    this.tripSteps = new long[numberOfFloors * numberOfFloors];
+  }
+
+  /**
+   * The copy constructor, used when a building is forked.
+   *
+   * @param source the estimator to copy.
+   */
+  public ArrivalRateEstimator(ArrivalRateEstimator source) {
+    this(source.numberOfFloors, source.timeConstant);
+    long stamp = source.lock.readLock();
+    try {
+      System.arraycopy(source.directionRates, 0, this.directionRates, 0, 2);
+      System.arraycopy(source.directionSteps, 0, this.directionSteps, 0, 2);
+      System.arraycopy(source.floorRates, 0, this.floorRates, 0, this.floorRates.length);
+      System.arraycopy(source.floorSteps, 0, this.floorSteps, 0, this.floorSteps.length);
+      System.arraycopy(source.tripRates, 0, this.tripRates, 0, this.tripRates.length);
+      System.arraycopy(source.tripSteps, 0, this.tripSteps, 0, this.tripSteps.length);
+    } finally {
+      source.lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * The restore constructor, used when a building is restored from a checkpoint.
+   * Reads the state written by writeCheckpoint.
+   *
+   * @param checkpoint the buffer positioned at the start of the estimator's checkpoint.
+   * @throws IllegalArgumentException if the checkpoint holds an invalid estimator.
+   */
+  public ArrivalRateEstimator(ByteBuffer checkpoint) {
+    this(checkFloors(checkpoint.getInt()), checkpoint.getDouble());
+    readRates(checkpoint, this.directionRates, this.directionSteps);
+    readRates(checkpoint, this.floorRates, this.floorSteps);
+    readRates(checkpoint, this.tripRates, this.tripSteps);
+  }
+
+  public int getNumberOfFloors() {
+    return this.numberOfFloors;
+  }
+
+  public double getTimeConstant() {
+    return this.timeConstant;
+  }
+
+  /**
+   * Record a rider arriving.
+   *
+   * @param startFloor the floor the rider is waiting at.
+   * @param endFloor   the floor the rider is going to.
+   * @param direction  the direction of the hall call, UP or DOWN.
+   * @param step       the step the rider arrived at.
+   */
+  public void record(int startFloor, int endFloor, Direction direction, long step) {
+    checkFloor(startFloor);
+    checkFloor(endFloor);
+    int directionIndex = directionIndex(direction);
+    int floorIndex = startFloor * 2 + directionIndex;
+    int tripIndex = startFloor * this.numberOfFloors + endFloor;
+    long stamp = this.lock.writeLock();
+    try {
+      add(this.directionRates, this.directionSteps, directionIndex, step);
+      add(this.floorRates, this.floorSteps, floorIndex, step);
+      add(this.tripRates, this.tripSteps, tripIndex, step);
+    } finally {
+      this.lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Get the rate of arrivals going in a direction over the whole building.
+   *
+   * @param direction UP or DOWN.
+   * @param step      the current step.
+   * @return the arrivals per step.
+   */
+  public double getRate(Direction direction, long step) {
+    return read(this.directionRates, this.directionSteps, directionIndex(direction), step);
+  }
+
+  /**
+   * Get the rate of arrivals at a floor going in a direction.
+   *
+   * @param floor     the floor.
+   * @param direction UP or DOWN.
+   * @param step      the current step.
+   * @return the arrivals per step.
+   */
+  public double getRate(int floor, Direction direction, long step) {
+    checkFloor(floor);
+    return read(this.floorRates, this.floorSteps, floor * 2 + directionIndex(direction), step);
+  }
+
+  /**
+   * Get the rate of trips from one floor to another, an entry of the origin-destination
+   * matrix.
+   *
+   * @param startFloor the floor the trips start at.
+   * @param endFloor   the floor the trips end at.
+   * @param step       the current step.
+   * @return the trips per step.
+   */
+  public double getTripRate(int startFloor, int endFloor, long step) {
+    checkFloor(startFloor);
+    checkFloor(endFloor);
+    return read(this.tripRates, this.tripSteps, startFloor * this.numberOfFloors + endFloor,
+        step);
+  }
+
+  /**
+   * Forget every arrival.
+   */
+  public void clear() {
+    long stamp = this.lock.writeLock();
+    try {
+      Arrays.fill(this.directionRates, 0);
+      Arrays.fill(this.directionSteps, 0);
+      Arrays.fill(this.floorRates, 0);
+      Arrays.fill(this.floorSteps, 0);
+      Arrays.fill(this.tripRates, 0);
+      Arrays.fill(this.tripSteps, 0);
+    } finally {
+      this.lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * The number of bytes writeCheckpoint will write.
+   *
+   * @return the size of the checkpoint in bytes.
+   */
+  public int checkpointSize() {
+    return 4 + 8 + 16 * (this.directionRates.length + this.floorRates.length
+        + this.tripRates.length);
+  }
+
+  /**
+   * Write every rate and the step it was last updated at to the buffer.
+   * Updates must not run meanwhile.
+   *
+   * @param checkpoint the buffer to write to.
+   */
+  public void writeCheckpoint(ByteBuffer checkpoint) {
+    checkpoint.putInt(this.numberOfFloors);
+    checkpoint.putDouble(this.timeConstant);
+    writeRates(checkpoint, this.directionRates, this.directionSteps);
+    writeRates(checkpoint, this.floorRates, this.floorSteps);
+    writeRates(checkpoint, this.tripRates, this.tripSteps);
+  }
+
+  private static void writeRates(ByteBuffer checkpoint, double[] rates, long[] steps) {
+    for (int i = 0; i < rates.length; i++) {
+      checkpoint.putDouble(rates[i]);
+      checkpoint.putLong(steps[i]);
+    }
+  }
+
+  private static void readRates(ByteBuffer checkpoint, double[] rates, long[] steps) {
+    for (int i = 0; i < rates.length; i++) {
+      rates[i] = checkpoint.getDouble();
+      if (!(rates[i] >= 0) || Double.isInfinite(rates[i])) {
+        throw new IllegalArgumentException("rate " + rates[i]);
+      }
+      steps[i] = checkpoint.getLong();
+    }
+  }
+
+  /**
+   * Checks the number of floors read from a checkpoint before the arrays are sized.
+   */
+  private static int checkFloors(int numberOfFloors) {
+    if (numberOfFloors > Long.SIZE) {
+      throw new IllegalArgumentException("numberOfFloors must be at most " + Long.SIZE);
+    }
+    return numberOfFloors;
+  }
+
+  /**
+   * Decay the rate to the step and add one arrival to it.
+   */
+  private void add(double[] rates, long[] steps, int index, long step) {
+    rates[index] = decay(rates[index], step - steps[index]) + 1 / this.timeConstant;
+    steps[index] = Math.max(steps[index], step);
+  }
+
+  private double read(double[] rates, long[] steps, int index, long step) {
+    while (true) {
+      long stamp = this.lock.tryOptimisticRead();
+      double rate = rates[index];
+      long updated = steps[index];
+      if (this.lock.validate(stamp)) {
+        return decay(rate, step - updated);
+      }
+      Thread.onSpinWait();
+    }
+  }
+
+  private double decay(double rate, long steps) {
+    return steps <= 0 ? rate : rate * Math.exp(-steps / this.timeConstant);
+  }
+
+  private void checkFloor(int floor) {
+    if (floor < 0 || floor >= this.numberOfFloors) {
+      throw new IllegalArgumentException("floor must be between 0 and "
+          + (this.numberOfFloors - 1));
+    }
+  }
+
+  private static int directionIndex(Direction direction) {
+    if (direction == Direction.UP) {
+      return 0;
+    }
+    if (direction == Direction.DOWN) {
+      return 1;
+    }
+    throw new IllegalArgumentException("direction must be UP or DOWN");
+  }
+}
@@ -0,0 +1,569 @@
+package dispatch;
+
+import java.util.Arrays;
+
+/**
+ * This class assigns hall calls to cars so that the total predicted wait is as small
+ * as it can find within a time budget.
+ * It solves the assignment problem as a min cost flow, the Hungarian way: calls are
+ * added one at a time, and each takes the shortest path, by reduced cost, to a car with
+ * room, moving calls already assigned from car to car on the way. Each car has room for
+ * as many calls as its capacity, so the path search runs over cars rather than seats,
+ * and a table of the cheapest call to move from each car to each other car keeps a step
+ * of the search to one pass over the cars. Costs are integers and the answer
+ * is exact; a call no car can serve, or that cannot be fitted in, is left unassigned.
+ * The cost matrix and the working arrays are kept and reused from one solve to the next.
+ * A solve given keys for its calls starts warm from the last keyed solve, its car
+ * potentials and its assignment: a call whose key was assigned then keeps its car if the
+ * car has room and is still one of the cheapest for the call by reduced cost, and the
+ * other calls are added to that. The kept calls are on tight edges of potentials that
+ * are still feasible, so the answer is as exact as a cold solve, but the calls kept are
+ * assigned first.
+ * If the budget runs out the remaining calls are given greedily to the cheapest car with
+ * room. An engine is not thread safe.
+ */
+public class AssignmentEngine {
+  /**
+   * The cost of a call for a car that cannot serve it.
+   */
+  public static final int FORBIDDEN = Integer.MAX_VALUE;
+
+  /**
+   * The largest key a call may have.
+   */
+  public static final long MAX_KEY = Long.MAX_VALUE >> 16;
+
+  private static final long INFINITE = Long.MAX_VALUE;
+
+  /**
+   * The number of cars a keyed solve may have; a call of the last solution is kept as
+   * key * CAR_RANGE + car.
+   */
+  private static final int CAR_RANGE = 1 << 16;
+
+  private final long budgetNanos;
+
+  private int[] costs = new int[0];
+
+  private int numberOfCalls;
+
+  private int numberOfCars;
+
+  /**
+   * The calls assigned to car k are at carFirstSlot[k] up to carFirstSlot[k] + load[k]
+   * in carCalls.
+   */
+  private int[] carFirstSlot = new int[1];
+
+  private int[] carCalls = new int[0];
+
+  private int[] load = new int[0];
+
+  private int[] callCar = new int[0];
+
+  private int[] callSlot = new int[0];
+
+  /**
+   * For cars k and l, at k * cars + l, the least extra cost of moving one of the calls
+   * assigned to k over to l, and that call.
+   */
+  private long[] moveCost = new long[0];
+
+  private int[] moveCall = new int[0];
+
+  private long[] carPotential = new long[0];
+
+  private long sinkPotential;
+
+  // path search working arrays
+  private long[] distance = new long[0];
+
+  private boolean[] settled = new boolean[0];
+
+  private int[] previousCall = new int[0];
+
+  private int[] settledCars = new int[0];
+
+  /**
+   * The assignment of the last keyed solve, key * CAR_RANGE + car for every call
+   * assigned, sorted.
+   */
+  private long[] lastSolution = new long[0];
+
+  private int lastSolutionSize;
+
+  private boolean budgetExceeded;
+
+  private long augmentations;
+
+  private int seededCalls;
+
+  /**
+   * The constructor for the assignment engine.
+   *
+   * @param budgetNanos the most time one solve may take, in nanoseconds.
+   * @throws IllegalArgumentException if the budget is not positive.
+   */
+  public AssignmentEngine(long budgetNanos) {
+    if (budgetNanos <= 0) {
+      throw new IllegalArgumentException("budgetNanos must be greater than 0");
+    }
+    this.budgetNanos = budgetNanos;
+  }
+
+  /**
+   * Get the cost matrix to fill in before a solve. The cost of call i for car k is
+   * at index i * cars + k, and is FORBIDDEN if the car cannot serve the call.
+   * The array is reused, so it may be longer than calls * cars and hold old costs.
+   *
+   * @param calls the number of calls.
+   * @param cars  the number of cars.
+   * @return the cost matrix.
+   */
+  public int[] costs(int calls, int cars) {
+    if (calls < 0 || cars < 0) {
+      throw new IllegalArgumentException("calls and cars must not be negative");
+    }
+    int length = Math.multiplyExact(calls, cars);
+    if (this.costs.length < length) {
+      this.costs = new int[Math.max(length, this.costs.length * 2)];
+    }
+    return this.costs;
+  }
+
+  /**
+   * Assign calls to cars using the costs filled in with costs(calls, cars), from
+   * scratch. The next keyed solve starts cold as well.
+   * Calls are added in order, so if the budget runs out or there is not room for every
+   * call, the first calls are the ones assigned best; put them in the order they should
+   * be served.
+   *
+   * @param calls      the number of calls.
+   * @param cars       the number of cars.
+   * @param capacities the number of calls each car can take.
+   * @return the number of calls assigned.
+   * @throws IllegalArgumentException if a capacity is negative.
+   */
+  public int solve(int calls, int cars, int[] capacities) {
+    return solve(calls, cars, capacities, null);
+  }
+
+  /**
+   * Assign calls to cars using the costs filled in with costs(calls, cars), starting
+   * from the assignment of the last keyed solve.
+   * A call keeps its car from that solve if it has the key of a call assigned then, the
+   * car can serve it and the car has room; those calls are assigned first, then the
+   * others are added in order. Give a call the same key from solve to solve, and only
+   * one call a given key.
+   *
+   * @param calls      the number of calls.
+   * @param cars       the number of cars, fewer than 65536 if there are keys.
+   * @param capacities the number of calls each car can take.
+   * @param keys       the key of each call, between 0 and MAX_KEY, or null to solve from
+   *                   scratch.
+   * @return the number of calls assigned.
+   * @throws IllegalArgumentException if a capacity or key is out of range.
+   */
+  public int solve(int calls, int cars, int[] capacities, long[] keys) {
+    costs(calls, cars);
+    if (keys != null) {
+      checkKeys(calls, cars, keys);
+    }
+    long start = System.nanoTime();
+    this.budgetExceeded = false;
+    this.augmentations = 0;
+    this.seededCalls = 0;
+    boolean warm = keys != null && this.lastSolutionSize > 0 && cars == this.numberOfCars;
+    layout(calls, cars, capacities, warm);
+
+    this.sinkPotential = 0;
+    int assigned = 0;
+    if (warm) {
+      assigned = seed(calls, keys);
+    }
+    for (int i = 0; i < calls; i++) {
+      if (this.callCar[i] >= 0) {
+        continue;
+      }
+      if (System.nanoTime() - start > this.budgetNanos) {
+        this.budgetExceeded = true;
+        assigned += assignGreedily(i);
+        break;
+      }
+      this.augmentations++;
+      if (augment(i)) {
+        assigned++;
+      }
+    }
+    remember(calls, keys);
+    return assigned;
+  }
+
+  /**
+   * Forget the assignment and potentials of the last keyed solve, so the next one starts
+   * cold.
+   */
+  public void reset() {
+    this.lastSolutionSize = 0;
+  }
+
+  /**
+   * Get the car a call was assigned to by the last solve.
+   *
+   * @param call the call.
+   * @return the car, or -1 if the call was not assigned.
+   */
+  public int getAssignedCar(int call) {
+    if (call < 0 || call >= this.numberOfCalls) {
+      return -1;
+    }
+    return this.callCar[call];
+  }
+
+  /**
+   * Get the most time one solve may take.
+   *
+   * @return the budget in nanoseconds.
+   */
+  public long getBudgetNanos() {
+    return this.budgetNanos;
+  }
+
+  /**
+   * Did the last solve run out of time and finish greedily.
+   *
+   * @return true if the budget was exceeded.
+   */
+  public boolean isBudgetExceeded() {
+    return this.budgetExceeded;
+  }
+
+  /**
+   * Get the number of calls the last solve added by a path search.
+   *
+   * @return the number of path searches.
+   */
+  public long getAugmentations() {
+    return this.augmentations;
+  }
+
+  /**
+   * Get the number of calls the last solve started with on their car from the solve
+   * before.
+   *
+   * @return the number of calls kept.
+   */
+  public int getSeededCalls() {
+    return this.seededCalls;
+  }
+
+  private static void checkKeys(int calls, int cars, long[] keys) {
+    if (cars >= CAR_RANGE) {
+      throw new IllegalArgumentException("a keyed solve must have fewer than " + CAR_RANGE
+          + " cars");
+    }
+    if (keys.length < calls) {
+      throw new IllegalArgumentException("every call must have a key");
+    }
+    for (int i = 0; i < calls; i++) {
+      if (keys[i] < 0 || keys[i] > MAX_KEY) {
+        throw new IllegalArgumentException("keys must be between 0 and " + MAX_KEY);
+      }
+    }
+  }
+
+  /**
+   * Give every call the car its key was assigned to by the last keyed solve, if the car
+   * has room and its reduced cost under the last car potentials is still the least of
+   * any car's, so every move of a kept call has a non-negative reduced cost.
+   * The sink potential is then the least potential of a car with room. A car with calls
+   * and a higher potential would hide a cheaper assignment that moves one of its calls
+   * to a car with room, so its calls are taken off again. Last, every potential is
+   * shifted so the sink potential is 0, which changes no reduced cost.
+   *
+   * @return the number of calls assigned.
+   */
+  private int seed(int calls, long[] keys) {
+    int cars = this.numberOfCars;
+    int seeded = 0;
+    for (int i = 0; i < calls; i++) {
+      int car = lastCar(keys[i]);
+      int row = i * cars;
+      if (car < 0 || car >= cars || this.costs[row + car] == FORBIDDEN
+          || this.load[car] >= this.carFirstSlot[car + 1] - this.carFirstSlot[car]) {
+        continue;
+      }
+      long reduced = this.costs[row + car] - this.carPotential[car];
+      boolean tight = true;
+      for (int k = 0; k < cars && tight; k++) {
+        tight = this.costs[row + k] == FORBIDDEN
+            || this.costs[row + k] - this.carPotential[k] >= reduced;
+      }
+      if (tight) {
+        assign(i, car);
+        seeded++;
+      }
+    }
+
+    long sink = INFINITE;
+    long highest = Long.MIN_VALUE;
+    for (int k = 0; k < cars; k++) {
+      highest = Math.max(highest, this.carPotential[k]);
+      if (this.load[k] < this.carFirstSlot[k + 1] - this.carFirstSlot[k]) {
+        sink = Math.min(sink, this.carPotential[k]);
+      }
+    }
+    if (sink == INFINITE) {
+      // every car is full
+      sink = highest;
+    }
+    for (int k = 0; k < cars; k++) {
+      if (this.load[k] > 0 && this.carPotential[k] > sink) {
+        for (int s = this.carFirstSlot[k]; s < this.carFirstSlot[k] + this.load[k]; s++) {
+          this.callCar[this.carCalls[s]] = -1;
+        }
+        seeded -= this.load[k];
+        this.load[k] = 0;
+        Arrays.fill(this.moveCost, k * cars, (k + 1) * cars, INFINITE);
+      }
+    }
+    for (int k = 0; k < cars; k++) {
+      this.carPotential[k] -= sink;
+    }
+    this.seededCalls = seeded;
+    return seeded;
+  }
+
+  private int lastCar(long key) {
+    long first = key * CAR_RANGE;
+    int index = Arrays.binarySearch(this.lastSolution, 0, this.lastSolutionSize, first);
+    if (index < 0) {
+      index = -index - 1;
+    }
+    if (index < this.lastSolutionSize && this.lastSolution[index] < first + CAR_RANGE) {
+      return (int) (this.lastSolution[index] - first);
+    }
+    return -1;
+  }
+
+  private void remember(int calls, long[] keys) {
+    if (keys == null) {
+      this.lastSolutionSize = 0;
+      return;
+    }
+    if (this.lastSolution.length < calls) {
+      this.lastSolution = new long[Math.max(calls, this.lastSolution.length * 2)];
+    }
+    int size = 0;
+    for (int i = 0; i < calls; i++) {
+      if (this.callCar[i] >= 0) {
+        this.lastSolution[size++] = keys[i] * CAR_RANGE + this.callCar[i];
+      }
+    }
+    Arrays.sort(this.lastSolution, 0, size);
+    this.lastSolutionSize = size;
+  }
+
+  /**
+   * Size the working arrays and clear the assignment, and the car potentials unless the
+   * solve is warm.
+   */
+  private void layout(int calls, int cars, int[] capacities, boolean warm) {
+    if (cars != this.numberOfCars) {
+      this.carPotential = new long[cars];
+      this.distance = new long[cars];
+      this.settled = new boolean[cars];
+      this.previousCall = new int[cars];
+      this.settledCars = new int[cars];
+      this.load = new int[cars];
+      this.carFirstSlot = new int[cars + 1];
+      this.moveCost = new long[cars * cars];
+      this.moveCall = new int[cars * cars];
+    }
+    this.numberOfCars = cars;
+    this.numberOfCalls = calls;
+    for (int k = 0; k < cars; k++) {
+      if (capacities[k] < 0) {
+        throw new IllegalArgumentException("capacities must not be negative");
+      }
+      this.carFirstSlot[k + 1] = this.carFirstSlot[k] + Math.min(capacities[k], calls);
+    }
+    if (!warm) {
+      Arrays.fill(this.carPotential, 0);
+    }
+    Arrays.fill(this.load, 0);
+    Arrays.fill(this.moveCost, INFINITE);
+    if (this.carCalls.length < this.carFirstSlot[cars]) {
+      this.carCalls = new int[this.carFirstSlot[cars]];
+    }
+    if (this.callCar.length < calls) {
+      int length = Math.max(calls, this.callCar.length * 2);
+      this.callCar = new int[length];
+      this.callSlot = new int[length];
+    }
+    Arrays.fill(this.callCar, 0, calls, -1);
+  }
+
+  /**
+   * Add the call along the shortest path, by reduced cost, to a car with room.
+   * The reduced cost of call i for car k is cost + potential of i - carPotential[k], and
+   * of a car with room for the sink is carPotential[k] - sinkPotential; both stay
+   * non-negative, and are zero along every assignment. So a call assigned to car k has
+   * the potential carPotential[k] - its cost for k, and moving it from k to l has the
+   * reduced cost of its extra cost plus carPotential[k] - carPotential[l].
+   *
+   * @return false if no car can take the call.
+   */
+  private boolean augment(int call) {
+    int cars = this.numberOfCars;
+    int row = call * cars;
+    long potential = Long.MIN_VALUE;
+    for (int k = 0; k < cars; k++) {
+      if (this.costs[row + k] != FORBIDDEN) {
+        potential = Math.max(potential, this.carPotential[k] - this.costs[row + k]);
+      }
+    }
+    if (potential == Long.MIN_VALUE) {
+      return false;
+    }
+    for (int k = 0; k < cars; k++) {
+      int cost = this.costs[row + k];
+      this.distance[k] = cost == FORBIDDEN ? INFINITE
+          : cost + potential - this.carPotential[k];
+      this.previousCall[k] = call;
+      this.settled[k] = false;
+    }
+
+    long sinkDistance = INFINITE;
+    int sinkCar = -1;
+    int numberSettled = 0;
+    while (true) {
+      int car = -1;
+      for (int k = 0; k < cars; k++) {
+        if (!this.settled[k] && this.distance[k] != INFINITE
+            && (car < 0 || this.distance[k] < this.distance[car])) {
+          car = k;
+        }
+      }
+      if (car < 0 || this.distance[car] >= sinkDistance) {
+        break;
+      }
+      this.settled[car] = true;
+      this.settledCars[numberSettled++] = car;
+      long reached = this.distance[car];
+      if (this.load[car] < this.carFirstSlot[car + 1] - this.carFirstSlot[car]) {
+        long toSink = reached + this.carPotential[car] - this.sinkPotential;
+        if (toSink < sinkDistance) {
+          sinkDistance = toSink;
+          sinkCar = car;
+        }
+        if (sinkDistance <= reached) {
+          // no path through this car can be shorter
+          break;
+        }
+      }
+      // move one of the car's calls to another car; a settled car is never improved on
+      long base = reached + this.carPotential[car];
+      int moveRow = car * cars;
+      for (int k = 0; k < cars; k++) {
+        long moveCost = this.moveCost[moveRow + k];
+        if (moveCost != INFINITE) {
+          long next = base + moveCost - this.carPotential[k];
+          if (next < this.distance[k]) {
+            this.distance[k] = next;
+            this.previousCall[k] = this.moveCall[moveRow + k];
+          }
+        }
+      }
+    }
+    if (sinkCar < 0) {
+      return false;
+    }
+
+    // keep the reduced costs non-negative and make the path tight
+    for (int i = 0; i < numberSettled; i++) {
+      int car = this.settledCars[i];
+      this.carPotential[car] += this.distance[car] - sinkDistance;
+    }
+
+    int car = sinkCar;
+    while (true) {
+      int moving = this.previousCall[car];
+      int from = this.callCar[moving];
+      if (from >= 0) {
+        unassign(moving, from);
+      }
+      assign(moving, car);
+      if (moving == call) {
+        return true;
+      }
+      car = from;
+    }
+  }
+
+  private void assign(int call, int car) {
+    int slot = this.carFirstSlot[car] + this.load[car]++;
+    this.carCalls[slot] = call;
+    this.callCar[call] = car;
+    this.callSlot[call] = slot;
+    addMoves(call, car);
+  }
+
+  private void addMoves(int call, int car) {
+    int cars = this.numberOfCars;
+    int row = call * cars;
+    int moveRow = car * cars;
+    int cost = this.costs[row + car];
+    for (int k = 0; k < cars; k++) {
+      int other = this.costs[row + k];
+      if (other != FORBIDDEN && other - (long) cost < this.moveCost[moveRow + k]) {
+        this.moveCost[moveRow + k] = other - (long) cost;
+        this.moveCall[moveRow + k] = call;
+      }
+    }
+  }
+
+  private void unassign(int call, int car) {
+    int last = this.carFirstSlot[car] + --this.load[car];
+    int slot = this.callSlot[call];
+    int lastCall = this.carCalls[last];
+    this.carCalls[slot] = lastCall;
+    this.callSlot[lastCall] = slot;
+    this.callCar[call] = -1;
+    int cars = this.numberOfCars;
+    Arrays.fill(this.moveCost, car * cars, (car + 1) * cars, INFINITE);
+    for (int s = this.carFirstSlot[car]; s < last; s++) {
+      addMoves(this.carCalls[s], car);
+    }
+  }
+
+  /**
+   * Give every call not yet assigned from the first one on, in order, to the cheapest car
+   * with room.
+   *
+   * @return the number of calls assigned.
+   */
+  private int assignGreedily(int first) {
+    int assigned = 0;
+    for (int i = first; i < this.numberOfCalls; i++) {
+      if (this.callCar[i] >= 0) {
+        continue;
+      }
+      int row = i * this.numberOfCars;
+      int best = -1;
+      for (int k = 0; k < this.numberOfCars; k++) {
+        int cost = this.costs[row + k];
+        if (cost != FORBIDDEN
+            && this.load[k] < this.carFirstSlot[k + 1] - this.carFirstSlot[k]
+            && (best < 0 || cost < this.costs[row + best])) {
+          best = k;
+        }
+      }
+      if (best >= 0) {
+        assign(i, best);
+        assigned++;
+      }
+    }
+    return assigned;
+  }
+}
@@ -0,0 +1,168 @@
+package dispatch;
+
+import building.enums.Direction;
+import elevator.ElevatorInterface;
+import elevator.Kinematics;
+import elevator.TimingProfile;
+
+/**
+ * This class predicts how many steps an elevator needs to reach a hall call.
+ * It follows the same rules as Elevator.step(): a car moves as its kinematics let it,
+ * sweeps to its base floor and the top of its zone, spends one step opening its door
+ * plus the door open time of the stop at every pending stop, and one step arriving plus
+ * the end wait time at each end. An adaptive car is taken to keep the queue depth it was
+ * last told of. A parked car is taken to set off when its wait is over, since the
+ * building unparks a car when requests are waiting at the other end. The steps a car of
+ * a twin shaft is held back by the other car are not counted.
+ * Pending stops are counted with bit scans over the car's stop mask, so an estimate costs
+ * a handful of operations, allocates nothing, and can be made for every car and call
+ * every step. A car faster than one floor per step has to slow down for every stop, so
+ * its travel is worked out stop by stop.
+ */
+public final class EtaCalculator {
+  /**
+   * Returned when a car cannot reach the call.
+   */
+  public static final long UNREACHABLE = -1;
+
+  private EtaCalculator() {
+  }
+
+  /**
+   * The number of steps until the car is at the floor, ready to open its door for a
+   * rider going in the direction. It is 0 if the car is there now. A car that carries on
+   * without new stops reaches the floor in exactly this many steps.
+   *
+   * @param car       the car.
+   * @param floor     the floor of the call.
+   * @param direction the direction of the call, UP or DOWN.
+   * @return the number of steps, or UNREACHABLE if the car is out of service, stuck,
+   *         or does not serve the floor.
+   */
+  public static long eta(ElevatorInterface car, int floor, Direction direction) {
+    if (car.isOutOfService() || !car.servesFloor(floor)) {
+      return UNREACHABLE;
+    }
+    int base = car.getBaseFloor();
+    int top = car.getHighestZoneFloor();
+    int turnCost = 1 + car.getStopWaitTimeTotal();
+    int current = car.getCurrentFloor();
+    Direction heading = car.getDirection();
+    long mask = car.getStopMask();
+    Kinematics kinematics = car.getKinematics();
+    // a car about to open its door sets off again from a standstill
+    int speed = (mask & (1L << current)) != 0 ? 0 : car.getSpeed();
+    long steps = 0;
+
+    // finish the door cycle or end wait the car is in
+    if (!car.isDoorClosed()) {
+      steps += car.getDoorOpenTimeLeft();
+    }
+    if (car.getStopWaitTimeLeft() > 0) {
+      steps += car.isParked() ? car.getStopWaitTimeLeft()
+          : Math.min(car.getStopWaitTimeLeft(), car.getStopWaitTimeTotal());
+      if (current == base) {
+        heading = Direction.UP;
+      } else if (current == top) {
+        heading = Direction.DOWN;
+      }
+    }
+    if (heading == Direction.STOPPED) {
+      if (current == base) {
+        heading = Direction.UP;
+      } else if (current == top) {
+        heading = Direction.DOWN;
+      } else {
+        return UNREACHABLE;
+      }
+    }
+
+    // at most: finish this sweep, sweep back, and sweep again
+    for (int sweep = 0; sweep < 3; sweep++) {
+      if (heading == Direction.UP) {
+        if (direction == Direction.UP && floor >= current) {
+          return steps + travel(kinematics, mask, current, floor, speed)
+              + stopSteps(car, pending(mask, current, floor - 1));
+        }
+        long passed = floors(current, top);
+        steps += travel(kinematics, mask, current, top, speed)
+            + stopSteps(car, mask & passed) + turnCost;
+        mask &= ~passed;
+        current = top;
+        heading = Direction.DOWN;
+        speed = 0;
+      } else {
+        if (direction == Direction.DOWN && floor <= current) {
+          return steps + travel(kinematics, mask, current, floor, speed)
+              + stopSteps(car, pending(mask, floor + 1, current));
+        }
+        long passed = floors(base, current);
+        steps += travel(kinematics, mask, current, base, speed)
+            + stopSteps(car, mask & passed) + turnCost;
+        mask &= ~passed;
+        current = base;
+        heading = Direction.UP;
+        speed = 0;
+      }
+    }
+    return UNREACHABLE;
+  }
+
+  /**
+   * The steps spent moving from one floor to another, stopping at every pending stop in
+   * between and at the other floor, for a car that last moved at the speed.
+   */
+  private static long travel(Kinematics kinematics, long mask, int from, int to, int speed) {
+    if (kinematics.getMaxSpeed() == 1) {
+      return Math.abs(to - from);
+    }
+    long steps = 0;
+    int at = from;
+    if (from < to) {
+      for (long stops = pending(mask, from + 1, to - 1); stops != 0; stops &= stops - 1) {
+        int stop = Long.numberOfTrailingZeros(stops);
+        steps += kinematics.travelSteps(stop - at, speed);
+        at = stop;
+        speed = 0;
+      }
+      return steps + kinematics.travelSteps(to - at, speed);
+    }
+    for (long stops = pending(mask, to + 1, from - 1); stops != 0;
+         stops &= ~Long.highestOneBit(stops)) {
+      int stop = 63 - Long.numberOfLeadingZeros(stops);
+      steps += kinematics.travelSteps(at - stop, speed);
+      at = stop;
+      speed = 0;
+    }
+    return steps + kinematics.travelSteps(at - to, speed);
+  }
+
+  /**
+   * The steps spent at the stops: one opening the door plus the door open time of each.
+   */
+  private static long stopSteps(ElevatorInterface car, long stops) {
+    TimingProfile timing = car.getTimingProfile();
+    if (!timing.isAdaptive()) {
+      return Long.bitCount(stops) * (1L + timing.getDoorOpenTime());
+    }
+    long steps = 0;
+    for (; stops != 0; stops &= stops - 1) {
+      steps += 1 + car.getDoorOpenTime(Long.numberOfTrailingZeros(stops));
+    }
+    return steps;
+  }
+
+  /**
+   * The pending stops from low to high, inclusive, as a bitset.
+   */
+  private static long pending(long mask, int low, int high) {
+    return low > high ? 0 : mask & floors(low, high);
+  }
+
+  /**
+   * The bitset of the floors from low to high, inclusive; low must not be above high.
+   */
+  private static long floors(int low, int high) {
+    return (-1L >>> (63 - high)) & (-1L << low);
+  }
+}
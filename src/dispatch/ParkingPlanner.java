@@ -0,0 +1,365 @@
+package dispatch;
+
+import building.HallCallIndex;
+import building.enums.Direction;
+import building.enums.ParkingPolicy;
+import elevator.ElevatorInterface;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * This class decides which idle cars wait at the ground floor and which at the top of
+ * their zone. Cars only take requests at the ends of the shaft, so where an idle car
+ * waits decides how soon the next request up or down is taken. The upper car of a twin
+ * shaft takes the place of the ground floor with its base floor.
+ * Cars with the same zone are planned together. Each car counts for the end it is bound
+ * for: a car taking requests at an end is there, and any other car is bound for the end
+ * it is moving towards. The policy gives the share of the cars that should be bound for
+ * the ground floor. A car waiting at an end is parked there unless that end has more than
+ * its share, in which case it is sent to the other end. Waiting requests always keep a
+ * car bound for the end they are taken at.
+ * Under the DEMAND policy the share is the predicted share of trips up in the zone, from
+ * the arrivals recorded at each floor in each hour of the day. It looks a quarter of an
+ * hour ahead, so the cars are in place before a peak. Until that hour has been seen the
+ * share is taken from the current arrival rates, and with no arrivals at all the cars are
+ * spread evenly. A planner is not thread safe.
+ */
+public class ParkingPlanner {
+  private static final int HOURS_PER_DAY = 24;
+
+  private final ParkingPolicy policy;
+
+  private final int numberOfFloors;
+
+  private final long stepsPerHour;
+
+  /**
+   * The number of arrivals going up at index (hour * floors + floor) * 2, and going down
+   * at the next index.
+   */
+  private final long[] arrivals;
+
+  /**
+   * The latest step recorded or planned at, so the steps seen of each hour can be counted.
+   */
+  private long lastStep;
+
+  /**
+   * The constructor for the parking planner.
+   *
+   * @param policy         the parking policy.
+   * @param numberOfFloors the number of floors in the building.
+   * @param stepsPerHour   the number of steps in an hour of the day.
+   * @throws IllegalArgumentException if any of the arguments are out of range.
+   */
+  public ParkingPlanner(ParkingPolicy policy, int numberOfFloors, long stepsPerHour) {
+    if (policy == null) {
+      throw new IllegalArgumentException("policy cannot be null");
+    }
+    if (numberOfFloors < 2) {
+      throw new IllegalArgumentException("numberOfFloors must be greater than or equal to 2");
+    }
+    if (stepsPerHour < 1) {
+      throw new IllegalArgumentException("stepsPerHour must be greater than 0");
+    }
+    this.policy = policy;
+    this.numberOfFloors = numberOfFloors;
+    this.stepsPerHour = stepsPerHour;
+    this.arrivals = new long[HOURS_PER_DAY * numberOfFloors * 2];
+  }
+
+  /**
+   * The copy constructor, used when a building is forked.
+   *
+   * @param source the planner to copy, with its history.
+   */
+  public ParkingPlanner(ParkingPlanner source) {
+    this.policy = source.policy;
+    this.numberOfFloors = source.numberOfFloors;
+    this.stepsPerHour = source.stepsPerHour;
+    this.arrivals = source.arrivals.clone();
+    this.lastStep = source.lastStep;
+  }
+
+  /**
+   * The restore constructor, used when a building is restored from a checkpoint.
+   * Reads the state written by writeCheckpoint.
+   *
+   * @param checkpoint the buffer positioned at the start of the planner's checkpoint.
+   * @throws IllegalArgumentException if the checkpoint holds an invalid planner.
+   */
+  public ParkingPlanner(ByteBuffer checkpoint) {
+    byte policy = checkpoint.get();
+    if (policy < 0 || policy >= ParkingPolicy.values().length) {
+      throw new IllegalArgumentException("Unknown parking policy " + policy);
+    }
+    this.policy = ParkingPolicy.values()[policy];
+    this.numberOfFloors = checkpoint.getInt();
+    if (this.numberOfFloors < 2 || this.numberOfFloors > Long.SIZE) {
+      throw new IllegalArgumentException("numberOfFloors must be between 2 and " + Long.SIZE);
+    }
+    this.stepsPerHour = checkpoint.getLong();
+    if (this.stepsPerHour < 1) {
+      throw new IllegalArgumentException("stepsPerHour must be greater than 0");
+    }
+    this.lastStep = checkpoint.getLong();
+    this.arrivals = new long[HOURS_PER_DAY * this.numberOfFloors * 2];
+    for (int i = 0; i < this.arrivals.length; i++) {
+      this.arrivals[i] = checkpoint.getLong();
+    }
+  }
+
+  public int getNumberOfFloors() {
+    return this.numberOfFloors;
+  }
+
+  public ParkingPolicy getPolicy() {
+    return this.policy;
+  }
+
+  public long getStepsPerHour() {
+    return this.stepsPerHour;
+  }
+
+  /**
+   * Get the hour of the day a step falls in. The first step is at midnight.
+   *
+   * @param step the step.
+   * @return the hour, between 0 and 23.
+   */
+  public int getHour(long step) {
+    return (int) ((step / this.stepsPerHour) % HOURS_PER_DAY);
+  }
+
+  /**
+   * Record a rider arriving at a floor.
+   *
+   * @param floor     the floor the rider is waiting at.
+   * @param direction the direction the rider is going, UP or DOWN.
+   * @param step      the step the rider arrived at.
+   */
+  public void recordArrival(int floor, Direction direction, long step) {
+    this.arrivals[index(getHour(step), floor, direction)]++;
+    this.lastStep = Math.max(this.lastStep, step);
+  }
+
+  /**
+   * Get the mean number of arrivals per step at a floor in an hour of the day, over the
+   * steps of that hour seen so far.
+   *
+   * @param floor     the floor.
+   * @param direction UP or DOWN.
+   * @param hour      the hour of the day, between 0 and 23.
+   * @return the arrival rate, 0 if the hour has not been seen.
+   */
+  public double getArrivalRate(int floor, Direction direction, int hour) {
+    if (hour < 0 || hour >= HOURS_PER_DAY) {
+      throw new IllegalArgumentException("hour must be between 0 and 23");
+    }
+    if (floor < 0 || floor >= this.numberOfFloors) {
+      throw new IllegalArgumentException("floor must be between 0 and "
+          + (this.numberOfFloors - 1));
+    }
+    long seen = stepsSeen(hour);
+    return seen == 0 ? 0 : (double) this.arrivals[index(hour, floor, direction)] / seen;
+  }
+
+  /**
+   * Get the share of the idle cars of a zone that should wait at the ground floor.
+   *
+   * @param lowestFloor  the lowest floor of the zone.
+   * @param highestFloor the highest floor of the zone.
+   * @param rates        the current arrival rates, or null.
+   * @param step         the current step.
+   * @return the share, between 0 and 1.
+   */
+  public double getLobbyShare(int lowestFloor, int highestFloor, ArrivalRateEstimator rates,
+                              long step) {
+    return getLobbyShare(0, lowestFloor, highestFloor, rates, step);
+  }
+
+  /**
+   * Get the share of the idle cars of a zone above a base floor that should wait at the
+   * base floor.
+   *
+   * @param baseFloor    the base floor of the zone.
+   * @param lowestFloor  the lowest floor of the zone.
+   * @param highestFloor the highest floor of the zone.
+   * @param rates        the current arrival rates, or null.
+   * @param step         the current step.
+   * @return the share, between 0 and 1.
+   */
+  public double getLobbyShare(int baseFloor, int lowestFloor, int highestFloor,
+                              ArrivalRateEstimator rates, long step) {
+    if (this.policy == ParkingPolicy.LOBBY) {
+      return 1.0;
+    }
+    if (this.policy != ParkingPolicy.DEMAND) {
+      return 0.5;
+    }
+    int hour = getHour(step + this.stepsPerHour / 4);
+    if (stepsSeen(hour) == 0) {
+      return rates == null ? 0.5
+          : currentLobbyShare(baseFloor, lowestFloor, highestFloor, rates, step);
+    }
+    long up = this.arrivals[index(hour, baseFloor, Direction.UP)];
+    long down = 0;
+    for (int floor = lowestFloor; floor <= highestFloor; floor++) {
+      up += this.arrivals[index(hour, floor, Direction.UP)];
+      down += this.arrivals[index(hour, floor, Direction.DOWN)];
+    }
+    return up + down == 0 ? 0.5 : (double) up / (up + down);
+  }
+
+  private static double currentLobbyShare(int baseFloor, int lowestFloor, int highestFloor,
+                                          ArrivalRateEstimator rates, long step) {
+    double up = rates.getRate(baseFloor, Direction.UP, step);
+    double down = 0;
+    for (int floor = lowestFloor; floor <= highestFloor; floor++) {
+      up += rates.getRate(floor, Direction.UP, step);
+      down += rates.getRate(floor, Direction.DOWN, step);
+    }
+    return up + down == 0 ? 0.5 : up / (up + down);
+  }
+
+  /**
+   * Park or unpark every car for the current step. This should be called after the
+   * waiting requests were given to the cars, so a car still taking requests is idle.
+   *
+   * @param cars      the cars of the building.
+   * @param hallCalls the waiting requests.
+   * @param rates     the current arrival rates, or null.
+   * @param step      the current step.
+   */
+  public void plan(ElevatorInterface[] cars, HallCallIndex hallCalls,
+                   ArrivalRateEstimator rates, long step) {
+    this.lastStep = Math.max(this.lastStep, step);
+    for (int k = 0; k < cars.length; k++) {
+      if (this.policy == ParkingPolicy.NONE || cars[k].isOutOfService()) {
+        cars[k].setParked(false);
+      } else if (isFirstOfZone(cars, k)) {
+        planZone(cars, k, hallCalls, rates, step);
+      }
+    }
+  }
+
+  /**
+   * Forget the recorded arrivals.
+   */
+  public void clear() {
+    Arrays.fill(this.arrivals, 0);
+    this.lastStep = 0;
+  }
+
+  /**
+   * The number of bytes writeCheckpoint will write.
+   *
+   * @return the size of the checkpoint in bytes.
+   */
+  public int checkpointSize() {
+    return 1 + 4 + 8 + 8 + 8 * this.arrivals.length;
+  }
+
+  /**
+   * Write the policy and the arrival history to the buffer.
+   *
+   * @param checkpoint the buffer to write to.
+   */
+  public void writeCheckpoint(ByteBuffer checkpoint) {
+    checkpoint.put((byte) this.policy.ordinal());
+    checkpoint.putInt(this.numberOfFloors);
+    checkpoint.putLong(this.stepsPerHour);
+    checkpoint.putLong(this.lastStep);
+    for (long count : this.arrivals) {
+      checkpoint.putLong(count);
+    }
+  }
+
+  private void planZone(ElevatorInterface[] cars, int first, HallCallIndex hallCalls,
+                        ArrivalRateEstimator rates, long step) {
+    int baseFloor = cars[first].getBaseFloor();
+    int lowestFloor = cars[first].getLowestZoneFloor();
+    int highestFloor = cars[first].getHighestZoneFloor();
+    int inZone = 0;
+    int lobbyBound = 0;
+    for (int k = first; k < cars.length; k++) {
+      if (inZone(cars[k], baseFloor, lowestFloor, highestFloor)) {
+        inZone++;
+        lobbyBound += isBoundForLobby(cars[k]) ? 1 : 0;
+      }
+    }
+    int lobbyTarget = (int) Math.round(
+        getLobbyShare(baseFloor, lowestFloor, highestFloor, rates, step) * inZone);
+    int upFloor = hallCalls.nextFloorAbove(lowestFloor - 1, Direction.UP);
+    if (hallCalls.hasWaiting(baseFloor, Direction.UP)
+        || (upFloor >= 0 && upFloor <= highestFloor)) {
+      lobbyTarget = Math.max(lobbyTarget, 1);
+    }
+    int downFloor = hallCalls.nextFloorAbove(lowestFloor - 1, Direction.DOWN);
+    if (downFloor >= 0 && downFloor <= highestFloor) {
+      lobbyTarget = Math.min(lobbyTarget, inZone - 1);
+    }
+
+    for (int k = first; k < cars.length; k++) {
+      ElevatorInterface car = cars[k];
+      if (!inZone(car, baseFloor, lowestFloor, highestFloor)) {
+        continue;
+      }
+      if (!car.isTakingRequests()) {
+        car.setParked(false);
+        continue;
+      }
+      boolean atLobby = car.getCurrentFloor() == baseFloor;
+      boolean park = atLobby ? lobbyBound <= lobbyTarget : lobbyBound >= lobbyTarget;
+      if (!park) {
+        // it sets off for the other end
+        lobbyBound += atLobby ? -1 : 1;
+      }
+      car.setParked(park);
+    }
+  }
+
+  private static boolean isFirstOfZone(ElevatorInterface[] cars, int k) {
+    for (int i = 0; i < k; i++) {
+      if (inZone(cars[i], cars[k].getBaseFloor(), cars[k].getLowestZoneFloor(),
+          cars[k].getHighestZoneFloor())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean inZone(ElevatorInterface car, int baseFloor, int lowestFloor,
+                                int highestFloor) {
+    return !car.isOutOfService() && car.getBaseFloor() == baseFloor
+        && car.getLowestZoneFloor() == lowestFloor
+        && car.getHighestZoneFloor() == highestFloor;
+  }
+
+  private static boolean isBoundForLobby(ElevatorInterface car) {
+    return car.isTakingRequests() ? car.getCurrentFloor() == car.getBaseFloor()
+        : car.getDirection() == Direction.DOWN;
+  }
+
+  /**
+   * The number of steps of the hour of the day seen up to the latest step.
+   */
+  private long stepsSeen(int hour) {
+    long through = this.lastStep + 1;
+    long stepsPerDay = HOURS_PER_DAY * this.stepsPerHour;
+    long partial = through % stepsPerDay - hour * this.stepsPerHour;
+    return through / stepsPerDay * this.stepsPerHour
+        + Math.max(0, Math.min(partial, this.stepsPerHour));
+  }
+
+  private int index(int hour, int floor, Direction direction) {
+    int index = (hour * this.numberOfFloors + floor) * 2;
+    if (direction == Direction.UP) {
+      return index;
+    }
+    if (direction == Direction.DOWN) {
+      return index + 1;
+    }
+    throw new IllegalArgumentException("direction must be UP or DOWN");
+  }
+}
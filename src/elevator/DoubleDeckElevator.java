@@ -0,0 +1,301 @@
+package elevator;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import scanerzus.Request;
+
+/**
+ * A double-deck elevator: one car with two decks, the upper deck one floor above the
+ * lower one, so every stop serves two adjacent floors.
+ * The car runs like an Elevator whose floor is the floor of its lower deck: it takes
+ * requests going up with its lower deck at the ground floor and requests going down with
+ * its upper deck at the top floor, so getCurrentFloor() and getHighestZoneFloor() are
+ * the floors of the lower deck and getFloorRequests() holds the floors the lower deck
+ * stops at. It serves every floor of the building.
+ * Each request rides in one deck: the lower deck for an even floor and the upper deck for
+ * an odd floor, taking the destination, or the start for a trip to the lobby. The ground
+ * floor and floor 1 make a two-level lobby, so a rider in the lobby boards whichever deck
+ * the request rides in; the top floor is only reached by the upper deck. A trip between
+ * the two lobby floors rides the lower deck from one to the other. Riders going to
+ * floors of both parities can then share a stop. The requests of each deck are kept by
+ * floor, like the floor requests of an Elevator, and each deck holds maxOccupancy people.
+ */
+public class DoubleDeckElevator extends Elevator {
+  /**
+   * The kind tag written at the start of a checkpoint of a double-deck elevator.
+   */
+  static final byte CHECKPOINT_KIND = 1;
+
+  /**
+   * The requests for the floors from each deck, true if the deck stops at the floor.
+   */
+  private final boolean[] lowerDeckRequests;
+
+  private final boolean[] upperDeckRequests;
+
+  /**
+   * The constructor for a double-deck elevator.
+   * The car is initially at the ground floor and is not moving.
+   *
+   * @param maxFloor     the total number of floors in the building, between 3 and
+   *                     Elevator.MAX_SERVED_FLOORS
+   * @param maxOccupancy the maximum number of people that can fit in each deck, between
+   *                     3 and 20
+   * @throws IllegalArgumentException if the maxFloor or maxOccupancy is out of range
+   */
+  public DoubleDeckElevator(int maxFloor, int maxOccupancy) {
+    super(checkFloors(maxFloor), maxOccupancy, 0, 1, maxFloor - 2);
+    this.lowerDeckRequests = new boolean[maxFloor];
+    this.upperDeckRequests = new boolean[maxFloor];
+  }
+
+  /**
+   * Check the floors of a double-deck car, whose decks between them serve every floor.
+   *
+   * @param maxFloor the total number of floors in the building.
+   * @return maxFloor.
+   * @throws IllegalArgumentException if the car would serve too many floors.
+   */
+  private static int checkFloors(int maxFloor) {
+    if (maxFloor > MAX_SERVED_FLOORS) {
+      throw new IllegalArgumentException("maxFloor must be between 3 and " + MAX_SERVED_FLOORS);
+    }
+    return maxFloor;
+  }
+
+  /**
+   * The restore constructor for a double-deck elevator.
+   *
+   * @param checkpoint the buffer positioned after the kind tag
+   * @throws IllegalArgumentException if the checkpoint holds an invalid elevator
+   */
+  DoubleDeckElevator(ByteBuffer checkpoint) {
+    super(checkpoint);
+    if (getMaxFloor() > MAX_SERVED_FLOORS || getBaseFloor() != 0 || getLowestZoneFloor() != 1
+        || getHighestZoneFloor() != getMaxFloor() - 2) {
+      throw new IllegalArgumentException("A double-deck elevator serves every floor");
+    }
+    this.lowerDeckRequests = readRequests(checkpoint, getMaxFloor());
+    this.upperDeckRequests = readRequests(checkpoint, getMaxFloor());
+  }
+
+  private DoubleDeckElevator(DoubleDeckElevator source) {
+    super(source);
+    this.lowerDeckRequests = source.lowerDeckRequests.clone();
+    this.upperDeckRequests = source.upperDeckRequests.clone();
+  }
+
+  /**
+   * Does the car stop at the floor with one of its decks.
+   *
+   * @param floor the floor.
+   * @return true for every floor of the building.
+   */
+  @Override
+  public boolean servesFloor(int floor) {
+    return floor >= 0 && floor < getMaxFloor();
+  }
+
+  @Override
+  public int getNumberOfDecks() {
+    return 2;
+  }
+
+  /**
+   * Get the deck a request rides in: the lower deck, 0, for an even floor and the upper
+   * deck, 1, for an odd floor. The floor is the end floor, or the start floor if the
+   * request ends in the lobby. A request to or from the top floor rides in the upper deck
+   * and a request between the lobby floors in the lower deck.
+   *
+   * @param startFloor the start floor of the request.
+   * @param endFloor   the end floor of the request.
+   * @return the deck.
+   */
+  @Override
+  public int getDeck(int startFloor, int endFloor) {
+    int topFloor = getMaxFloor() - 1;
+    if (startFloor == topFloor || endFloor == topFloor) {
+      return 1;
+    }
+    if (isLobby(startFloor) && isLobby(endFloor)) {
+      return 0;
+    }
+    return (isLobby(endFloor) ? startFloor : endFloor) & 1;
+  }
+
+  /**
+   * Get the requests for the floors from the lower deck.
+   *
+   * @return the requests of the lower deck.
+   */
+  public boolean[] getLowerDeckRequests() {
+    return this.lowerDeckRequests;
+  }
+
+  /**
+   * Get the requests for the floors from the upper deck.
+   *
+   * @return the requests of the upper deck.
+   */
+  public boolean[] getUpperDeckRequests() {
+    return this.upperDeckRequests;
+  }
+
+  /**
+   * Process the requests. Each request is put in its deck, and the car stops with that
+   * deck at its start and end floors.
+   *
+   * @param requests the requests, starting and ending on any floor.
+   * @throws IllegalStateException if the car is not at the bottom or top.
+   */
+  @Override
+  public void processRequests(List<Request> requests) throws IllegalStateException {
+    List<Request> stops = new ArrayList<>(requests.size());
+    for (Request request : requests) {
+      int startFloor = request.getStartFloor();
+      int endFloor = request.getEndFloor();
+      if (!servesFloor(startFloor) || !servesFloor(endFloor)) {
+        throw new IllegalArgumentException("Elevator does not serve the floors of "
+            + request);
+      }
+      int deck = getDeck(startFloor, endFloor);
+      stops.add(new Request(stopFloor(startFloor, endFloor, deck),
+          stopFloor(endFloor, startFloor, deck), request.getRiders()));
+    }
+    super.processRequests(stops);
+    if (stops.isEmpty()) {
+      return;
+    }
+    clearDeckRequests();
+    for (int i = 0; i < stops.size(); i++) {
+      Request request = requests.get(i);
+      Request stop = stops.get(i);
+      int deck = getDeck(request.getStartFloor(), request.getEndFloor());
+      boolean[] deckRequests = deck == 0 ? this.lowerDeckRequests : this.upperDeckRequests;
+      deckRequests[stop.getStartFloor() + deck] = true;
+      deckRequests[stop.getEndFloor() + deck] = true;
+    }
+  }
+
+  @Override
+  public void step(int lowestFloor, int highestFloor) {
+    super.step(lowestFloor, highestFloor);
+    if (!isDoorClosed() && getDoorOpenTimeLeft() == getDoorOpenTimeTotal()) {
+      // the doors of both decks have just opened
+      this.lowerDeckRequests[getCurrentFloor()] = false;
+      this.upperDeckRequests[getCurrentFloor() + 1] = false;
+    }
+  }
+
+  @Override
+  public void start() {
+    super.start();
+    clearDeckRequests();
+  }
+
+  @Override
+  public void takeOutOfService() {
+    super.takeOutOfService();
+    clearDeckRequests();
+  }
+
+  @Override
+  public void reset() {
+    super.reset();
+    clearDeckRequests();
+  }
+
+  @Override
+  public int checkpointSize() {
+    return super.checkpointSize() + 2 * ((getMaxFloor() + 7) / 8);
+  }
+
+  /**
+   * Write the state of the elevator to the buffer, followed by the requests of each deck
+   * packed one bit per floor.
+   *
+   * @param checkpoint the buffer to write to.
+   */
+  @Override
+  public void writeCheckpoint(ByteBuffer checkpoint) {
+    super.writeCheckpoint(checkpoint);
+    writeRequests(checkpoint, this.lowerDeckRequests);
+    writeRequests(checkpoint, this.upperDeckRequests);
+  }
+
+  @Override
+  byte checkpointKind() {
+    return CHECKPOINT_KIND;
+  }
+
+  @Override
+  public DoubleDeckElevator fork() {
+    return new DoubleDeckElevator(this);
+  }
+
+  @Override
+  public String toString() {
+    return getElevatorStatus().toString();
+  }
+
+  /**
+   * Generate a report for the elevator, with the requests of both decks.
+   *
+   * @return an ElevatorReport object.
+   */
+  @Override
+  public ElevatorReport getElevatorStatus() {
+    return new ElevatorReport(
+        getElevatorId(),
+        getCurrentFloor(),
+        getDirection(),
+        isDoorClosed(),
+        this.lowerDeckRequests,
+        getDoorOpenTimeLeft(),
+        getStopWaitTimeLeft(),
+        isOutOfService(),
+        isTakingRequests(),
+        this.upperDeckRequests);
+  }
+
+  private static boolean isLobby(int floor) {
+    return floor <= 1;
+  }
+
+  /**
+   * The floor of the lower deck when the deck is at the floor on a trip to or from the
+   * other floor. Both decks are at the lobby when the lower deck is at the ground floor,
+   * unless the trip is between the lobby floors.
+   */
+  private static int stopFloor(int floor, int otherFloor, int deck) {
+    return isLobby(floor) && !isLobby(otherFloor) ? 0 : floor - deck;
+  }
+
+  private void clearDeckRequests() {
+    for (int i = 0; i < getMaxFloor(); i++) {
+      this.lowerDeckRequests[i] = false;
+      this.upperDeckRequests[i] = false;
+    }
+  }
+
+  private static boolean[] readRequests(ByteBuffer checkpoint, int floors) {
+    byte[] packed = new byte[(floors + 7) / 8];
+    checkpoint.get(packed);
+    boolean[] requests = new boolean[floors];
+    for (int i = 0; i < floors; i++) {
+      requests[i] = (packed[i >> 3] & (1 << (i & 7))) != 0;
+    }
+    return requests;
+  }
+
+  private static void writeRequests(ByteBuffer checkpoint, boolean[] requests) {
+    byte[] packed = new byte[(requests.length + 7) / 8];
+    for (int i = 0; i < requests.length; i++) {
+      if (requests[i]) {
+        packed[i >> 3] |= (byte) (1 << (i & 7));
+      }
+    }
+    checkpoint.put(packed);
+  }
+}
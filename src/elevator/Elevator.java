@@ -2,6 +2,9 @@ package elevator;
 
 
 import building.enums.Direction;
+import building.jfr.DoorCycleEvent;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.List;
 import scanerzus.Request;
 
@@ -10,6 +13,19 @@ import scanerzus.Request;
  * An implementation of the ElevatorStatus interface.
  */
 public class Elevator implements ElevatorInterface {
+  /************************************************************************
+   * The most floors a building may have: every floor fits in the stop
+   * bitset, one long.
+   ************************************************************************/
+  public static final int MAX_FLOORS = Long.SIZE;
+
+  /************************************************************************
+   * The most floors one elevator may serve, counting its base floor (city
+   * bylaws). A taller building splits its floors into zones, each reached
+   * by an express run.
+   ************************************************************************/
+  public static final int MAX_SERVED_FLOORS = 30;
+
   /************************************************************************
    * static value used to initialize the elevator id.
    ************************************************************************/
@@ -18,28 +34,58 @@ public class Elevator implements ElevatorInterface {
   /************************************************************************
    * The id of the elevator.This is read only.
    ************************************************************************/
-  private final int id = newElevatorId++;
+  private final int id;
 
   /************************************************************************
    * The total number of floors in the building.
    ************************************************************************/
   private final int maxFloor;
 
+  /************************************************************************
+   * The floor at the bottom of the elevator's run, where it takes requests
+   * going up. It is the ground floor, except for the upper car of a twin
+   * shaft, which never goes below the car under it.
+   ************************************************************************/
+  private final int baseFloor;
+
+  /************************************************************************
+   * The zone the elevator serves, from lowestZoneFloor up to
+   * highestZoneFloor, plus the base floor. Between the base floor and
+   * the zone the elevator runs express, and it turns round at the top of
+   * its zone rather than the top of the building.
+   ************************************************************************/
+  private final int lowestZoneFloor;
+
+  private final int highestZoneFloor;
+
   /************************************************************************
    * The maximum number of people that can fit in the elevator.
    ************************************************************************/
   private final int maxOccupancy;
 
   /************************************************************************
-   * The number of steps that the door is open for.
+   * How long the door stays open and how long the elevator waits at the
+   * top or bottom.
+   ************************************************************************/
+  private TimingProfile timing = TimingProfile.STANDARD;
+
+  /************************************************************************
+   * The number of steps that the door is open for at the current stop.
+   ************************************************************************/
+  private int doorOpenTimeTotal = TimingProfile.STANDARD.getDoorOpenTime();
+
+  /************************************************************************
+   * The number of requests queued at the other end of the elevator's run,
+   * as last told by the building. An adaptive elevator waits less at an
+   * end while there are some.
    ************************************************************************/
-  @SuppressWarnings("FieldCanBeLocal")
-  private final int doorOpenTimeTotal = 3;
+  private int queueDepth;
 
   /************************************************************************
-   * The number of steps that the elevator will wait at the top or bottom.
+   * How fast the elevator moves. It moves one floor per step unless it is
+   * given faster kinematics.
    ************************************************************************/
-  private final int stopWaitTimeTotal = 5;
+  private Kinematics kinematics = Kinematics.ONE_FLOOR_PER_STEP;
 
   /************************************************************************
    * The class variables that change as the elevator runs.
@@ -58,6 +104,11 @@ public class Elevator implements ElevatorInterface {
    ************************************************************************/
   private Direction direction;
 
+  /************************************************************************
+   * The floors the elevator moved on its last step, 0 if it did not move.
+   ************************************************************************/
+  private int speed;
+
   /************************************************************************
    * The timer for the door.
    ************************************************************************/
@@ -80,40 +131,256 @@ public class Elevator implements ElevatorInterface {
    ************************************************************************/
   private final boolean[] floorRequests; // true if there is a request for the floor.
 
+  /************************************************************************
+   * The requests for the floors as a bitset, bit i set for floor i, kept
+   * in step with floorRequests so stops can be counted with bit scans.
+   ************************************************************************/
+  private long stopMask;
+
+  /************************************************************************
+   * The number of riders getting on or off at each requested floor, at
+   * most Byte.MAX_VALUE. An adaptive elevator keeps its door open longer
+   * at a floor with more of them.
+   ************************************************************************/
+  private final byte[] stopRiderCounts;
+
 
   private boolean outOfService;  // start must be issued on the elevator to start it.
 
+  /************************************************************************
+   * A parked elevator waiting at the top or bottom does not set off when
+   * its wait is over; it keeps waiting there and taking requests.
+   ************************************************************************/
+  private boolean parked;
+
+  /************************************************************************
+   * Utilisation counters, updated by step(). Every step adds one tick to
+   * exactly one of the tick counters.
+   ************************************************************************/
+  private long ticksMovingUp;
+
+  private long ticksMovingDown;
+
+  private long ticksDoorOpen;
+
+  private long ticksEndWait;
+
+  private long ticksOutOfService;
+
+  private long ticksIdle;
+
+  private long floorsTravelled;
+
+  private long doorCycles;
+
+  /************************************************************************
+   * The Flight Recorder event of the current door cycle, or null when the
+   * door is closed or no recording wants door cycles.
+   ************************************************************************/
+  private DoorCycleEvent doorCycleEvent;
+
+  /************************************************************************
+   * The kind tag written at the start of a checkpoint of this elevator.
+   ************************************************************************/
+  static final byte CHECKPOINT_KIND = 0;
+
 
   /**
    * The constructor for this elevator.
    * The elevator is initially at the ground floor and is not moving.
    *
    * @param maxFloor     the total number of floors in the building
-   *                     must be greater than 0
-   *                     must be less than 30 (city bylaws)
+   *                     must be at least 3
+   *                     must be at most MAX_SERVED_FLOORS (city bylaws)
    * @param maxOccupancy the maximum number of people that can fit in the elevator
    *                     must be greater than 0
    *                     must be less than 20 (fire code)
    * @throws IllegalArgumentException if the maxFloor or maxOccupancy is out of range
    */
   public Elevator(int maxFloor, int maxOccupancy) {
-    if (maxFloor < 3 || maxFloor > 30) {
-      throw new IllegalArgumentException("maxFloor must be between 3 and 30");
+    this(maxFloor, maxOccupancy, 1, maxFloor - 1);
+  }
+
+  /**
+   * The constructor for an elevator that serves a zone of the building.
+   * The elevator serves the ground floor and the floors from lowestZoneFloor to
+   * highestZoneFloor. It is initially at the ground floor and is not moving.
+   *
+   * @param maxFloor         the total number of floors in the building, between 3 and
+   *                         MAX_FLOORS
+   * @param maxOccupancy     the maximum number of people that can fit in the elevator
+   * @param lowestZoneFloor  the lowest floor of the zone, at least 1
+   * @param highestZoneFloor the highest floor of the zone, at most maxFloor - 1; the
+   *                         zone and the ground floor are at most MAX_SERVED_FLOORS
+   * @throws IllegalArgumentException if any of the arguments are out of range
+   */
+  public Elevator(int maxFloor, int maxOccupancy, int lowestZoneFloor, int highestZoneFloor) {
+    this(maxFloor, maxOccupancy, 0, lowestZoneFloor, highestZoneFloor);
+  }
+
+  /**
+   * The constructor for an elevator whose run starts above the ground floor, such as the
+   * upper car of a twin shaft. The elevator serves the base floor and the floors from
+   * lowestZoneFloor to highestZoneFloor. It is initially at the base floor and is not
+   * moving.
+   *
+   * @param maxFloor         the total number of floors in the building, between 3 and
+   *                         MAX_FLOORS
+   * @param maxOccupancy     the maximum number of people that can fit in the elevator
+   * @param baseFloor        the floor at the bottom of the run, at least 0
+   * @param lowestZoneFloor  the lowest floor of the zone, above the base floor
+   * @param highestZoneFloor the highest floor of the zone, at most maxFloor - 1; the
+   *                         zone and the base floor are at most MAX_SERVED_FLOORS
+   * @throws IllegalArgumentException if any of the arguments are out of range
+   */
+  public Elevator(int maxFloor, int maxOccupancy, int baseFloor, int lowestZoneFloor,
+                  int highestZoneFloor) {
+    if (maxFloor < 3 || maxFloor > MAX_FLOORS) {
+      throw new IllegalArgumentException("maxFloor must be between 3 and " + MAX_FLOORS);
     }
     if (maxOccupancy < 3 || maxOccupancy > 20) {
       throw new IllegalArgumentException("maxOccupancy must be between 3 and 20");
     }
+    checkZone(maxFloor, baseFloor, lowestZoneFloor, highestZoneFloor);
 
+    this.id = newElevatorId++;
     this.maxFloor = maxFloor;
+    this.baseFloor = baseFloor;
+    this.lowestZoneFloor = lowestZoneFloor;
+    this.highestZoneFloor = highestZoneFloor;
     this.maxOccupancy = maxOccupancy;
-    this.currentFloor = 0;
+    this.currentFloor = baseFloor;
     this.direction = Direction.STOPPED;
     this.outOfService = true;
     this.floorRequests = new boolean[maxFloor];
+    this.stopRiderCounts = new byte[maxFloor];
     this.takingRequests = false;
 
   }
 
+  /**
+   * The restore constructor for this elevator.
+   * Reads the state written by writeCheckpoint, starting just after the kind tag.
+   * The restored elevator keeps the id it had when the checkpoint was taken.
+   *
+   * @param checkpoint the buffer positioned after the kind tag
+   * @throws IllegalArgumentException if the checkpoint holds an invalid elevator
+   */
+  Elevator(ByteBuffer checkpoint) {
+    this.id = checkpoint.getInt();
+    this.maxFloor = checkpoint.getInt();
+    this.maxOccupancy = checkpoint.getInt();
+    this.lowestZoneFloor = checkpoint.getInt();
+    this.highestZoneFloor = checkpoint.getInt();
+    this.baseFloor = checkpoint.getInt();
+    this.kinematics = new Kinematics(checkpoint.getInt(), checkpoint.getInt());
+    int doorOpenTime = checkpoint.getInt();
+    int endWaitTime = checkpoint.getInt();
+    if (this.maxFloor < 3 || this.maxFloor > MAX_FLOORS) {
+      throw new IllegalArgumentException("maxFloor must be between 3 and " + MAX_FLOORS);
+    }
+    checkZone(this.maxFloor, this.baseFloor, this.lowestZoneFloor, this.highestZoneFloor);
+    if (this.maxOccupancy < 3 || this.maxOccupancy > 20) {
+      throw new IllegalArgumentException("maxOccupancy must be between 3 and 20");
+    }
+    this.currentFloor = checkpoint.getInt();
+    if (this.currentFloor < 0 || this.currentFloor >= this.maxFloor) {
+      throw new IllegalArgumentException("currentFloor must be between 0 and "
+          + (this.maxFloor - 1));
+    }
+    this.speed = checkpoint.getInt();
+    if (this.speed < 0 || this.speed > this.kinematics.getMaxSpeed()) {
+      throw new IllegalArgumentException("speed must be between 0 and "
+          + this.kinematics.getMaxSpeed());
+    }
+    byte directionOrdinal = checkpoint.get();
+    if (directionOrdinal < 0 || directionOrdinal >= Direction.values().length) {
+      throw new IllegalArgumentException("Unknown direction " + directionOrdinal);
+    }
+    this.direction = Direction.values()[directionOrdinal];
+    this.doorOpenTimeLeft = checkpoint.getInt();
+    this.doorOpenTimeTotal = checkpoint.getInt();
+    if (this.doorOpenTimeTotal < 1 || this.doorOpenTimeTotal > 2 * TimingProfile.MAX_TIME) {
+      throw new IllegalArgumentException("doorOpenTimeTotal must be between 1 and "
+          + 2 * TimingProfile.MAX_TIME);
+    }
+    this.stopWaitTimeLeft = checkpoint.getInt();
+    this.queueDepth = checkpoint.getInt();
+    if (this.queueDepth < 0) {
+      throw new IllegalArgumentException("queueDepth must be greater than or equal to 0");
+    }
+    byte flags = checkpoint.get();
+    this.doorClosed = (flags & 1) != 0;
+    this.outOfService = (flags & 2) != 0;
+    this.takingRequests = (flags & 4) != 0;
+    this.parked = (flags & 8) != 0;
+    this.timing = new TimingProfile(doorOpenTime, endWaitTime, (flags & 16) != 0);
+    this.floorRequests = new boolean[this.maxFloor];
+    byte[] packedRequests = new byte[(this.maxFloor + 7) / 8];
+    checkpoint.get(packedRequests);
+    for (int i = 0; i < this.maxFloor; i++) {
+      this.floorRequests[i] = (packedRequests[i >> 3] & (1 << (i & 7))) != 0;
+      if (this.floorRequests[i]) {
+        this.stopMask |= 1L << i;
+      }
+    }
+    this.stopRiderCounts = new byte[this.maxFloor];
+    checkpoint.get(this.stopRiderCounts);
+    for (byte count : this.stopRiderCounts) {
+      if (count < 0) {
+        throw new IllegalArgumentException("Stop rider counts cannot be negative");
+      }
+    }
+  }
+
+  /**
+   * The copy constructor used by fork.
+   * The utilisation counters are not copied; the copy starts with none.
+   *
+   * @param source the elevator to copy.
+   */
+  Elevator(Elevator source) {
+    this.id = source.id;
+    this.maxFloor = source.maxFloor;
+    this.baseFloor = source.baseFloor;
+    this.lowestZoneFloor = source.lowestZoneFloor;
+    this.highestZoneFloor = source.highestZoneFloor;
+    this.maxOccupancy = source.maxOccupancy;
+    this.kinematics = source.kinematics;
+    this.timing = source.timing;
+    this.doorOpenTimeTotal = source.doorOpenTimeTotal;
+    this.queueDepth = source.queueDepth;
+    this.currentFloor = source.currentFloor;
+    this.direction = source.direction;
+    this.speed = source.speed;
+    this.doorOpenTimeLeft = source.doorOpenTimeLeft;
+    this.doorClosed = source.doorClosed;
+    this.stopWaitTimeLeft = source.stopWaitTimeLeft;
+    this.outOfService = source.outOfService;
+    this.takingRequests = source.takingRequests;
+    this.parked = source.parked;
+    this.floorRequests = new boolean[source.maxFloor];
+    System.arraycopy(source.floorRequests, 0, this.floorRequests, 0, source.maxFloor);
+    this.stopMask = source.stopMask;
+    this.stopRiderCounts = source.stopRiderCounts.clone();
+  }
+
+  private static void checkZone(int maxFloor, int baseFloor, int lowestZoneFloor,
+                                int highestZoneFloor) {
+    if (baseFloor < 0) {
+      throw new IllegalArgumentException("baseFloor must be greater than or equal to 0");
+    }
+    if (lowestZoneFloor <= baseFloor || highestZoneFloor > maxFloor - 1
+        || lowestZoneFloor > highestZoneFloor) {
+      throw new IllegalArgumentException("zone must be a range of floors between "
+          + (baseFloor + 1) + " and " + (maxFloor - 1));
+    }
+    if (highestZoneFloor - lowestZoneFloor + 2 > MAX_SERVED_FLOORS) {
+      throw new IllegalArgumentException("an elevator may serve at most " + MAX_SERVED_FLOORS
+          + " floors; zone a taller building");
+    }
+  }
+
   /* ***********************************************************************
    * The following methods are the getters for the ElevatorStatus interface.
    * **********************************************************************/
@@ -138,6 +405,48 @@ public class Elevator implements ElevatorInterface {
     return this.maxFloor;
   }
 
+  /**
+   * Get the floor at the bottom of the elevator's run, where it takes requests going up.
+   *
+   * @return the base floor, 0 unless the elevator is the upper car of a twin shaft.
+   */
+  @Override
+  public int getBaseFloor() {
+    return this.baseFloor;
+  }
+
+  /**
+   * Get the lowest floor of the zone the elevator serves above the base floor.
+   *
+   * @return the lowest floor of the zone.
+   */
+  @Override
+  public int getLowestZoneFloor() {
+    return this.lowestZoneFloor;
+  }
+
+  /**
+   * Get the highest floor of the zone, where the elevator turns round.
+   *
+   * @return the highest floor of the zone.
+   */
+  @Override
+  public int getHighestZoneFloor() {
+    return this.highestZoneFloor;
+  }
+
+  /**
+   * Does the elevator stop at the floor: the base floor or a floor of its zone.
+   *
+   * @param floor the floor.
+   * @return true if the elevator serves the floor.
+   */
+  @Override
+  public boolean servesFloor(int floor) {
+    return floor == this.baseFloor
+        || (floor >= this.lowestZoneFloor && floor <= this.highestZoneFloor);
+  }
+
   /**
    * maxOccupancy getter.
    *
@@ -158,6 +467,42 @@ public class Elevator implements ElevatorInterface {
     return this.direction;
   }
 
+  /**
+   * Get the floors the elevator moved on its last step.
+   *
+   * @return the speed, 0 if the elevator did not move.
+   */
+  @Override
+  public int getSpeed() {
+    return this.speed;
+  }
+
+  /**
+   * Get how fast the elevator moves.
+   *
+   * @return the kinematics of the elevator.
+   */
+  @Override
+  public Kinematics getKinematics() {
+    return this.kinematics;
+  }
+
+  /**
+   * Set how fast the elevator moves. A moving elevator keeps going at no more than the
+   * new top speed.
+   *
+   * @param kinematics the kinematics of the elevator.
+   * @throws IllegalArgumentException if kinematics is null.
+   */
+  @Override
+  public void setKinematics(Kinematics kinematics) {
+    if (kinematics == null) {
+      throw new IllegalArgumentException("kinematics cannot be null");
+    }
+    this.kinematics = kinematics;
+    this.speed = Math.min(this.speed, kinematics.getMaxSpeed());
+  }
+
   /**
    * Get ElevatorStatus Id.
    */
@@ -186,6 +531,140 @@ public class Elevator implements ElevatorInterface {
     return this.floorRequests;
   }
 
+  /**
+   * Return the current stop requests as a bitset.
+   *
+   * @return the stop requests, bit i set if there is a request for floor i.
+   */
+  @Override
+  public long getStopMask() {
+    return this.stopMask;
+  }
+
+  /**
+   * Get the number of steps left before the door closes.
+   *
+   * @return the door timer, 0 if the door is closed.
+   */
+  @Override
+  public int getDoorOpenTimeLeft() {
+    return this.doorOpenTimeLeft;
+  }
+
+  /**
+   * Get the number of steps left of the wait at the top or bottom.
+   *
+   * @return the end wait timer, 0 if the elevator is not waiting.
+   */
+  @Override
+  public int getStopWaitTimeLeft() {
+    return this.stopWaitTimeLeft;
+  }
+
+  /**
+   * Get the number of steps the door stays open at the current stop, or at a stop with
+   * one rider if the door is closed.
+   *
+   * @return the door open time.
+   */
+  @Override
+  public int getDoorOpenTimeTotal() {
+    return this.doorClosed ? this.timing.getDoorOpenTime() : this.doorOpenTimeTotal;
+  }
+
+  /**
+   * Get the number of steps the door will stay open at a requested floor.
+   *
+   * @param floor the floor.
+   * @return the door open time at the floor.
+   */
+  @Override
+  public int getDoorOpenTime(int floor) {
+    return this.timing.getDoorOpenTime(this.stopRiderCounts[floor]);
+  }
+
+  /**
+   * Get the number of steps the elevator waits at the top or bottom, which an adaptive
+   * elevator cuts short while requests are queued at the other end.
+   *
+   * @return the end wait time.
+   */
+  @Override
+  public int getStopWaitTimeTotal() {
+    return this.timing.getEndWaitTime(this.queueDepth);
+  }
+
+  /**
+   * Get how long the door stays open and the elevator waits at the top or bottom.
+   *
+   * @return the timing profile of the elevator.
+   */
+  @Override
+  public TimingProfile getTimingProfile() {
+    return this.timing;
+  }
+
+  /**
+   * Set how long the door stays open and the elevator waits at the top or bottom. A door
+   * already open keeps its time.
+   *
+   * @param timing the timing profile of the elevator.
+   * @throws IllegalArgumentException if timing is null.
+   */
+  @Override
+  public void setTimingProfile(TimingProfile timing) {
+    if (timing == null) {
+      throw new IllegalArgumentException("timing cannot be null");
+    }
+    this.timing = timing;
+  }
+
+  /**
+   * Tell the elevator how many requests are queued at the other end of its run.
+   *
+   * @param queueDepth the number of requests.
+   * @throws IllegalArgumentException if queueDepth is negative.
+   */
+  @Override
+  public void setQueueDepth(int queueDepth) {
+    if (queueDepth < 0) {
+      throw new IllegalArgumentException("queueDepth must be greater than or equal to 0");
+    }
+    this.queueDepth = queueDepth;
+  }
+
+  /**
+   * Is the elevator out of service.
+   *
+   * @return true if the elevator is out of service.
+   */
+  @Override
+  public boolean isOutOfService() {
+    return this.outOfService;
+  }
+
+  /**
+   * Get the number of decks of the car.
+   *
+   * @return 1, the car has one deck.
+   */
+  @Override
+  public int getNumberOfDecks() {
+    return 1;
+  }
+
+  /**
+   * Get the deck a request rides in.
+   *
+   * @param startFloor the start floor of the request.
+   * @param endFloor   the end floor of the request.
+   * @return 0, the only deck.
+   */
+  @Override
+  public int getDeck(int startFloor, int endFloor) {
+    return 0;
+  }
+
   /* ***********************************************************************
    * The following methods are the methods for the ElevatorStatus interface.
    *
@@ -210,7 +689,7 @@ public class Elevator implements ElevatorInterface {
     clearStopRequests();
     this.doorClosed = true;
     this.doorOpenTimeLeft = 0;
-    this.stopWaitTimeLeft = this.stopWaitTimeTotal;
+    this.stopWaitTimeLeft = getStopWaitTimeTotal();
     this.direction = Direction.UP;
   }
 
@@ -222,15 +701,35 @@ public class Elevator implements ElevatorInterface {
    * Third Check to see if the elevator is waiting at the top or bottom.
    * Fourth check to see if there is a request at this floor.
    */
+  @Override
   public void step() {
+    step(0, this.maxFloor - 1);
+  }
+
+  /**
+   * Move the elevator one step without leaving the floors from lowestFloor to highestFloor.
+   * A move that would leave them is not made and the elevator holds where it is for the
+   * step, which counts as idle. A twin shaft uses this to keep its cars apart.
+   *
+   * @param lowestFloor  the lowest floor the elevator may move to.
+   * @param highestFloor the highest floor the elevator may move to.
+   */
+  @Override
+  public void step(int lowestFloor, int highestFloor) {
+    // The elevator is stopped unless it moves on this step.
+    int lastSpeed = this.speed;
+    this.speed = 0;
+
     // If the elevator is out of service then we need to deal with that.
     if (this.outOfService) {
-      this.stepOutOfService();
+      this.ticksOutOfService++;
+      this.stepOutOfService(lowestFloor, lastSpeed);
       return;
     }
 
     // If the door is open we call the stepDoorOpen function and return.
     if (!this.doorClosed) {
+      this.ticksDoorOpen++;
       this.stepDoorOpen();
       return;
     }
@@ -238,6 +737,7 @@ public class Elevator implements ElevatorInterface {
     // If the elevator is at the top or bottom we call the
     // stepTopOrBottom function and return.
     if (this.stopWaitTimeLeft > 0) {
+      this.ticksEndWait++;
       this.stepTopOrBottom();
       return;
     }
@@ -245,11 +745,17 @@ public class Elevator implements ElevatorInterface {
     // We are not out of service,
     // the door is closed and we are not waiting at the top or bottom.
     // now we check to see if there is a request at this floor
-    // We open the door and set the timer for 3 steps.
+    // We open the door and set the timer for the door time of this stop.
     if (this.floorRequests[this.currentFloor]) {
+      this.ticksDoorOpen++;
+      this.doorCycles++;
       this.doorClosed = false;
+      this.doorOpenTimeTotal = getDoorOpenTime(this.currentFloor);
       this.doorOpenTimeLeft = this.doorOpenTimeTotal;
+      beginDoorCycleEvent();
       this.floorRequests[this.currentFloor] = false;
+      this.stopRiderCounts[this.currentFloor] = 0;
+      this.stopMask &= ~(1L << this.currentFloor);
       return;
     }
 
@@ -262,10 +768,11 @@ public class Elevator implements ElevatorInterface {
     // If we are at the bottom
     // and the direction is down
     // we need to set the direction to up
-    // we set the timer to this.stopWaitTimeTotal
-    if (this.currentFloor == 0 && this.direction == Direction.DOWN) {
+    // we set the timer to the end wait time
+    if (this.currentFloor == this.baseFloor && this.direction == Direction.DOWN) {
+      this.ticksEndWait++;
       this.direction = Direction.STOPPED;
-      this.stopWaitTimeLeft = this.stopWaitTimeTotal;
+      this.stopWaitTimeLeft = getStopWaitTimeTotal();
       this.takingRequests = true;
       return;
     }
@@ -273,10 +780,11 @@ public class Elevator implements ElevatorInterface {
     // If we are at the top
     // and the direction is up
     // we need to set the direction to down
-    // we set the timer to this.stopWaitTimeTotal
-    if (this.currentFloor == this.maxFloor - 1 && this.direction == Direction.UP) {
+    // we set the timer to the end wait time
+    if (this.currentFloor == this.highestZoneFloor && this.direction == Direction.UP) {
+      this.ticksEndWait++;
       this.direction = Direction.STOPPED;
-      this.stopWaitTimeLeft = this.stopWaitTimeTotal;
+      this.stopWaitTimeLeft = getStopWaitTimeTotal();
       this.takingRequests = true;
       return;
     }
@@ -286,41 +794,80 @@ public class Elevator implements ElevatorInterface {
     // the door is closed
     // there is no request at this floor
     // we are not at the top or the bottom
-    // we need to move the elevator in the direction it is currently moving.
-
-    int floorIncrement = 1;
-    if (this.direction == Direction.UP) {
+    // we need to move the elevator in the direction it is currently moving,
+    // unless the move would take it out of the floors it may move to.
+    // It moves as far as its kinematics let it without passing the next stop.
+
+    if (this.direction == Direction.UP && this.currentFloor < highestFloor) {
+      int stop = nextStopAbove();
+      int floorIncrement = this.kinematics.nextSpeed(lastSpeed,
+          Math.min(highestFloor, stop > this.currentFloor ? stop : highestFloor)
+              - this.currentFloor);
       this.currentFloor += floorIncrement;
-    } else if (this.direction == Direction.DOWN) {
+      this.speed = floorIncrement;
+      this.ticksMovingUp++;
+      this.floorsTravelled += floorIncrement;
+    } else if (this.direction == Direction.DOWN && this.currentFloor > lowestFloor) {
+      int stop = nextStopBelow();
+      int floorIncrement = this.kinematics.nextSpeed(lastSpeed,
+          this.currentFloor - Math.max(lowestFloor, stop < this.currentFloor ? stop
+              : lowestFloor));
       this.currentFloor -= floorIncrement;
+      this.speed = floorIncrement;
+      this.ticksMovingDown++;
+      this.floorsTravelled += floorIncrement;
+    } else {
+      this.ticksIdle++;
     }
   }
 
+  /**
+   * The next floor above the current floor the elevator stops at: the lowest floor
+   * requested above it, or the top of its zone.
+   */
+  private int nextStopAbove() {
+    // -2L rather than -1L << currentFloor + 1, which is every floor at floor 63
+    long above = this.stopMask & (-2L << this.currentFloor);
+    return above == 0 ? this.highestZoneFloor
+        : Math.min(Long.numberOfTrailingZeros(above), this.highestZoneFloor);
+  }
+
+  /**
+   * The next floor below the current floor the elevator stops at: the highest floor
+   * requested below it, or its base floor.
+   */
+  private int nextStopBelow() {
+    long below = this.stopMask & ((1L << this.currentFloor) - 1);
+    return below == 0 ? this.baseFloor
+        : Math.max(63 - Long.numberOfLeadingZeros(below), this.baseFloor);
+  }
+
   /**
    * Step the elevator when out of service.
-   * If the elevator is on the ground floor and the door is open return
-   * If the elevator is on the ground floor and the door is closed
+   * If the elevator is on the base floor and the door is open return
+   * If the elevator is on the base floor and the door is closed
    * then open the door.
    * <p></p>
-   * If the elevator is not on the ground floor and the door is open
+   * If the elevator is not on the base floor and the door is open
    * then execute stepDoorOpen
    */
-  private void stepOutOfService() {
-    if (this.currentFloor == 0 && !this.doorClosed) {
+  private void stepOutOfService(int lowestFloor, int lastSpeed) {
+    if (this.currentFloor == this.baseFloor && !this.doorClosed) {
       return;
     }
 
     //
-    if (this.currentFloor == 0) {
+    if (this.currentFloor == this.baseFloor) {
       this.doorClosed = false;
       // we can clear the floor requests now
       this.floorRequests[this.currentFloor] = false;
+      this.stopMask &= ~(1L << this.currentFloor);
       // we can set the elevator to stopped.
       this.direction = Direction.STOPPED;
       return;
     }
 
-    // at this point we know we are not on the ground floor
+    // at this point we know we are not on the base floor
     // check to see if the door is open.
 
     if (!this.doorClosed) {
@@ -331,7 +878,13 @@ public class Elevator implements ElevatorInterface {
 
     // set the direction of the elevator to down.
     this.direction = Direction.DOWN;
-    this.currentFloor--;
+    if (this.currentFloor > lowestFloor) {
+      int floorIncrement = this.kinematics.nextSpeed(lastSpeed,
+          this.currentFloor - Math.max(lowestFloor, this.baseFloor));
+      this.currentFloor -= floorIncrement;
+      this.speed = floorIncrement;
+      this.floorsTravelled += floorIncrement;
+    }
   }
 
   /**
@@ -341,6 +894,35 @@ public class Elevator implements ElevatorInterface {
     this.doorOpenTimeLeft--;
     if (this.doorOpenTimeLeft == 0) {
       this.doorClosed = true;
+      commitDoorCycleEvent();
+    }
+  }
+
+  /**
+   * Start timing a door cycle if a Flight Recorder recording wants it.
+   */
+  private void beginDoorCycleEvent() {
+    DoorCycleEvent event = new DoorCycleEvent();
+    if (event.isEnabled()) {
+      event.begin();
+      this.doorCycleEvent = event;
+    }
+  }
+
+  /**
+   * Finish timing the current door cycle, if one is being timed.
+   */
+  private void commitDoorCycleEvent() {
+    DoorCycleEvent event = this.doorCycleEvent;
+    if (event != null) {
+      this.doorCycleEvent = null;
+      event.end();
+      if (event.shouldCommit()) {
+        event.elevatorId = this.id;
+        event.floor = this.currentFloor;
+        event.stepsOpen = this.doorOpenTimeTotal;
+        event.commit();
+      }
     }
   }
 
@@ -348,12 +930,20 @@ public class Elevator implements ElevatorInterface {
    * Process the top or bottom step function.
    */
   private void stepTopOrBottom() {
+    if (this.parked && this.stopWaitTimeLeft == 1) {
+      // a parked elevator waits until it is given requests or unparked
+      return;
+    }
+    if (!this.parked && this.timing.isAdaptive()) {
+      // an adaptive elevator cuts its wait short once requests are queued
+      this.stopWaitTimeLeft = Math.min(this.stopWaitTimeLeft, getStopWaitTimeTotal());
+    }
     this.stopWaitTimeLeft--;
     if (this.stopWaitTimeLeft == 0) {
       this.takingRequests = false;
-      if (this.currentFloor == 0) {
+      if (this.currentFloor == this.baseFloor) {
         this.direction = Direction.UP;
-      } else if (this.currentFloor == this.maxFloor - 1) {
+      } else if (this.currentFloor == this.highestZoneFloor) {
         this.direction = Direction.DOWN;
       }
     }
@@ -365,24 +955,35 @@ public class Elevator implements ElevatorInterface {
    * that are on the way to our current direction.  That is,
    * if we are at the bottom or the top.
    * If a request is received to processRequests and the elevator
-   * is not on the first floor or the top floor then and exception
-   * will be thrown.
+   * is not on the base floor or the top floor then and exception
+   * will be thrown. The top floor is the top of the elevator's zone,
+   * and every request must start and end on floors the elevator serves.
+   * A request made for a group of riders counts every rider at its stops.
    */
   @Override
   public void processRequests(List<Request> requests) throws IllegalStateException {
-    if (this.currentFloor != 0 && this.currentFloor != this.maxFloor - 1) {
+    if (this.currentFloor != this.baseFloor && this.currentFloor != this.highestZoneFloor) {
       throw new IllegalStateException("Elevator cannot process requests "
           + "unless it is at the bottom or top floor.");
     }
+    for (Request request : requests) {
+      if (!servesFloor(request.getStartFloor()) || !servesFloor(request.getEndFloor())) {
+        throw new IllegalArgumentException("Elevator does not serve the floors of "
+            + request);
+      }
+      if (request.getRiders() < 1) {
+        throw new IllegalArgumentException("A request must have at least one rider");
+      }
+    }
 
     if (requests.isEmpty()) {
       return;
     }
 
     this.processStopRequests(requests);
-    if (this.currentFloor == 0) {
+    if (this.currentFloor == this.baseFloor) {
       this.direction = Direction.UP;
-    } else if (this.currentFloor == this.maxFloor - 1) {
+    } else if (this.currentFloor == this.highestZoneFloor) {
       this.direction = Direction.DOWN;
     }
     this.takingRequests = false;
@@ -413,6 +1014,27 @@ public class Elevator implements ElevatorInterface {
     return this.takingRequests;
   }
 
+  /**
+   * Park or unpark the elevator. A parked elevator waiting at the top or bottom
+   * keeps waiting there, taking requests, until it is given requests or unparked.
+   *
+   * @param parked true to park the elevator.
+   */
+  @Override
+  public void setParked(boolean parked) {
+    this.parked = parked;
+  }
+
+  /**
+   * Is the elevator parked.
+   *
+   * @return true if the elevator is parked.
+   */
+  @Override
+  public boolean isParked() {
+    return this.parked;
+  }
+
 
   private void processStopRequests(List<Request> requests) {
     clearStopRequests();
@@ -420,6 +1042,9 @@ public class Elevator implements ElevatorInterface {
     for (Request request : requests) {
       this.floorRequests[request.getStartFloor()] = true;
       this.floorRequests[request.getEndFloor()] = true;
+      this.stopMask |= (1L << request.getStartFloor()) | (1L << request.getEndFloor());
+      countStopRiders(request.getStartFloor(), request.getRiders());
+      countStopRiders(request.getEndFloor(), request.getRiders());
     }
     // if the elevator was waiting at the top or bottom
     // set the timer to 0 and we are off to the races.
@@ -430,9 +1055,126 @@ public class Elevator implements ElevatorInterface {
    * Clear the Floor Requests.
    */
   private void clearStopRequests() {
+    Arrays.fill(this.floorRequests, false);
+    Arrays.fill(this.stopRiderCounts, (byte) 0);
+    this.stopMask = 0;
+  }
+
+  private void countStopRiders(int floor, int riders) {
+    this.stopRiderCounts[floor] = (byte) Math.min(this.stopRiderCounts[floor] + riders,
+        Byte.MAX_VALUE);
+  }
+
+  /**
+   * Reset the elevator to the state it was constructed in, keeping its kinematics and
+   * timing profile.
+   * This also clears the utilisation counters.
+   */
+  @Override
+  public void reset() {
+    clearStopRequests();
+    this.currentFloor = this.baseFloor;
+    this.direction = Direction.STOPPED;
+    this.speed = 0;
+    this.doorClosed = true;
+    this.doorOpenTimeLeft = 0;
+    this.stopWaitTimeLeft = 0;
+    this.queueDepth = 0;
+    this.outOfService = true;
+    this.takingRequests = false;
+    this.parked = false;
+    this.doorCycleEvent = null;
+    this.ticksMovingUp = 0;
+    this.ticksMovingDown = 0;
+    this.ticksDoorOpen = 0;
+    this.ticksEndWait = 0;
+    this.ticksOutOfService = 0;
+    this.ticksIdle = 0;
+    this.floorsTravelled = 0;
+    this.doorCycles = 0;
+  }
+
+  /**
+   * Take a snapshot of the utilisation counters.
+   *
+   * @return the counters as they are now.
+   */
+  @Override
+  public ElevatorMetrics getMetrics() {
+    return new ElevatorMetrics(this.id, this.ticksMovingUp, this.ticksMovingDown,
+        this.ticksDoorOpen, this.ticksEndWait, this.ticksOutOfService, this.ticksIdle,
+        this.floorsTravelled, this.doorCycles);
+  }
+
+  /**
+   * The number of bytes writeCheckpoint will write.
+   *
+   * @return the size of the checkpoint in bytes.
+   */
+  @Override
+  public int checkpointSize() {
+    return 1 + 4 * 16 + 1 + 1 + (this.maxFloor + 7) / 8 + this.maxFloor;
+  }
+
+  /**
+   * Write the state of the elevator to the buffer.
+   * The floor requests are packed one bit per floor, followed by a byte per floor
+   * counting the requests that start or end there.
+   *
+   * @param checkpoint the buffer to write to.
+   */
+  @Override
+  public void writeCheckpoint(ByteBuffer checkpoint) {
+    checkpoint.put(checkpointKind());
+    checkpoint.putInt(this.id);
+    checkpoint.putInt(this.maxFloor);
+    checkpoint.putInt(this.maxOccupancy);
+    checkpoint.putInt(this.lowestZoneFloor);
+    checkpoint.putInt(this.highestZoneFloor);
+    checkpoint.putInt(this.baseFloor);
+    checkpoint.putInt(this.kinematics.getMaxSpeed());
+    checkpoint.putInt(this.kinematics.getAcceleration());
+    checkpoint.putInt(this.timing.getDoorOpenTime());
+    checkpoint.putInt(this.timing.getEndWaitTime());
+    checkpoint.putInt(this.currentFloor);
+    checkpoint.putInt(this.speed);
+    checkpoint.put((byte) this.direction.ordinal());
+    checkpoint.putInt(this.doorOpenTimeLeft);
+    checkpoint.putInt(this.doorOpenTimeTotal);
+    checkpoint.putInt(this.stopWaitTimeLeft);
+    checkpoint.putInt(this.queueDepth);
+    checkpoint.put((byte) ((this.doorClosed ? 1 : 0)
+        | (this.outOfService ? 2 : 0)
+        | (this.takingRequests ? 4 : 0)
+        | (this.parked ? 8 : 0)
+        | (this.timing.isAdaptive() ? 16 : 0)));
+    byte[] packedRequests = new byte[(this.maxFloor + 7) / 8];
     for (int i = 0; i < this.maxFloor; i++) {
-      this.floorRequests[i] = false;
+      if (this.floorRequests[i]) {
+        packedRequests[i >> 3] |= (byte) (1 << (i & 7));
+      }
     }
+    checkpoint.put(packedRequests);
+    checkpoint.put(this.stopRiderCounts);
+  }
+
+  /**
+   * The kind tag written at the start of a checkpoint of this elevator.
+   *
+   * @return the kind tag.
+   */
+  byte checkpointKind() {
+    return CHECKPOINT_KIND;
+  }
+
+  /**
+   * Copy this elevator, including its id and floor requests.
+   *
+   * @return an independent elevator in the same state.
+   */
+  @Override
+  public Elevator fork() {
+    return new Elevator(this);
   }
 
   /**
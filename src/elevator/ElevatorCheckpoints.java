@@ -0,0 +1,32 @@
+package elevator;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This class restores elevators from the checkpoints written by
+ * ElevatorInterface.writeCheckpoint.
+ */
+public final class ElevatorCheckpoints {
+
+  private ElevatorCheckpoints() {
+  }
+
+  /**
+   * Reads one elevator from the buffer.
+   * The kind tag at the start of the checkpoint decides which class is restored.
+   *
+   * @param checkpoint the buffer positioned at the start of an elevator checkpoint.
+   * @return the restored elevator.
+   * @throws IllegalArgumentException if the kind tag is unknown.
+   */
+  public static ElevatorInterface read(ByteBuffer checkpoint) {
+    byte kind = checkpoint.get();
+    if (kind == Elevator.CHECKPOINT_KIND) {
+      return new Elevator(checkpoint);
+    }
+    if (kind == DoubleDeckElevator.CHECKPOINT_KIND) {
+      return new DoubleDeckElevator(checkpoint);
+    }
+    throw new IllegalArgumentException("Unknown elevator checkpoint kind " + kind);
+  }
+}
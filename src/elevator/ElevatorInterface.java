@@ -1,6 +1,7 @@
 package elevator;
 
 import building.enums.Direction;
+import java.nio.ByteBuffer;
 import java.util.List;
 import scanerzus.Request;
 
@@ -25,6 +26,38 @@ public interface ElevatorInterface {
   int getMaxFloor();
 
 
+  /**
+   * Returns the floor at the bottom of the elevator's run, where it takes requests going
+   * up. It is the ground floor, except for the upper car of a twin shaft.
+   *
+   * @return the base floor.
+   */
+  int getBaseFloor();
+
+  /**
+   * Returns the lowest floor of the zone the elevator serves above the base floor.
+   *
+   * @return the lowest floor of the zone.
+   */
+  int getLowestZoneFloor();
+
+  /**
+   * Returns the highest floor of the zone the elevator serves. The elevator turns round
+   * there, so it is the top floor for taking requests.
+   *
+   * @return the highest floor of the zone.
+   */
+  int getHighestZoneFloor();
+
+  /**
+   * Returns whether the elevator stops at the floor: the base floor or a floor
+   * of its zone.
+   *
+   * @param floor the floor.
+   * @return true if the elevator serves the floor.
+   */
+  boolean servesFloor(int floor);
+
   /**
    * maxOccupancy getter
    * Notice that it is not the responsibility of the elevator to
@@ -34,6 +67,22 @@ public interface ElevatorInterface {
    */
   int getMaxOccupancy();
 
+  /**
+   * Returns the number of decks of the car, 1 or 2. Each deck holds maxOccupancy people.
+   *
+   * @return the number of decks.
+   */
+  int getNumberOfDecks();
+
+  /**
+   * Returns the deck a request between the floors rides in, 0 for the lower deck.
+   *
+   * @param startFloor the start floor of the request.
+   * @param endFloor   the end floor of the request.
+   * @return the deck.
+   */
+  int getDeck(int startFloor, int endFloor);
+
   /**
    * Returns the current floor of the elevator.
    *
@@ -50,6 +99,27 @@ public interface ElevatorInterface {
    */
   Direction getDirection();
 
+  /**
+   * Returns the floors the elevator moved on its last step.
+   *
+   * @return the speed, 0 if the elevator did not move.
+   */
+  int getSpeed();
+
+  /**
+   * Returns how fast the elevator moves.
+   *
+   * @return the kinematics of the elevator.
+   */
+  Kinematics getKinematics();
+
+  /**
+   * Sets how fast the elevator moves.
+   *
+   * @param kinematics the kinematics of the elevator.
+   */
+  void setKinematics(Kinematics kinematics);
+
   /**
    * Returns the door status of the elevator.
    *
@@ -64,6 +134,79 @@ public interface ElevatorInterface {
    */
   boolean[] getFloorRequests();
 
+  /**
+   * Return the current stop requests as a bitset.
+   *
+   * @return the stop requests, bit i set if there is a request for floor i.
+   */
+  long getStopMask();
+
+  /**
+   * Get the number of steps left before the door closes.
+   *
+   * @return the door timer, 0 if the door is closed.
+   */
+  int getDoorOpenTimeLeft();
+
+  /**
+   * Get the number of steps left of the wait at the top or bottom.
+   *
+   * @return the end wait timer, 0 if the elevator is not waiting.
+   */
+  int getStopWaitTimeLeft();
+
+  /**
+   * Get the number of steps the door stays open at the current stop, or at a stop with
+   * one rider if the door is closed.
+   *
+   * @return the door open time.
+   */
+  int getDoorOpenTimeTotal();
+
+  /**
+   * Get the number of steps the door will stay open at a requested floor.
+   *
+   * @param floor the floor.
+   * @return the door open time at the floor.
+   */
+  int getDoorOpenTime(int floor);
+
+  /**
+   * Get the number of steps the elevator waits at the top or bottom.
+   *
+   * @return the end wait time.
+   */
+  int getStopWaitTimeTotal();
+
+  /**
+   * Get how long the door stays open and the elevator waits at the top or bottom.
+   *
+   * @return the timing profile of the elevator.
+   */
+  TimingProfile getTimingProfile();
+
+  /**
+   * Set how long the door stays open and the elevator waits at the top or bottom.
+   *
+   * @param timing the timing profile of the elevator.
+   */
+  void setTimingProfile(TimingProfile timing);
+
+  /**
+   * Tell the elevator how many requests are queued at the other end of its run, so an
+   * adaptive elevator can cut its end wait short.
+   *
+   * @param queueDepth the number of requests.
+   */
+  void setQueueDepth(int queueDepth);
+
+  /**
+   * Is the elevator out of service.
+   *
+   * @return true if the elevator is out of service.
+   */
+  boolean isOutOfService();
+
   /**
    * start elevator.
    * This will start the elevator if the elevator is on the ground floor.
@@ -89,6 +232,16 @@ public interface ElevatorInterface {
    */
   void step();
 
+  /**
+   * Move the elevator one step, as step() does, without leaving the floors from
+   * lowestFloor to highestFloor. A move that would leave them is not made; the elevator
+   * holds where it is for the step.
+   *
+   * @param lowestFloor  the lowest floor the elevator may move to.
+   * @param highestFloor the highest floor the elevator may move to.
+   */
+  void step(int lowestFloor, int highestFloor);
+
   /**
    * processUpRequests.
    * This will tell the elevator to process these upRequests on the next run.
@@ -107,6 +260,21 @@ public interface ElevatorInterface {
    */
   boolean isTakingRequests();
 
+  /**
+   * Park or unpark the elevator. A parked elevator waiting at the top or bottom
+   * keeps waiting there, taking requests, instead of setting off empty.
+   *
+   * @param parked true to park the elevator.
+   */
+  void setParked(boolean parked);
+
+  /**
+   * Is the elevator parked.
+   *
+   * @return true if the elevator is parked.
+   */
+  boolean isParked();
+
   /**
    * This method is used to get the elevator status ElevatorReport.
    *
@@ -114,4 +282,40 @@ public interface ElevatorInterface {
    */
   ElevatorReport getElevatorStatus();
 
+  /**
+   * This method is used to get a snapshot of the utilisation counters of the elevator.
+   *
+   * @return the elevator metrics.
+   */
+  ElevatorMetrics getMetrics();
+
+  /**
+   * Returns the number of bytes writeCheckpoint will write.
+   *
+   * @return the size of the checkpoint in bytes.
+   */
+  int checkpointSize();
+
+  /**
+   * Writes the full state of the elevator to the buffer.
+   * The first byte is a kind tag so ElevatorCheckpoints can restore the right class.
+   *
+   * @param checkpoint the buffer to write to.
+   */
+  void writeCheckpoint(ByteBuffer checkpoint);
+
+  /**
+   * Returns an independent copy of this elevator in the same state.
+   *
+   * @return the copy.
+   */
+  ElevatorInterface fork();
+
+  /**
+   * Return the elevator to the state it was constructed in:
+   * on the ground floor, doors closed, no stop requests and out of service.
+   * The utilisation counters are cleared. The elevator keeps its id.
+   */
+  void reset();
+
 }
@@ -0,0 +1,126 @@
+package elevator;
+
+/**
+ * This class is a snapshot of the utilisation counters of an elevator.
+ * Every step of the elevator is counted in exactly one of the tick counters, so
+ * the counters add up to the number of steps since the elevator was built or reset.
+ */
+public class ElevatorMetrics {
+  private final int elevatorId;
+  private final long ticksMovingUp;
+  private final long ticksMovingDown;
+  private final long ticksDoorOpen;
+  private final long ticksEndWait;
+  private final long ticksOutOfService;
+  private final long ticksIdle;
+  private final long floorsTravelled;
+  private final long doorCycles;
+
+  /**
+   * This constructor is used to create a new ElevatorMetrics object.
+   *
+   * @param elevatorId        The id of the elevator.
+   * @param ticksMovingUp     The steps spent moving up.
+   * @param ticksMovingDown   The steps spent moving down.
+   * @param ticksDoorOpen     The steps spent opening the door or with the door open.
+   * @param ticksEndWait      The steps spent waiting at the top or bottom.
+   * @param ticksOutOfService The steps spent out of service.
+   * @param ticksIdle         The steps spent with nothing to do.
+   * @param floorsTravelled   The number of floors travelled.
+   * @param doorCycles        The number of times the door was opened.
+   */
+  public ElevatorMetrics(int elevatorId,
+                         long ticksMovingUp,
+                         long ticksMovingDown,
+                         long ticksDoorOpen,
+                         long ticksEndWait,
+                         long ticksOutOfService,
+                         long ticksIdle,
+                         long floorsTravelled,
+                         long doorCycles) {
+    this.elevatorId = elevatorId;
+    this.ticksMovingUp = ticksMovingUp;
+    this.ticksMovingDown = ticksMovingDown;
+    this.ticksDoorOpen = ticksDoorOpen;
+    this.ticksEndWait = ticksEndWait;
+    this.ticksOutOfService = ticksOutOfService;
+    this.ticksIdle = ticksIdle;
+    this.floorsTravelled = floorsTravelled;
+    this.doorCycles = doorCycles;
+  }
+
+  public int getElevatorId() {
+    return this.elevatorId;
+  }
+
+  public long getTicksMovingUp() {
+    return this.ticksMovingUp;
+  }
+
+  public long getTicksMovingDown() {
+    return this.ticksMovingDown;
+  }
+
+  public long getTicksDoorOpen() {
+    return this.ticksDoorOpen;
+  }
+
+  public long getTicksEndWait() {
+    return this.ticksEndWait;
+  }
+
+  public long getTicksOutOfService() {
+    return this.ticksOutOfService;
+  }
+
+  public long getTicksIdle() {
+    return this.ticksIdle;
+  }
+
+  public long getFloorsTravelled() {
+    return this.floorsTravelled;
+  }
+
+  public long getDoorCycles() {
+    return this.doorCycles;
+  }
+
+  /**
+   * The total number of steps counted.
+   *
+   * @return the total number of steps.
+   */
+  public long getTotalTicks() {
+    return this.ticksMovingUp + this.ticksMovingDown + this.ticksDoorOpen
+        + this.ticksEndWait + this.ticksOutOfService + this.ticksIdle;
+  }
+
+  /**
+   * The share of the in-service steps the elevator spent moving or serving a stop.
+   * Waiting at the top or bottom and idling count as unused.
+   *
+   * @return the utilisation between 0 and 1, or 0 if the elevator has not been in service.
+   */
+  public double getUtilisation() {
+    long inService = getTotalTicks() - this.ticksOutOfService;
+    if (inService == 0) {
+      return 0;
+    }
+    return (double) (this.ticksMovingUp + this.ticksMovingDown + this.ticksDoorOpen)
+        / inService;
+  }
+
+  /**
+   * toString method for the ElevatorMetrics.
+   *
+   * @return the string representation of the ElevatorMetrics.
+   */
+  @Override
+  public String toString() {
+    return String.format("Elevator %d: up %d, down %d, door %d (%d cycles), end wait %d, "
+            + "out of service %d, idle %d, floors %d, utilisation %.0f%%",
+        this.elevatorId, this.ticksMovingUp, this.ticksMovingDown, this.ticksDoorOpen,
+        this.doorCycles, this.ticksEndWait, this.ticksOutOfService, this.ticksIdle,
+        this.floorsTravelled, getUtilisation() * 100);
+  }
+}
@@ -1,6 +1,7 @@
 package elevator;
 
 import building.enums.Direction;
+import java.util.Arrays;
 
 /**
  * This class is used to represent the status of the elevators.
@@ -19,6 +20,11 @@ public class ElevatorReport {
 
   private final boolean isTakingRequests;
 
+  /**
+   * The requests of the upper deck of a double-deck car, or null for a single deck.
+   */
+  private final boolean[] upperDeckRequests;
+
 
   /**
    * This constructor is used to create a new ElevatorReport object.
@@ -43,6 +49,36 @@ public class ElevatorReport {
                         int endWaitTimer,
                         boolean outOfService,
                         boolean isTakingRequests) {
+    this(elevatorId, currentFloor, direction, doorClosed, floorRequests, doorOpenTimer,
+        endWaitTimer, outOfService, isTakingRequests, null);
+  }
+
+  /**
+   * This constructor is used to create a report of a double-deck car. The current floor
+   * and floor requests are those of the lower deck; the upper deck is one floor above.
+   *
+   * @param elevatorId        The id of the elevator.
+   * @param currentFloor      The current floor of the lower deck.
+   * @param direction         The direction of the elevator.
+   * @param doorClosed        The status of the doors.
+   * @param floorRequests     The requests for the floors from the lower deck.
+   * @param doorOpenTimer     The timer for the doors.
+   * @param endWaitTimer      The timer for the end of the run.
+   * @param outOfService      The status of the elevator.
+   * @param isTakingRequests  Is the elevator taking requests.
+   * @param upperDeckRequests The requests for the floors from the upper deck, or null for
+   *                          a car with one deck.
+   */
+  public ElevatorReport(int elevatorId,
+                        int currentFloor,
+                        Direction direction,
+                        boolean doorClosed,
+                        boolean[] floorRequests,
+                        int doorOpenTimer,
+                        int endWaitTimer,
+                        boolean outOfService,
+                        boolean isTakingRequests,
+                        boolean[] upperDeckRequests) {
     this.elevatorId = elevatorId;
     this.currentFloor = currentFloor;
     this.doorClosed = doorClosed;
@@ -52,6 +88,7 @@ public class ElevatorReport {
     this.endWaitTimer = endWaitTimer;
     this.outOfService = outOfService;
     this.isTakingRequests = isTakingRequests;
+    this.upperDeckRequests = upperDeckRequests;
   }
 
 
@@ -139,8 +176,28 @@ public class ElevatorReport {
     return isTakingRequests;
   }
 
+  /**
+   * Is the report of a double-deck car.
+   *
+   * @return true if the car has two decks.
+   */
+  public boolean isDoubleDeck() {
+    return upperDeckRequests != null;
+  }
+
+  /**
+   * This method is used to get the requests for the floors from the upper deck.
+   *
+   * @return The requests of the upper deck, or null for a car with one deck.
+   */
+  public boolean[] getUpperDeckRequests() {
+    return upperDeckRequests;
+  }
+
   /**
    * toString method for the ElevatorReport.
+   * A double-deck car shows the floors of both decks and the requests of the lower deck
+   * followed by those of the upper deck.
    *
    * @return the string representation of the ElevatorReport.
    */
@@ -148,19 +205,22 @@ public class ElevatorReport {
   public String toString() {
     StringBuilder sb = new StringBuilder();
 
+    String floor = isDoubleDeck() ? this.currentFloor + "/" + (this.currentFloor + 1)
+        : Integer.toString(this.currentFloor);
+
     // if the elevator is out of service and on the ground floor
     if (this.outOfService && this.currentFloor == 0) {
-      sb.append(String.format("Out of Service[Floor %d]", this.currentFloor));
+      sb.append(String.format("Out of Service[Floor %s]", floor));
       return sb.toString();
     }
 
     if (this.endWaitTimer > 0) {
-      sb.append(String.format("Waiting[Floor %d, Time %d]", this.currentFloor, this.endWaitTimer));
+      sb.append(String.format("Waiting[Floor %s, Time %d]", floor, this.endWaitTimer));
       return sb.toString();
     }
 
-    sb.append(String.format("[%d|%s|",
-        this.currentFloor,
+    sb.append(String.format("[%s|%s|",
+        floor,
         this.direction));
 
     if (this.doorClosed) {
@@ -169,17 +229,25 @@ public class ElevatorReport {
       sb.append(String.format("O %d]<", this.doorOpenTimer));
     }
 
-    for (int i = 0; i < this.floorRequests.length; i++) {
-      if (this.floorRequests[i]) {
+    appendRequests(sb, this.floorRequests);
+    if (isDoubleDeck()) {
+      sb.append("<");
+      appendRequests(sb, this.upperDeckRequests);
+    }
+
+    return sb.toString();
+
+  }
+
+  private static void appendRequests(StringBuilder sb, boolean[] requests) {
+    for (int i = 0; i < requests.length; i++) {
+      if (requests[i]) {
         sb.append(String.format(" %2d", i));
       } else {
         sb.append(" --");
       }
     }
     sb.append(">");
-
-    return sb.toString();
-
   }
 
   /**
@@ -225,7 +293,7 @@ public class ElevatorReport {
         return false;
       }
     }
-    return true;
+    return Arrays.equals(this.upperDeckRequests, that.upperDeckRequests);
   }
 
   /**
@@ -245,6 +313,7 @@ public class ElevatorReport {
     for (boolean floorRequest : this.floorRequests) {
       result = 31 * result + (floorRequest ? 1 : 0);
     }
+    result = 31 * result + Arrays.hashCode(this.upperDeckRequests);
     return result;
   }
 }
@@ -0,0 +1,124 @@
+package elevator;
+
+/**
+ * How fast a car moves: its top speed and how quickly it speeds up and slows down, both in
+ * floors per step. A car moving at a speed covers that many floors in a step. Each step it
+ * speeds up by the acceleration, up to the top speed, unless it would then be unable to
+ * stop at the next floor it has to stop at, slowing down by at most the acceleration a
+ * step. It can stop from a speed no greater than the acceleration, so the step after it
+ * arrives it is stopped. A car with a top speed of 1 moves one floor every step it
+ * moves, which is the single-floor model every car used to follow.
+ */
+public final class Kinematics {
+  /**
+   * One floor per step, the default.
+   */
+  public static final Kinematics ONE_FLOOR_PER_STEP = new Kinematics(1, 1);
+
+  /**
+   * The fastest a car can go: it can cross every floor one car may serve in a step.
+   */
+  public static final int MAX_SPEED = 29;
+
+  private final int maxSpeed;
+
+  private final int acceleration;
+
+  /**
+   * The floors needed to stop from each speed, counting the step at that speed.
+   */
+  private final int[] stoppingDistance;
+
+  /**
+   * The constructor for the kinematics of a car.
+   *
+   * @param maxSpeed     the top speed in floors per step, between 1 and MAX_SPEED.
+   * @param acceleration the change of speed per step, between 1 and maxSpeed.
+   * @throws IllegalArgumentException if either is out of range.
+   */
+  public Kinematics(int maxSpeed, int acceleration) {
+    if (maxSpeed < 1 || maxSpeed > MAX_SPEED) {
+      throw new IllegalArgumentException("maxSpeed must be between 1 and " + MAX_SPEED);
+    }
+    if (acceleration < 1 || acceleration > maxSpeed) {
+      throw new IllegalArgumentException("acceleration must be between 1 and maxSpeed");
+    }
+    this.maxSpeed = maxSpeed;
+    this.acceleration = acceleration;
+    this.stoppingDistance = new int[maxSpeed + 1];
+    for (int speed = 1; speed <= maxSpeed; speed++) {
+      this.stoppingDistance[speed] = speed + this.stoppingDistance[Math.max(0,
+          speed - acceleration)];
+    }
+  }
+
+  public int getMaxSpeed() {
+    return this.maxSpeed;
+  }
+
+  public int getAcceleration() {
+    return this.acceleration;
+  }
+
+  /**
+   * Get the speed of the next step of a car: the floors it moves.
+   *
+   * @param speed    the speed of the car's last step, 0 if it was not moving.
+   * @param distance the floors to the next floor it has to stop at, at least 1.
+   * @return the speed, between 1 and distance.
+   */
+  public int nextSpeed(int speed, int distance) {
+    if (this.maxSpeed == 1) {
+      return 1;
+    }
+    int next = Math.min(speed + this.acceleration, this.maxSpeed);
+    int slowest = Math.max(1, speed - this.acceleration);
+    while (next > slowest && this.stoppingDistance[next] > distance) {
+      next--;
+    }
+    return Math.min(next, distance);
+  }
+
+  /**
+   * Get the steps a car moving at a speed needs to cover a distance and stop there.
+   * This follows nextSpeed step by step, so it is exact for a car with no stops on the way.
+   *
+   * @param distance the floors to cover.
+   * @param speed    the speed of the car's last step, 0 if it was not moving.
+   * @return the number of steps spent moving.
+   */
+  public int travelSteps(int distance, int speed) {
+    if (this.maxSpeed == 1) {
+      return distance;
+    }
+    int steps = 0;
+    while (distance > 0) {
+      speed = nextSpeed(speed, distance);
+      distance -= speed;
+      steps++;
+    }
+    return steps;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Kinematics)) {
+      return false;
+    }
+    Kinematics that = (Kinematics) o;
+    return this.maxSpeed == that.maxSpeed && this.acceleration == that.acceleration;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * this.maxSpeed + this.acceleration;
+  }
+
+  @Override
+  public String toString() {
+    return "Kinematics[" + this.maxSpeed + " floors/step, +" + this.acceleration + "]";
+  }
+}
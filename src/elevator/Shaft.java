@@ -0,0 +1,141 @@
+package elevator;
+
+import building.enums.Direction;
+
+/**
+ * A hoistway holding one car, or two cars one above the other as in a twin system.
+ * Each car runs between its own base floor and the top of its own zone, so dispatch knows
+ * which car reaches which floors from the cars themselves. The cars of a twin shaft are
+ * always kept at least the minimum separation apart: step() moves each car only within
+ * the floors that keep it that far from the other, and a car that would come closer holds
+ * where it is for the step. The car moving away from the other is stepped first, so two
+ * cars going the same way can follow each other at the minimum separation.
+ * The runs of the cars may overlap by less than the separation, which is enough to make
+ * sure two cars heading for each other never hold each other up for good: one of them
+ * always reaches the end of its run first and turns round. A car parked at an end of its
+ * run that the other car cannot reach while it is there is unparked, so it moves away.
+ * Stepping a shaft costs a few comparisons more than stepping its cars and allocates
+ * nothing.
+ */
+public class Shaft {
+  private final ElevatorInterface lowerCar;
+
+  /**
+   * The car above, or null if the shaft holds one car.
+   */
+  private final ElevatorInterface upperCar;
+
+  private final int minimumSeparation;
+
+  /**
+   * Whether the top of the lower car's run and the base of the upper car's run are closer
+   * than the minimum separation, so only one car can be at its end at a time.
+   */
+  private final boolean endsClash;
+
+  /**
+   * The constructor for a shaft with one car.
+   *
+   * @param car the car.
+   * @throws IllegalArgumentException if the car is null.
+   */
+  public Shaft(ElevatorInterface car) {
+    if (car == null) {
+      throw new IllegalArgumentException("car cannot be null");
+    }
+    this.lowerCar = car;
+    this.upperCar = null;
+    this.minimumSeparation = 0;
+    this.endsClash = false;
+  }
+
+  /**
+   * The constructor for a twin shaft.
+   *
+   * @param lowerCar          the lower car.
+   * @param upperCar          the upper car.
+   * @param minimumSeparation the fewest floors between the cars, at least 1.
+   * @throws IllegalArgumentException if the cars are null, in different buildings, not
+   *                                  the separation apart, or if their runs overlap by
+   *                                  the separation or more.
+   */
+  public Shaft(ElevatorInterface lowerCar, ElevatorInterface upperCar, int minimumSeparation) {
+    if (lowerCar == null || upperCar == null) {
+      throw new IllegalArgumentException("cars cannot be null");
+    }
+    if (minimumSeparation < 1) {
+      throw new IllegalArgumentException("minimumSeparation must be greater than or equal to 1");
+    }
+    if (lowerCar.getMaxFloor() != upperCar.getMaxFloor()) {
+      throw new IllegalArgumentException("cars must have the same number of floors");
+    }
+    int lowestUpperBase = lowerCar.getHighestZoneFloor() + minimumSeparation - 1;
+    if (upperCar.getBaseFloor() < lowestUpperBase) {
+      throw new IllegalArgumentException("the upper car's base floor must be at least "
+          + lowestUpperBase);
+    }
+    if (upperCar.getCurrentFloor() - lowerCar.getCurrentFloor() < minimumSeparation) {
+      throw new IllegalArgumentException("cars must be at least " + minimumSeparation
+          + " floors apart");
+    }
+    this.lowerCar = lowerCar;
+    this.upperCar = upperCar;
+    this.minimumSeparation = minimumSeparation;
+    this.endsClash = upperCar.getBaseFloor() - lowerCar.getHighestZoneFloor()
+        < minimumSeparation;
+  }
+
+  public ElevatorInterface getLowerCar() {
+    return this.lowerCar;
+  }
+
+  /**
+   * Get the upper car.
+   *
+   * @return the upper car, or null if the shaft holds one car.
+   */
+  public ElevatorInterface getUpperCar() {
+    return this.upperCar;
+  }
+
+  /**
+   * Get the fewest floors between the cars.
+   *
+   * @return the minimum separation, 0 if the shaft holds one car.
+   */
+  public int getMinimumSeparation() {
+    return this.minimumSeparation;
+  }
+
+  public int getNumberOfCars() {
+    return this.upperCar == null ? 1 : 2;
+  }
+
+  /**
+   * Move the cars of the shaft one step.
+   */
+  public void step() {
+    ElevatorInterface lower = this.lowerCar;
+    ElevatorInterface upper = this.upperCar;
+    if (upper == null) {
+      lower.step();
+      return;
+    }
+    if (this.endsClash) {
+      if (lower.isParked() && lower.getCurrentFloor() == lower.getHighestZoneFloor()) {
+        lower.setParked(false);
+      }
+      if (upper.isParked() && upper.getCurrentFloor() == upper.getBaseFloor()) {
+        upper.setParked(false);
+      }
+    }
+    int top = lower.getMaxFloor() - 1;
+    if (upper.getDirection() == Direction.UP) {
+      upper.step(lower.getCurrentFloor() + this.minimumSeparation, top);
+      lower.step(0, upper.getCurrentFloor() - this.minimumSeparation);
+    } else {
+      lower.step(0, upper.getCurrentFloor() - this.minimumSeparation);
+      upper.step(lower.getCurrentFloor() + this.minimumSeparation, top);
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package elevator;
+
+/**
+ * How long a car keeps its door open at a stop and how long it waits at the top or bottom
+ * of its run for requests before setting off empty, both in steps.
+ * An adaptive profile fits both to the load: the door stays open a step longer for every
+ * rider after the first that gets on or off at the stop, up to twice the door time, and
+ * a car waiting at an end while requests are queued at the other end of its run cuts its
+ * wait to a single step. A car given requests always sets off straight away.
+ */
+public final class TimingProfile {
+  /**
+   * The door open for 3 steps and a wait of 5 steps at each end, the default.
+   */
+  public static final TimingProfile STANDARD = new TimingProfile(3, 5, false);
+
+  /**
+   * The longest door or end wait time.
+   */
+  public static final int MAX_TIME = 60;
+
+  private final int doorOpenTime;
+
+  private final int endWaitTime;
+
+  private final boolean adaptive;
+
+  /**
+   * The constructor for the timing profile of a car.
+   *
+   * @param doorOpenTime the steps the door stays open at a stop, between 1 and MAX_TIME.
+   * @param endWaitTime  the steps the car waits at an end, between 1 and MAX_TIME.
+   * @param adaptive     true to fit the door and end wait times to the load.
+   * @throws IllegalArgumentException if a time is out of range.
+   */
+  public TimingProfile(int doorOpenTime, int endWaitTime, boolean adaptive) {
+    if (doorOpenTime < 1 || doorOpenTime > MAX_TIME) {
+      throw new IllegalArgumentException("doorOpenTime must be between 1 and " + MAX_TIME);
+    }
+    if (endWaitTime < 1 || endWaitTime > MAX_TIME) {
+      throw new IllegalArgumentException("endWaitTime must be between 1 and " + MAX_TIME);
+    }
+    this.doorOpenTime = doorOpenTime;
+    this.endWaitTime = endWaitTime;
+    this.adaptive = adaptive;
+  }
+
+  public int getDoorOpenTime() {
+    return this.doorOpenTime;
+  }
+
+  public int getEndWaitTime() {
+    return this.endWaitTime;
+  }
+
+  public boolean isAdaptive() {
+    return this.adaptive;
+  }
+
+  /**
+   * Get the steps the door stays open at a stop.
+   *
+   * @param riders the number of riders getting on or off at the stop.
+   * @return the door open time.
+   */
+  public int getDoorOpenTime(int riders) {
+    if (!this.adaptive || riders <= 1) {
+      return this.doorOpenTime;
+    }
+    return Math.min(this.doorOpenTime + riders - 1, 2 * this.doorOpenTime);
+  }
+
+  /**
+   * Get the steps a car waits at an end.
+   *
+   * @param queueDepth the number of requests queued at the other end of its run.
+   * @return the end wait time.
+   */
+  public int getEndWaitTime(int queueDepth) {
+    return this.adaptive && queueDepth > 0 ? 1 : this.endWaitTime;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof TimingProfile)) {
+      return false;
+    }
+    TimingProfile that = (TimingProfile) o;
+    return this.doorOpenTime == that.doorOpenTime && this.endWaitTime == that.endWaitTime
+        && this.adaptive == that.adaptive;
+  }
+
+  @Override
+  public int hashCode() {
+    return (31 * this.doorOpenTime + this.endWaitTime) * 2 + (this.adaptive ? 1 : 0);
+  }
+
+  @Override
+  public String toString() {
+    return "TimingProfile[door " + this.doorOpenTime + ", end wait " + this.endWaitTime
+        + (this.adaptive ? ", adaptive]" : "]");
+  }
+}
@@ -2,6 +2,7 @@ package main;
 
 import building.Building;
 import controller.BuildingController;
+import monitoring.BuildingMonitor;
 import view.BuildingDisplay;
 
 /**
@@ -24,6 +25,7 @@ public class MainConsole {
       int numFloors = 11; // Example: 10 floors
       int numElevators = 8; // Example: 3 elevators
       int elevatorCapacity = 8; // Example: 8 people per elevator
+      int monitorPublishEverySteps = 10; // MXBean attributes are refreshed every 10 steps
 
       Building building;
       try {
@@ -33,6 +35,9 @@ public class MainConsole {
         return;
       }
 
+      // Expose the building and its elevators as MXBeans for JConsole
+      new BuildingMonitor(building, "main", monitorPublishEverySteps).register();
+
       // Initialize the GUI view for the building's elevator system
       BuildingDisplay display = new BuildingDisplay();
 
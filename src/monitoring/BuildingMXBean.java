@@ -0,0 +1,47 @@
+package monitoring;
+
+/**
+ * The management interface of a building, as seen in JConsole or any other JMX client.
+ * Every attribute comes from the last snapshot published by the BuildingMonitor.
+ */
+public interface BuildingMXBean {
+  String getSystemStatus();
+
+  int getNumberOfFloors();
+
+  int getNumberOfElevators();
+
+  int getElevatorCapacity();
+
+  int getUpRequestQueueDepth();
+
+  int getDownRequestQueueDepth();
+
+  long getStepCount();
+
+  /**
+   * The number of steps per second, smoothed over recent snapshots.
+   *
+   * @return the tick rate.
+   */
+  double getTickRate();
+
+  long getDispatchedRequests();
+
+  double getDispatchLatencyMean();
+
+  long getDispatchLatencyP50();
+
+  long getDispatchLatencyP90();
+
+  long getDispatchLatencyP99();
+
+  long getDispatchLatencyMax();
+
+  /**
+   * The time the snapshot was published, in milliseconds since the epoch.
+   *
+   * @return the snapshot time.
+   */
+  long getSnapshotTime();
+}
@@ -0,0 +1,209 @@
+package monitoring;
+
+import building.Building;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * This class exposes a building and each of its elevators as MXBeans on the platform
+ * MBean server, so a running simulation can be watched with JConsole or jcmd.
+ * The monitor runs as a step listener and publishes an immutable snapshot every few
+ * steps; attribute reads only look at the last snapshot and never block the stepping thread.
+ */
+public class BuildingMonitor implements BuildingMXBean, AutoCloseable {
+  /**
+   * The weight of the newest measurement in the smoothed tick rate.
+   */
+  private static final double TICK_RATE_SMOOTHING = 0.2;
+
+  private final Building building;
+
+  private final String name;
+
+  private final int publishEverySteps;
+
+  private final Runnable stepListener = this::onStep;
+
+  private final List<ObjectName> registeredNames = new ArrayList<>();
+
+  private volatile BuildingSnapshot snapshot;
+
+  private long lastPublishNanos;
+
+  private long lastPublishStepCount;
+
+  private double tickRate;
+
+  /**
+   * The constructor for the building monitor.
+   *
+   * @param building          the building to monitor.
+   * @param name              the name used in the object names of the MXBeans.
+   * @param publishEverySteps how many steps pass between snapshots.
+   * @throws IllegalArgumentException if publishEverySteps is less than 1.
+   */
+  public BuildingMonitor(Building building, String name, int publishEverySteps) {
+    if (building == null) {
+      throw new IllegalArgumentException("building cannot be null");
+    }
+    if (publishEverySteps < 1) {
+      throw new IllegalArgumentException("publishEverySteps must be greater than or equal to 1");
+    }
+    this.building = building;
+    this.name = ObjectName.quote(name);
+    this.publishEverySteps = publishEverySteps;
+    this.lastPublishNanos = System.nanoTime();
+    this.lastPublishStepCount = building.getStepCount();
+    publish();
+  }
+
+  /**
+   * Start publishing snapshots and register the building and elevator MXBeans.
+   *
+   * @throws IllegalStateException if the MXBeans cannot be registered.
+   */
+  public void register() {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      ObjectName buildingName = new ObjectName("building:type=Building,name=" + this.name);
+      server.registerMBean(this, buildingName);
+      this.registeredNames.add(buildingName);
+      for (int i = 0; i < this.snapshot.elevatorReports.length; i++) {
+        ObjectName elevatorName = new ObjectName("building:type=Elevator,building="
+            + this.name + ",index=" + i);
+        server.registerMBean(new ElevatorMonitor(this, i), elevatorName);
+        this.registeredNames.add(elevatorName);
+      }
+    } catch (JMException e) {
+      close();
+      throw new IllegalStateException("Failed to register MXBeans: " + e.getMessage(), e);
+    }
+    this.building.addStepListener(this.stepListener);
+  }
+
+  /**
+   * Stop publishing snapshots and unregister every MXBean registered by this monitor.
+   */
+  @Override
+  public void close() {
+    this.building.removeStepListener(this.stepListener);
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    for (ObjectName objectName : this.registeredNames) {
+      try {
+        server.unregisterMBean(objectName);
+      } catch (JMException e) {
+        // already gone, nothing to clean up
+      }
+    }
+    this.registeredNames.clear();
+  }
+
+  /**
+   * Take a snapshot of the building and publish it to the MXBeans.
+   * This must run on the thread that steps the building.
+   */
+  public void publish() {
+    long now = System.nanoTime();
+    long stepCount = this.building.getStepCount();
+    long elapsed = now - this.lastPublishNanos;
+    if (elapsed > 0 && stepCount > this.lastPublishStepCount) {
+      double rate = (stepCount - this.lastPublishStepCount) * 1e9 / elapsed;
+      this.tickRate = this.tickRate == 0 ? rate
+          : this.tickRate + TICK_RATE_SMOOTHING * (rate - this.tickRate);
+    }
+    this.lastPublishNanos = now;
+    this.lastPublishStepCount = stepCount;
+    this.snapshot = new BuildingSnapshot(System.currentTimeMillis(),
+        this.building.getStatusElevatorSystem(), stepCount, this.tickRate,
+        this.building.getDispatchLatency(), this.building.getElevatorMetrics());
+  }
+
+  BuildingSnapshot snapshot() {
+    return this.snapshot;
+  }
+
+  private void onStep() {
+    if (this.building.getStepCount() % this.publishEverySteps == 0) {
+      publish();
+    }
+  }
+
+  @Override
+  public String getSystemStatus() {
+    return this.snapshot.systemStatus;
+  }
+
+  @Override
+  public int getNumberOfFloors() {
+    return this.snapshot.numberOfFloors;
+  }
+
+  @Override
+  public int getNumberOfElevators() {
+    return this.snapshot.numberOfElevators;
+  }
+
+  @Override
+  public int getElevatorCapacity() {
+    return this.snapshot.elevatorCapacity;
+  }
+
+  @Override
+  public int getUpRequestQueueDepth() {
+    return this.snapshot.upRequestQueueDepth;
+  }
+
+  @Override
+  public int getDownRequestQueueDepth() {
+    return this.snapshot.downRequestQueueDepth;
+  }
+
+  @Override
+  public long getStepCount() {
+    return this.snapshot.stepCount;
+  }
+
+  @Override
+  public double getTickRate() {
+    return this.snapshot.tickRate;
+  }
+
+  @Override
+  public long getDispatchedRequests() {
+    return this.snapshot.dispatchedRequests;
+  }
+
+  @Override
+  public double getDispatchLatencyMean() {
+    return this.snapshot.dispatchLatencyMean;
+  }
+
+  @Override
+  public long getDispatchLatencyP50() {
+    return this.snapshot.dispatchLatencyP50;
+  }
+
+  @Override
+  public long getDispatchLatencyP90() {
+    return this.snapshot.dispatchLatencyP90;
+  }
+
+  @Override
+  public long getDispatchLatencyP99() {
+    return this.snapshot.dispatchLatencyP99;
+  }
+
+  @Override
+  public long getDispatchLatencyMax() {
+    return this.snapshot.dispatchLatencyMax;
+  }
+
+  @Override
+  public long getSnapshotTime() {
+    return this.snapshot.time;
+  }
+}
@@ -0,0 +1,51 @@
+package monitoring;
+
+import building.BuildingReport;
+import building.LatencyHistogram;
+import elevator.ElevatorMetrics;
+import elevator.ElevatorReport;
+
+/**
+ * An immutable copy of everything the MXBeans report, taken on the stepping thread.
+ * JMX clients only ever read a published snapshot, so they never touch the building.
+ */
+class BuildingSnapshot {
+  final long time;
+  final String systemStatus;
+  final int numberOfFloors;
+  final int numberOfElevators;
+  final int elevatorCapacity;
+  final int upRequestQueueDepth;
+  final int downRequestQueueDepth;
+  final long stepCount;
+  final double tickRate;
+  final long dispatchedRequests;
+  final double dispatchLatencyMean;
+  final long dispatchLatencyP50;
+  final long dispatchLatencyP90;
+  final long dispatchLatencyP99;
+  final long dispatchLatencyMax;
+  final ElevatorReport[] elevatorReports;
+  final ElevatorMetrics[] elevatorMetrics;
+
+  BuildingSnapshot(long time, BuildingReport report, long stepCount, double tickRate,
+                   LatencyHistogram dispatchLatency, ElevatorMetrics[] elevatorMetrics) {
+    this.time = time;
+    this.systemStatus = report.getSystemStatus().toString();
+    this.numberOfFloors = report.getNumFloors();
+    this.numberOfElevators = report.getNumElevators();
+    this.elevatorCapacity = report.getElevatorCapacity();
+    this.upRequestQueueDepth = report.getUpRequestCount();
+    this.downRequestQueueDepth = report.getDownRequestCount();
+    this.stepCount = stepCount;
+    this.tickRate = tickRate;
+    this.dispatchedRequests = dispatchLatency.getCount();
+    this.dispatchLatencyMean = dispatchLatency.getMean();
+    this.dispatchLatencyP50 = dispatchLatency.getPercentile(50);
+    this.dispatchLatencyP90 = dispatchLatency.getPercentile(90);
+    this.dispatchLatencyP99 = dispatchLatency.getPercentile(99);
+    this.dispatchLatencyMax = dispatchLatency.getMax();
+    this.elevatorReports = report.getElevatorReports();
+    this.elevatorMetrics = elevatorMetrics;
+  }
+}
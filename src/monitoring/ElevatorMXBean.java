@@ -0,0 +1,25 @@
+package monitoring;
+
+/**
+ * The management interface of one elevator, as seen in JConsole or any other JMX client.
+ * Every attribute comes from the last snapshot published by the BuildingMonitor.
+ */
+public interface ElevatorMXBean {
+  int getElevatorId();
+
+  int getCurrentFloor();
+
+  String getDirection();
+
+  boolean isDoorClosed();
+
+  boolean isOutOfService();
+
+  boolean isTakingRequests();
+
+  double getUtilisation();
+
+  long getFloorsTravelled();
+
+  long getDoorCycles();
+}
@@ -0,0 +1,61 @@
+package monitoring;
+
+/**
+ * The ElevatorMXBean of one elevator. It reads the elevator at its position in the
+ * snapshot most recently published by the BuildingMonitor.
+ */
+class ElevatorMonitor implements ElevatorMXBean {
+  private final BuildingMonitor buildingMonitor;
+
+  private final int index;
+
+  ElevatorMonitor(BuildingMonitor buildingMonitor, int index) {
+    this.buildingMonitor = buildingMonitor;
+    this.index = index;
+  }
+
+  @Override
+  public int getElevatorId() {
+    return this.buildingMonitor.snapshot().elevatorReports[this.index].getElevatorId();
+  }
+
+  @Override
+  public int getCurrentFloor() {
+    return this.buildingMonitor.snapshot().elevatorReports[this.index].getCurrentFloor();
+  }
+
+  @Override
+  public String getDirection() {
+    return this.buildingMonitor.snapshot().elevatorReports[this.index].getDirection().name();
+  }
+
+  @Override
+  public boolean isDoorClosed() {
+    return this.buildingMonitor.snapshot().elevatorReports[this.index].isDoorClosed();
+  }
+
+  @Override
+  public boolean isOutOfService() {
+    return this.buildingMonitor.snapshot().elevatorReports[this.index].isOutOfService();
+  }
+
+  @Override
+  public boolean isTakingRequests() {
+    return this.buildingMonitor.snapshot().elevatorReports[this.index].isTakingRequests();
+  }
+
+  @Override
+  public double getUtilisation() {
+    return this.buildingMonitor.snapshot().elevatorMetrics[this.index].getUtilisation();
+  }
+
+  @Override
+  public long getFloorsTravelled() {
+    return this.buildingMonitor.snapshot().elevatorMetrics[this.index].getFloorsTravelled();
+  }
+
+  @Override
+  public long getDoorCycles() {
+    return this.buildingMonitor.snapshot().elevatorMetrics[this.index].getDoorCycles();
+  }
+}
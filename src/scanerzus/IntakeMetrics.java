@@ -0,0 +1,118 @@
+package scanerzus;
+
+import building.LatencyHistogram;
+
+/**
+ * An immutable snapshot of the intake path of a ScannerRuntime: how many requests the
+ * scanners made, what became of them, and how long they waited in the handoff before
+ * the stepping thread gave them to the building.
+ */
+public class IntakeMetrics {
+  private final long produced;
+
+  private final long shed;
+
+  private final long admitted;
+
+  private final long rejected;
+
+  private final long discarded;
+
+  private final long elapsedNanos;
+
+  private final LatencyHistogram handoffLatencyMicros;
+
+  IntakeMetrics(long produced, long shed, long admitted, long rejected, long discarded,
+                long elapsedNanos, LatencyHistogram handoffLatencyMicros) {
+    this.produced = produced;
+    this.shed = shed;
+    this.admitted = admitted;
+    this.rejected = rejected;
+    this.discarded = discarded;
+    this.elapsedNanos = elapsedNanos;
+    this.handoffLatencyMicros = handoffLatencyMicros;
+  }
+
+  /**
+   * The requests the scanners handed off.
+   *
+   * @return the number of requests produced.
+   */
+  public long getProduced() {
+    return this.produced;
+  }
+
+  /**
+   * The requests the scanners dropped because the handoff was full.
+   *
+   * @return the number of requests shed.
+   */
+  public long getShed() {
+    return this.shed;
+  }
+
+  /**
+   * The requests the building queued.
+   *
+   * @return the number of requests admitted.
+   */
+  public long getAdmitted() {
+    return this.admitted;
+  }
+
+  /**
+   * The requests the building turned away.
+   *
+   * @return the number of requests rejected.
+   */
+  public long getRejected() {
+    return this.rejected;
+  }
+
+  /**
+   * The requests still in the handoff when the runtime closed. Once it has closed, the
+   * requests produced are the requests admitted, rejected and discarded.
+   *
+   * @return the number of requests discarded.
+   */
+  public long getDiscarded() {
+    return this.discarded;
+  }
+
+  /**
+   * The time since the runtime was started.
+   *
+   * @return the elapsed time in nanoseconds.
+   */
+  public long getElapsedNanos() {
+    return this.elapsedNanos;
+  }
+
+  /**
+   * The requests given to the building per second since the runtime was started.
+   *
+   * @return the intake throughput.
+   */
+  public double getThroughputPerSecond() {
+    return this.elapsedNanos == 0 ? 0 : (this.admitted + this.rejected) * 1e9 / this.elapsedNanos;
+  }
+
+  /**
+   * The time from a scanner handing a request off to the building receiving it,
+   * in microseconds.
+   *
+   * @return a copy of the handoff latency histogram.
+   */
+  public LatencyHistogram getHandoffLatencyMicros() {
+    return new LatencyHistogram(this.handoffLatencyMicros);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("produced=%d shed=%d admitted=%d rejected=%d discarded=%d "
+            + "throughput=%.0f/s handoff p50=%dus p99=%dus max=%dus", this.produced, this.shed,
+        this.admitted, this.rejected, this.discarded, getThroughputPerSecond(),
+        this.handoffLatencyMicros.getPercentile(50), this.handoffLatencyMicros.getPercentile(99),
+        this.handoffLatencyMicros.getMax());
+  }
+}
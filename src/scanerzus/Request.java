@@ -8,6 +8,7 @@ package scanerzus;
 public class Request implements RequestInterface {
   private final int startFloor;
   private final int endFloor;
+  private final int riders;
 
   /**
    * The constructor for the request.
@@ -23,8 +24,20 @@ public class Request implements RequestInterface {
    * @param endFloor   the end floor.
    */
   public Request(int startFloor, int endFloor) {
+    this(startFloor, endFloor, 1);
+  }
+
+  /**
+   * The constructor for a request made for a group of riders going between the same floors.
+   *
+   * @param startFloor the start floor.
+   * @param endFloor   the end floor.
+   * @param riders     the number of riders.
+   */
+  public Request(int startFloor, int endFloor, int riders) {
     this.startFloor = startFloor;
     this.endFloor = endFloor;
+    this.riders = riders;
   }
 
   /**
@@ -45,6 +58,15 @@ public class Request implements RequestInterface {
     return endFloor;
   }
 
+  /**
+   * Gets the number of riders of the request.
+   *
+   * @return the number of riders, 1 unless the request was made for a group.
+   */
+  public int getRiders() {
+    return riders;
+  }
+
   /**
    * Returns a string representation of the request.
    * This is a string of the form:
@@ -0,0 +1,38 @@
+package scanerzus;
+
+import building.enums.Direction;
+
+/**
+ * A hall-call scanner: the button panel at one floor for one direction.
+ * Scanners are created and run by a ScannerRuntime; the scanner itself is the
+ * source of its requests, so a building's rate limiter sees each scanner separately.
+ */
+public class Scanner {
+  private final int floor;
+
+  private final Direction direction;
+
+  /**
+   * Create a scanner.
+   *
+   * @param floor     the floor the scanner is on.
+   * @param direction the direction its requests go, UP or DOWN.
+   */
+  Scanner(int floor, Direction direction) {
+    this.floor = floor;
+    this.direction = direction;
+  }
+
+  public int getFloor() {
+    return this.floor;
+  }
+
+  public Direction getDirection() {
+    return this.direction;
+  }
+
+  @Override
+  public String toString() {
+    return "scanner-" + this.floor + "-" + this.direction.name();
+  }
+}
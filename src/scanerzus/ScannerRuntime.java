@@ -0,0 +1,279 @@
+package scanerzus;
+
+import building.Building;
+import building.LatencyHistogram;
+import building.enums.Direction;
+import building.enums.OverflowPolicy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import util.VirtualThreads;
+
+/**
+ * This class runs a scanner at every floor for every direction, each on its own
+ * virtual thread, feeding requests into a building.
+ * Scanners never touch the building. They hand their requests off through a lock-free
+ * queue, and the runtime drains the queue into the building at the end of every step,
+ * on the stepping thread. The handoff is bounded: a scanner that finds it full drops
+ * its request and counts it as shed, so scanners never block. A drain gives the building
+ * at most what was waiting when it began, so a flood of scanners cannot hold up a step.
+ * Every request handed off is admitted, rejected, or discarded when the runtime closes.
+ */
+public class ScannerRuntime implements AutoCloseable {
+  /**
+   * How long a scanner backs off after finding the handoff full.
+   */
+  private static final long SHED_BACKOFF_NANOS = 100_000;
+
+  private final Building building;
+
+  private final double requestsPerSecondPerScanner;
+
+  private final int maxPendingRequests;
+
+  private final List<Scanner> scanners;
+
+  private final List<SplittableRandom> randoms;
+
+  private final List<Thread> threads = new ArrayList<>();
+
+  private final ConcurrentLinkedQueue<Handoff> handoff = new ConcurrentLinkedQueue<>();
+
+  private final AtomicInteger pending = new AtomicInteger();
+
+  private final LongAdder produced = new LongAdder();
+
+  private final LongAdder shed = new LongAdder();
+
+  private final Runnable stepListener = this::drain;
+
+  /**
+   * The time from handoff to building in microseconds, guarded by itself.
+   */
+  private final LatencyHistogram handoffLatencyMicros = new LatencyHistogram();
+
+  private volatile boolean running;
+
+  private long admitted;
+
+  private long rejected;
+
+  private long discarded;
+
+  private long startNanos;
+
+  /**
+   * The constructor for the scanner runtime.
+   * Each scanner makes requests at random times with the given mean rate, to a destination
+   * picked uniformly from the floors in its direction.
+   *
+   * @param building                    the building to feed.
+   * @param requestsPerSecondPerScanner the mean rate of each scanner, or 0 for as fast as
+   *                                    it can, to load the intake path.
+   * @param maxPendingRequests          the most requests waiting in the handoff.
+   * @param seed                        the seed of the scanners' random number generators.
+   * @throws IllegalArgumentException if any of the arguments are out of range, or the
+   *                                  building's admission policy is BLOCK: the drain runs
+   *                                  on the stepping thread, which is what makes room.
+   */
+  public ScannerRuntime(Building building, double requestsPerSecondPerScanner,
+                        int maxPendingRequests, long seed) {
+    if (building == null) {
+      throw new IllegalArgumentException("building cannot be null");
+    }
+    if (!(requestsPerSecondPerScanner >= 0) || Double.isInfinite(requestsPerSecondPerScanner)) {
+      throw new IllegalArgumentException("requestsPerSecondPerScanner must be a non-negative "
+          + "number");
+    }
+    if (maxPendingRequests < 1) {
+      throw new IllegalArgumentException("maxPendingRequests must be greater than or equal to 1");
+    }
+    if (building.getAdmissionPolicy().getOverflowPolicy() == OverflowPolicy.BLOCK) {
+      throw new IllegalArgumentException("a BLOCK admission policy would stall every step; "
+          + "use REJECT or DROP_OLDEST");
+    }
+    this.building = building;
+    this.requestsPerSecondPerScanner = requestsPerSecondPerScanner;
+    this.maxPendingRequests = maxPendingRequests;
+    List<Scanner> scanners = new ArrayList<>();
+    List<SplittableRandom> randoms = new ArrayList<>();
+    SplittableRandom random = new SplittableRandom(seed);
+    int numberOfFloors = building.getNumberOfFloors();
+    for (int floor = 0; floor < numberOfFloors; floor++) {
+      if (floor < numberOfFloors - 1) {
+        scanners.add(new Scanner(floor, Direction.UP));
+        randoms.add(random.split());
+      }
+      if (floor > 0) {
+        scanners.add(new Scanner(floor, Direction.DOWN));
+        randoms.add(random.split());
+      }
+    }
+    this.scanners = Collections.unmodifiableList(scanners);
+    this.randoms = randoms;
+  }
+
+  /**
+   * Get the scanners, one per floor and direction.
+   *
+   * @return the scanners.
+   */
+  public List<Scanner> getScanners() {
+    return this.scanners;
+  }
+
+  /**
+   * Start every scanner and start draining the handoff at the end of every step.
+   *
+   * @throws IllegalStateException if the runtime has already been started.
+   */
+  public void start() {
+    if (!this.threads.isEmpty()) {
+      throw new IllegalStateException("Scanner runtime already started.");
+    }
+    this.running = true;
+    this.startNanos = System.nanoTime();
+    this.building.addStepListener(this.stepListener);
+    for (int i = 0; i < this.scanners.size(); i++) {
+      Scanner scanner = this.scanners.get(i);
+      SplittableRandom random = this.randoms.get(i);
+      this.threads.add(VirtualThreads.start(scanner.toString(), () -> scan(scanner, random)));
+    }
+  }
+
+  /**
+   * Stop every scanner and stop draining, and wait for every scanner thread to finish.
+   * Requests still in the handoff are discarded and counted as such.
+   */
+  @Override
+  public void close() {
+    this.running = false;
+    this.building.removeStepListener(this.stepListener);
+    for (Thread thread : this.threads) {
+      LockSupport.unpark(thread);
+    }
+    for (Thread thread : this.threads) {
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+    synchronized (this.handoffLatencyMicros) {
+      while (this.handoff.poll() != null) {
+        this.discarded++;
+      }
+      this.pending.set(0);
+    }
+  }
+
+  /**
+   * Give the requests waiting in the handoff to the building: no more than were waiting
+   * when the drain began, and never more than maxPendingRequests. Requests handed off
+   * while it runs wait for the next drain.
+   * The runtime calls this at the end of every step; it must only run on the stepping thread.
+   */
+  public void drain() {
+    long now = System.nanoTime();
+    long drainedAdmitted = 0;
+    long drainedRejected = 0;
+    synchronized (this.handoffLatencyMicros) {
+      int budget = Math.min(this.pending.get(), this.maxPendingRequests);
+      Handoff next;
+      while (budget-- > 0 && (next = this.handoff.poll()) != null) {
+        this.pending.decrementAndGet();
+        this.handoffLatencyMicros.record(Math.max(0, now - next.nanos) / 1000);
+        boolean accepted;
+        try {
+          accepted = this.building.offerRequest(next.scanner, next.request.getStartFloor(),
+              next.request.getEndFloor());
+        } catch (IllegalStateException | IllegalArgumentException e) {
+          // stopped, or no elevator serves both floors
+          accepted = false;
+        }
+        if (accepted) {
+          drainedAdmitted++;
+        } else {
+          drainedRejected++;
+        }
+      }
+      this.admitted += drainedAdmitted;
+      this.rejected += drainedRejected;
+    }
+  }
+
+  /**
+   * Take a snapshot of the intake metrics. It can be called from any thread.
+   *
+   * @return the metrics.
+   */
+  public IntakeMetrics getMetrics() {
+    synchronized (this.handoffLatencyMicros) {
+      long elapsed = this.startNanos == 0 ? 0 : System.nanoTime() - this.startNanos;
+      return new IntakeMetrics(this.produced.sum(), this.shed.sum(), this.admitted,
+          this.rejected, this.discarded, elapsed,
+          new LatencyHistogram(this.handoffLatencyMicros));
+    }
+  }
+
+  /**
+   * The loop of one scanner thread.
+   */
+  private void scan(Scanner scanner, SplittableRandom random) {
+    int numberOfFloors = this.building.getNumberOfFloors();
+    int floor = scanner.getFloor();
+    boolean up = scanner.getDirection() == Direction.UP;
+    double meanIntervalNanos = this.requestsPerSecondPerScanner > 0
+        ? 1e9 / this.requestsPerSecondPerScanner : 0;
+    while (this.running) {
+      if (meanIntervalNanos > 0) {
+        // exponential gaps give each scanner Poisson arrivals
+        long pause = (long) (-Math.log(1.0 - random.nextDouble()) * meanIntervalNanos);
+        long deadline = System.nanoTime() + pause;
+        while (this.running && pause > 0) {
+          LockSupport.parkNanos(pause);
+          pause = deadline - System.nanoTime();
+        }
+        if (!this.running) {
+          return;
+        }
+      }
+      int destination = up ? floor + 1 + random.nextInt(numberOfFloors - floor - 1)
+          : random.nextInt(floor);
+      if (this.pending.incrementAndGet() > this.maxPendingRequests) {
+        this.pending.decrementAndGet();
+        this.shed.increment();
+        LockSupport.parkNanos(SHED_BACKOFF_NANOS);
+        continue;
+      }
+      this.handoff.offer(new Handoff(scanner, new Request(floor, destination), System.nanoTime()));
+      this.produced.increment();
+      if (meanIntervalNanos == 0) {
+        Thread.yield();
+      }
+    }
+  }
+
+  /**
+   * A request on its way from a scanner to the building.
+   */
+  private static final class Handoff {
+    private final Scanner scanner;
+
+    private final Request request;
+
+    private final long nanos;
+
+    private Handoff(Scanner scanner, Request request, long nanos) {
+      this.scanner = scanner;
+      this.request = request;
+      this.nanos = nanos;
+    }
+  }
+}
@@ -0,0 +1,305 @@
+package server;
+
+import building.Building;
+import building.BuildingReport;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.ReentrantLock;
+import util.VirtualThreads;
+
+/**
+ * This class is an embedded HTTP/JSON control API for a building, bound to localhost,
+ * so test tools can drive and watch a simulation without the Swing view.
+ * The endpoints are:
+ * <ul>
+ *   <li>POST /start - start the elevator system</li>
+ *   <li>POST /stop - stop the elevator system</li>
+ *   <li>POST /step?n=N - step the elevator system N times, once if n is not given</li>
+ *   <li>POST /requests - add requests, one "start end" pair per line</li>
+ *   <li>GET /status - the status of the building and every elevator</li>
+ *   <li>GET /events - a server-sent event stream of elevator state changes</li>
+ * </ul>
+ * Every endpoint answers with a JSON object. Handlers run on virtual threads where the
+ * JVM has them, and take turns on the building, so the server must be the only thing
+ * driving it. Requests are the exception: they go through the building's own intake,
+ * so a BLOCK admission policy can wait for room while /step drains the queues.
+ */
+public class BuildingServer implements AutoCloseable {
+  /**
+   * The most steps a single /step call may take.
+   */
+  private static final int MAX_STEPS_PER_CALL = 10_000_000;
+
+  /**
+   * The most requests a single /requests call may add.
+   */
+  private static final int MAX_REQUESTS_PER_CALL = 1_000_000;
+
+  private final Building building;
+
+  private final HttpServer httpServer;
+
+  private final ExecutorService executor;
+
+  private final ElevatorEventStream events;
+
+  /**
+   * Serialises every call on the building. A lock rather than synchronized, so a virtual
+   * thread waiting for it does not hold on to its carrier thread.
+   */
+  private final ReentrantLock buildingLock = new ReentrantLock();
+
+  /**
+   * The constructor for the building server. The server does not accept connections
+   * until it is started.
+   *
+   * @param building the building to serve.
+   * @param port     the port on the loopback address, or 0 to pick a free one.
+   * @throws IOException if the port cannot be bound.
+   */
+  public BuildingServer(Building building, int port) throws IOException {
+    if (building == null) {
+      throw new IllegalArgumentException("building cannot be null");
+    }
+    this.building = building;
+    this.httpServer = HttpServer.create(
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    this.executor = VirtualThreads.newThreadPerTaskExecutor("building-http-");
+    this.httpServer.setExecutor(this.executor);
+    this.httpServer.createContext("/start", post(this::start));
+    this.httpServer.createContext("/stop", post(this::stop));
+    this.httpServer.createContext("/step", post(this::step));
+    this.httpServer.createContext("/requests", post(this::addRequests));
+    this.httpServer.createContext("/status", get(this::status));
+    this.events = new ElevatorEventStream(building, this.buildingLock);
+    this.httpServer.createContext("/events", this.events);
+  }
+
+  /**
+   * Start accepting connections.
+   */
+  public void start() {
+    this.httpServer.start();
+  }
+
+  /**
+   * Get the port the server is bound to.
+   *
+   * @return the port.
+   */
+  public int getPort() {
+    return this.httpServer.getAddress().getPort();
+  }
+
+  /**
+   * Get the number of clients connected to the event stream.
+   *
+   * @return the number of clients.
+   */
+  public int getNumberOfEventClients() {
+    return this.events.getNumberOfClients();
+  }
+
+  /**
+   * Stop the server and the handler threads.
+   */
+  @Override
+  public void close() {
+    this.events.close();
+    this.httpServer.stop(0);
+    this.executor.shutdownNow();
+  }
+
+  private String start(HttpExchange exchange) {
+    this.buildingLock.lock();
+    try {
+      this.building.startElevatorSystem();
+      return statusJson();
+    } finally {
+      this.buildingLock.unlock();
+    }
+  }
+
+  private String stop(HttpExchange exchange) {
+    this.buildingLock.lock();
+    try {
+      this.building.stopElevatorSystem();
+      return statusJson();
+    } finally {
+      this.buildingLock.unlock();
+    }
+  }
+
+  private String step(HttpExchange exchange) {
+    int steps = parseSteps(exchange.getRequestURI());
+    this.buildingLock.lock();
+    try {
+      for (int i = 0; i < steps; i++) {
+        this.building.stepElevatorSystem();
+      }
+      return "{\"stepCount\":" + this.building.getStepCount() + "}";
+    } finally {
+      this.buildingLock.unlock();
+    }
+  }
+
+  /**
+   * Adds every request in the body. The body is parsed and checked before anything is
+   * added, so a malformed body adds nothing. The caller's address is the source of every
+   * request, so the building's rate limit applies per client. Requests turned away by the
+   * admission policy are counted as rejected. If the building stops taking requests part
+   * way through, the requests already added stay and the rest are counted as rejected;
+   * if it takes none at all, the call fails as a building in the wrong state. The
+   * requests are offered without the building lock: offerRequest is safe alongside
+   * stepping, and under a BLOCK policy it waits for a step to make room, which could
+   * never happen while this held the lock.
+   */
+  private String addRequests(HttpExchange exchange) throws IOException {
+    int[] floors;
+    try (InputStream body = exchange.getRequestBody()) {
+      floors = RequestBodyParser.parse(body, MAX_REQUESTS_PER_CALL);
+    }
+    int numberOfFloors = this.building.getNumberOfFloors();
+    for (int i = 0; i < floors.length; i += 2) {
+      if (floors[i] >= numberOfFloors || floors[i + 1] >= numberOfFloors) {
+        throw new IllegalArgumentException("request " + (i / 2 + 1)
+            + ": floors must be between 0 and " + (numberOfFloors - 1));
+      }
+      if (floors[i] == floors[i + 1]) {
+        throw new IllegalArgumentException("request " + (i / 2 + 1)
+            + ": start floor and end floor cannot be the same");
+      }
+      if (!this.building.isServed(floors[i], floors[i + 1])) {
+        throw new IllegalArgumentException("request " + (i / 2 + 1)
+            + ": no elevator serves both floors");
+      }
+    }
+    InetAddress source = exchange.getRemoteAddress().getAddress();
+    int accepted = 0;
+    for (int i = 0; i < floors.length; i += 2) {
+      try {
+        if (this.building.offerRequest(source, floors[i], floors[i + 1])) {
+          accepted++;
+        }
+      } catch (IllegalStateException e) {
+        if (i == 0) {
+          throw e;
+        }
+        // the building stopped after some requests were added
+        break;
+      }
+    }
+    return "{\"accepted\":" + accepted + ",\"rejected\":" + (floors.length / 2 - accepted) + "}";
+  }
+
+  private String status(HttpExchange exchange) {
+    this.buildingLock.lock();
+    try {
+      return statusJson();
+    } finally {
+      this.buildingLock.unlock();
+    }
+  }
+
+  private String statusJson() {
+    BuildingReport report = this.building.getStatusElevatorSystem();
+    return JsonEncoder.appendBuilding(new StringBuilder(256), report,
+        this.building.getStepCount()).toString();
+  }
+
+  private static int parseSteps(URI uri) {
+    String query = uri.getRawQuery();
+    if (query == null) {
+      return 1;
+    }
+    for (String parameter : query.split("&")) {
+      if (parameter.startsWith("n=")) {
+        int steps;
+        try {
+          steps = Integer.parseInt(parameter.substring(2));
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException("n must be a number");
+        }
+        if (steps < 1 || steps > MAX_STEPS_PER_CALL) {
+          throw new IllegalArgumentException("n must be between 1 and " + MAX_STEPS_PER_CALL);
+        }
+        return steps;
+      }
+    }
+    return 1;
+  }
+
+  private static HttpHandler post(Endpoint endpoint) {
+    return exchange -> handle(exchange, "POST", endpoint);
+  }
+
+  private static HttpHandler get(Endpoint endpoint) {
+    return exchange -> handle(exchange, "GET", endpoint);
+  }
+
+  /**
+   * Run an endpoint and send its answer. Bad input is a 400 and a building in the wrong
+   * state is a 409, both with the message as the error.
+   */
+  private static void handle(HttpExchange exchange, String method, Endpoint endpoint)
+      throws IOException {
+    try {
+      if (!method.equals(exchange.getRequestMethod())) {
+        exchange.getResponseHeaders().set("Allow", method);
+        send(exchange, 405, error("use " + method));
+        return;
+      }
+      String json;
+      try {
+        json = endpoint.handle(exchange);
+      } catch (IllegalArgumentException e) {
+        send(exchange, 400, error(e.getMessage()));
+        return;
+      } catch (IllegalStateException e) {
+        send(exchange, 409, error(e.getMessage()));
+        return;
+      }
+      send(exchange, 200, json);
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private static String error(String message) {
+    StringBuilder sb = new StringBuilder("{\"error\":\"");
+    for (int i = 0; i < message.length(); i++) {
+      char c = message.charAt(i);
+      if (c == '"' || c == '\\') {
+        sb.append('\\').append(c);
+      } else if (c >= ' ') {
+        sb.append(c);
+      }
+    }
+    return sb.append("\"}").toString();
+  }
+
+  private static void send(HttpExchange exchange, int code, String json) throws IOException {
+    byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(code, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  /**
+   * One endpoint: answers a call with a JSON object.
+   */
+  private interface Endpoint {
+    String handle(HttpExchange exchange) throws IOException;
+  }
+}
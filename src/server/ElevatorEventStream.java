@@ -0,0 +1,268 @@
+package server;
+
+import building.Building;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import elevator.ElevatorReport;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class streams elevator state changes to HTTP clients as server-sent events.
+ * It runs as a step listener. Every step it compares each elevator's report with the
+ * last one it sent, gives every changed car a new version and encodes its event once;
+ * the events of one step are joined into a single frame and the same bytes are handed
+ * to every client. Unchanged cars are not encoded again: their last event is kept and
+ * reused for the full snapshot a client receives when it connects or falls behind.
+ * Each client has its own bounded queue and writer thread, so the stepping thread never
+ * waits on a socket. The HTTP handler's writer is one reader of a client queue; connect
+ * hands out a queue to any other reader, such as an in-process consumer or a test.
+ */
+public class ElevatorEventStream implements HttpHandler, AutoCloseable {
+  /**
+   * The most frames a client may have waiting before it is sent a fresh snapshot instead.
+   */
+  private static final int CLIENT_QUEUE_SIZE = 256;
+
+  /**
+   * How long a client may go without an event before it is sent a comment, which is
+   * how a writer notices that its client has gone.
+   */
+  private static final long HEARTBEAT_MILLIS = 15_000;
+
+  private static final byte[] HEARTBEAT = ": heartbeat\n\n".getBytes(StandardCharsets.US_ASCII);
+
+  /**
+   * Queued to a client to make its writer finish: the only frame with no bytes.
+   */
+  private static final byte[] END_OF_STREAM = new byte[0];
+
+  private final Building building;
+
+  /**
+   * The lock every caller of the building holds; the stream holds it to take the
+   * snapshot for a new client when it has not been tracking changes.
+   */
+  private final ReentrantLock buildingLock;
+
+  private final Runnable stepListener = this::onStep;
+
+  private final CopyOnWriteArrayList<BlockingQueue<byte[]>> clients =
+      new CopyOnWriteArrayList<>();
+
+  /**
+   * The last report sent for each car, and its version. Only used with the building lock.
+   */
+  private ElevatorReport[] lastReports = new ElevatorReport[0];
+
+  private long[] versions = new long[0];
+
+  /**
+   * The last encoded event of each car. Only used with the building lock.
+   */
+  private byte[][] lastEvents = new byte[0][];
+
+  /**
+   * True while nobody is connected and the last reports are not kept up to date.
+   */
+  private boolean stale = true;
+
+  /**
+   * Create the stream and start listening to the building.
+   *
+   * @param building     the building.
+   * @param buildingLock the lock held by every caller of the building.
+   */
+  public ElevatorEventStream(Building building, ReentrantLock buildingLock) {
+    this.building = building;
+    this.buildingLock = buildingLock;
+    building.addStepListener(this.stepListener);
+  }
+
+  /**
+   * Serve one client until it disconnects. This runs on the client's handler thread,
+   * which becomes the client's writer.
+   */
+  @Override
+  public void handle(HttpExchange exchange) throws IOException {
+    try {
+      if (!"GET".equals(exchange.getRequestMethod())) {
+        exchange.getResponseHeaders().set("Allow", "GET");
+        exchange.sendResponseHeaders(405, -1);
+        return;
+      }
+      exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+      exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+      exchange.sendResponseHeaders(200, 0);
+      BlockingQueue<byte[]> client = connect(CLIENT_QUEUE_SIZE);
+      try {
+        write(client, exchange.getResponseBody());
+      } finally {
+        disconnect(client);
+      }
+    } finally {
+      exchange.close();
+    }
+  }
+
+  /**
+   * Connect a client. Its queue starts with a snapshot of every car, then receives the
+   * frame of every step that changed a car. If the client lets the queue fill up, what
+   * it has waiting is replaced by a fresh snapshot. An empty frame ends the stream.
+   *
+   * @param queueSize the most frames the client may have waiting.
+   * @return the queue the client reads its frames from.
+   * @throws IllegalArgumentException if queueSize is less than 1.
+   */
+  public BlockingQueue<byte[]> connect(int queueSize) {
+    if (queueSize < 1) {
+      throw new IllegalArgumentException("queueSize must be greater than or equal to 1");
+    }
+    BlockingQueue<byte[]> client = new ArrayBlockingQueue<>(queueSize);
+    this.buildingLock.lock();
+    try {
+      if (this.stale) {
+        update();
+        this.stale = false;
+      }
+      client.add(snapshot());
+      this.clients.add(client);
+    } finally {
+      this.buildingLock.unlock();
+    }
+    return client;
+  }
+
+  /**
+   * Disconnect a client; its queue receives no more frames.
+   *
+   * @param client the queue returned by connect.
+   */
+  public void disconnect(BlockingQueue<byte[]> client) {
+    this.clients.remove(client);
+  }
+
+  /**
+   * The number of connected clients.
+   *
+   * @return the number of clients.
+   */
+  public int getNumberOfClients() {
+    return this.clients.size();
+  }
+
+  /**
+   * Stop listening to the building and end every client's stream.
+   */
+  @Override
+  public void close() {
+    this.building.removeStepListener(this.stepListener);
+    for (BlockingQueue<byte[]> client : this.clients) {
+      client.clear();
+      client.offer(END_OF_STREAM);
+    }
+  }
+
+  private void onStep() {
+    if (this.clients.isEmpty()) {
+      this.stale = true;
+      return;
+    }
+    byte[] frame = update();
+    if (frame == null) {
+      return;
+    }
+    byte[] snapshot = null;
+    for (BlockingQueue<byte[]> client : this.clients) {
+      if (!client.offer(frame)) {
+        // the client fell behind: replace what it has waiting with the current state
+        if (snapshot == null) {
+          snapshot = snapshot();
+        }
+        client.clear();
+        client.offer(snapshot);
+      }
+    }
+  }
+
+  /**
+   * Compare every car with its last report and encode the changed ones.
+   *
+   * @return the frame of this step's events, or null if no car changed.
+   */
+  private byte[] update() {
+    ElevatorReport[] reports = this.building.getElevatorReports();
+    if (reports.length != this.lastReports.length) {
+      this.lastReports = new ElevatorReport[reports.length];
+      this.versions = new long[reports.length];
+      this.lastEvents = new byte[reports.length][];
+    }
+    long step = this.building.getStepCount();
+    ByteArrayOutputStream frame = null;
+    for (int i = 0; i < reports.length; i++) {
+      if (reports[i].equals(this.lastReports[i])) {
+        continue;
+      }
+      this.lastReports[i] = reports[i];
+      this.versions[i]++;
+      StringBuilder sb = new StringBuilder(256);
+      sb.append("id: ").append(step).append('-').append(i)
+          .append("\nevent: elevator\ndata: {\"version\":").append(this.versions[i])
+          .append(",\"step\":").append(step).append(",\"car\":");
+      JsonEncoder.appendElevator(sb, reports[i]).append("}\n\n");
+      this.lastEvents[i] = sb.toString().getBytes(StandardCharsets.UTF_8);
+      if (frame == null) {
+        frame = new ByteArrayOutputStream(256 * reports.length);
+      }
+      frame.write(this.lastEvents[i], 0, this.lastEvents[i].length);
+    }
+    return frame == null ? null : frame.toByteArray();
+  }
+
+  /**
+   * The last event of every car, joined into one frame.
+   */
+  private byte[] snapshot() {
+    ByteArrayOutputStream frame = new ByteArrayOutputStream(256 * this.lastEvents.length);
+    for (byte[] event : this.lastEvents) {
+      frame.write(event, 0, event.length);
+    }
+    return frame.toByteArray();
+  }
+
+  /**
+   * Write a client's frames until the stream ends or the client goes away. Every frame
+   * waiting is written before the socket is flushed, so a slow client gets fewer, larger
+   * writes.
+   */
+  private static void write(BlockingQueue<byte[]> client, OutputStream out) {
+    try {
+      while (true) {
+        byte[] frame = client.poll(HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+        if (frame == null) {
+          frame = HEARTBEAT;
+        }
+        while (frame != null) {
+          if (frame == END_OF_STREAM) {
+            out.flush();
+            return;
+          }
+          out.write(frame);
+          frame = client.poll();
+        }
+        out.flush();
+      }
+    } catch (IOException e) {
+      // the client has gone
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
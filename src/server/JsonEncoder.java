@@ -0,0 +1,83 @@
+package server;
+
+import building.BuildingReport;
+import elevator.ElevatorReport;
+
+/**
+ * This class writes building and elevator reports as JSON.
+ * The reports only hold numbers, booleans and enum names, so no escaping is needed.
+ */
+final class JsonEncoder {
+  private JsonEncoder() {
+  }
+
+  /**
+   * Append a building report, without its request lists, as a JSON object.
+   *
+   * @param sb        the builder to append to.
+   * @param report    the report.
+   * @param stepCount the step count of the building when the report was made.
+   * @return the builder.
+   */
+  static StringBuilder appendBuilding(StringBuilder sb, BuildingReport report, long stepCount) {
+    sb.append("{\"status\":\"").append(report.getSystemStatus().name()).append('"')
+        .append(",\"stepCount\":").append(stepCount)
+        .append(",\"floors\":").append(report.getNumFloors())
+        .append(",\"elevators\":").append(report.getNumElevators())
+        .append(",\"capacity\":").append(report.getElevatorCapacity())
+        .append(",\"upRequests\":").append(report.getUpRequestCount())
+        .append(",\"downRequests\":").append(report.getDownRequestCount())
+        .append(",\"rejectedRequests\":").append(report.getRejectedRequests())
+        .append(",\"droppedRequests\":").append(report.getDroppedRequests())
+        .append(",\"rateLimitedRequests\":").append(report.getRateLimitedRequests())
+        .append(",\"cars\":[");
+    ElevatorReport[] elevatorReports = report.getElevatorReports();
+    for (int i = 0; i < elevatorReports.length; i++) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      appendElevator(sb, elevatorReports[i]);
+    }
+    return sb.append("]}");
+  }
+
+  /**
+   * Append an elevator report as a JSON object.
+   *
+   * @param sb     the builder to append to.
+   * @param report the report.
+   * @return the builder.
+   */
+  static StringBuilder appendElevator(StringBuilder sb, ElevatorReport report) {
+    sb.append("{\"id\":").append(report.getElevatorId())
+        .append(",\"floor\":").append(report.getCurrentFloor())
+        .append(",\"direction\":\"").append(report.getDirection().name()).append('"')
+        .append(",\"doorClosed\":").append(report.isDoorClosed())
+        .append(",\"doorOpenTimer\":").append(report.getDoorOpenTimer())
+        .append(",\"endWaitTimer\":").append(report.getEndWaitTimer())
+        .append(",\"outOfService\":").append(report.isOutOfService())
+        .append(",\"takingRequests\":").append(report.isTakingRequests())
+        .append(",\"stops\":");
+    appendStops(sb, report.getFloorRequests());
+    if (report.isDoubleDeck()) {
+      sb.append(",\"upperDeckStops\":");
+      appendStops(sb, report.getUpperDeckRequests());
+    }
+    return sb.append('}');
+  }
+
+  private static void appendStops(StringBuilder sb, boolean[] floorRequests) {
+    sb.append('[');
+    boolean first = true;
+    for (int floor = 0; floor < floorRequests.length; floor++) {
+      if (floorRequests[floor]) {
+        if (!first) {
+          sb.append(',');
+        }
+        sb.append(floor);
+        first = false;
+      }
+    }
+    sb.append(']');
+  }
+}
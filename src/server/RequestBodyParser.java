@@ -0,0 +1,102 @@
+package server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * This class parses the body of a bulk request submission straight from the bytes.
+ * The body holds one request per line, as a start floor and an end floor separated by
+ * spaces, tabs or a comma, for example "0 12\n3,0\n". Blank lines and carriage returns
+ * are ignored. No Strings are made, so a body with 100k requests costs one int array.
+ * The array never grows past the request limit the caller sets, however long the body.
+ */
+public final class RequestBodyParser {
+  private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * The largest floor number accepted; anything longer is rejected before it overflows.
+   */
+  private static final int MAX_FLOOR = 1_000_000;
+
+  private RequestBodyParser() {
+  }
+
+  /**
+   * Parse a request body.
+   *
+   * @param body        the body to read to the end.
+   * @param maxRequests the most requests the body may hold.
+   * @return the floors of each request in order: start, end, start, end and so on.
+   * @throws IOException              if the body cannot be read.
+   * @throws IllegalArgumentException if a line is not two floors, with the line number, or
+   *                                  the body holds more than maxRequests requests.
+   */
+  public static int[] parse(InputStream body, int maxRequests) throws IOException {
+    if (maxRequests < 1 || maxRequests > Integer.MAX_VALUE / 2) {
+      throw new IllegalArgumentException("maxRequests must be between 1 and "
+          + Integer.MAX_VALUE / 2);
+    }
+    int maxFloors = 2 * maxRequests;
+    byte[] buffer = new byte[READ_BUFFER_SIZE];
+    int[] floors = new int[Math.min(1024, maxFloors)];
+    int count = 0;
+    int line = 1;
+    int fieldsOnLine = 0;
+    int value = -1;
+    int read;
+    while ((read = body.read(buffer)) >= 0) {
+      for (int i = 0; i < read; i++) {
+        byte b = buffer[i];
+        if (b >= '0' && b <= '9') {
+          value = value < 0 ? b - '0' : value * 10 + (b - '0');
+          if (value > MAX_FLOOR) {
+            throw new IllegalArgumentException("line " + line + ": floor is too large");
+          }
+          continue;
+        }
+        if (value >= 0) {
+          if (fieldsOnLine == 2) {
+            throw new IllegalArgumentException("line " + line + ": expected two floors");
+          }
+          if (count == maxFloors) {
+            throw new IllegalArgumentException("more than " + maxRequests + " requests");
+          }
+          if (count == floors.length) {
+            floors = Arrays.copyOf(floors, (int) Math.min(count * 2L, maxFloors));
+          }
+          floors[count++] = value;
+          fieldsOnLine++;
+          value = -1;
+        }
+        if (b == '\n') {
+          if (fieldsOnLine == 1) {
+            throw new IllegalArgumentException("line " + line + ": expected two floors");
+          }
+          fieldsOnLine = 0;
+          line++;
+        } else if (b != ' ' && b != '\t' && b != ',' && b != '\r') {
+          throw new IllegalArgumentException("line " + line + ": unexpected character "
+              + (char) (b & 0xFF));
+        }
+      }
+    }
+    if (value >= 0) {
+      if (fieldsOnLine == 2) {
+        throw new IllegalArgumentException("line " + line + ": expected two floors");
+      }
+      if (count == maxFloors) {
+        throw new IllegalArgumentException("more than " + maxRequests + " requests");
+      }
+      if (count == floors.length) {
+        floors = Arrays.copyOf(floors, count + 1);
+      }
+      floors[count++] = value;
+      fieldsOnLine++;
+    }
+    if (fieldsOnLine == 1) {
+      throw new IllegalArgumentException("line " + line + ": expected two floors");
+    }
+    return Arrays.copyOf(floors, count);
+  }
+}
@@ -0,0 +1,83 @@
+package simulation;
+
+import building.LatencyHistogram;
+
+/**
+ * The combined results of every run of one sweep configuration.
+ * Runs are merged in as they finish; the methods are synchronized so workers can
+ * merge concurrently while another thread reads the aggregate.
+ */
+public class SweepAggregate {
+  private final LatencyHistogram dispatchLatency = new LatencyHistogram();
+
+  private long runs;
+
+  private long ticks;
+
+  private long requestsGenerated;
+
+  /**
+   * Merge the results of one run into the aggregate.
+   *
+   * @param runTicks             the number of ticks the run lasted.
+   * @param runRequestsGenerated the number of requests generated in the run.
+   * @param runDispatchLatency   the dispatch latency histogram of the run.
+   */
+  public synchronized void merge(long runTicks, long runRequestsGenerated,
+                                 LatencyHistogram runDispatchLatency) {
+    this.runs++;
+    this.ticks += runTicks;
+    this.requestsGenerated += runRequestsGenerated;
+    this.dispatchLatency.merge(runDispatchLatency);
+  }
+
+  public synchronized long getRuns() {
+    return this.runs;
+  }
+
+  public synchronized long getRequestsGenerated() {
+    return this.requestsGenerated;
+  }
+
+  public synchronized long getRequestsDispatched() {
+    return this.dispatchLatency.getCount();
+  }
+
+  /**
+   * The number of requests given to elevators per tick, over all runs.
+   *
+   * @return the throughput in requests per tick.
+   */
+  public synchronized double getThroughput() {
+    return this.ticks == 0 ? 0 : (double) this.dispatchLatency.getCount() / this.ticks;
+  }
+
+  /**
+   * The dispatch latency at the given percentile, over all runs.
+   *
+   * @param percentile the percentile, between 0 and 100.
+   * @return the latency in ticks.
+   */
+  public synchronized long getLatencyPercentile(double percentile) {
+    return this.dispatchLatency.getPercentile(percentile);
+  }
+
+  /**
+   * The mean dispatch latency over all runs.
+   *
+   * @return the mean latency in ticks.
+   */
+  public synchronized double getMeanLatency() {
+    return this.dispatchLatency.getMean();
+  }
+
+  @Override
+  public synchronized String toString() {
+    return String.format("runs=%d generated=%d dispatched=%d throughput=%.3f/tick "
+            + "latency mean=%.1f p50=%d p90=%d p99=%d max=%d",
+        this.runs, this.requestsGenerated, this.dispatchLatency.getCount(), getThroughput(),
+        this.dispatchLatency.getMean(), this.dispatchLatency.getPercentile(50),
+        this.dispatchLatency.getPercentile(90), this.dispatchLatency.getPercentile(99),
+        this.dispatchLatency.getMax());
+  }
+}
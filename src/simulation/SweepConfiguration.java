@@ -0,0 +1,130 @@
+package simulation;
+
+import building.enums.DispatchPolicy;
+import java.util.Objects;
+import traffic.TrafficProfile;
+
+/**
+ * One point of a parameter sweep: the shape of the building, how it dispatches and the
+ * traffic it receives.
+ * Configurations are used as map keys, so two equal configurations share one aggregate.
+ */
+public class SweepConfiguration {
+  private final int numberOfFloors;
+
+  private final int numberOfElevators;
+
+  private final int elevatorCapacity;
+
+  private final DispatchPolicy dispatchPolicy;
+
+  private final TrafficProfile profile;
+
+  private final double arrivalsPerTick;
+
+  private final long ticks;
+
+  /**
+   * The constructor for a sweep configuration of a building with the FIFO dispatch policy.
+   *
+   * @param numberOfFloors    the number of floors in the building.
+   * @param numberOfElevators the number of elevators in the building.
+   * @param elevatorCapacity  the capacity of each elevator.
+   * @param profile           the traffic profile.
+   * @param arrivalsPerTick   the mean number of arrivals per tick.
+   * @param ticks             the number of ticks each run lasts.
+   * @throws IllegalArgumentException if ticks is less than 1.
+   */
+  public SweepConfiguration(int numberOfFloors, int numberOfElevators, int elevatorCapacity,
+                            TrafficProfile profile, double arrivalsPerTick, long ticks) {
+    this(numberOfFloors, numberOfElevators, elevatorCapacity, DispatchPolicy.FIFO, profile,
+        arrivalsPerTick, ticks);
+  }
+
+  /**
+   * The constructor for a sweep configuration.
+   *
+   * @param numberOfFloors    the number of floors in the building.
+   * @param numberOfElevators the number of elevators in the building.
+   * @param elevatorCapacity  the capacity of each elevator.
+   * @param dispatchPolicy    how the building gives waiting requests to elevators.
+   * @param profile           the traffic profile.
+   * @param arrivalsPerTick   the mean number of arrivals per tick.
+   * @param ticks             the number of ticks each run lasts.
+   * @throws IllegalArgumentException if ticks is less than 1.
+   */
+  public SweepConfiguration(int numberOfFloors, int numberOfElevators, int elevatorCapacity,
+                            DispatchPolicy dispatchPolicy, TrafficProfile profile,
+                            double arrivalsPerTick, long ticks) {
+    if (ticks < 1) {
+      throw new IllegalArgumentException("ticks must be greater than or equal to 1");
+    }
+    this.numberOfFloors = numberOfFloors;
+    this.numberOfElevators = numberOfElevators;
+    this.elevatorCapacity = elevatorCapacity;
+    this.dispatchPolicy = Objects.requireNonNull(dispatchPolicy,
+        "dispatchPolicy must not be null");
+    this.profile = Objects.requireNonNull(profile, "profile must not be null");
+    this.arrivalsPerTick = arrivalsPerTick;
+    this.ticks = ticks;
+  }
+
+  public int getNumberOfFloors() {
+    return this.numberOfFloors;
+  }
+
+  public int getNumberOfElevators() {
+    return this.numberOfElevators;
+  }
+
+  public int getElevatorCapacity() {
+    return this.elevatorCapacity;
+  }
+
+  public DispatchPolicy getDispatchPolicy() {
+    return this.dispatchPolicy;
+  }
+
+  public TrafficProfile getProfile() {
+    return this.profile;
+  }
+
+  public double getArrivalsPerTick() {
+    return this.arrivalsPerTick;
+  }
+
+  public long getTicks() {
+    return this.ticks;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof SweepConfiguration)) {
+      return false;
+    }
+    SweepConfiguration that = (SweepConfiguration) o;
+    return this.numberOfFloors == that.numberOfFloors
+        && this.numberOfElevators == that.numberOfElevators
+        && this.elevatorCapacity == that.elevatorCapacity
+        && this.dispatchPolicy == that.dispatchPolicy
+        && this.profile == that.profile
+        && Double.compare(this.arrivalsPerTick, that.arrivalsPerTick) == 0
+        && this.ticks == that.ticks;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(this.numberOfFloors, this.numberOfElevators, this.elevatorCapacity,
+        this.dispatchPolicy, this.profile, this.arrivalsPerTick, this.ticks);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d floors, %d elevators x %d, %s, %s @ %.2f/tick, %d ticks",
+        this.numberOfFloors, this.numberOfElevators, this.elevatorCapacity,
+        this.dispatchPolicy, this.profile, this.arrivalsPerTick, this.ticks);
+  }
+}
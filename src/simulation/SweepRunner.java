@@ -0,0 +1,118 @@
+package simulation;
+
+import building.Building;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import traffic.TrafficGenerator;
+
+/**
+ * This class runs many independent building simulations for a set of configurations
+ * and seeds, and aggregates the results per configuration.
+ * Runs are spread over a work-stealing pool. Each worker thread keeps one Building per
+ * configuration and resets it between runs instead of allocating a new one. The OPTIMAL
+ * dispatch policy runs without a time budget, so every run is exact and reproducible.
+ */
+public class SweepRunner implements AutoCloseable {
+  private final ForkJoinPool pool;
+
+  private final ThreadLocal<Map<SweepConfiguration, Building>> buildings =
+      ThreadLocal.withInitial(HashMap::new);
+
+  /**
+   * Create a sweep runner that uses every available processor.
+   */
+  public SweepRunner() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Create a sweep runner with the given number of worker threads.
+   *
+   * @param parallelism the number of worker threads.
+   * @throws IllegalArgumentException if parallelism is less than 1.
+   */
+  public SweepRunner(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be greater than or equal to 1");
+    }
+    this.pool = new ForkJoinPool(parallelism,
+        ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+  }
+
+  /**
+   * Run every configuration once per seed and wait for all the runs to finish.
+   * The seeds of the runs are drawn from the base seed, so a sweep is reproducible.
+   *
+   * @param configurations        the configurations to run.
+   * @param seedsPerConfiguration the number of runs of each configuration.
+   * @param baseSeed              the seed the run seeds are drawn from.
+   * @return the aggregate of each configuration, in the order they were given.
+   * @throws IllegalArgumentException if seedsPerConfiguration is less than 1 or
+   *                                  a configuration is not a valid building.
+   */
+  public Map<SweepConfiguration, SweepAggregate> run(List<SweepConfiguration> configurations,
+                                                     int seedsPerConfiguration,
+                                                     long baseSeed) {
+    if (seedsPerConfiguration < 1) {
+      throw new IllegalArgumentException("seedsPerConfiguration must be greater than "
+          + "or equal to 1");
+    }
+    Map<SweepConfiguration, SweepAggregate> results = new LinkedHashMap<>();
+    for (SweepConfiguration configuration : configurations) {
+      // fail fast on configurations the building does not accept
+      new Building(configuration.getNumberOfFloors(), configuration.getNumberOfElevators(),
+          configuration.getElevatorCapacity());
+      results.putIfAbsent(configuration, new SweepAggregate());
+    }
+
+    SplittableRandom seeds = new SplittableRandom(baseSeed);
+    List<ForkJoinTask<?>> tasks = new ArrayList<>();
+    for (SweepConfiguration configuration : configurations) {
+      SweepAggregate aggregate = results.get(configuration);
+      for (int i = 0; i < seedsPerConfiguration; i++) {
+        long seed = seeds.nextLong();
+        tasks.add(this.pool.submit(() -> runOnce(configuration, seed, aggregate)));
+      }
+    }
+    for (ForkJoinTask<?> task : tasks) {
+      task.join();
+    }
+    return Collections.unmodifiableMap(results);
+  }
+
+  /**
+   * Shut down the worker threads.
+   */
+  @Override
+  public void close() {
+    this.pool.shutdown();
+  }
+
+  private void runOnce(SweepConfiguration configuration, long seed, SweepAggregate aggregate) {
+    Building building = this.buildings.get().computeIfAbsent(configuration, c -> {
+      Building created = new Building(c.getNumberOfFloors(), c.getNumberOfElevators(),
+          c.getElevatorCapacity());
+      // a wall clock budget would make OPTIMAL runs depend on the load of the machine
+      created.setDispatchPolicy(c.getDispatchPolicy(), Long.MAX_VALUE);
+      return created;
+    });
+    building.reset();
+    building.startElevatorSystem();
+
+    TrafficGenerator generator = new TrafficGenerator(configuration.getNumberOfFloors(),
+        configuration.getProfile(), configuration.getArrivalsPerTick(), seed);
+    long generated = 0;
+    for (long tick = 0; tick < configuration.getTicks(); tick++) {
+      generated += generator.generateTick(building);
+      building.stepElevatorSystem();
+    }
+    aggregate.merge(configuration.getTicks(), generated, building.getDispatchLatency());
+  }
+}
@@ -0,0 +1,585 @@
+package test.building;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import building.AdmissionPolicy;
+import building.Building;
+import building.BuildingReport;
+import building.HallCallIndex;
+import building.ReportPublisher;
+import building.Zone;
+import building.enums.CarType;
+import building.enums.Direction;
+import building.enums.DispatchPolicy;
+import building.enums.OverflowPolicy;
+import building.enums.ParkingPolicy;
+import elevator.ElevatorReport;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+import org.junit.Before;
+import org.junit.Test;
+import scanerzus.Request;
+
+/**
+ * A JUnit test class for the Building class.
+ */
+public class BuildingTest {
+  Building building;
+
+  /**
+   * Set up a running building with a few requests and some steps taken.
+   */
+  @Before
+  public void setUp() {
+    building = new Building(10, 3, 5);
+    building.startElevatorSystem();
+    building.addRequestToElevatorSystem(new Request(0, 4));
+    building.addRequestToElevatorSystem(new Request(2, 7));
+    building.addRequestToElevatorSystem(new Request(8, 1));
+    for (int i = 0; i < 7; i++) {
+      building.stepElevatorSystem();
+    }
+    building.addRequestToElevatorSystem(new Request(1, 9));
+    building.addRequestToElevatorSystem(new Request(9, 0));
+  }
+
+  private Building roundTrip(Building source) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    source.checkpoint(Channels.newChannel(out));
+    return new Building(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())));
+  }
+
+  @Test
+  public void checkpointRestoresTheSameState() throws IOException {
+    Building restored = roundTrip(building);
+    assertEquals(building.getStatusElevatorSystem().toString(),
+        restored.getStatusElevatorSystem().toString());
+    for (int i = 0; i < 50; i++) {
+      building.stepElevatorSystem();
+      restored.stepElevatorSystem();
+      assertEquals(building.getStatusElevatorSystem().toString(),
+          restored.getStatusElevatorSystem().toString());
+    }
+  }
+
+  @Test
+  public void checkpointKeepsThePoliciesAndTheArrivalHistory() throws IOException {
+    building.setDispatchPolicy(DispatchPolicy.OPTIMAL, 2_000_000L);
+    building.setParkingPolicy(ParkingPolicy.DEMAND, 20);
+    for (int i = 0; i < 60; i++) {
+      building.addRequestToElevatorSystem(new Request(i % 10, (i * 3 + 5) % 10));
+      building.stepElevatorSystem();
+    }
+    Building restored = roundTrip(building);
+    assertEquals(DispatchPolicy.OPTIMAL, restored.getDispatchPolicy());
+    assertEquals(ParkingPolicy.DEMAND, restored.getParkingPolicy());
+    long step = building.getStepCount();
+    assertEquals(building.getArrivalRates().getRate(Direction.UP, step),
+        restored.getArrivalRates().getRate(Direction.UP, step), 0);
+    assertEquals(building.getArrivalRates().getTripRate(2, 5, step),
+        restored.getArrivalRates().getTripRate(2, 5, step), 0);
+
+    // a second checkpoint of the restored building is the same, budget and history too
+    ByteArrayOutputStream first = new ByteArrayOutputStream();
+    building.checkpoint(Channels.newChannel(first));
+    ByteArrayOutputStream second = new ByteArrayOutputStream();
+    restored.checkpoint(Channels.newChannel(second));
+    assertArrayEquals(first.toByteArray(), second.toByteArray());
+    for (int i = 0; i < 50; i++) {
+      building.stepElevatorSystem();
+      restored.stepElevatorSystem();
+      assertEquals(building.getStatusElevatorSystem().toString(),
+          restored.getStatusElevatorSystem().toString());
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void restoreRejectsGarbage() throws IOException {
+    new Building(Channels.newChannel(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5, 6})));
+  }
+
+  @Test(expected = IOException.class)
+  public void restoreRejectsAnOversizedLength() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    building.checkpoint(Channels.newChannel(out));
+    byte[] checkpoint = out.toByteArray();
+    // the payload length follows the magic number and the version
+    ByteBuffer.wrap(checkpoint, 6, 4).putInt(Integer.MAX_VALUE);
+    new Building(Channels.newChannel(new ByteArrayInputStream(checkpoint)));
+  }
+
+  @Test
+  public void forkIsIndependent() {
+    Building fork = building.fork();
+    BuildingReport before = building.getStatusElevatorSystem();
+    fork.addRequestToElevatorSystem(new Request(3, 6));
+    for (int i = 0; i < 20; i++) {
+      fork.stepElevatorSystem();
+    }
+    assertEquals(before.toString(), building.getStatusElevatorSystem().toString());
+    assertNotEquals(before.toString(), fork.getStatusElevatorSystem().toString());
+  }
+
+  @Test
+  public void reportListsQueuedRequestsInOrder() {
+    BuildingReport report = building.getStatusElevatorSystem();
+    assertEquals(report.getUpRequestCount(), report.getUpRequests().size());
+    assertEquals(report.getDownRequestCount(), report.getDownRequests().size());
+    assertEquals("[1->9]", report.getUpRequests().toString());
+    assertEquals("[8->1, 9->0]", report.getDownRequests().toString());
+  }
+
+  @Test
+  public void hallCallIndexFollowsTheQueues() {
+    HallCallIndex hallCalls = building.getHallCalls();
+    assertEquals(1, hallCalls.getWaitingCount(1, Direction.UP));
+    assertEquals(1, hallCalls.getWaitingCount(8, Direction.DOWN));
+    assertEquals(1, hallCalls.getWaitingCount(9, Direction.DOWN));
+    assertEquals(0, hallCalls.getWaitingCount(9, Direction.UP));
+    assertEquals(8, hallCalls.nextFloorAbove(1, Direction.DOWN));
+    assertEquals(9, hallCalls.nextFloorAbove(8, Direction.DOWN));
+    assertEquals(-1, hallCalls.nextFloorAbove(9, Direction.DOWN));
+    assertEquals(1, hallCalls.nextFloorBelow(8, Direction.UP));
+    assertEquals(-1, hallCalls.nextFloorBelow(1, Direction.UP));
+
+    // run until every request has been given to an elevator
+    for (int i = 0; i < 100; i++) {
+      building.stepElevatorSystem();
+    }
+    assertEquals(0, building.getUpRequestCount() + building.getDownRequestCount());
+    // the index is a snapshot, so take a new one
+    hallCalls = building.getHallCalls();
+    assertEquals(-1, hallCalls.nextFloorAbove(-1, Direction.UP));
+    assertEquals(-1, hallCalls.nextFloorAbove(-1, Direction.DOWN));
+  }
+
+  @Test
+  public void identicalRequestsAreCoalescedWithinCapacity() {
+    Building lobby = new Building(10, 1, 5);
+    lobby.startElevatorSystem();
+    for (int i = 0; i < 12; i++) {
+      lobby.addRequestToElevatorSystem(0, 6);
+    }
+    lobby.addRequestToElevatorSystem(0, 3);
+    assertEquals(13, lobby.getUpRequestCount());
+    assertEquals(13, lobby.getHallCalls().getWaitingCount(0, Direction.UP));
+    BuildingReport report = lobby.getStatusElevatorSystem();
+    assertEquals(13, report.getUpRequests().size());
+    assertEquals("0->6", report.getUpRequests().get(11).toString());
+    assertEquals("0->3", report.getUpRequests().get(12).toString());
+
+    // the first full request of five riders leaves with the car
+    lobby.stepElevatorSystem();
+    assertEquals(8, lobby.getUpRequestCount());
+    assertEquals(8, lobby.getHallCalls().getWaitingCount(0, Direction.UP));
+    assertEquals(5, lobby.getDispatchLatency().getCount());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void admissionPolicyRejectsANullOverflowPolicy() {
+    new AdmissionPolicy(3, null, 0);
+  }
+
+  @Test
+  public void admissionPolicyBoundsTheQueues() {
+    Building rejecting = new Building(10, 1, 5,
+        new AdmissionPolicy(3, OverflowPolicy.REJECT, 0));
+    rejecting.startElevatorSystem();
+    for (int i = 0; i < 3; i++) {
+      assertTrue(rejecting.offerRequest(null, 2, 5));
+    }
+    assertFalse(rejecting.offerRequest(null, 3, 5));
+    assertTrue(rejecting.offerRequest(null, 5, 3));
+    assertEquals(1, rejecting.getStatusElevatorSystem().getRejectedRequests());
+
+    Building dropping = new Building(10, 1, 5,
+        new AdmissionPolicy(2, OverflowPolicy.DROP_OLDEST, 0));
+    dropping.startElevatorSystem();
+    dropping.addRequestToElevatorSystem(1, 4);
+    dropping.addRequestToElevatorSystem(2, 4);
+    dropping.addRequestToElevatorSystem(3, 4);
+    BuildingReport report = dropping.getStatusElevatorSystem();
+    assertEquals("[2->4, 3->4]", report.getUpRequests().toString());
+    assertEquals(1, report.getDroppedRequests());
+    assertEquals(0, dropping.getHallCalls().getWaitingCount(1, Direction.UP));
+  }
+
+  @Test
+  public void dropOldestKeepsRidersOnTheirSecondLeg() {
+    for (int maxQueued = 1; maxQueued <= 2; maxQueued++) {
+      Building zoned = new Building(10, 5, new Zone[] {new Zone(1, 5), new Zone(5, 9)},
+          new AdmissionPolicy(maxQueued, OverflowPolicy.DROP_OLDEST, 0));
+      zoned.setTransferFloor(5);
+      zoned.startElevatorSystem();
+      zoned.addRequestToElevatorSystem(2, 8);
+      // the first leg is dispatched, then the second leg is queued at the transfer floor
+      zoned.stepElevatorSystem();
+      for (int i = 0; i < 100 && zoned.getUpRequestCount() == 0; i++) {
+        zoned.stepElevatorSystem();
+      }
+      assertEquals("[5->8]", zoned.getStatusElevatorSystem().getUpRequests().toString());
+      if (maxQueued == 1) {
+        // only the second leg is queued, so there is nothing to drop
+        assertFalse(zoned.offerRequest(null, 1, 4));
+        assertEquals(1, zoned.getStatusElevatorSystem().getRejectedRequests());
+      } else {
+        zoned.addRequestToElevatorSystem(1, 4);
+        zoned.addRequestToElevatorSystem(2, 4);
+        assertEquals("[5->8, 2->4]",
+            zoned.getStatusElevatorSystem().getUpRequests().toString());
+        assertEquals(1, zoned.getStatusElevatorSystem().getDroppedRequests());
+      }
+      for (int i = 0; i < 100; i++) {
+        zoned.stepElevatorSystem();
+      }
+      assertEquals(1, zoned.getTransferLatency().getCount());
+    }
+  }
+
+  @Test
+  public void rateLimiterAppliesPerSource() {
+    Building limited = new Building(10, 1, 5,
+        new AdmissionPolicy(100, OverflowPolicy.REJECT, 0, 0.5, 2));
+    limited.startElevatorSystem();
+    Object scanner = "scanner";
+    assertTrue(limited.offerRequest(scanner, 0, 4));
+    assertTrue(limited.offerRequest(scanner, 0, 4));
+    assertFalse(limited.offerRequest(scanner, 0, 4));
+    assertTrue(limited.offerRequest("other scanner", 0, 4));
+    assertTrue(limited.offerRequest(null, 0, 4));
+    limited.stepElevatorSystem();
+    limited.stepElevatorSystem();
+    assertTrue(limited.offerRequest(scanner, 6, 1));
+    assertFalse(limited.offerRequest(scanner, 6, 1));
+    assertEquals(2, limited.getStatusElevatorSystem().getRateLimitedRequests());
+  }
+
+  @Test
+  public void rateLimiterEvictsOnlyRefilledSources() {
+    Building limited = new Building(10, 1, 5,
+        new AdmissionPolicy(10_000, OverflowPolicy.REJECT, 0, 0.5, 2));
+    limited.startElevatorSystem();
+    Object scanner = "scanner";
+    assertTrue(limited.offerRequest(scanner, 0, 4));
+    assertTrue(limited.offerRequest(scanner, 0, 4));
+    // enough new sources to evict idle buckets several times
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(limited.offerRequest(i, 0, 4));
+    }
+    assertFalse(limited.offerRequest(scanner, 0, 4));
+    assertTrue(limited.offerRequest(999, 0, 4));
+    assertFalse(limited.offerRequest(999, 0, 4));
+    for (int i = 0; i < 4; i++) {
+      limited.stepElevatorSystem();
+    }
+    for (int i = 1000; i < 2000; i++) {
+      assertTrue(limited.offerRequest(i, 0, 4));
+    }
+    // refilled buckets were evicted, a new bucket is just as full
+    assertTrue(limited.offerRequest(5, 0, 4));
+    assertTrue(limited.offerRequest(5, 0, 4));
+    assertFalse(limited.offerRequest(5, 0, 4));
+    assertEquals(3, limited.getStatusElevatorSystem().getRateLimitedRequests());
+  }
+
+  @Test
+  public void publisherRespectsDemandAndConflates() {
+    ReportPublisher publisher = building.publishReports(2, Runnable::run, 2);
+    List<Long> everyReport = new ArrayList<>();
+    List<Long> latestReport = new ArrayList<>();
+    Flow.Subscription[] subscriptions = new Flow.Subscription[2];
+    publisher.subscribe(new RecordingSubscriber(everyReport, s -> subscriptions[0] = s));
+    publisher.subscribe(new RecordingSubscriber(latestReport, s -> subscriptions[1] = s), true);
+
+    subscriptions[0].request(10);
+    for (int i = 0; i < 6; i++) {
+      building.stepElevatorSystem();
+    }
+    // three reports were published, but the conflating subscriber has asked for none
+    assertEquals(3, everyReport.size());
+    assertEquals(0, latestReport.size());
+    subscriptions[1].request(1);
+    assertEquals(1, latestReport.size());
+    assertEquals(2, publisher.getNumberOfSubscribers());
+
+    publisher.close();
+    assertEquals(0, publisher.getNumberOfSubscribers());
+    assertEquals(Long.valueOf(-1), everyReport.get(everyReport.size() - 1));
+  }
+
+  @Test
+  public void optimalDispatchServesEveryRequest() {
+    Building optimal = new Building(10, 3, 5);
+    optimal.setDispatchPolicy(DispatchPolicy.OPTIMAL);
+    optimal.startElevatorSystem();
+    for (int floor = 1; floor < 10; floor++) {
+      optimal.addRequestToElevatorSystem(0, floor);
+      optimal.addRequestToElevatorSystem(floor, 0);
+      optimal.addRequestToElevatorSystem(floor, floor - 1);
+    }
+    assertEquals(DispatchPolicy.OPTIMAL, optimal.getDispatchPolicy());
+
+    for (int i = 0; i < 200; i++) {
+      optimal.stepElevatorSystem();
+    }
+    assertEquals(0, optimal.getUpRequestCount());
+    assertEquals(0, optimal.getDownRequestCount());
+    assertEquals(27, optimal.getDispatchLatency().getCount());
+    assertEquals(-1, optimal.getHallCalls().nextFloorAbove(-1, Direction.DOWN));
+  }
+
+  @Test
+  public void optimalDispatchFillsCarsByRiders() {
+    Building optimal = new Building(10, 2, 5);
+    optimal.setDispatchPolicy(DispatchPolicy.OPTIMAL);
+    optimal.startElevatorSystem();
+    // 12 riders coalesce into requests of 5, 5 and 2 riders
+    for (int i = 0; i < 12; i++) {
+      optimal.addRequestToElevatorSystem(0, 3);
+    }
+    optimal.stepElevatorSystem();
+
+    // both cars leave full, and the riders left over stay queued
+    assertEquals(10, optimal.getDispatchLatency().getCount());
+    assertEquals(2, optimal.getUpRequestCount());
+    assertEquals(2, optimal.getHallCalls().getWaitingCount(0, Direction.UP));
+    assertEquals("[0->3, 0->3]", optimal.getStatusElevatorSystem().getUpRequests().toString());
+  }
+
+  @Test
+  public void optimalDispatchSplitsARequestBetweenCars() {
+    Building optimal = new Building(10, 2, 5);
+    optimal.setDispatchPolicy(DispatchPolicy.OPTIMAL);
+    optimal.startElevatorSystem();
+    optimal.addRequestToElevatorSystem(0, 7);
+    optimal.addRequestToElevatorSystem(0, 7);
+    for (int i = 0; i < 5; i++) {
+      optimal.addRequestToElevatorSystem(0, 3);
+    }
+    optimal.addRequestToElevatorSystem(0, 7);
+    optimal.stepElevatorSystem();
+
+    // the 3 riders to floor 7 do not fit beside the 5 to floor 3, so they share the cars
+    assertEquals(8, optimal.getDispatchLatency().getCount());
+    assertEquals(0, optimal.getUpRequestCount());
+  }
+
+  @Test
+  public void zonedElevatorsOnlyTakeRequestsTheyServe() {
+    Building zoned = new Building(10, 5, new Zone[] {new Zone(1, 4), new Zone(5, 9)});
+    zoned.startElevatorSystem();
+    assertTrue(zoned.isServed(0, 8));
+    assertFalse(zoned.isServed(2, 7));
+    try {
+      zoned.addRequestToElevatorSystem(2, 7);
+      fail("no elevator serves floors 2 and 7");
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+    zoned.addRequestToElevatorSystem(0, 3);
+    zoned.addRequestToElevatorSystem(0, 8);
+    zoned.addRequestToElevatorSystem(4, 0);
+    zoned.addRequestToElevatorSystem(9, 6);
+
+    for (int i = 0; i < 100; i++) {
+      zoned.stepElevatorSystem();
+      assertTrue(zoned.getElevatorReports()[0].getCurrentFloor() <= 4);
+    }
+    assertEquals(0, zoned.getUpRequestCount());
+    assertEquals(0, zoned.getDownRequestCount());
+    assertEquals(4, zoned.getDispatchLatency().getCount());
+  }
+
+  @Test
+  public void requestsBetweenZonesChangeElevatorsAtTheTransferFloor() throws IOException {
+    Building zoned = new Building(10, 5, new Zone[] {new Zone(1, 5), new Zone(5, 9)});
+    assertFalse(zoned.isServed(2, 8));
+    zoned.setTransferFloor(5);
+    assertTrue(zoned.isServed(2, 8));
+    zoned.startElevatorSystem();
+    zoned.addRequestToElevatorSystem(2, 8);
+    zoned.addRequestToElevatorSystem(8, 2);
+    zoned.addRequestToElevatorSystem(0, 3);
+
+    for (int i = 0; i < 20; i++) {
+      zoned.stepElevatorSystem();
+    }
+    // latency statistics are not checkpointed
+    long dispatched = zoned.getDispatchLatency().getCount();
+    zoned = roundTrip(zoned);
+    assertEquals(5, zoned.getTransferFloor());
+    for (int i = 0; i < 200; i++) {
+      zoned.stepElevatorSystem();
+    }
+    assertEquals(0, zoned.getUpRequestCount());
+    assertEquals(0, zoned.getDownRequestCount());
+    assertEquals(3, dispatched + zoned.getDispatchLatency().getCount());
+    assertEquals(2, zoned.getTransferLatency().getCount());
+  }
+
+  @Test
+  public void zonedBuildingsMayHaveSixtyFourFloors() throws IOException {
+    try {
+      new Building(64, 2, 5);
+      fail("an elevator serving every floor of 64 may not be built");
+    } catch (IllegalArgumentException expected) {
+      // a car serving every floor is limited to 30
+    }
+    Building tall = new Building(64, 5,
+        new Zone[] {new Zone(1, 29), new Zone(29, 57), new Zone(45, 63)});
+    tall.setTransferFloor(29);
+    assertTrue(tall.isServed(2, 57));
+    assertTrue(tall.isServed(0, 63));
+    assertFalse(tall.isServed(2, 63));
+    tall.startElevatorSystem();
+    tall.addRequestToElevatorSystem(2, 57);
+    tall.addRequestToElevatorSystem(0, 63);
+    tall.addRequestToElevatorSystem(63, 0);
+
+    for (int i = 0; i < 20; i++) {
+      tall.stepElevatorSystem();
+    }
+    long dispatched = tall.getDispatchLatency().getCount();
+    tall = roundTrip(tall);
+    for (int i = 0; i < 300; i++) {
+      tall.stepElevatorSystem();
+    }
+    assertEquals(0, tall.getUpRequestCount() + tall.getDownRequestCount());
+    assertEquals(3, dispatched + tall.getDispatchLatency().getCount());
+    assertEquals(1, tall.getTransferLatency().getCount());
+  }
+
+  @Test
+  public void twinShaftElevatorsStayApartAndShareTheTransferFloor() throws IOException {
+    Zone[][] shafts = {{new Zone(1, 5), new Zone(5, 6, 9)}};
+    Building twin = new Building(10, 5, shafts, 1);
+    assertFalse(twin.isServed(0, 9));
+    assertTrue(twin.isServed(5, 9));
+    twin.setTransferFloor(5);
+    assertTrue(twin.isServed(0, 9));
+    twin.startElevatorSystem();
+    twin.addRequestToElevatorSystem(2, 8);
+    twin.addRequestToElevatorSystem(8, 2);
+    twin.addRequestToElevatorSystem(9, 5);
+
+    for (int i = 0; i < 20; i++) {
+      twin.stepElevatorSystem();
+    }
+    long dispatched = twin.getDispatchLatency().getCount();
+    twin = roundTrip(twin);
+    for (int i = 0; i < 200; i++) {
+      twin.stepElevatorSystem();
+      ElevatorReport[] reports = twin.getElevatorReports();
+      assertTrue(reports[1].getCurrentFloor() > reports[0].getCurrentFloor());
+    }
+    assertEquals(0, twin.getUpRequestCount() + twin.getDownRequestCount());
+    assertEquals(3, dispatched + twin.getDispatchLatency().getCount());
+    assertEquals(2, twin.getTransferLatency().getCount());
+
+    twin.stopElevatorSystem();
+    for (int i = 0; i < 50; i++) {
+      twin.stepElevatorSystem();
+    }
+    assertEquals(0, twin.getElevatorReports()[0].getCurrentFloor());
+    assertEquals(5, twin.getElevatorReports()[1].getCurrentFloor());
+  }
+
+  @Test
+  public void doubleDeckElevatorsFillEachDeck() throws IOException {
+    Building doubleDeck = new Building(10, 1, 3, CarType.DOUBLE_DECK);
+    doubleDeck.startElevatorSystem();
+    for (int floor = 2; floor < 8; floor++) {
+      doubleDeck.addRequestToElevatorSystem(0, floor);
+    }
+    doubleDeck.stepElevatorSystem();
+    // three riders in each deck
+    assertEquals(6, doubleDeck.getDispatchLatency().getCount());
+    ElevatorReport report = doubleDeck.getElevatorReports()[0];
+    assertTrue(report.isDoubleDeck());
+    assertTrue(report.getFloorRequests()[2] && report.getUpperDeckRequests()[3]);
+
+    doubleDeck = roundTrip(doubleDeck);
+    doubleDeck.addRequestToElevatorSystem(9, 0);
+    for (int i = 0; i < 100; i++) {
+      doubleDeck.stepElevatorSystem();
+    }
+    assertEquals(0, doubleDeck.getUpRequestCount() + doubleDeck.getDownRequestCount());
+    assertEquals(1, doubleDeck.getDispatchLatency().getCount());
+    assertTrue(doubleDeck.getElevatorReports()[0].isDoubleDeck());
+  }
+
+  @Test
+  public void lobbyParkingKeepsIdleElevatorsAtTheLobby() {
+    Building parking = new Building(10, 3, 5);
+    parking.setParkingPolicy(ParkingPolicy.LOBBY);
+    assertEquals(ParkingPolicy.LOBBY, parking.getParkingPolicy());
+    parking.startElevatorSystem();
+    for (int i = 0; i < 50; i++) {
+      parking.stepElevatorSystem();
+      for (ElevatorReport report : parking.getElevatorReports()) {
+        assertEquals(0, report.getCurrentFloor());
+      }
+    }
+
+    // one elevator sets off to take the down request at the top, then parks again
+    parking.addRequestToElevatorSystem(7, 2);
+    parking.addRequestToElevatorSystem(0, 4);
+    for (int i = 0; i < 100; i++) {
+      parking.stepElevatorSystem();
+    }
+    int away = 0;
+    for (ElevatorReport report : parking.getElevatorReports()) {
+      away += report.getCurrentFloor() == 0 ? 0 : 1;
+    }
+    assertEquals(0, parking.getUpRequestCount());
+    assertEquals(0, parking.getDownRequestCount());
+    assertEquals(0, away);
+  }
+
+  /**
+   * Records the number of up requests in each report, and -1 on completion.
+   */
+  private static class RecordingSubscriber implements Flow.Subscriber<BuildingReport> {
+    private final List<Long> received;
+
+    private final Consumer<Flow.Subscription> onSubscribe;
+
+    RecordingSubscriber(List<Long> received,
+                        Consumer<Flow.Subscription> onSubscribe) {
+      this.received = received;
+      this.onSubscribe = onSubscribe;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.onSubscribe.accept(subscription);
+    }
+
+    @Override
+    public void onNext(BuildingReport item) {
+      this.received.add((long) item.getUpRequestCount());
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      this.received.add(-2L);
+    }
+
+    @Override
+    public void onComplete() {
+      this.received.add(-1L);
+    }
+  }
+}
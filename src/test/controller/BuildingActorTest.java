@@ -0,0 +1,175 @@
+package test.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import building.Building;
+import building.BuildingReport;
+import building.enums.ElevatorSystemStatus;
+import controller.BuildingActor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for the BuildingActor class.
+ */
+public class BuildingActorTest {
+  private final CountDownLatch blockerStarted = new CountDownLatch(1);
+
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  private BuildingActor actor;
+
+  @Before
+  public void setUp() {
+    this.actor = new BuildingActor(new Building(10, 2, 5), 4);
+    this.actor.start();
+  }
+
+  @After
+  public void tearDown() {
+    this.release.countDown();
+    this.actor.close();
+  }
+
+  /**
+   * Keep the owner thread busy until release, or until the actor closes.
+   */
+  private CompletableFuture<Void> block() throws InterruptedException {
+    CompletableFuture<Void> blocker = this.actor.submit(building -> {
+      this.blockerStarted.countDown();
+      try {
+        this.release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return null;
+    });
+    assertTrue(this.blockerStarted.await(5, TimeUnit.SECONDS));
+    return blocker;
+  }
+
+  private static void assertFailsWith(CompletableFuture<?> future, String message)
+      throws InterruptedException, TimeoutException {
+    try {
+      future.get(5, TimeUnit.SECONDS);
+      fail("expected the command to fail with " + message);
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof IllegalStateException);
+      assertEquals(message, e.getCause().getMessage());
+    }
+  }
+
+  @Test
+  public void commandsRunInTheOrderTheyWereSent() throws Exception {
+    this.actor.close();
+    this.actor = new BuildingActor(new Building(10, 2, 5), 1000);
+    this.actor.start();
+    List<Integer> order = new ArrayList<>();
+    List<CompletableFuture<Integer>> futures = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      int command = i;
+      futures.add(this.actor.submit(building -> {
+        order.add(command);
+        return command;
+      }));
+    }
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i, (int) futures.get(i).get(5, TimeUnit.SECONDS));
+    }
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i, (int) order.get(i));
+    }
+  }
+
+  @Test
+  public void waitingCommandsRunAsOneBatchWithOneSnapshot() throws Exception {
+    List<BuildingReport> snapshots = new CopyOnWriteArrayList<>();
+    this.actor.addSnapshotListener(snapshots::add);
+    CompletableFuture<Void> blocker = block();
+    CompletableFuture<Void> started = this.actor.startElevatorSystem();
+    List<CompletableFuture<Void>> steps = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      steps.add(this.actor.stepElevatorSystem());
+    }
+    this.release.countDown();
+    blocker.get(5, TimeUnit.SECONDS);
+    started.get(5, TimeUnit.SECONDS);
+    for (CompletableFuture<Void> step : steps) {
+      step.get(5, TimeUnit.SECONDS);
+    }
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (snapshots.size() < 2 && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    // the blocker ran alone, then the four commands that waited for it ran together
+    assertEquals(2, snapshots.size());
+    assertEquals(snapshots.get(1), this.actor.getSnapshot());
+    assertEquals(ElevatorSystemStatus.running, this.actor.getSnapshot().getSystemStatus());
+  }
+
+  @Test
+  public void aFullQueueRefusesCommands() throws Exception {
+    block();
+    List<CompletableFuture<Void>> waiting = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      waiting.add(this.actor.stepElevatorSystem());
+    }
+    assertFailsWith(this.actor.stepElevatorSystem(), "Building command queue is full.");
+    for (CompletableFuture<Void> future : waiting) {
+      assertFalse(future.isDone());
+    }
+  }
+
+  @Test
+  public void closeFailsWaitingCommandsAndLaterOnes() throws Exception {
+    CompletableFuture<Void> blocker = block();
+    CompletableFuture<Void> waiting = this.actor.stepElevatorSystem();
+    this.actor.close();
+
+    // the running command is interrupted and finishes, the waiting one never runs
+    blocker.get(5, TimeUnit.SECONDS);
+    assertFailsWith(waiting, "Building actor closed.");
+    assertFailsWith(this.actor.stepElevatorSystem(), "Building actor is not running.");
+  }
+
+  @Test
+  public void everyCommandSentDuringCloseCompletes() throws Exception {
+    for (int round = 0; round < 50; round++) {
+      BuildingActor racing = new BuildingActor(new Building(10, 2, 5), 64);
+      racing.start();
+      List<CompletableFuture<Object>> futures = new CopyOnWriteArrayList<>();
+      AtomicBoolean sending = new AtomicBoolean(true);
+      Thread sender = new Thread(() -> {
+        while (sending.get()) {
+          futures.add(racing.submit(building -> null));
+        }
+      });
+      sender.start();
+      Thread.sleep(1);
+      racing.close();
+      sending.set(false);
+      sender.join();
+      for (CompletableFuture<Object> future : futures) {
+        try {
+          future.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+          assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package test.dispatch;
+
+import static org.junit.Assert.assertEquals;
+
+import building.enums.Direction;
+import dispatch.ArrivalRateEstimator;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for the ArrivalRateEstimator class.
+ */
+public class ArrivalRateEstimatorTest {
+
+  @Test
+  public void ratesSettleOnASteadyStreamAndDecayWithoutOne() {
+    ArrivalRateEstimator rates = new ArrivalRateEstimator(10, 50);
+    for (long step = 0; step < 2000; step++) {
+      rates.record(0, 5, Direction.UP, step);
+      if (step % 4 == 0) {
+        rates.record(3, 0, Direction.DOWN, step);
+      }
+    }
+
+    assertEquals(1.0, rates.getRate(0, Direction.UP, 1999), 0.02);
+    assertEquals(0.25, rates.getRate(3, Direction.DOWN, 1999), 0.02);
+    assertEquals(1.25, rates.getRate(Direction.UP, 1999) + rates.getRate(Direction.DOWN, 1999),
+        0.03);
+    assertEquals(1.0, rates.getTripRate(0, 5, 1999), 0.02);
+    assertEquals(0.0, rates.getTripRate(5, 0, 1999), 1e-9);
+    assertEquals(rates.getRate(0, Direction.UP, 1999) / Math.E,
+        rates.getRate(0, Direction.UP, 2049), 1e-9);
+  }
+
+  @Test
+  public void clearForgetsEveryArrival() {
+    ArrivalRateEstimator rates = new ArrivalRateEstimator(4, 10);
+    rates.record(2, 1, Direction.DOWN, 7);
+    assertEquals(0.1, rates.getTripRate(2, 1, 7), 1e-9);
+
+    ArrivalRateEstimator copy = new ArrivalRateEstimator(rates);
+    rates.clear();
+    assertEquals(0.0, rates.getRate(2, Direction.DOWN, 7), 1e-9);
+    assertEquals(0.0, rates.getRate(Direction.DOWN, 7), 1e-9);
+    assertEquals(0.1, copy.getRate(2, Direction.DOWN, 7), 1e-9);
+  }
+}
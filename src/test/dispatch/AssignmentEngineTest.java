@@ -0,0 +1,150 @@
+package test.dispatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import dispatch.AssignmentEngine;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for the AssignmentEngine class.
+ */
+public class AssignmentEngineTest {
+  private int best;
+
+  /**
+   * Find the cheapest assignment of every call by trying them all.
+   */
+  private void search(int[] costs, int calls, int cars, int[] room, int call, int total) {
+    if (total >= this.best) {
+      return;
+    }
+    if (call == calls) {
+      this.best = total;
+      return;
+    }
+    for (int k = 0; k < cars; k++) {
+      int cost = costs[call * cars + k];
+      if (cost != AssignmentEngine.FORBIDDEN && room[k] > 0) {
+        room[k]--;
+        search(costs, calls, cars, room, call + 1, total + cost);
+        room[k]++;
+      }
+    }
+  }
+
+  @Test
+  public void solveFindsTheCheapestAssignment() {
+    Random random = new Random(7);
+    AssignmentEngine engine = new AssignmentEngine(1_000_000_000L);
+    for (int trial = 0; trial < 1000; trial++) {
+      int cars = 1 + random.nextInt(4);
+      int calls = 1 + random.nextInt(7);
+      int[] capacities = new int[cars];
+      for (int k = 0; k < cars; k++) {
+        capacities[k] = random.nextInt(3);
+      }
+      int[] costs = engine.costs(calls, cars);
+      for (int i = 0; i < calls * cars; i++) {
+        costs[i] = random.nextInt(10) == 0 ? AssignmentEngine.FORBIDDEN : random.nextInt(100);
+      }
+      this.best = Integer.MAX_VALUE;
+      search(costs, calls, cars, capacities.clone(), 0, 0);
+      if (this.best == Integer.MAX_VALUE) {
+        continue;
+      }
+      // most solves start from the last one, with some of its calls under the same keys
+      long[] keys = null;
+      if (trial % 4 != 0) {
+        keys = new long[calls];
+        for (int i = 0; i < calls; i++) {
+          keys[i] = 8 * (i / 2) + random.nextInt(2);
+        }
+      }
+      assertEquals(calls, engine.solve(calls, cars, capacities, keys));
+      int total = 0;
+      int[] load = new int[cars];
+      for (int i = 0; i < calls; i++) {
+        int car = engine.getAssignedCar(i);
+        total += costs[i * cars + car];
+        load[car]++;
+      }
+      assertEquals(this.best, total);
+      for (int k = 0; k < cars; k++) {
+        assertTrue(load[k] <= capacities[k]);
+      }
+    }
+  }
+
+  @Test
+  public void aWarmSolveStartsFromTheLastAssignment() {
+    AssignmentEngine engine = new AssignmentEngine(1_000_000_000L);
+    long[] keys = {10, 11, 12, 13};
+    int[] capacities = {2, 2};
+    int[] costs = engine.costs(4, 2);
+    System.arraycopy(new int[] {1, 9, 1, 9, 9, 1, 9, 1}, 0, costs, 0, 8);
+    assertEquals(4, engine.solve(4, 2, capacities, keys));
+    assertEquals(0, engine.getSeededCalls());
+
+    // the same costs again: every call keeps its car and nothing is searched for
+    assertEquals(4, engine.solve(4, 2, capacities, keys));
+    assertEquals(4, engine.getSeededCalls());
+    assertEquals(0, engine.getAugmentations());
+
+    // calls 0 and 1 now want car 1 and calls 2 and 3 car 0, so none keeps its car
+    System.arraycopy(new int[] {9, 1, 9, 1, 1, 9, 1, 9}, 0, costs, 0, 8);
+    assertEquals(4, engine.solve(4, 2, capacities, keys));
+    assertEquals(0, engine.getSeededCalls());
+    assertEquals(1, engine.getAssignedCar(0));
+    assertEquals(1, engine.getAssignedCar(1));
+    assertEquals(0, engine.getAssignedCar(2));
+    assertEquals(0, engine.getAssignedCar(3));
+
+    // a new call is added to the calls kept, and a reset starts cold
+    assertEquals(4, engine.solve(4, 2, capacities, new long[] {10, 11, 12, 99}));
+    assertEquals(3, engine.getSeededCalls());
+    assertEquals(1, engine.getAugmentations());
+    engine.reset();
+    assertEquals(4, engine.solve(4, 2, capacities, keys));
+    assertEquals(0, engine.getSeededCalls());
+  }
+
+  @Test
+  public void callsThatDoNotFitAreLeftUnassigned() {
+    AssignmentEngine engine = new AssignmentEngine(1_000_000_000L);
+    int[] costs = engine.costs(3, 2);
+    costs[0] = 5;
+    costs[1] = AssignmentEngine.FORBIDDEN;
+    costs[2] = 1;
+    costs[3] = AssignmentEngine.FORBIDDEN;
+    costs[4] = AssignmentEngine.FORBIDDEN;
+    costs[5] = AssignmentEngine.FORBIDDEN;
+
+    assertEquals(1, engine.solve(3, 2, new int[] {1, 1}));
+    // the first call keeps the only car it can use
+    assertEquals(0, engine.getAssignedCar(0));
+    assertEquals(-1, engine.getAssignedCar(1));
+    assertEquals(-1, engine.getAssignedCar(2));
+    assertFalse(engine.isBudgetExceeded());
+  }
+
+  @Test
+  public void aSolveOverBudgetFinishesGreedily() {
+    AssignmentEngine engine = new AssignmentEngine(1);
+    int calls = 2000;
+    int cars = 16;
+    Random random = new Random(3);
+    int[] costs = engine.costs(calls, cars);
+    for (int i = 0; i < calls * cars; i++) {
+      costs[i] = random.nextInt(1000);
+    }
+    int[] capacities = new int[cars];
+    Arrays.fill(capacities, calls / cars);
+
+    assertEquals(calls, engine.solve(calls, cars, capacities));
+    assertTrue(engine.isBudgetExceeded());
+  }
+}
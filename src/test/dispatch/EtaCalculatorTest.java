@@ -0,0 +1,135 @@
+package test.dispatch;
+
+import static org.junit.Assert.assertEquals;
+
+import building.enums.Direction;
+import dispatch.EtaCalculator;
+import elevator.Elevator;
+import elevator.ElevatorInterface;
+import elevator.Kinematics;
+import elevator.TimingProfile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import scanerzus.Request;
+
+/**
+ * A JUnit test class for the EtaCalculator class.
+ */
+public class EtaCalculatorTest {
+
+  /**
+   * Step a copy of the car until it is at the floor, ready to open its door
+   * for the direction.
+   */
+  private static long simulate(ElevatorInterface car, int floor, Direction direction) {
+    ElevatorInterface copy = car.fork();
+    for (long steps = 0; steps < 500; steps++) {
+      if (copy.getCurrentFloor() == floor && copy.getDirection() == direction
+          && copy.isDoorClosed() && copy.getStopWaitTimeLeft() == 0) {
+        return steps;
+      }
+      copy.step();
+    }
+    return EtaCalculator.UNREACHABLE;
+  }
+
+  /**
+   * Start the car and run it for a random number of steps, giving it random requests.
+   */
+  private static void runRandomly(Elevator car, Random random) {
+    int floors = car.getMaxFloor();
+    car.start();
+    for (int steps = random.nextInt(4 * floors); steps > 0; steps--) {
+      if (car.isTakingRequests() && random.nextBoolean()) {
+        List<Request> requests = new ArrayList<>();
+        for (int i = random.nextInt(5); i >= 0; i--) {
+          int start = random.nextInt(floors - 1);
+          int end = start + 1 + random.nextInt(floors - 1 - start);
+          requests.add(car.getCurrentFloor() == 0
+              ? new Request(start, end) : new Request(end, start));
+        }
+        car.processRequests(requests);
+      }
+      car.step();
+    }
+  }
+
+  private static void assertEveryCallMatches(Elevator car) {
+    int floors = car.getMaxFloor();
+    for (int floor = 0; floor < floors; floor++) {
+      if (floor < floors - 1) {
+        assertEquals(car.toString() + " up to " + floor, simulate(car, floor, Direction.UP),
+            EtaCalculator.eta(car, floor, Direction.UP));
+      }
+      if (floor > 0) {
+        assertEquals(car.toString() + " down to " + floor,
+            simulate(car, floor, Direction.DOWN),
+            EtaCalculator.eta(car, floor, Direction.DOWN));
+      }
+    }
+  }
+
+  @Test
+  public void etaMatchesTheSimulationForEveryCall() {
+    Random random = new Random(42);
+    for (int trial = 0; trial < 200; trial++) {
+      Elevator car = new Elevator(3 + random.nextInt(28), 10);
+      runRandomly(car, random);
+      assertEveryCallMatches(car);
+    }
+  }
+
+  @Test
+  public void etaMatchesTheSimulationForEveryTimingProfile() {
+    Random random = new Random(11);
+    for (int trial = 0; trial < 200; trial++) {
+      Elevator car = new Elevator(3 + random.nextInt(28), 10);
+      car.setTimingProfile(new TimingProfile(1 + random.nextInt(6), 1 + random.nextInt(8),
+          random.nextBoolean()));
+      car.setQueueDepth(random.nextInt(3));
+      runRandomly(car, random);
+      assertEveryCallMatches(car);
+    }
+  }
+
+  @Test
+  public void etaMatchesTheSimulationForFastCars() {
+    Random random = new Random(7);
+    for (int trial = 0; trial < 200; trial++) {
+      int floors = 3 + random.nextInt(28);
+      Elevator car = new Elevator(floors, 10);
+      int maxSpeed = 1 + random.nextInt(6);
+      car.setKinematics(new Kinematics(maxSpeed, 1 + random.nextInt(maxSpeed)));
+      car.start();
+      for (int steps = random.nextInt(4 * floors); steps > 0; steps--) {
+        if (car.isTakingRequests() && random.nextBoolean()) {
+          int start = random.nextInt(floors - 1);
+          int end = start + 1 + random.nextInt(floors - 1 - start);
+          car.processRequests(List.of(car.getCurrentFloor() == 0
+              ? new Request(start, end) : new Request(end, start)));
+        }
+        car.step();
+      }
+      // a fast car only lands on the floors it stops at
+      for (int floor = 0; floor < floors; floor++) {
+        if (car.getFloorRequests()[floor] && floor != car.getCurrentFloor()) {
+          Direction direction = floor > car.getCurrentFloor() ? Direction.UP : Direction.DOWN;
+          assertEquals(car.toString() + " to " + floor, simulate(car, floor, direction),
+              EtaCalculator.eta(car, floor, direction));
+        }
+      }
+      assertEquals(car.toString(), simulate(car, 0, Direction.UP),
+          EtaCalculator.eta(car, 0, Direction.UP));
+      assertEquals(car.toString(), simulate(car, floors - 1, Direction.DOWN),
+          EtaCalculator.eta(car, floors - 1, Direction.DOWN));
+    }
+  }
+
+  @Test
+  public void outOfServiceCarsCannotReachCalls() {
+    Elevator car = new Elevator(10, 10);
+    assertEquals(EtaCalculator.UNREACHABLE, EtaCalculator.eta(car, 3, Direction.UP));
+  }
+}
@@ -0,0 +1,77 @@
+package test.elevator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import elevator.DoubleDeckElevator;
+import elevator.ElevatorCheckpoints;
+import elevator.ElevatorInterface;
+import elevator.ElevatorReport;
+import java.nio.ByteBuffer;
+import java.util.List;
+import org.junit.Test;
+import scanerzus.Request;
+
+/**
+ * A JUnit test class for the DoubleDeckElevator class.
+ */
+public class DoubleDeckElevatorTest {
+
+  @Test
+  public void requestsRideTheDeckOfTheirFloor() {
+    DoubleDeckElevator elevator = new DoubleDeckElevator(10, 5);
+    assertEquals(2, elevator.getNumberOfDecks());
+    assertEquals(0, elevator.getDeck(0, 4));
+    assertEquals(1, elevator.getDeck(1, 5));
+    assertEquals(1, elevator.getDeck(0, 9));
+    assertEquals(0, elevator.getDeck(6, 0));
+    elevator.start();
+    elevator.processRequests(List.of(new Request(0, 4), new Request(1, 5),
+        new Request(0, 9)));
+
+    // one stop at the lobby, then 4 and 5 together, then the top floor
+    assertArrayEquals(new boolean[] {true, false, false, false, true, false, false, false,
+        true, false}, elevator.getFloorRequests());
+    assertTrue(elevator.getLowerDeckRequests()[4]);
+    assertTrue(elevator.getUpperDeckRequests()[5]);
+    assertTrue(elevator.getUpperDeckRequests()[9]);
+    ElevatorReport report = elevator.getElevatorStatus();
+    assertTrue(report.isDoubleDeck());
+    assertTrue(report.toString().startsWith("[0/1|^|"));
+
+    int stops = 0;
+    for (int i = 0; i < 40 && elevator.getCurrentFloor() < 8; i++) {
+      elevator.step();
+      if (!elevator.isDoorClosed()
+          && elevator.getDoorOpenTimeLeft() == elevator.getDoorOpenTimeTotal()) {
+        stops++;
+      }
+    }
+    assertEquals(8, elevator.getCurrentFloor());
+    assertEquals(2, stops);
+    assertFalse(elevator.getLowerDeckRequests()[4]);
+    assertFalse(elevator.getUpperDeckRequests()[5]);
+  }
+
+  @Test
+  public void forkAndCheckpointKeepBothDecks() {
+    DoubleDeckElevator elevator = new DoubleDeckElevator(10, 5);
+    elevator.start();
+    elevator.processRequests(List.of(new Request(0, 3), new Request(0, 6)));
+    elevator.step();
+
+    ElevatorInterface fork = elevator.fork();
+    ByteBuffer checkpoint = ByteBuffer.allocate(elevator.checkpointSize());
+    elevator.writeCheckpoint(checkpoint);
+    checkpoint.flip();
+    ElevatorInterface restored = ElevatorCheckpoints.read(checkpoint);
+
+    assertTrue(restored instanceof DoubleDeckElevator);
+    assertEquals(elevator.getElevatorStatus(), fork.getElevatorStatus());
+    assertEquals(elevator.getElevatorStatus(), restored.getElevatorStatus());
+    assertTrue(((DoubleDeckElevator) restored).getUpperDeckRequests()[3]);
+    assertTrue(((DoubleDeckElevator) restored).getLowerDeckRequests()[6]);
+  }
+}
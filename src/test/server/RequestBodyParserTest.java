@@ -0,0 +1,91 @@
+package test.server;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+import server.RequestBodyParser;
+
+/**
+ * A JUnit test class for the RequestBodyParser class.
+ */
+public class RequestBodyParserTest {
+
+  private static int[] parse(String body, int maxRequests) throws IOException {
+    return RequestBodyParser.parse(
+        new ByteArrayInputStream(body.getBytes(StandardCharsets.US_ASCII)), maxRequests);
+  }
+
+  private static void assertRejected(String body, int maxRequests, String message)
+      throws IOException {
+    try {
+      parse(body, maxRequests);
+      fail("expected the body to be rejected: " + body);
+    } catch (IllegalArgumentException e) {
+      assertEquals(message, e.getMessage());
+    }
+  }
+
+  @Test
+  public void separatorsAndBlankLinesAreAccepted() throws IOException {
+    assertArrayEquals(new int[] {0, 12, 3, 0, 4, 5, 6, 7},
+        parse("0 12\n\n3,0\n 4\t5 \n6 ,7", 10));
+    assertArrayEquals(new int[0], parse("", 10));
+    assertArrayEquals(new int[0], parse("\n\r\n", 10));
+  }
+
+  @Test
+  public void crlfBodiesParseLikeLfBodies() throws IOException {
+    assertArrayEquals(parse("0 12\n3 0\n", 10), parse("0 12\r\n3 0\r\n", 10));
+    assertArrayEquals(new int[] {1, 2}, parse("1 2\r\n", 10));
+  }
+
+  @Test
+  public void largeBodiesGrowTheArray() throws IOException {
+    StringBuilder body = new StringBuilder();
+    for (int i = 0; i < 5000; i++) {
+      body.append(i).append(' ').append(i + 1).append('\n');
+    }
+    int[] floors = parse(body.toString(), 5000);
+    assertEquals(10_000, floors.length);
+    assertEquals(4999, floors[9998]);
+    assertEquals(5000, floors[9999]);
+  }
+
+  @Test
+  public void malformedLinesAreRejectedWithTheirNumber() throws IOException {
+    assertRejected("0 1\n2\n", 10, "line 2: expected two floors");
+    assertRejected("0 1\n2", 10, "line 2: expected two floors");
+    assertRejected("0 1\n2 x\n", 10, "line 2: unexpected character x");
+    assertRejected("-1 2\n", 10, "line 1: unexpected character -");
+  }
+
+  @Test
+  public void trailingFieldsAreRejected() throws IOException {
+    assertRejected("0 1 2\n", 10, "line 1: expected two floors");
+    assertRejected("0 1\n3 4 5", 10, "line 2: expected two floors");
+  }
+
+  @Test
+  public void floorsThatWouldOverflowAreRejected() throws IOException {
+    assertArrayEquals(new int[] {0, 1_000_000}, parse("0 1000000", 10));
+    assertRejected("0 1000001\n", 10, "line 1: floor is too large");
+    assertRejected("0 99999999999999999999\n", 10, "line 1: floor is too large");
+  }
+
+  @Test
+  public void bodiesOverTheRequestLimitAreRejected() throws IOException {
+    assertArrayEquals(new int[] {0, 1, 2, 3}, parse("0 1\n2 3\n", 2));
+    assertRejected("0 1\n2 3\n4 5\n", 2, "more than 2 requests");
+    assertRejected("0 1\n2 3\n4", 2, "more than 2 requests");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void theRequestLimitMustBePositive() throws IOException {
+    parse("0 1", 0);
+  }
+}
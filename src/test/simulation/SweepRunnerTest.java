@@ -0,0 +1,115 @@
+package test.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import building.LatencyHistogram;
+import building.enums.DispatchPolicy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import simulation.SweepAggregate;
+import simulation.SweepConfiguration;
+import simulation.SweepRunner;
+import traffic.TrafficProfile;
+
+/**
+ * A JUnit test class for the SweepRunner and SweepAggregate classes.
+ */
+public class SweepRunnerTest {
+  private static final List<SweepConfiguration> CONFIGURATIONS = Arrays.asList(
+      new SweepConfiguration(10, 2, 10, TrafficProfile.MORNING_UP_PEAK, 0.5, 300),
+      new SweepConfiguration(15, 3, 8, TrafficProfile.LUNCH_TWO_WAY, 1.0, 300),
+      new SweepConfiguration(20, 4, 12, TrafficProfile.EVENING_DOWN_PEAK, 1.5, 300),
+      new SweepConfiguration(20, 4, 12, DispatchPolicy.OPTIMAL,
+          TrafficProfile.EVENING_DOWN_PEAK, 1.5, 300));
+
+  private static Map<SweepConfiguration, SweepAggregate> sweep(int parallelism, long seed) {
+    try (SweepRunner runner = new SweepRunner(parallelism)) {
+      return runner.run(CONFIGURATIONS, 8, seed);
+    }
+  }
+
+  @Test
+  public void parallelismDoesNotChangeTheAggregates() {
+    Map<SweepConfiguration, SweepAggregate> serial = sweep(1, 7);
+    Map<SweepConfiguration, SweepAggregate> parallel = sweep(4, 7);
+
+    assertEquals(CONFIGURATIONS, Arrays.asList(serial.keySet().toArray()));
+    assertEquals(CONFIGURATIONS, Arrays.asList(parallel.keySet().toArray()));
+    for (SweepConfiguration configuration : CONFIGURATIONS) {
+      SweepAggregate one = serial.get(configuration);
+      SweepAggregate many = parallel.get(configuration);
+      assertEquals(8, one.getRuns());
+      assertEquals(one.getRequestsGenerated(), many.getRequestsGenerated());
+      assertEquals(one.getRequestsDispatched(), many.getRequestsDispatched());
+      assertEquals(one.getMeanLatency(), many.getMeanLatency(), 0);
+      assertEquals(one.getLatencyPercentile(99), many.getLatencyPercentile(99));
+      assertEquals(one.toString(), many.toString());
+    }
+  }
+
+  @Test
+  public void theBaseSeedChangesTheRuns() {
+    SweepConfiguration configuration = CONFIGURATIONS.get(1);
+    assertNotEquals(sweep(2, 7).get(configuration).getRequestsGenerated(),
+        sweep(2, 8).get(configuration).getRequestsGenerated());
+  }
+
+  @Test
+  public void equalConfigurationsShareOneAggregate() {
+    SweepConfiguration configuration = CONFIGURATIONS.get(0);
+    SweepConfiguration copy = new SweepConfiguration(10, 2, 10,
+        TrafficProfile.MORNING_UP_PEAK, 0.5, 300);
+    try (SweepRunner runner = new SweepRunner(2)) {
+      Map<SweepConfiguration, SweepAggregate> results =
+          runner.run(Arrays.asList(configuration, copy), 3, 1);
+      assertEquals(1, results.size());
+      assertEquals(6, results.get(configuration).getRuns());
+    }
+  }
+
+  @Test
+  public void theDispatchPolicyIsPartOfTheConfiguration() {
+    SweepConfiguration fifo = CONFIGURATIONS.get(2);
+    SweepConfiguration optimal = CONFIGURATIONS.get(3);
+    assertEquals(DispatchPolicy.FIFO, fifo.getDispatchPolicy());
+    assertNotEquals(fifo, optimal);
+    Map<SweepConfiguration, SweepAggregate> results = sweep(2, 7);
+    assertEquals(8, results.get(optimal).getRuns());
+    assertNotEquals(results.get(fifo).toString(), results.get(optimal).toString());
+  }
+
+  @Test
+  public void aggregatesMergeRuns() {
+    LatencyHistogram first = new LatencyHistogram();
+    first.record(2, 3);
+    LatencyHistogram second = new LatencyHistogram();
+    second.record(10);
+    SweepAggregate aggregate = new SweepAggregate();
+    aggregate.merge(100, 5, first);
+    aggregate.merge(100, 2, second);
+
+    assertEquals(2, aggregate.getRuns());
+    assertEquals(7, aggregate.getRequestsGenerated());
+    assertEquals(4, aggregate.getRequestsDispatched());
+    assertEquals(0.02, aggregate.getThroughput(), 1e-9);
+    assertEquals(4.0, aggregate.getMeanLatency(), 1e-9);
+    assertEquals(2, aggregate.getLatencyPercentile(50));
+    assertEquals(10, aggregate.getLatencyPercentile(100));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidConfigurationsFailBeforeAnyRun() {
+    try (SweepRunner runner = new SweepRunner(1)) {
+      runner.run(Arrays.asList(new SweepConfiguration(1, 1, 1,
+          TrafficProfile.INTER_FLOOR, 1, 10)), 1, 1);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void parallelismMustBePositive() {
+    new SweepRunner(0);
+  }
+}
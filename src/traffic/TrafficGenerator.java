@@ -0,0 +1,224 @@
+package traffic;
+
+import building.Building;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import scanerzus.Request;
+
+/**
+ * This class generates synthetic hall calls for load testing the elevator system.
+ * Every tick each floor receives a Poisson distributed number of arrivals, and each
+ * arrival picks its destination according to the TrafficProfile.
+ * A generator is reproducible for a given seed, and split() hands out independent
+ * generators so the work can be spread over several threads.
+ */
+public class TrafficGenerator {
+  /**
+   * Poisson samples are drawn in chunks of at most this mean so exp(-mean) stays
+   * well away from underflow.
+   */
+  private static final double MAX_CHUNK_MEAN = 30.0;
+
+  private final int numberOfFloors;
+
+  private final TrafficProfile profile;
+
+  private final double arrivalsPerTick;
+
+  private final SplittableRandom random;
+
+  /**
+   * The number of Poisson chunks drawn for each floor every tick.
+   */
+  private final int[] chunks;
+
+  /**
+   * exp(-mean of one chunk) for each floor.
+   */
+  private final double[] chunkThreshold;
+
+  /**
+   * The probability that an arrival on an upper floor is going to the lobby.
+   */
+  private final double toLobbyProbability;
+
+  /**
+   * The constructor for the traffic generator.
+   *
+   * @param numberOfFloors  the number of floors in the building, at least 2.
+   * @param profile         the traffic profile.
+   * @param arrivalsPerTick the mean number of arrivals per tick over the whole building.
+   * @param seed            the seed of the random number generator.
+   * @throws IllegalArgumentException if any of the arguments are out of range.
+   */
+  public TrafficGenerator(int numberOfFloors, TrafficProfile profile, double arrivalsPerTick,
+                          long seed) {
+    this(numberOfFloors, profile, arrivalsPerTick, new SplittableRandom(seed));
+  }
+
+  private TrafficGenerator(int numberOfFloors, TrafficProfile profile, double arrivalsPerTick,
+                           SplittableRandom random) {
+    if (numberOfFloors < 2) {
+      throw new IllegalArgumentException("numberOfFloors must be greater than or equal to 2");
+    }
+    if (!(arrivalsPerTick >= 0) || Double.isInfinite(arrivalsPerTick)) {
+      throw new IllegalArgumentException("arrivalsPerTick must be a non-negative number");
+    }
+    this.numberOfFloors = numberOfFloors;
+    this.profile = Objects.requireNonNull(profile, "profile must not be null");
+    this.arrivalsPerTick = arrivalsPerTick;
+    this.random = random;
+
+    double upperFloors = numberOfFloors - 1;
+    double interFloorPerFloor = profile.getInterFloor() / numberOfFloors;
+    double lobbyRate = arrivalsPerTick * (profile.getFromLobby() + interFloorPerFloor);
+    double upperRate = arrivalsPerTick * (profile.getToLobby() / upperFloors + interFloorPerFloor);
+    double upperToLobbyRate = arrivalsPerTick
+        * (profile.getToLobby() / upperFloors + interFloorPerFloor / upperFloors);
+    this.toLobbyProbability = upperRate > 0 ? upperToLobbyRate / upperRate : 1.0;
+
+    this.chunks = new int[numberOfFloors];
+    this.chunkThreshold = new double[numberOfFloors];
+    for (int floor = 0; floor < numberOfFloors; floor++) {
+      double rate = floor == 0 ? lobbyRate : upperRate;
+      this.chunks[floor] = Math.max(1, (int) Math.ceil(rate / MAX_CHUNK_MEAN));
+      this.chunkThreshold[floor] = Math.exp(-rate / this.chunks[floor]);
+    }
+  }
+
+  /**
+   * Split off a new generator with the same configuration.
+   * The new generator draws from an independent random stream, so the pair can be
+   * run on different threads and a run stays reproducible for the original seed.
+   *
+   * @return the new generator.
+   */
+  public TrafficGenerator split() {
+    return new TrafficGenerator(this.numberOfFloors, this.profile, this.arrivalsPerTick,
+        this.random.split());
+  }
+
+  /**
+   * Get the profile of this generator.
+   *
+   * @return the traffic profile.
+   */
+  public TrafficProfile getProfile() {
+    return this.profile;
+  }
+
+  /**
+   * Generate the arrivals for one tick and hand each one to the sink.
+   *
+   * @param sink the consumer of the requests.
+   * @return the number of requests generated.
+   */
+  public int generateTick(Consumer<? super Request> sink) {
+    int generated = 0;
+    for (int floor = 0; floor < this.numberOfFloors; floor++) {
+      int arrivals = nextArrivals(floor);
+      for (int i = 0; i < arrivals; i++) {
+        sink.accept(new Request(floor, nextDestination(floor)));
+      }
+      generated += arrivals;
+    }
+    return generated;
+  }
+
+  /**
+   * Generate the arrivals for one tick and add them straight to the building.
+   * No Request objects are created, so this is the fastest way to load a building.
+   * In a zoned building, arrivals the building cannot serve, even with a transfer,
+   * are left out.
+   *
+   * @param building the building to add the requests to; it must be running.
+   * @return the number of requests added.
+   */
+  public int generateTick(Building building) {
+    int generated = 0;
+    for (int floor = 0; floor < this.numberOfFloors; floor++) {
+      int arrivals = nextArrivals(floor);
+      for (int i = 0; i < arrivals; i++) {
+        int destination = nextDestination(floor);
+        if (building.isServed(floor, destination)) {
+          building.addRequestToElevatorSystem(floor, destination);
+          generated++;
+        }
+      }
+    }
+    return generated;
+  }
+
+  /**
+   * A stream of the requests generated over the given number of ticks, in tick order.
+   * The stream is sequential; use split() to generate in parallel.
+   *
+   * @param ticks the number of ticks to generate.
+   * @return the stream of requests.
+   */
+  public Stream<Request> stream(long ticks) {
+    if (ticks < 0) {
+      throw new IllegalArgumentException("ticks must be greater than or equal to 0");
+    }
+    Spliterator<Request> spliterator = new Spliterators.AbstractSpliterator<Request>(
+        Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+      private final List<Request> tick = new ArrayList<>();
+      private int next = 0;
+      private long ticksLeft = ticks;
+
+      @Override
+      public boolean tryAdvance(Consumer<? super Request> action) {
+        while (this.next == this.tick.size()) {
+          if (this.ticksLeft == 0) {
+            return false;
+          }
+          this.ticksLeft--;
+          this.tick.clear();
+          this.next = 0;
+          generateTick(this.tick::add);
+        }
+        action.accept(this.tick.get(this.next++));
+        return true;
+      }
+    };
+    return StreamSupport.stream(spliterator, false);
+  }
+
+  /**
+   * Draw the number of arrivals at a floor for one tick (Knuth's method per chunk).
+   */
+  private int nextArrivals(int floor) {
+    double threshold = this.chunkThreshold[floor];
+    int arrivals = 0;
+    for (int chunk = 0; chunk < this.chunks[floor]; chunk++) {
+      double product = this.random.nextDouble();
+      while (product > threshold) {
+        arrivals++;
+        product *= this.random.nextDouble();
+      }
+    }
+    return arrivals;
+  }
+
+  /**
+   * Pick the destination of an arrival at the given floor.
+   */
+  private int nextDestination(int floor) {
+    if (floor == 0) {
+      return 1 + this.random.nextInt(this.numberOfFloors - 1);
+    }
+    if (this.numberOfFloors == 2 || this.random.nextDouble() < this.toLobbyProbability) {
+      return 0;
+    }
+    // pick one of the other upper floors
+    int destination = 1 + this.random.nextInt(this.numberOfFloors - 2);
+    return destination >= floor ? destination + 1 : destination;
+  }
+}
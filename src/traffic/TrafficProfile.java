@@ -0,0 +1,58 @@
+package traffic;
+
+/**
+ * The traffic profiles the TrafficGenerator can produce.
+ * Each profile splits the arrivals into three kinds of trips:
+ * from the lobby (floor 0) to an upper floor, from an upper floor to the lobby,
+ * and between two random floors.
+ */
+public enum TrafficProfile {
+  MORNING_UP_PEAK("Morning Up-Peak", 0.85, 0.05),
+  LUNCH_TWO_WAY("Lunch Two-Way", 0.40, 0.40),
+  EVENING_DOWN_PEAK("Evening Down-Peak", 0.05, 0.85),
+  INTER_FLOOR("Inter-Floor", 0.0, 0.0);
+
+  private final String display;
+
+  private final double fromLobby;
+
+  private final double toLobby;
+
+  TrafficProfile(String display, double fromLobby, double toLobby) {
+    this.display = display;
+    this.fromLobby = fromLobby;
+    this.toLobby = toLobby;
+  }
+
+  /**
+   * The share of trips that start at the lobby.
+   *
+   * @return the share of trips from the lobby.
+   */
+  public double getFromLobby() {
+    return this.fromLobby;
+  }
+
+  /**
+   * The share of trips that end at the lobby.
+   *
+   * @return the share of trips to the lobby.
+   */
+  public double getToLobby() {
+    return this.toLobby;
+  }
+
+  /**
+   * The share of trips between two random floors.
+   *
+   * @return the share of inter-floor trips.
+   */
+  public double getInterFloor() {
+    return 1.0 - this.fromLobby - this.toLobby;
+  }
+
+  @Override
+  public String toString() {
+    return this.display;
+  }
+}
@@ -0,0 +1,104 @@
+package util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class starts tasks on virtual threads when the running JVM has them.
+ * The sources must compile on JDKs older than 21, which have no virtual thread API, so
+ * virtual threads are reached by reflection; on a JVM without them every method falls back
+ * to daemon platform threads, which behave the same apart from their cost.
+ */
+public final class VirtualThreads {
+  private static final Method OF_VIRTUAL = findMethod(Thread.class, "ofVirtual");
+
+  private static final Method BUILDER_NAME = OF_VIRTUAL == null ? null
+      : findMethod(OF_VIRTUAL.getReturnType(), "name", String.class, long.class);
+
+  private static final Method BUILDER_FACTORY = OF_VIRTUAL == null ? null
+      : findMethod(OF_VIRTUAL.getReturnType(), "factory");
+
+  private VirtualThreads() {
+  }
+
+  /**
+   * Are virtual threads available in the running JVM.
+   *
+   * @return true if the methods of this class start virtual threads.
+   */
+  public static boolean isAvailable() {
+    return BUILDER_FACTORY != null;
+  }
+
+  /**
+   * A thread factory for virtual threads named prefix0, prefix1 and so on, or for
+   * daemon platform threads with the same names if virtual threads are not available.
+   *
+   * @param namePrefix the prefix of the thread names.
+   * @return the thread factory.
+   */
+  public static ThreadFactory factory(String namePrefix) {
+    if (isAvailable()) {
+      try {
+        Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), namePrefix, 0L);
+        return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+      } catch (IllegalAccessException | InvocationTargetException e) {
+        // fall back to platform threads below
+      }
+    }
+    AtomicInteger next = new AtomicInteger();
+    return task -> {
+      Thread thread = new Thread(task, namePrefix + next.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /**
+   * An executor that starts a new thread from factory(namePrefix) for every task.
+   *
+   * @param namePrefix the prefix of the thread names.
+   * @return the executor.
+   */
+  public static ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+    ThreadFactory factory = factory(namePrefix);
+    if (isAvailable()) {
+      Method method = findMethod(Executors.class, "newThreadPerTaskExecutor", ThreadFactory.class);
+      if (method != null) {
+        try {
+          return (ExecutorService) method.invoke(null, factory);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+          // fall back to a cached pool below
+        }
+      }
+    }
+    return Executors.newCachedThreadPool(factory);
+  }
+
+  /**
+   * Start a task on a new virtual thread, or a daemon platform thread if virtual threads
+   * are not available.
+   *
+   * @param name the name of the thread.
+   * @param task the task.
+   * @return the started thread.
+   */
+  public static Thread start(String name, Runnable task) {
+    Thread thread = factory(name).newThread(task);
+    thread.setName(name);
+    thread.start();
+    return thread;
+  }
+
+  private static Method findMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+    try {
+      return type.getMethod(name, parameterTypes);
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+}
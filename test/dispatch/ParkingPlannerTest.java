@@ -0,0 +1,49 @@
+package test.dispatch;
+
+import static org.junit.Assert.assertEquals;
+
+import building.enums.Direction;
+import building.enums.ParkingPolicy;
+import dispatch.ParkingPlanner;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for the ParkingPlanner class.
+ */
+public class ParkingPlannerTest {
+
+  @Test
+  public void arrivalRatesAreLearnedByHourOfTheDay() {
+    ParkingPlanner planner = new ParkingPlanner(ParkingPolicy.DEMAND, 10, 10);
+    for (int i = 0; i < 3; i++) {
+      planner.recordArrival(0, Direction.UP, 5);
+    }
+    planner.recordArrival(4, Direction.DOWN, 15);
+
+    assertEquals(0.3, planner.getArrivalRate(0, Direction.UP, 0), 1e-9);
+    assertEquals(1.0 / 6, planner.getArrivalRate(4, Direction.DOWN, 1), 1e-9);
+    assertEquals(0.0, planner.getArrivalRate(4, Direction.DOWN, 0), 1e-9);
+    assertEquals(0.0, planner.getArrivalRate(0, Direction.UP, 2), 1e-9);
+    assertEquals(1, planner.getHour(10 + 24 * 10));
+  }
+
+  @Test
+  public void lobbyShareFollowsTheDemandOfTheComingHour() {
+    ParkingPlanner planner = new ParkingPlanner(ParkingPolicy.DEMAND, 10, 10);
+    assertEquals(0.5, planner.getLobbyShare(1, 9, null, 0), 1e-9);
+    planner.recordArrival(0, Direction.UP, 5);
+    planner.recordArrival(4, Direction.DOWN, 15);
+
+    assertEquals(1.0, planner.getLobbyShare(1, 9, null, 0), 1e-9);
+    // a quarter of an hour ahead is already the next hour
+    assertEquals(0.0, planner.getLobbyShare(1, 9, null, 9), 1e-9);
+    assertEquals(1.0, planner.getLobbyShare(5, 9, null, 0), 1e-9);
+    assertEquals(0.5, planner.getLobbyShare(5, 9, null, 9), 1e-9);
+    assertEquals(0.5, planner.getLobbyShare(1, 9, null, 50), 1e-9);
+
+    assertEquals(1.0, new ParkingPlanner(ParkingPolicy.LOBBY, 10, 10)
+        .getLobbyShare(1, 9, null, 0), 1e-9);
+    assertEquals(0.5, new ParkingPlanner(ParkingPolicy.SPREAD, 10, 10)
+        .getLobbyShare(1, 9, null, 0), 1e-9);
+  }
+}
@@ -0,0 +1,75 @@
+package test.elevator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import elevator.Elevator;
+import elevator.Kinematics;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import scanerzus.Request;
+
+/**
+ * A JUnit test class for the Kinematics class and the elevators that use it.
+ */
+public class KinematicsTest {
+
+  /**
+   * Step the car until it is back at the ground floor, recording the floor after each step.
+   */
+  private static List<Integer> run(Elevator car, List<Request> requests) {
+    car.start();
+    car.processRequests(requests);
+    List<Integer> floors = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      car.step();
+      floors.add(car.getCurrentFloor());
+    }
+    return floors;
+  }
+
+  /**
+   * The floor after each of the first 41 steps of a ten floor car given the requests of
+   * ElevatorTest.elevatorMetricsCountEveryStep, as stepped before cars had kinematics.
+   */
+  private static final List<Integer> SINGLE_FLOOR_TRACE = List.of(0, 0, 0, 0, 1, 1, 1, 1, 1,
+      2, 2, 2, 2, 2, 3, 3, 3, 3, 3, 4, 5, 5, 5, 5, 5, 6, 6, 6, 6, 6, 7, 8, 9, 9, 9, 9, 9, 9,
+      9, 9, 9);
+
+  @Test
+  public void oneFloorPerStepMatchesTheSingleFloorModel() {
+    List<Request> requests = List.of(new Request(0, 1), new Request(0, 2), new Request(0, 3),
+        new Request(5, 6), new Request(5, 9));
+    Elevator defaultCar = new Elevator(10, 10);
+    Elevator slowCar = new Elevator(10, 10);
+    slowCar.setKinematics(new Kinematics(1, 1));
+    assertEquals(SINGLE_FLOOR_TRACE, run(defaultCar, requests).subList(0, 41));
+    assertEquals(SINGLE_FLOOR_TRACE, run(slowCar, requests).subList(0, 41));
+  }
+
+  @Test
+  public void fastCarsSlowDownForEveryStop() {
+    Kinematics kinematics = new Kinematics(4, 2);
+    assertEquals(2, kinematics.nextSpeed(0, 29));
+    assertEquals(4, kinematics.nextSpeed(2, 29));
+    // it needs 4 + 2 floors to stop from 4, but only 3 + 1 from 3
+    assertEquals(3, kinematics.nextSpeed(4, 5));
+    assertEquals(1, kinematics.nextSpeed(0, 1));
+    assertEquals(8, kinematics.travelSteps(25, 0));
+
+    Elevator car = new Elevator(30, 5);
+    car.setKinematics(kinematics);
+    List<Integer> floors = run(car, List.of(new Request(0, 3), new Request(0, 25)));
+    // the door opens at 0, then the car moves 2 floors and 1 more to the stop at 3
+    assertEquals(List.of(0, 2, 3, 3), floors.subList(3, 7));
+    assertTrue(floors.contains(25));
+    assertTrue(floors.contains(29));
+    int speed = 0;
+    for (int i = 1; i < floors.size(); i++) {
+      int moved = Math.abs(floors.get(i) - floors.get(i - 1));
+      assertTrue(moved <= 4 && moved <= speed + 2);
+      speed = moved;
+    }
+  }
+}
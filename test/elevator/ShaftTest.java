@@ -0,0 +1,49 @@
+package test.elevator;
+
+import static org.junit.Assert.assertTrue;
+
+import elevator.Elevator;
+import elevator.Shaft;
+import java.util.List;
+import org.junit.Test;
+import scanerzus.Request;
+
+/**
+ * A JUnit test class for the Shaft class.
+ */
+public class ShaftTest {
+
+  @Test
+  public void twinCarsNeverComeCloserThanTheSeparation() {
+    Elevator lower = new Elevator(10, 5, 0, 1, 5);
+    Elevator upper = new Elevator(10, 5, 6, 7, 9);
+    Shaft shaft = new Shaft(lower, upper, 2);
+    lower.start();
+    upper.start();
+    boolean lowerAtTop = false;
+    boolean upperAtBase = false;
+    for (int i = 0; i < 500; i++) {
+      if (lower.isTakingRequests()) {
+        lower.processRequests(lower.getCurrentFloor() == 0 ? List.of(new Request(0, 5))
+            : List.of(new Request(5, 0)));
+      }
+      if (upper.isTakingRequests()) {
+        upper.processRequests(upper.getCurrentFloor() == 6 ? List.of(new Request(6, 9))
+            : List.of(new Request(9, 6)));
+      }
+      shaft.step();
+      assertTrue(upper.getCurrentFloor() - lower.getCurrentFloor() >= 2);
+      lowerAtTop |= lower.getCurrentFloor() == 5;
+      upperAtBase |= upper.getCurrentFloor() == 6;
+    }
+    // the ends of the runs are too close for both cars, so they took turns
+    assertTrue(lowerAtTop);
+    assertTrue(upperAtBase);
+    assertTrue(lower.getMetrics().getTicksIdle() + upper.getMetrics().getTicksIdle() > 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void runsMayNotOverlapByTheSeparation() {
+    new Shaft(new Elevator(10, 5, 0, 1, 5), new Elevator(10, 5, 5, 6, 9), 2);
+  }
+}
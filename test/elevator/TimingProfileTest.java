@@ -0,0 +1,101 @@
+package test.elevator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import building.Building;
+import elevator.Elevator;
+import elevator.ElevatorReport;
+import elevator.TimingProfile;
+import java.util.List;
+import org.junit.Test;
+import scanerzus.Request;
+
+/**
+ * A JUnit test class for the TimingProfile class and the elevators that use it.
+ */
+public class TimingProfileTest {
+
+  @Test
+  public void heavyStopsKeepTheDoorOpenLonger() {
+    TimingProfile adaptive = new TimingProfile(3, 5, true);
+    assertEquals(3, adaptive.getDoorOpenTime(1));
+    assertEquals(5, adaptive.getDoorOpenTime(3));
+    assertEquals(6, adaptive.getDoorOpenTime(10));
+    assertEquals(3, TimingProfile.STANDARD.getDoorOpenTime(10));
+
+    Elevator car = new Elevator(10, 10);
+    car.setTimingProfile(adaptive);
+    car.start();
+    car.processRequests(List.of(new Request(0, 4), new Request(0, 4), new Request(0, 6)));
+    assertEquals(4, car.getDoorOpenTime(4));
+    car.step();
+    assertFalse(car.isDoorClosed());
+    assertEquals(5, car.getDoorOpenTimeTotal());
+    assertEquals(5, car.getDoorOpenTimeLeft());
+    while (car.getCurrentFloor() < 6 || car.isDoorClosed()) {
+      car.step();
+    }
+    assertEquals(3, car.getDoorOpenTimeTotal());
+  }
+
+  @Test
+  public void aGroupKeepsTheDoorOpenAsLongAsItsRiders() {
+    TimingProfile adaptive = new TimingProfile(3, 5, true);
+    Elevator group = new Elevator(10, 10);
+    Elevator singles = new Elevator(10, 10);
+    group.setTimingProfile(adaptive);
+    singles.setTimingProfile(adaptive);
+    group.start();
+    singles.start();
+    // four riders going together, and three riders going to three floors
+    group.processRequests(List.of(new Request(0, 4, 4)));
+    singles.processRequests(List.of(new Request(0, 4), new Request(0, 5),
+        new Request(0, 6)));
+    assertEquals(6, group.getDoorOpenTime(0));
+    assertEquals(5, singles.getDoorOpenTime(0));
+    assertEquals(6, group.getDoorOpenTime(4));
+    assertEquals(3, singles.getDoorOpenTime(4));
+    group.step();
+    assertEquals(6, group.getDoorOpenTimeTotal());
+  }
+
+  @Test
+  public void buildingsHandTheRidersOfACoalescedRequestToTheCar() {
+    Building building = new Building(10, 1, 10);
+    building.setTimingProfile(0, new TimingProfile(3, 5, true));
+    building.startElevatorSystem();
+    for (int i = 0; i < 4; i++) {
+      building.addRequestToElevatorSystem(0, 4);
+    }
+    building.stepElevatorSystem();
+    ElevatorReport report = building.getElevatorReports()[0];
+    assertEquals(0, report.getCurrentFloor());
+    assertFalse(report.isDoorClosed());
+    assertEquals(6, report.getDoorOpenTimer());
+  }
+
+  @Test
+  public void queuedRequestsCutTheEndWaitShort() {
+    Elevator standard = new Elevator(10, 10);
+    Elevator adaptive = new Elevator(10, 10);
+    adaptive.setTimingProfile(new TimingProfile(3, 5, true));
+    standard.setQueueDepth(2);
+    adaptive.setQueueDepth(2);
+    standard.start();
+    adaptive.start();
+    assertEquals(5, standard.getStopWaitTimeLeft());
+    assertEquals(1, adaptive.getStopWaitTimeLeft());
+    standard.step();
+    adaptive.step();
+    assertTrue(standard.isTakingRequests());
+    assertFalse(adaptive.isTakingRequests());
+
+    // with nothing queued the adaptive elevator waits as long as the standard one
+    adaptive.setQueueDepth(0);
+    adaptive.reset();
+    adaptive.start();
+    assertEquals(5, adaptive.getStopWaitTimeLeft());
+  }
+}
@@ -0,0 +1,72 @@
+package test.monitoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import building.Building;
+import java.lang.management.ManagementFactory;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import monitoring.BuildingMonitor;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for the BuildingMonitor class.
+ */
+public class BuildingMonitorTest {
+  private static final MBeanServer SERVER = ManagementFactory.getPlatformMBeanServer();
+
+  private static void step(Building building, int steps) {
+    for (int i = 0; i < steps; i++) {
+      building.stepElevatorSystem();
+    }
+  }
+
+  @Test
+  public void attributesReflectTheLastPublishedStep() throws Exception {
+    Building building = new Building(10, 2, 5);
+    building.startElevatorSystem();
+    BuildingMonitor closed;
+    ObjectName buildingName = new ObjectName("building:type=Building,name=\"stepped\"");
+    ObjectName elevatorName = new ObjectName(
+        "building:type=Elevator,building=\"stepped\",index=1");
+    try (BuildingMonitor monitor = new BuildingMonitor(building, "stepped", 5)) {
+      closed = monitor;
+      monitor.register();
+      assertEquals(10, SERVER.getAttribute(buildingName, "NumberOfFloors"));
+      assertEquals(2, SERVER.getAttribute(buildingName, "NumberOfElevators"));
+      assertEquals(0L, SERVER.getAttribute(buildingName, "StepCount"));
+
+      building.addRequestToElevatorSystem(0, 3);
+      step(building, 4);
+      // published every 5 steps, so the snapshot still shows the start
+      assertEquals(0L, SERVER.getAttribute(buildingName, "StepCount"));
+      assertEquals(0L, SERVER.getAttribute(buildingName, "DispatchedRequests"));
+
+      step(building, 1);
+      assertEquals(5L, SERVER.getAttribute(buildingName, "StepCount"));
+      assertEquals(building.getStepCount(), monitor.getStepCount());
+      assertEquals(1L, SERVER.getAttribute(buildingName, "DispatchedRequests"));
+      assertEquals(building.getStatusElevatorSystem().getElevatorReports()[1]
+          .getCurrentFloor(), SERVER.getAttribute(elevatorName, "CurrentFloor"));
+      assertEquals(building.getElevatorMetrics()[1].getFloorsTravelled(),
+          SERVER.getAttribute(elevatorName, "FloorsTravelled"));
+      assertTrue((Double) SERVER.getAttribute(buildingName, "TickRate") > 0);
+
+      step(building, 5);
+      assertEquals(10L, SERVER.getAttribute(buildingName, "StepCount"));
+    }
+    assertFalse(SERVER.isRegistered(buildingName));
+    assertFalse(SERVER.isRegistered(elevatorName));
+
+    step(building, 5);
+    // a closed monitor no longer listens to the steps
+    assertEquals(10, closed.getStepCount());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void publishEveryStepsMustBePositive() {
+    new BuildingMonitor(new Building(10, 2, 5), "invalid", 0);
+  }
+}
@@ -0,0 +1,93 @@
+package test.scanerzus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import building.AdmissionPolicy;
+import building.Building;
+import building.enums.OverflowPolicy;
+import org.junit.Test;
+import scanerzus.IntakeMetrics;
+import scanerzus.ScannerRuntime;
+
+/**
+ * A JUnit test class for the ScannerRuntime class.
+ */
+public class ScannerRuntimeTest {
+
+  private static Building building(OverflowPolicy overflowPolicy) {
+    Building building = new Building(10, 2, 5, new AdmissionPolicy(5, overflowPolicy, 100));
+    building.startElevatorSystem();
+    return building;
+  }
+
+  private static void awaitShed(ScannerRuntime runtime) throws InterruptedException {
+    long deadline = System.nanoTime() + 10_000_000_000L;
+    while (runtime.getMetrics().getShed() == 0 && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+  }
+
+  @Test
+  public void aFullHandoffShedsAndCloseDiscardsTheRest() throws InterruptedException {
+    ScannerRuntime runtime = new ScannerRuntime(building(OverflowPolicy.REJECT), 0, 4, 1);
+    runtime.start();
+    // nothing steps the building, so the handoff fills and stays full
+    awaitShed(runtime);
+    runtime.close();
+
+    IntakeMetrics metrics = runtime.getMetrics();
+    assertTrue(metrics.getShed() > 0);
+    assertEquals(4, metrics.getProduced());
+    assertEquals(0, metrics.getAdmitted());
+    assertEquals(0, metrics.getRejected());
+    assertEquals(4, metrics.getDiscarded());
+  }
+
+  @Test
+  public void closeJoinsEveryScanner() throws InterruptedException {
+    ScannerRuntime runtime = new ScannerRuntime(building(OverflowPolicy.REJECT), 0, 4, 2);
+    runtime.start();
+    awaitShed(runtime);
+    runtime.close();
+
+    IntakeMetrics closed = runtime.getMetrics();
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      assertFalse(thread.getName(), thread.getName().startsWith("scanner-"));
+    }
+    Thread.sleep(20);
+    assertEquals(closed.getProduced(), runtime.getMetrics().getProduced());
+    assertEquals(closed.getShed(), runtime.getMetrics().getShed());
+  }
+
+  @Test
+  public void everyRequestProducedIsAccountedFor() {
+    Building building = building(OverflowPolicy.REJECT);
+    ScannerRuntime runtime = new ScannerRuntime(building, 0, 64, 3);
+    runtime.start();
+    for (int i = 0; i < 200; i++) {
+      building.stepElevatorSystem();
+      IntakeMetrics before = runtime.getMetrics();
+      runtime.drain();
+      IntakeMetrics after = runtime.getMetrics();
+      // scanners keep flooding the handoff, but a drain takes at most what was waiting
+      assertTrue(after.getAdmitted() + after.getRejected()
+          - before.getAdmitted() - before.getRejected() <= 64);
+    }
+    runtime.close();
+
+    IntakeMetrics metrics = runtime.getMetrics();
+    assertTrue(metrics.toString(), metrics.getAdmitted() > 0);
+    assertTrue(metrics.toString(), metrics.getRejected() > 0);
+    assertEquals(metrics.toString(), metrics.getProduced(),
+        metrics.getAdmitted() + metrics.getRejected() + metrics.getDiscarded());
+    assertEquals(metrics.getAdmitted() + metrics.getRejected(),
+        metrics.getHandoffLatencyMicros().getCount());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void aBlockingAdmissionPolicyIsRefused() {
+    new ScannerRuntime(building(OverflowPolicy.BLOCK), 0, 4, 4);
+  }
+}
@@ -0,0 +1,115 @@
+package test.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import building.AdmissionPolicy;
+import building.Building;
+import building.enums.OverflowPolicy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import server.BuildingServer;
+
+/**
+ * A JUnit test class for the BuildingServer class.
+ */
+public class BuildingServerTest {
+
+  /**
+   * Call an endpoint and return the status code and the body, as "code body".
+   */
+  private static String call(BuildingServer server, String method, String path, String body)
+      throws IOException {
+    URL url = new URL("http://127.0.0.1:" + server.getPort() + path);
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    connection.setRequestMethod(method);
+    if (body != null) {
+      connection.setDoOutput(true);
+      try (OutputStream out = connection.getOutputStream()) {
+        out.write(body.getBytes(StandardCharsets.US_ASCII));
+      }
+    }
+    int code = connection.getResponseCode();
+    InputStream in = code < 400 ? connection.getInputStream() : connection.getErrorStream();
+    ByteArrayOutputStream answer = new ByteArrayOutputStream();
+    try (InputStream stream = in) {
+      stream.transferTo(answer);
+    }
+    return code + " " + answer.toString(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void requestsRoundTripThroughTheApi() throws IOException {
+    Building building = new Building(10, 2, 5);
+    try (BuildingServer server = new BuildingServer(building, 0)) {
+      server.start();
+      assertTrue(call(server, "POST", "/start", null).startsWith("200 "));
+      assertEquals("200 {\"accepted\":3,\"rejected\":0}",
+          call(server, "POST", "/requests", "0 5\r\n3,1\r\n9 2"));
+      String status = call(server, "GET", "/status", null);
+      assertTrue(status, status.contains("\"upRequests\":1"));
+      assertTrue(status, status.contains("\"downRequests\":2"));
+
+      assertEquals("200 {\"stepCount\":4}", call(server, "POST", "/step?n=4", null));
+      assertEquals(4, building.getStepCount());
+      status = call(server, "GET", "/status", null);
+      assertTrue(status, status.contains("\"upRequests\":0"));
+
+      // a malformed body adds nothing
+      assertEquals("400 {\"error\":\"line 2: expected two floors\"}",
+          call(server, "POST", "/requests", "0 5\n3 1 4\n"));
+      assertEquals("400 {\"error\":\"request 2: floors must be between 0 and 9\"}",
+          call(server, "POST", "/requests", "0 5\n3 10\n"));
+      assertEquals("405 {\"error\":\"use POST\"}", call(server, "GET", "/requests", null));
+      status = call(server, "GET", "/status", null);
+      assertTrue(status, status.contains("\"upRequests\":0"));
+    }
+  }
+
+  @Test
+  public void requestsAreRateLimitedByTheCallersAddress() throws IOException {
+    Building building = new Building(10, 2, 5,
+        new AdmissionPolicy(100, OverflowPolicy.REJECT, 0, 0.001, 2));
+    try (BuildingServer server = new BuildingServer(building, 0)) {
+      server.start();
+      call(server, "POST", "/start", null);
+      assertEquals("200 {\"accepted\":2,\"rejected\":1}",
+          call(server, "POST", "/requests", "0 5\n0 6\n0 7\n"));
+      assertEquals("200 {\"accepted\":0,\"rejected\":1}",
+          call(server, "POST", "/requests", "0 8\n"));
+      assertEquals(2, building.getStatusElevatorSystem().getRateLimitedRequests());
+    }
+  }
+
+  @Test
+  public void blockedRequestsLetStepsMakeRoom() throws Exception {
+    Building building = new Building(10, 2, 5,
+        new AdmissionPolicy(1, OverflowPolicy.BLOCK, 30_000));
+    try (BuildingServer server = new BuildingServer(building, 0)) {
+      server.start();
+      call(server, "POST", "/start", null);
+      long start = System.nanoTime();
+      CompletableFuture<String> added = CompletableFuture.supplyAsync(() -> {
+        try {
+          return call(server, "POST", "/requests", "0 5\n0 6\n0 7\n");
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      });
+      // each step waits for the lock the requests used to hold for their whole wait
+      while (!added.isDone() && System.nanoTime() - start < TimeUnit.SECONDS.toNanos(20)) {
+        call(server, "POST", "/step", null);
+      }
+      assertEquals("200 {\"accepted\":3,\"rejected\":0}", added.get(1, TimeUnit.SECONDS));
+      assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(20));
+    }
+  }
+}
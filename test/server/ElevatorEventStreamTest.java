@@ -0,0 +1,154 @@
+package test.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import building.Building;
+import elevator.ElevatorReport;
+import elevator.Kinematics;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import org.junit.Before;
+import org.junit.Test;
+import server.ElevatorEventStream;
+
+/**
+ * A JUnit test class for the ElevatorEventStream class.
+ */
+public class ElevatorEventStreamTest {
+  private Building building;
+
+  private ElevatorEventStream events;
+
+  @Before
+  public void setUp() {
+    this.building = new Building(10, 3, 5);
+    this.building.setKinematics(0, new Kinematics(3, 1));
+    this.building.startElevatorSystem();
+    this.events = new ElevatorEventStream(this.building, new ReentrantLock());
+  }
+
+  private static String text(byte[] frame) {
+    return new String(frame, StandardCharsets.UTF_8);
+  }
+
+  private static int count(String text, String part) {
+    int count = 0;
+    for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) {
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Stop the building while its cars are high up. Car 0 is three times as fast, so it
+   * reaches the ground first: for 6 steps every car changes, on the 7th only cars 1 and 2
+   * do, and after that none.
+   */
+  private void stopHighUp() {
+    for (int i = 0; i < 12; i++) {
+      this.building.stepElevatorSystem();
+    }
+    this.building.stopElevatorSystem();
+  }
+
+  /**
+   * The cars with an event in a frame, as the indexes in the event ids.
+   */
+  private static Set<Integer> cars(byte[] frame) {
+    Set<Integer> cars = new TreeSet<>();
+    if (frame != null) {
+      for (String line : text(frame).split("\n")) {
+        if (line.startsWith("id: ")) {
+          cars.add(Integer.parseInt(line.substring(line.indexOf('-') + 1)));
+        }
+      }
+    }
+    return cars;
+  }
+
+  @Test
+  public void onlyChangedCarsAreSent() {
+    BlockingQueue<byte[]> client = this.events.connect(64);
+    client.clear();
+    stopHighUp();
+    client.clear();
+    int partialSteps = 0;
+    int emptySteps = 0;
+    for (int i = 0; i < 12; i++) {
+      ElevatorReport[] before = this.building.getElevatorReports();
+      this.building.stepElevatorSystem();
+      ElevatorReport[] after = this.building.getElevatorReports();
+      Set<Integer> changed = new TreeSet<>();
+      for (int car = 0; car < after.length; car++) {
+        if (!after[car].equals(before[car])) {
+          changed.add(car);
+        }
+      }
+      byte[] frame = client.poll();
+      assertNull(client.poll());
+      assertEquals("step " + i, changed, cars(frame));
+      partialSteps += changed.size() == 1 || changed.size() == 2 ? 1 : 0;
+      emptySteps += frame == null ? 1 : 0;
+    }
+    assertEquals(1, partialSteps);
+    assertEquals(5, emptySteps);
+  }
+
+  @Test
+  public void aClientThatFallsBehindGetsAFreshSnapshot() {
+    stopHighUp();
+    for (int i = 0; i < 6; i++) {
+      this.building.stepElevatorSystem();
+    }
+    BlockingQueue<byte[]> client = this.events.connect(1);
+    // only cars 1 and 2 change, but the queue is full, so the client gets every car
+    this.building.stepElevatorSystem();
+    String snapshot = text(client.poll());
+    assertNull(client.poll());
+    assertEquals(snapshot, 3, count(snapshot, "event: elevator\n"));
+    assertEquals(snapshot, 2, count(snapshot, "\"step\":" + this.building.getStepCount() + ","));
+    assertEquals(snapshot, 1, count(snapshot, "\"step\":" + (this.building.getStepCount() - 1)
+        + ","));
+  }
+
+  @Test
+  public void disconnectedClientsReceiveNothing() {
+    BlockingQueue<byte[]> client = this.events.connect(64);
+    BlockingQueue<byte[]> other = this.events.connect(64);
+    this.events.disconnect(client);
+    assertEquals(1, this.events.getNumberOfClients());
+    client.clear();
+    other.clear();
+
+    this.building.addRequestToElevatorSystem(0, 4);
+    for (int i = 0; i < 3; i++) {
+      this.building.stepElevatorSystem();
+    }
+    assertNull(client.poll());
+    assertTrue(other.size() > 0);
+
+    this.events.disconnect(other);
+    assertEquals(0, this.events.getNumberOfClients());
+    for (int i = 0; i < 3; i++) {
+      this.building.stepElevatorSystem();
+    }
+    // a client connecting after steps nobody watched still sees the current state
+    String snapshot = text(this.events.connect(8).poll());
+    assertTrue(snapshot, snapshot.contains("\"step\":" + this.building.getStepCount()));
+  }
+
+  @Test
+  public void closeEndsEveryStream() {
+    BlockingQueue<byte[]> client = this.events.connect(8);
+    this.events.close();
+    assertEquals(0, client.poll().length);
+    assertNull(client.poll());
+    this.building.stepElevatorSystem();
+    assertNull(client.poll());
+  }
+}
@@ -0,0 +1,73 @@
+package test.traffic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import scanerzus.Request;
+import traffic.TrafficGenerator;
+import traffic.TrafficProfile;
+
+/**
+ * A JUnit test class for the TrafficGenerator class.
+ */
+public class TrafficGeneratorTest {
+
+  private static List<String> trips(TrafficGenerator generator, long ticks) {
+    return generator.stream(ticks)
+        .map(request -> request.getStartFloor() + ">" + request.getEndFloor())
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  public void theSameSeedGivesTheSameStream() {
+    List<String> first = trips(new TrafficGenerator(20, TrafficProfile.LUNCH_TWO_WAY, 3, 42),
+        1000);
+    List<String> second = trips(new TrafficGenerator(20, TrafficProfile.LUNCH_TWO_WAY, 3, 42),
+        1000);
+    assertEquals(first, second);
+    assertNotEquals(first,
+        trips(new TrafficGenerator(20, TrafficProfile.LUNCH_TWO_WAY, 3, 43), 1000));
+  }
+
+  @Test
+  public void splitGeneratorsAreIndependent() {
+    TrafficGenerator parent = new TrafficGenerator(20, TrafficProfile.INTER_FLOOR, 3, 7);
+    TrafficGenerator child = parent.split();
+    TrafficGenerator sameParent = new TrafficGenerator(20, TrafficProfile.INTER_FLOOR, 3, 7);
+    TrafficGenerator sameChild = sameParent.split();
+
+    // running the child does not change what the parent generates
+    List<String> childTrips = trips(child, 500);
+    assertEquals(trips(sameParent, 500), trips(parent, 500));
+    assertEquals(childTrips, trips(sameChild, 500));
+    assertNotEquals(childTrips, trips(new TrafficGenerator(20, TrafficProfile.INTER_FLOOR,
+        3, 7), 500));
+  }
+
+  @Test
+  public void arrivalsMatchTheRateAndProfile() {
+    int floors = 10;
+    double rate = 4;
+    int ticks = 20_000;
+    for (TrafficProfile profile : TrafficProfile.values()) {
+      TrafficGenerator generator = new TrafficGenerator(floors, profile, rate, 1);
+      List<Request> requests = new ArrayList<>();
+      for (int tick = 0; tick < ticks; tick++) {
+        generator.generateTick(requests::add);
+      }
+      long fromLobby = requests.stream().filter(r -> r.getStartFloor() == 0).count();
+      long toLobby = requests.stream().filter(r -> r.getEndFloor() == 0).count();
+      double total = requests.size();
+      assertEquals(profile.toString(), rate, total / ticks, rate * 0.02);
+      double lobbyShare = profile.getInterFloor() / floors;
+      assertEquals(profile.toString(), profile.getFromLobby() + lobbyShare,
+          fromLobby / total, 0.01);
+      assertEquals(profile.toString(), profile.getToLobby() + lobbyShare, toLobby / total,
+          0.01);
+    }
+  }
+}